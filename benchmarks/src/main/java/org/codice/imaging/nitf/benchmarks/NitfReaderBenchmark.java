@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.impl.FileChannelReader;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.MappedFileReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the NitfReader implementations by parsing every JITC sample file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = NitfReaderBenchmark.WARMUP_ITERATIONS)
+@Measurement(iterations = NitfReaderBenchmark.MEASUREMENT_ITERATIONS)
+@Fork(1)
+public class NitfReaderBenchmark {
+
+    static final int WARMUP_ITERATIONS = 5;
+    static final int MEASUREMENT_ITERATIONS = 10;
+
+    private static final String[] SAMPLE_DIRECTORIES = {"JitcNitf20Samples", "JitcNitf21Samples"};
+
+    /**
+     * The NitfReader implementation to benchmark.
+     */
+    @Param({"FileReader", "FileChannelReader", "MappedFileReader"})
+    protected String readerType;
+
+    private final List<File> samples = new ArrayList<>();
+
+    /**
+     * Locate (and if necessary, extract) the sample files.
+     *
+     * @throws IOException if the samples cannot be found.
+     */
+    @Setup
+    public final void findSamples() throws IOException {
+        File workingDirectory = Files.createTempDirectory("nitfbenchmark").toFile();
+        workingDirectory.deleteOnExit();
+        for (String directory : SAMPLE_DIRECTORIES) {
+            samples.addAll(SampleFiles.getSamples(directory, workingDirectory));
+        }
+    }
+
+    /**
+     * Parse the file headers and segment subheaders, skipping over the segment data.
+     *
+     * @param blackhole sink for the parse results
+     * @throws NitfFormatException if parsing fails
+     */
+    @Benchmark
+    public final void parseHeadersOnly(final Blackhole blackhole) throws NitfFormatException {
+        parseAll(SlottedParseStrategy.HEADERS_ONLY, blackhole);
+    }
+
+    /**
+     * Parse the headers and read all of the segment data.
+     *
+     * @param blackhole sink for the parse results
+     * @throws NitfFormatException if parsing fails
+     */
+    @Benchmark
+    public final void parseAllSegmentData(final Blackhole blackhole) throws NitfFormatException {
+        parseAll(SlottedParseStrategy.ALL_SEGMENT_DATA, blackhole);
+    }
+
+    private void parseAll(final int segmentsToExtract, final Blackhole blackhole) throws NitfFormatException {
+        for (File sample : samples) {
+            SlottedParseStrategy parseStrategy = new SlottedParseStrategy(segmentsToExtract);
+            NitfReader reader = openReader(sample);
+            try {
+                NitfParser.parse(reader, parseStrategy);
+                blackhole.consume(parseStrategy.getDataSource());
+            } finally {
+                closeReader(reader);
+            }
+        }
+    }
+
+    private NitfReader openReader(final File sample) throws NitfFormatException {
+        switch (readerType) {
+            case "FileChannelReader":
+                return new FileChannelReader(sample);
+            case "MappedFileReader":
+                return new MappedFileReader(sample);
+            default:
+                return new FileReader(sample);
+        }
+    }
+
+    private void closeReader(final NitfReader reader) throws NitfFormatException {
+        if (reader instanceof FileChannelReader) {
+            ((FileChannelReader) reader).close();
+        } else if (reader instanceof MappedFileReader) {
+            ((MappedFileReader) reader).close();
+        } else {
+            ((FileReader) reader).close();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Access to the sample files from the shared test resources.
+ *
+ * The readers under test need real files, so samples packaged in the shared-test-resources jar are
+ * copied out to a temporary directory first.
+ */
+final class SampleFiles {
+
+    private SampleFiles() {
+    }
+
+    /**
+     * Get the NITF / NSIF sample files in a shared test resources directory.
+     *
+     * @param resourceDirectory the directory name, such as "JitcNitf21Samples"
+     * @param workingDirectory the directory to extract packaged samples into
+     * @return the sample files, sorted by name
+     * @throws IOException if the samples could not be located or extracted
+     */
+    static List<File> getSamples(final String resourceDirectory, final File workingDirectory) throws IOException {
+        URL directoryUrl = SampleFiles.class.getResource("/" + resourceDirectory);
+        if (directoryUrl == null) {
+            throw new IOException("Sample directory not found on classpath: " + resourceDirectory);
+        }
+        List<File> samples = new ArrayList<>();
+        if ("jar".equals(directoryUrl.getProtocol())) {
+            JarFile jarFile = ((JarURLConnection) directoryUrl.openConnection()).getJarFile();
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && entry.getName().startsWith(resourceDirectory + "/") && isNitfName(entry.getName())) {
+                    File target = new File(workingDirectory, entry.getName());
+                    target.getParentFile().mkdirs();
+                    target.getParentFile().deleteOnExit();
+                    target.deleteOnExit();
+                    try (InputStream inputStream = jarFile.getInputStream(entry)) {
+                        Files.copy(inputStream, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    samples.add(target);
+                }
+            }
+        } else {
+            File[] files;
+            try {
+                files = new File(directoryUrl.toURI()).listFiles();
+            } catch (URISyntaxException ex) {
+                throw new IOException(ex);
+            }
+            if (files != null) {
+                for (File file : files) {
+                    if (file.isFile() && isNitfName(file.getName())) {
+                        samples.add(file);
+                    }
+                }
+            }
+        }
+        Collections.sort(samples);
+        return samples;
+    }
+
+    private static boolean isNitfName(final String name) {
+        String lowerCaseName = name.toLowerCase();
+        return lowerCaseName.endsWith(".ntf") || lowerCaseName.endsWith(".nsf");
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.text.TextSegment;
+
+/**
+ * SegmentVisitor receives the parts of a NITF file as they are parsed, instead of after the whole
+ * file has been parsed.
+ * <p>
+ * Each segment is passed to the visitor as soon as its subheader has been parsed, together with
+ * a stream over the segment data. The stream is only valid until the visit method returns: any
+ * data that has not been read by then is skipped, and parsing continues with the next segment.
+ * The segment data is not attached to the segment.
+ * <p>
+ * All methods do nothing by default, so implementations only need to override the methods for
+ * the parts they are interested in.
+ */
+public interface SegmentVisitor {
+
+    /**
+     * Visit the file header.
+     * <p>
+     * This is called once, before the first segment is visited.
+     *
+     * @param header the file header.
+     * @throws IOException if the visitor fails, which stops parsing.
+     */
+    default void visitFileHeader(final NitfHeader header) throws IOException {
+    }
+
+    /**
+     * Visit one image segment.
+     *
+     * @param segment the image segment header.
+     * @param data the image data, which is only valid during this call.
+     * @throws IOException if the visitor fails (including failures reading the data), which stops parsing.
+     */
+    default void visitImageSegment(final ImageSegment segment, final InputStream data) throws IOException {
+    }
+
+    /**
+     * Visit one graphic segment.
+     *
+     * @param segment the graphic segment header.
+     * @param data the graphic data, which is only valid during this call.
+     * @throws IOException if the visitor fails (including failures reading the data), which stops parsing.
+     */
+    default void visitGraphicSegment(final GraphicSegment segment, final InputStream data) throws IOException {
+    }
+
+    /**
+     * Visit one symbol segment (NITF 2.0 only).
+     *
+     * @param segment the symbol segment header.
+     * @param data the symbol data, which is only valid during this call.
+     * @throws IOException if the visitor fails (including failures reading the data), which stops parsing.
+     */
+    default void visitSymbolSegment(final SymbolSegment segment, final InputStream data) throws IOException {
+    }
+
+    /**
+     * Visit one label segment (NITF 2.0 only).
+     *
+     * @param segment the label segment header.
+     * @param data the label text, which is only valid during this call.
+     * @throws IOException if the visitor fails (including failures reading the data), which stops parsing.
+     */
+    default void visitLabelSegment(final LabelSegment segment, final InputStream data) throws IOException {
+    }
+
+    /**
+     * Visit one text segment.
+     *
+     * @param segment the text segment header.
+     * @param data the text, which is only valid during this call.
+     * @throws IOException if the visitor fails (including failures reading the data), which stops parsing.
+     */
+    default void visitTextSegment(final TextSegment segment, final InputStream data) throws IOException {
+    }
+
+    /**
+     * Visit one data extension segment.
+     * <p>
+     * For a TRE overflow DES, the overflow TREs have already been parsed into the segment, and the
+     * data stream is empty.
+     *
+     * @param segment the data extension segment header.
+     * @param data the DES data, which is only valid during this call.
+     * @throws IOException if the visitor fails (including failures reading the data), which stops parsing.
+     */
+    default void visitDataExtensionSegment(final DataExtensionSegment segment, final InputStream data)
+            throws IOException {
+    }
+}
@@ -40,6 +40,21 @@ public interface NitfReader {
     */
     Boolean canSeek();
 
+    /**
+        Return positional access to the same content as this reader.
+        <p>
+        The returned source does not share (or change) the position of this reader, and can be
+        used concurrently from multiple threads.
+        <p>
+        This is only valid if the reader can seek. Readers that cannot provide positional access
+        (e.g. those reading from a stream) return null, which is what the default implementation does.
+
+        @return segment data source for the reader content, or null if not supported.
+    */
+    default SegmentDataSource getSegmentDataSource() {
+        return null;
+    }
+
     /**
         Seek to the end of the file.
         <p>
@@ -128,6 +143,71 @@ public interface NitfReader {
     */
     Double readBytesAsDouble(final int count) throws NitfFormatException;
 
+    /**
+        Read an integer value from the file, as a primitive.
+        <p>
+        This interprets the bytes the same way as readBytesAsInteger(), but the digits are converted
+        directly from the bytes that were read, without creating an intermediate String or boxing the result.
+        It is intended for the numeric fields that are read many times per segment.
+        <p>
+        The default implementation uses readBytes() and Integer.parseInt(), so implementations should override
+        it if they can convert the bytes directly.
+
+        @param count the number of bytes to read and convert to an integer.
+        @return integer representation of the specified number of bytes.
+        @throws NitfFormatException if the content could not be converted, or something else went wrong during parsing (e.g. end of file).
+    */
+    default int readAsciiInt(final int count) throws NitfFormatException {
+        String intString = readBytes(count);
+        try {
+            return Integer.parseInt(intString);
+        } catch (NumberFormatException ex) {
+            throw new NitfFormatException(String.format("Bad Integer format: [%s]", intString), getCurrentOffset());
+        }
+    }
+
+    /**
+        Read a long integer value from the file, as a primitive.
+        <p>
+        This interprets the bytes the same way as readBytesAsLong(), but without creating an intermediate
+        String or boxing the result.
+        <p>
+        The default implementation uses readBytes() and Long.parseLong().
+
+        @param count the number of bytes to read and convert to a long integer.
+        @return long integer representation of the specified number of bytes.
+        @throws NitfFormatException if the content could not be converted, or something else went wrong during parsing (e.g. end of file).
+    */
+    default long readAsciiLong(final int count) throws NitfFormatException {
+        String longString = readBytes(count);
+        try {
+            return Long.parseLong(longString);
+        } catch (NumberFormatException ex) {
+            throw new NitfFormatException(String.format("Bad Long format: %s", longString), getCurrentOffset());
+        }
+    }
+
+    /**
+        Read a double value from the file, as a primitive.
+        <p>
+        This interprets the bytes the same way as readBytesAsDouble(). Plain decimal values are converted
+        without creating an intermediate String or boxing the result.
+        <p>
+        The default implementation uses readBytes() and Double.parseDouble().
+
+        @param count the number of bytes to read and convert to a double.
+        @return double representation of the specified number of bytes.
+        @throws NitfFormatException if the content could not be converted, or something else went wrong during parsing (e.g. end of file).
+    */
+    default double readAsciiDouble(final int count) throws NitfFormatException {
+        String doubleString = readBytes(count);
+        try {
+            return Double.parseDouble(doubleString.trim());
+        } catch (NumberFormatException ex) {
+            throw new NitfFormatException(String.format("Bad Double format: %s", doubleString), getCurrentOffset());
+        }
+    }
+
     /**
         Read a string from the file, removing any trailing whitespace.
 
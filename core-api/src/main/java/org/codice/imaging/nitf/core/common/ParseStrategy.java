@@ -18,6 +18,7 @@ import javax.xml.transform.Source;
 
 import org.codice.imaging.nitf.core.DataSource;
 import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex;
 import org.codice.imaging.nitf.core.tre.TreCollection;
 import org.codice.imaging.nitf.core.tre.TreSource;
 
@@ -106,6 +107,60 @@ public interface ParseStrategy {
      */
     void handleSymbolSegment(final NitfReader reader, final long dataLength) throws NitfFormatException;
 
+    /**
+     * Parse the segments that follow the file header.
+     * <p>
+     * This is called by the parser once the file header has been read, with the reader positioned at the start of the
+     * first segment subheader. The default implementation handles every segment, in file order. A strategy that only
+     * needs some of the segments can override this to choose which segments are handled, and (if the reader can seek)
+     * to seek past the others.
+     *
+     * @param reader the reader to use
+     * @param segmentIndex the locations of the segments in the file
+     * @throws NitfFormatException if there is a problem handling a segment
+     */
+    default void parseSegments(final NitfReader reader, final NitfSegmentIndex segmentIndex) throws NitfFormatException {
+        for (NitfSegmentIndex.SegmentLocation segment : segmentIndex.getSegments()) {
+            handleSegment(reader, segment.getType(), segment.getDataLength());
+        }
+    }
+
+    /**
+     * Handle the header and data of a segment of the specified type.
+     * <p>
+     * This calls the handle method for the segment type.
+     *
+     * @param reader the reader to use, assumed to be positioned at the start of the header
+     * @param segmentType the type of segment
+     * @param dataLength the length of the data in this segment.
+     * @throws NitfFormatException if there is a problem handling the segment
+     */
+    default void handleSegment(final NitfReader reader, final NitfSegmentIndex.SegmentType segmentType, final long dataLength)
+            throws NitfFormatException {
+        switch (segmentType) {
+            case IMAGE:
+                handleImageSegment(reader, dataLength);
+                break;
+            case GRAPHIC:
+                handleGraphicSegment(reader, dataLength);
+                break;
+            case SYMBOL:
+                handleSymbolSegment(reader, dataLength);
+                break;
+            case LABEL:
+                handleLabelSegment(reader, dataLength);
+                break;
+            case TEXT:
+                handleTextSegment(reader, dataLength);
+                break;
+            case DATA_EXTENSION:
+                handleDataExtensionSegment(reader, dataLength);
+                break;
+            default:
+                throw new NitfFormatException("Unhandled segment type: " + segmentType, reader.getCurrentOffset());
+        }
+    }
+
     /**
      * Register an additional TRE descriptor.
      *
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common;
+
+import java.nio.ByteBuffer;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+    Positional, thread-safe access to the content of a NITF file.
+    <p>
+    Unlike a NitfReader, a SegmentDataSource has no current position. Every read specifies an
+    absolute offset, so any number of threads can read from the same source at the same time
+    without locking. This is intended for serving segment data (e.g. image blocks) concurrently
+    from a single open file.
+*/
+public interface SegmentDataSource {
+
+    /**
+        Return the length of the content.
+
+        @return the number of bytes available from this source.
+        @throws NitfFormatException if the length could not be determined.
+    */
+    long getLength() throws NitfFormatException;
+
+    /**
+        Read bytes starting at an absolute offset.
+        <p>
+        This transfers up to destination.remaining() bytes, advancing the position of the destination buffer.
+
+        @param destination the buffer to read into.
+        @param offset the absolute offset in the content to read from.
+        @return the number of bytes read, which may be less than requested, or -1 if the offset is at or beyond the end of the content.
+        @throws NitfFormatException if something went wrong during reading.
+    */
+    int read(final ByteBuffer destination, final long offset) throws NitfFormatException;
+
+    /**
+        Return a stream over a range of the content.
+        <p>
+        Each stream has its own position, so streams over the same source can be used from different
+        threads. The stream positions are relative to the start of the range, and the stream length
+        is the length of the range. The content is read on demand, not copied.
+
+        @param offset the absolute offset of the start of the range.
+        @param length the length of the range, in bytes.
+        @return image input stream for the specified range.
+        @throws NitfFormatException if the range is not within the content.
+    */
+    ImageInputStream getImageInputStream(final long offset, final long length) throws NitfFormatException;
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.header;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codice.imaging.nitf.core.common.FileType;
+
+/**
+    Absolute locations of every segment in a NITF file.
+    <p>
+    The index is computed from the segment lengths in the file header, so it is available before
+    any of the segments have been read. Together with a seekable reader, it allows any segment to
+    be parsed without reading the segments before it.
+    <p>
+    Instances are immutable.
+*/
+public final class NitfSegmentIndex {
+
+    /**
+        The kinds of segment that can appear in a NITF file, in file order.
+    */
+    public enum SegmentType {
+        /**
+         * Image segment.
+         */
+        IMAGE,
+        /**
+         * Graphic segment (NITF 2.1 / NSIF 1.0 only).
+         */
+        GRAPHIC,
+        /**
+         * Symbol segment (NITF 2.0 only).
+         */
+        SYMBOL,
+        /**
+         * Label segment (NITF 2.0 only).
+         */
+        LABEL,
+        /**
+         * Text segment.
+         */
+        TEXT,
+        /**
+         * Data extension segment.
+         */
+        DATA_EXTENSION
+    }
+
+    /**
+        The location of a single segment.
+    */
+    public static final class SegmentLocation {
+        private final SegmentType segmentType;
+        private final int segmentIndex;
+        private final long subheaderOffset;
+        private final int subheaderLength;
+        private final long dataLength;
+
+        SegmentLocation(final SegmentType type, final int index, final long offset, final int headerLength,
+                final long segmentDataLength) {
+            segmentType = type;
+            segmentIndex = index;
+            subheaderOffset = offset;
+            subheaderLength = headerLength;
+            dataLength = segmentDataLength;
+        }
+
+        /**
+         * Get the type of segment.
+         *
+         * @return the segment type.
+         */
+        public SegmentType getType() {
+            return segmentType;
+        }
+
+        /**
+         * Get the position of this segment among the segments of the same type.
+         *
+         * @return the zero-based index of this segment within its type.
+         */
+        public int getIndex() {
+            return segmentIndex;
+        }
+
+        /**
+         * Get the offset of the segment subheader.
+         *
+         * @return the number of bytes from the start of the file to the start of the subheader.
+         */
+        public long getSubheaderOffset() {
+            return subheaderOffset;
+        }
+
+        /**
+         * Get the length of the segment subheader.
+         *
+         * @return the subheader length in bytes.
+         */
+        public int getSubheaderLength() {
+            return subheaderLength;
+        }
+
+        /**
+         * Get the offset of the segment data.
+         *
+         * @return the number of bytes from the start of the file to the start of the segment data.
+         */
+        public long getDataOffset() {
+            return subheaderOffset + subheaderLength;
+        }
+
+        /**
+         * Get the length of the segment data.
+         *
+         * @return the data length in bytes.
+         */
+        public long getDataLength() {
+            return dataLength;
+        }
+
+        /**
+         * Get the offset just past the end of the segment data.
+         *
+         * @return the number of bytes from the start of the file to the end of the segment.
+         */
+        public long getEndOffset() {
+            return getDataOffset() + dataLength;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s[%d] subheader at %d (+%d), data at %d (+%d)", segmentType, segmentIndex,
+                    subheaderOffset, subheaderLength, getDataOffset(), dataLength);
+        }
+    }
+
+    private final FileType fileType;
+    private final long headerLength;
+    private final List<SegmentLocation> allSegments;
+    private final Map<SegmentType, List<SegmentLocation>> segmentsByType;
+
+    private NitfSegmentIndex(final FileType type, final long firstSubheaderOffset, final List<SegmentLocation> segments) {
+        fileType = type;
+        headerLength = firstSubheaderOffset;
+        allSegments = Collections.unmodifiableList(segments);
+        Map<SegmentType, List<SegmentLocation>> byType = new EnumMap<>(SegmentType.class);
+        for (SegmentType segmentType : SegmentType.values()) {
+            byType.put(segmentType, new ArrayList<>());
+        }
+        for (SegmentLocation segment : segments) {
+            byType.get(segment.getType()).add(segment);
+        }
+        for (SegmentType segmentType : SegmentType.values()) {
+            byType.put(segmentType, Collections.unmodifiableList(byType.get(segmentType)));
+        }
+        segmentsByType = byType;
+    }
+
+    /**
+     * Get the file type (NITF version) of the indexed file.
+     *
+     * @return the file type.
+     */
+    public FileType getFileType() {
+        return fileType;
+    }
+
+    /**
+     * Get the offset of the first segment subheader.
+     * <p>
+     * For a streaming mode file, this is the length of the initial file header, not the replacement header.
+     *
+     * @return the number of bytes from the start of the file to the first segment subheader.
+     */
+    public long getHeaderLength() {
+        return headerLength;
+    }
+
+    /**
+     * Get the offset just past the end of the last segment.
+     *
+     * @return the number of bytes from the start of the file to the end of the last segment.
+     */
+    public long getEndOffset() {
+        if (allSegments.isEmpty()) {
+            return headerLength;
+        }
+        return allSegments.get(allSegments.size() - 1).getEndOffset();
+    }
+
+    /**
+     * Get the locations of all segments, in file order.
+     *
+     * @return unmodifiable list of segment locations.
+     */
+    public List<SegmentLocation> getSegments() {
+        return allSegments;
+    }
+
+    /**
+     * Get the locations of all segments of one type, in file order.
+     *
+     * @param type the type of segment.
+     * @return unmodifiable list of segment locations, which is empty if there are no segments of that type.
+     */
+    public List<SegmentLocation> getSegments(final SegmentType type) {
+        return segmentsByType.get(type);
+    }
+
+    /**
+     * Get the location of one segment.
+     *
+     * @param type the type of segment.
+     * @param index the zero-based index of the segment within its type.
+     * @return the segment location.
+     * @throws IndexOutOfBoundsException if there is no such segment.
+     */
+    public SegmentLocation getSegment(final SegmentType type, final int index) {
+        return segmentsByType.get(type).get(index);
+    }
+
+    /**
+        Incremental construction of an index, in file order.
+        <p>
+        This is used by the parser, which adds each segment as its lengths are read from the file header.
+    */
+    public static final class Builder {
+        private final FileType fileType;
+        private final long headerLength;
+        private final List<SegmentLocation> segments = new ArrayList<>();
+        private final Map<SegmentType, Integer> counts = new EnumMap<>(SegmentType.class);
+        private long nextOffset;
+
+        /**
+            Constructor.
+
+            @param type the file type (NITF version).
+            @param firstSubheaderOffset the offset of the first segment subheader, which is the file header length.
+        */
+        public Builder(final FileType type, final long firstSubheaderOffset) {
+            fileType = type;
+            headerLength = firstSubheaderOffset;
+            nextOffset = firstSubheaderOffset;
+        }
+
+        /**
+            Add the next segment.
+
+            @param type the type of segment.
+            @param subheaderLength the length of the segment subheader, in bytes.
+            @param dataLength the length of the segment data, in bytes.
+            @return this builder.
+        */
+        public Builder add(final SegmentType type, final int subheaderLength, final long dataLength) {
+            int index = counts.getOrDefault(type, 0);
+            counts.put(type, index + 1);
+            segments.add(new SegmentLocation(type, index, nextOffset, subheaderLength, dataLength));
+            nextOffset += subheaderLength + dataLength;
+            return this;
+        }
+
+        /**
+            Create the index.
+
+            @return the index of the segments added so far.
+        */
+        public NitfSegmentIndex build() {
+            return new NitfSegmentIndex(fileType, headerLength, new ArrayList<>(segments));
+        }
+    }
+}
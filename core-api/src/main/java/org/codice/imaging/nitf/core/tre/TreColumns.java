@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+package org.codice.imaging.nitf.core.tre;
+
+import java.util.List;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+
+/**
+ * The values of a repeating (loop) TRE entry, by column.
+ * <p>
+ * This is an alternative to the groups of a TreEntry, for loops where every field is a fixed
+ * width number (such as grids of points, or lists of time offsets). Each field of the loop is
+ * one column, and each repetition is one row. The values are held as int, long or double
+ * arrays, depending on the field type and width.
+ */
+public interface TreColumns {
+
+    /**
+     * Get the number of rows (repetitions of the loop).
+     *
+     * @return the number of rows.
+     */
+    int getRowCount();
+
+    /**
+     * Get the column names.
+     *
+     * @return the names of the fields in the loop, in order.
+     */
+    List<String> getColumnNames();
+
+    /**
+     * Get the values of a column in integer format.
+     *
+     * @param columnName the name (tag) of the field.
+     * @return a copy of the column values.
+     * @throws NitfFormatException when the column is not found or the values cannot be converted to integer
+     * format.
+     */
+    int[] getIntColumn(String columnName) throws NitfFormatException;
+
+    /**
+     * Get the values of a column in long integer format.
+     *
+     * @param columnName the name (tag) of the field.
+     * @return a copy of the column values.
+     * @throws NitfFormatException when the column is not found or the values cannot be converted to long integer
+     * format.
+     */
+    long[] getLongColumn(String columnName) throws NitfFormatException;
+
+    /**
+     * Get the values of a column in double format.
+     *
+     * @param columnName the name (tag) of the field.
+     * @return a copy of the column values.
+     * @throws NitfFormatException when the column is not found.
+     */
+    double[] getDoubleColumn(String columnName) throws NitfFormatException;
+
+    /**
+     * Get one value in integer format.
+     *
+     * @param columnName the name (tag) of the field.
+     * @param row the row (zero base).
+     * @return the value.
+     * @throws NitfFormatException when the column or row is not found or the value cannot be converted to integer
+     * format.
+     */
+    int getIntValue(String columnName, int row) throws NitfFormatException;
+
+    /**
+     * Get one value in long integer format.
+     *
+     * @param columnName the name (tag) of the field.
+     * @param row the row (zero base).
+     * @return the value.
+     * @throws NitfFormatException when the column or row is not found or the value cannot be converted to long
+     * integer format.
+     */
+    long getLongValue(String columnName, int row) throws NitfFormatException;
+
+    /**
+     * Get one value in double format.
+     *
+     * @param columnName the name (tag) of the field.
+     * @param row the row (zero base).
+     * @return the value.
+     * @throws NitfFormatException when the column or row is not found.
+     */
+    double getDoubleValue(String columnName, int row) throws NitfFormatException;
+}
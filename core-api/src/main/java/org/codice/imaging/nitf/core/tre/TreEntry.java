@@ -30,6 +30,21 @@ public interface TreEntry {
      */
     List<TreGroup> getGroups();
 
+    /**
+     * Return the values of this TRE entry by column.
+     * <p>
+     * This is only available for a repeating entry where every field is a fixed width number. The columns hold
+     * the same values as the groups, but take much less memory for large loops, as long as getGroups() is not
+     * used.
+     * <p>
+     * The default implementation returns null, so getGroups() is used instead.
+     *
+     * @return the columns for this TRE entry, or null if it is not a loop of numeric fields.
+     */
+    default TreColumns getColumns() {
+        return null;
+    }
+
     /**
      * Check whether the TreEntryImpl is a simple field.
      *
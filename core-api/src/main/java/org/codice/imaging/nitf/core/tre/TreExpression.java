@@ -0,0 +1,627 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre;
+
+import java.util.function.ToIntFunction;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+
+/**
+    Compiled expression from a TRE descriptor.
+    <p>
+    TRE descriptors use expressions for conditions (the cond attribute of an if element), loop
+    counts (the counter and formula attributes of a loop element) and field lengths (the
+    length_var attribute of a field element). Each expression is parsed once per descriptor, and
+    then evaluated against the parameter values of each TRE that is parsed or written.
+    <p>
+    Expressions can use:
+    <ul>
+    <li>parameters (the names of fields earlier in the TRE) and non-negative integer constants,</li>
+    <li>the integer arithmetic operators +, -, *, / and %, unary minus and parentheses,</li>
+    <li>the comparison operators =, !=, &lt;, &lt;=, &gt; and &gt;=, and</li>
+    <li>the boolean operators AND, OR and NOT.</li>
+    </ul>
+    When the right hand side of = or != is a single word or a 'quoted string' (for example,
+    SENSOR_ARRAY_DATA=Y or TIME_STAMP_TYPE_MM=10c), the values are compared as text. Other
+    comparisons are numeric. A parameter followed by = or != with nothing on the right hand side
+    tests whether the parameter is empty (all spaces) or not.
+    <p>
+    Boolean values are 1 (true) and 0 (false) when used as numbers, and any non-zero number is
+    true when used as a condition.
+    <p>
+    The TRE descriptor interpreter evaluates the expressions directly. The build-time TRE parser
+    generator parses the same expressions with the same parser, and turns them into Java code with
+    a Visitor, so the two cannot disagree about what an expression means.
+*/
+public abstract class TreExpression {
+
+    /**
+     * The parameter values that an expression is evaluated against.
+     */
+    public interface Parameters {
+
+        /**
+         * Get the value of a parameter as a number.
+         *
+         * @param slot the parameter slot.
+         * @return the value of the parameter.
+         * @throws NitfFormatException if the parameter has no value, or the value is not a number.
+         */
+        int getIntValue(int slot) throws NitfFormatException;
+
+        /**
+         * Get the value of a parameter as text.
+         *
+         * @param slot the parameter slot.
+         * @return the value of the parameter, or null if it has no value.
+         */
+        String getFieldValue(int slot);
+    }
+
+    /**
+     * Visitor for the nodes of an expression.
+     *
+     * @param <R> the result type.
+     */
+    public interface Visitor<R> {
+
+        /**
+         * Visit a constant.
+         *
+         * @param value the value of the constant.
+         * @return the result.
+         */
+        R visitConstant(int value);
+
+        /**
+         * Visit a parameter.
+         *
+         * @param name the parameter name.
+         * @param slot the parameter slot.
+         * @return the result.
+         */
+        R visitParameter(String name, int slot);
+
+        /**
+         * Visit a unary minus.
+         *
+         * @param operand the negated expression.
+         * @return the result.
+         */
+        R visitNegate(TreExpression operand);
+
+        /**
+         * Visit an arithmetic operator (ADD, SUBTRACT, MULTIPLY, DIVIDE or REMAINDER).
+         *
+         * @param operator the operator.
+         * @param lhs the left hand side.
+         * @param rhs the right hand side.
+         * @return the result.
+         */
+        R visitArithmetic(Operator operator, TreExpression lhs, TreExpression rhs);
+
+        /**
+         * Visit a numeric comparison (EQUAL, NOT_EQUAL, LESS, LESS_OR_EQUAL, GREATER or GREATER_OR_EQUAL).
+         *
+         * @param operator the operator.
+         * @param lhs the left hand side.
+         * @param rhs the right hand side.
+         * @return the result.
+         */
+        R visitNumericComparison(Operator operator, TreExpression lhs, TreExpression rhs);
+
+        /**
+         * Visit a text comparison.
+         *
+         * @param equal true for =, false for !=.
+         * @param lhs the expression compared as text.
+         * @param text the text it is compared with.
+         * @return the result.
+         */
+        R visitTextComparison(boolean equal, TreExpression lhs, String text);
+
+        /**
+         * Visit a test for an empty (all spaces) value.
+         *
+         * @param empty true to test for an empty value, false to test for a value that is not empty.
+         * @param operand the expression tested.
+         * @return the result.
+         */
+        R visitEmptyTest(boolean empty, TreExpression operand);
+
+        /**
+         * Visit a boolean AND.
+         *
+         * @param lhs the left hand side.
+         * @param rhs the right hand side, which is only evaluated if the left hand side is true.
+         * @return the result.
+         */
+        R visitAnd(TreExpression lhs, TreExpression rhs);
+
+        /**
+         * Visit a boolean OR.
+         *
+         * @param lhs the left hand side.
+         * @param rhs the right hand side, which is only evaluated if the left hand side is false.
+         * @return the result.
+         */
+        R visitOr(TreExpression lhs, TreExpression rhs);
+
+        /**
+         * Visit a boolean NOT.
+         *
+         * @param operand the negated expression.
+         * @return the result.
+         */
+        R visitNot(TreExpression operand);
+
+        /**
+         * Visit an expression that cannot be evaluated.
+         *
+         * @param message the error message to report when it is evaluated.
+         * @return the result.
+         */
+        R visitInvalid(String message);
+    }
+
+    TreExpression() {
+    }
+
+    /**
+     * Evaluate the expression as a number.
+     *
+     * @param params the parameter values.
+     * @return the value of the expression.
+     * @throws NitfFormatException if a parameter has no value, or the expression cannot be evaluated.
+     */
+    public abstract int intValue(Parameters params) throws NitfFormatException;
+
+    /**
+     * Evaluate the expression as a condition.
+     *
+     * @param params the parameter values.
+     * @return true if the expression is true (or non-zero), otherwise false.
+     * @throws NitfFormatException if a parameter has no value, or the expression cannot be evaluated.
+     */
+    public abstract boolean isTrue(Parameters params) throws NitfFormatException;
+
+    /**
+     * Evaluate the expression as text, for comparison with a text value.
+     *
+     * @param params the parameter values.
+     * @return the value of the expression, or null if it is a parameter with no value.
+     * @throws NitfFormatException if the expression cannot be evaluated.
+     */
+    public abstract String textValue(Parameters params) throws NitfFormatException;
+
+    /**
+     * Apply a visitor to the top node of the expression.
+     *
+     * @param <R> the result type.
+     * @param visitor the visitor.
+     * @return the result from the visitor.
+     */
+    public abstract <R> R accept(Visitor<R> visitor);
+
+    /**
+     * Parse an expression.
+     *
+     * @param expression the expression text.
+     * @param slots the function that gives the parameter slot for a parameter name.
+     * @return the compiled expression.
+     * @throws NitfFormatException if the expression is not valid.
+     */
+    public static TreExpression parse(final String expression, final ToIntFunction<String> slots) throws NitfFormatException {
+        return new TreExpressionParser(expression, slots).parse();
+    }
+
+    /**
+     * Create an expression that is the value of a single parameter.
+     *
+     * @param name the parameter name.
+     * @param slot the parameter slot.
+     * @return the compiled expression.
+     */
+    public static TreExpression parameter(final String name, final int slot) {
+        return new Parameter(name, slot);
+    }
+
+    /**
+     * Create an expression that cannot be evaluated.
+     * <p>
+     * This stands in for an expression in a descriptor that could not be parsed, so that the error is reported when
+     * (and if) the expression is used.
+     *
+     * @param message the error message to report.
+     * @return the compiled expression.
+     */
+    public static TreExpression invalid(final String message) {
+        return new Invalid(message);
+    }
+
+    /**
+     * Operators.
+     */
+    public enum Operator {
+        /**
+         * Integer addition.
+         */
+        ADD,
+        /**
+         * Integer subtraction.
+         */
+        SUBTRACT,
+        /**
+         * Integer multiplication.
+         */
+        MULTIPLY,
+        /**
+         * Integer division, which fails if the divisor is zero.
+         */
+        DIVIDE,
+        /**
+         * Integer remainder, which fails if the divisor is zero.
+         */
+        REMAINDER,
+        /**
+         * Equal to.
+         */
+        EQUAL,
+        /**
+         * Not equal to.
+         */
+        NOT_EQUAL,
+        /**
+         * Less than.
+         */
+        LESS,
+        /**
+         * Less than or equal to.
+         */
+        LESS_OR_EQUAL,
+        /**
+         * Greater than.
+         */
+        GREATER,
+        /**
+         * Greater than or equal to.
+         */
+        GREATER_OR_EQUAL
+    }
+
+    private static int toInt(final boolean value) {
+        if (value) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * An expression with a numeric value.
+     */
+    abstract static class Numeric extends TreExpression {
+        @Override
+        public final boolean isTrue(final Parameters params) throws NitfFormatException {
+            return intValue(params) != 0;
+        }
+
+        @Override
+        public final String textValue(final Parameters params) throws NitfFormatException {
+            return Integer.toString(intValue(params));
+        }
+    }
+
+    /**
+     * An expression with a boolean value.
+     */
+    abstract static class Condition extends TreExpression {
+        @Override
+        public final int intValue(final Parameters params) throws NitfFormatException {
+            return toInt(isTrue(params));
+        }
+
+        @Override
+        public final String textValue(final Parameters params) throws NitfFormatException {
+            return Integer.toString(intValue(params));
+        }
+    }
+
+    static final class Constant extends Numeric {
+        private final int value;
+
+        Constant(final int constantValue) {
+            value = constantValue;
+        }
+
+        @Override
+        public int intValue(final Parameters params) {
+            return value;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) {
+            return visitor.visitConstant(value);
+        }
+    }
+
+    static final class Parameter extends TreExpression {
+        private final String name;
+        private final int slot;
+
+        Parameter(final String parameterName, final int parameterSlot) {
+            name = parameterName;
+            slot = parameterSlot;
+        }
+
+        @Override
+        public int intValue(final Parameters params) throws NitfFormatException {
+            return params.getIntValue(slot);
+        }
+
+        @Override
+        public boolean isTrue(final Parameters params) throws NitfFormatException {
+            return intValue(params) != 0;
+        }
+
+        @Override
+        public String textValue(final Parameters params) {
+            return params.getFieldValue(slot);
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) {
+            return visitor.visitParameter(name, slot);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    static final class Negate extends Numeric {
+        private final TreExpression operand;
+
+        Negate(final TreExpression negatedOperand) {
+            operand = negatedOperand;
+        }
+
+        @Override
+        public int intValue(final Parameters params) throws NitfFormatException {
+            return -operand.intValue(params);
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) {
+            return visitor.visitNegate(operand);
+        }
+    }
+
+    static final class Arithmetic extends Numeric {
+        private final Operator operator;
+        private final TreExpression lhs;
+        private final TreExpression rhs;
+
+        Arithmetic(final Operator arithmeticOperator, final TreExpression left, final TreExpression right) {
+            operator = arithmeticOperator;
+            lhs = left;
+            rhs = right;
+        }
+
+        @Override
+        public int intValue(final Parameters params) throws NitfFormatException {
+            int left = lhs.intValue(params);
+            int right = rhs.intValue(params);
+            switch (operator) {
+                case ADD:
+                    return left + right;
+                case SUBTRACT:
+                    return left - right;
+                case MULTIPLY:
+                    return left * right;
+                case DIVIDE:
+                    checkDivisor(right);
+                    return left / right;
+                case REMAINDER:
+                    checkDivisor(right);
+                    return left % right;
+                default:
+                    throw new NitfFormatException("Unsupported arithmetic operator " + operator);
+            }
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) {
+            return visitor.visitArithmetic(operator, lhs, rhs);
+        }
+
+        private static void checkDivisor(final int divisor) throws NitfFormatException {
+            if (divisor == 0) {
+                throw new NitfFormatException("Division by zero in TRE expression");
+            }
+        }
+    }
+
+    static final class NumericComparison extends Condition {
+        private final Operator operator;
+        private final TreExpression lhs;
+        private final TreExpression rhs;
+
+        NumericComparison(final Operator comparisonOperator, final TreExpression left, final TreExpression right) {
+            operator = comparisonOperator;
+            lhs = left;
+            rhs = right;
+        }
+
+        @Override
+        public boolean isTrue(final Parameters params) throws NitfFormatException {
+            int left = lhs.intValue(params);
+            int right = rhs.intValue(params);
+            switch (operator) {
+                case EQUAL:
+                    return left == right;
+                case NOT_EQUAL:
+                    return left != right;
+                case LESS:
+                    return left < right;
+                case LESS_OR_EQUAL:
+                    return left <= right;
+                case GREATER:
+                    return left > right;
+                case GREATER_OR_EQUAL:
+                    return left >= right;
+                default:
+                    throw new NitfFormatException("Unsupported comparison operator " + operator);
+            }
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) {
+            return visitor.visitNumericComparison(operator, lhs, rhs);
+        }
+    }
+
+    static final class TextComparison extends Condition {
+        private final boolean equal;
+        private final TreExpression lhs;
+        private final String text;
+
+        TextComparison(final boolean testForEqual, final TreExpression left, final String comparisonText) {
+            equal = testForEqual;
+            lhs = left;
+            text = comparisonText;
+        }
+
+        @Override
+        public boolean isTrue(final Parameters params) throws NitfFormatException {
+            return text.equals(lhs.textValue(params)) == equal;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) {
+            return visitor.visitTextComparison(equal, lhs, text);
+        }
+    }
+
+    static final class EmptyTest extends Condition {
+        private final boolean empty;
+        private final TreExpression operand;
+
+        EmptyTest(final boolean testForEmpty, final TreExpression testedOperand) {
+            empty = testForEmpty;
+            operand = testedOperand;
+        }
+
+        @Override
+        public boolean isTrue(final Parameters params) throws NitfFormatException {
+            String value = operand.textValue(params);
+            if (value == null) {
+                throw new NitfFormatException("No value for TRE parameter " + operand);
+            }
+            return value.trim().isEmpty() == empty;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) {
+            return visitor.visitEmptyTest(empty, operand);
+        }
+    }
+
+    static final class And extends Condition {
+        private final TreExpression lhs;
+        private final TreExpression rhs;
+
+        And(final TreExpression left, final TreExpression right) {
+            lhs = left;
+            rhs = right;
+        }
+
+        @Override
+        public boolean isTrue(final Parameters params) throws NitfFormatException {
+            return lhs.isTrue(params) && rhs.isTrue(params);
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) {
+            return visitor.visitAnd(lhs, rhs);
+        }
+    }
+
+    static final class Or extends Condition {
+        private final TreExpression lhs;
+        private final TreExpression rhs;
+
+        Or(final TreExpression left, final TreExpression right) {
+            lhs = left;
+            rhs = right;
+        }
+
+        @Override
+        public boolean isTrue(final Parameters params) throws NitfFormatException {
+            return lhs.isTrue(params) || rhs.isTrue(params);
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) {
+            return visitor.visitOr(lhs, rhs);
+        }
+    }
+
+    static final class Not extends Condition {
+        private final TreExpression operand;
+
+        Not(final TreExpression negatedOperand) {
+            operand = negatedOperand;
+        }
+
+        @Override
+        public boolean isTrue(final Parameters params) throws NitfFormatException {
+            return !operand.isTrue(params);
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) {
+            return visitor.visitNot(operand);
+        }
+    }
+
+    private static final class Invalid extends TreExpression {
+        private final String message;
+
+        Invalid(final String errorMessage) {
+            message = errorMessage;
+        }
+
+        @Override
+        public int intValue(final Parameters params) throws NitfFormatException {
+            throw new NitfFormatException(message);
+        }
+
+        @Override
+        public boolean isTrue(final Parameters params) throws NitfFormatException {
+            throw new NitfFormatException(message);
+        }
+
+        @Override
+        public String textValue(final Parameters params) throws NitfFormatException {
+            throw new NitfFormatException(message);
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) {
+            return visitor.visitInvalid(message);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.tre.TreExpression.Operator;
+
+/**
+    Recursive descent parser for TRE descriptor expressions.
+    <p>
+    See TreExpression for the syntax. In order of increasing precedence, the grammar is:
+    <pre>
+    expression := and ("OR" and)*
+    and        := not ("AND" not)*
+    not        := "NOT" not | comparison
+    comparison := sum [("=" | "!=" | "&lt;" | "&lt;=" | "&gt;" | "&gt;=") sum]
+    sum        := product (("+" | "-") product)*
+    product    := unary (("*" | "/" | "%") unary)*
+    unary      := "-" unary | number | parameter | "(" expression ")"
+    </pre>
+*/
+final class TreExpressionParser {
+
+    private static final String AND = "AND";
+    private static final String OR = "OR";
+    private static final String NOT = "NOT";
+    private static final char QUOTE = '\'';
+
+    private enum TokenType {
+        WORD, QUOTED, SYMBOL, END
+    }
+
+    private static final class Token {
+        private final TokenType type;
+        private final String text;
+
+        private Token(final TokenType tokenType, final String tokenText) {
+            type = tokenType;
+            text = tokenText;
+        }
+
+        private boolean is(final String symbolOrKeyword) {
+            return ((type == TokenType.SYMBOL) || (type == TokenType.WORD)) && text.equals(symbolOrKeyword);
+        }
+
+        private boolean endsComparison() {
+            return (type == TokenType.END) || is(AND) || is(OR) || is(")");
+        }
+    }
+
+    private final String expression;
+
+    private final ToIntFunction<String> slots;
+
+    private final List<Token> tokens = new ArrayList<>();
+
+    private int position = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param expressionText the expression to parse.
+     * @param parameterSlots the function that gives the parameter slot for a parameter name.
+     */
+    TreExpressionParser(final String expressionText, final ToIntFunction<String> parameterSlots) {
+        expression = expressionText;
+        slots = parameterSlots;
+    }
+
+    /**
+     * Parse the expression.
+     *
+     * @return the compiled expression.
+     * @throws NitfFormatException if the expression is not valid.
+     */
+    TreExpression parse() throws NitfFormatException {
+        tokenize();
+        TreExpression result = parseOr();
+        if (peek().type != TokenType.END) {
+            throw error("unexpected '" + peek().text + "'");
+        }
+        return result;
+    }
+
+    private void tokenize() throws NitfFormatException {
+        int i = 0;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (isWordCharacter(c)) {
+                int start = i;
+                while ((i < expression.length()) && isWordCharacter(expression.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.WORD, expression.substring(start, i)));
+            } else if (c == QUOTE) {
+                int end = expression.indexOf(QUOTE, i + 1);
+                if (end < 0) {
+                    throw error("unterminated quoted string");
+                }
+                tokens.add(new Token(TokenType.QUOTED, expression.substring(i + 1, end)));
+                i = end + 1;
+            } else if ((i + 1 < expression.length()) && isTwoCharacterSymbol(expression.substring(i, i + 2))) {
+                tokens.add(new Token(TokenType.SYMBOL, expression.substring(i, i + 2)));
+                i += 2;
+            } else if ("()+-*/%=<>".indexOf(c) >= 0) {
+                tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c)));
+                i++;
+            } else {
+                throw error("unexpected character '" + c + "'");
+            }
+        }
+        tokens.add(new Token(TokenType.END, "end of expression"));
+    }
+
+    private static boolean isWordCharacter(final char c) {
+        return Character.isLetterOrDigit(c) || (c == '_');
+    }
+
+    private static boolean isTwoCharacterSymbol(final String symbol) {
+        return "!=".equals(symbol) || "<=".equals(symbol) || ">=".equals(symbol);
+    }
+
+    private Token peek() {
+        return tokens.get(position);
+    }
+
+    private Token peekAfterNext() {
+        return tokens.get(Math.min(position + 1, tokens.size() - 1));
+    }
+
+    private Token next() {
+        Token token = tokens.get(position);
+        if (token.type != TokenType.END) {
+            position++;
+        }
+        return token;
+    }
+
+    private TreExpression parseOr() throws NitfFormatException {
+        TreExpression result = parseAnd();
+        while (peek().is(OR)) {
+            next();
+            result = new TreExpression.Or(result, parseAnd());
+        }
+        return result;
+    }
+
+    private TreExpression parseAnd() throws NitfFormatException {
+        TreExpression result = parseNot();
+        while (peek().is(AND)) {
+            next();
+            result = new TreExpression.And(result, parseNot());
+        }
+        return result;
+    }
+
+    private TreExpression parseNot() throws NitfFormatException {
+        if (peek().is(NOT)) {
+            next();
+            return new TreExpression.Not(parseNot());
+        }
+        return parseComparison();
+    }
+
+    private TreExpression parseComparison() throws NitfFormatException {
+        TreExpression lhs = parseSum();
+        Operator operator = getComparisonOperator(peek());
+        if (operator == null) {
+            return lhs;
+        }
+        next();
+        if ((operator == Operator.EQUAL) || (operator == Operator.NOT_EQUAL)) {
+            boolean equal = (operator == Operator.EQUAL);
+            if (peek().endsComparison()) {
+                return new TreExpression.EmptyTest(equal, lhs);
+            }
+            Token rhs = peek();
+            if (((rhs.type == TokenType.WORD) || (rhs.type == TokenType.QUOTED)) && peekAfterNext().endsComparison()) {
+                next();
+                return new TreExpression.TextComparison(equal, lhs, rhs.text);
+            }
+        }
+        return new TreExpression.NumericComparison(operator, lhs, parseSum());
+    }
+
+    private static Operator getComparisonOperator(final Token token) {
+        if (token.type != TokenType.SYMBOL) {
+            return null;
+        }
+        switch (token.text) {
+            case "=":
+                return Operator.EQUAL;
+            case "!=":
+                return Operator.NOT_EQUAL;
+            case "<":
+                return Operator.LESS;
+            case "<=":
+                return Operator.LESS_OR_EQUAL;
+            case ">":
+                return Operator.GREATER;
+            case ">=":
+                return Operator.GREATER_OR_EQUAL;
+            default:
+                return null;
+        }
+    }
+
+    private TreExpression parseSum() throws NitfFormatException {
+        TreExpression result = parseProduct();
+        while (peek().is("+") || peek().is("-")) {
+            Operator operator = Operator.ADD;
+            if (next().is("-")) {
+                operator = Operator.SUBTRACT;
+            }
+            result = new TreExpression.Arithmetic(operator, result, parseProduct());
+        }
+        return result;
+    }
+
+    private TreExpression parseProduct() throws NitfFormatException {
+        TreExpression result = parseUnary();
+        while (peek().is("*") || peek().is("/") || peek().is("%")) {
+            Token token = next();
+            Operator operator = Operator.MULTIPLY;
+            if (token.is("/")) {
+                operator = Operator.DIVIDE;
+            } else if (token.is("%")) {
+                operator = Operator.REMAINDER;
+            }
+            result = new TreExpression.Arithmetic(operator, result, parseUnary());
+        }
+        return result;
+    }
+
+    private TreExpression parseUnary() throws NitfFormatException {
+        Token token = next();
+        if (token.is("-")) {
+            return new TreExpression.Negate(parseUnary());
+        }
+        if (token.is("(")) {
+            TreExpression result = parseOr();
+            if (!next().is(")")) {
+                throw error("missing ')'");
+            }
+            return result;
+        }
+        if ((token.type != TokenType.WORD) || token.is(AND) || token.is(OR) || token.is(NOT)) {
+            throw error("expected a number or parameter, but found '" + token.text + "'");
+        }
+        if (Character.isDigit(token.text.charAt(0))) {
+            try {
+                return new TreExpression.Constant(Integer.parseInt(token.text));
+            } catch (NumberFormatException ex) {
+                throw error("'" + token.text + "' is not a valid number");
+            }
+        }
+        return TreExpression.parameter(token.text, slots.applyAsInt(token.text));
+    }
+
+    private NitfFormatException error(final String problem) {
+        return new NitfFormatException("Unsupported TRE expression \"" + expression + "\": " + problem);
+    }
+}
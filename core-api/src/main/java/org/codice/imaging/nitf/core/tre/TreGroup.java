@@ -59,6 +59,25 @@ public interface TreGroup {
      */
     TreEntry getEntry(String tagName) throws NitfFormatException;
 
+    /**
+     * Get one group of a repeating (loop) entry.
+     * <p>
+     * This is equivalent to getEntry(tagName).getGroups().get(index), but reports a missing loop or an invalid
+     * index in the same way as a missing tag.
+     *
+     * @param tagName the name (tag) of the loop entry to look up.
+     * @param index the index (zero base) of the group within the loop.
+     * @return the group at the index.
+     * @throws NitfFormatException when the tag is not found, is not a loop, or does not have a group at the index.
+     */
+    default TreGroup getGroup(final String tagName, final int index) throws NitfFormatException {
+        List<TreGroup> groups = getEntry(tagName).getGroups();
+        if ((groups == null) || (index < 0) || (index >= groups.size())) {
+            throw new NitfFormatException(String.format("Failed to look up group %d of %s", index, tagName));
+        }
+        return groups.get(index);
+    }
+
     /**
      * Get the field value for a specific tag.
      *
@@ -16,6 +16,8 @@ package org.codice.imaging.nitf.core.common.impl;
 
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 
 import javax.imageio.stream.ImageInputStream;
 
@@ -62,22 +64,19 @@ public abstract class AbstractSegmentWriter {
         mTreParser = treParser;
     }
 
-    private String padNumberToLength(final long number, final int length) {
-        return String.format("%0" + length + "d", number);
-    }
-
-    private String padStringToLength(final String s, final int length) {
-        return String.format("%1$-" + length + "s", s);
-    }
-
-    private String hyphenPadStringToLength(final String s, final int length) {
-        StringBuilder builder = new StringBuilder(s);
+    private String padStringToLength(final String s, final int length, final char padding) {
+        StringBuilder builder = new StringBuilder(length);
+        builder.append(s);
         while (builder.length() < length) {
-            builder.append("-");
+            builder.append(padding);
         }
         return builder.toString();
     }
 
+    private String hyphenPadStringToLength(final String s, final int length) {
+        return padStringToLength(s, length, '-');
+    }
+
     /**
      * Write out the fixed field value for the ENCRYP field.
      *
@@ -139,14 +138,14 @@ public abstract class AbstractSegmentWriter {
      */
     protected final void writeFixedLengthString(final String s, final int length)
             throws IOException {
-        String toWrite;
         if (s.length() > length) {
             LOG.warn(String.format("Truncated string \"%s\", max length is %d", s, length));
-            toWrite = s.substring(0, length);
+            writeBytes(s.substring(0, length), length);
+        } else if (mOutput instanceof NitfOutput) {
+            ((NitfOutput) mOutput).writeFixedLengthString(s, length);
         } else {
-            toWrite = padStringToLength(s, length);
+            writeBytes(padStringToLength(s, length, ' '), length);
         }
-        writeBytes(toWrite, length);
     }
 
     /**
@@ -158,15 +157,22 @@ public abstract class AbstractSegmentWriter {
      */
     protected final void writeFixedLengthNumber(final long number, final int length)
             throws IOException {
-        if (String.format("%d", number)
-                .length() > length) {
-            String problem = String.format("Fixed length number %d cannot fit into length %d",
-                    number,
-                    length);
-            LOG.error(problem);
-            throw new NumberFormatException(problem);
+        if (mOutput instanceof NitfOutput) {
+            if (((NitfOutput) mOutput).writeFixedLengthNumber(number, length)) {
+                return;
+            }
+        } else if (length > 0) {
+            byte[] digits = new byte[length];
+            if (NitfOutput.encodeFixedLengthNumber(digits, 0, number, length)) {
+                writeBytes(new String(digits, StandardCharsets.US_ASCII), length);
+                return;
+            }
         }
-        writeBytes(padNumberToLength(number, length), length);
+        String problem = String.format("Fixed length number %d cannot fit into length %d",
+                number,
+                length);
+        LOG.error(problem);
+        throw new NumberFormatException(problem);
     }
 
     /**
@@ -207,22 +213,55 @@ public abstract class AbstractSegmentWriter {
 
     /**
      * Write out the data for the segment.
+     * <p>
+     * Data that is a range of a file (as from FileRangeHeapStrategy) is copied from that file with
+     * NitfOutput.transferFrom(), rather than being read through the stream.
+     *
+     * <p>
+     * A failure to read or write the data is logged, and the rest of the data is not written. Use
+     * writeSegmentDataOrThrow() if the caller needs to know that the data is incomplete.
      *
      * @param data the data to write.
      */
     public final void writeSegmentData(final ImageInputStream data) {
         try {
-            if (data == null) {
-                return;
-            }
-            data.seek(0);
-            byte[] buffer = new byte[GraphicSegmentWriter.BUFFER_SIZE];
-            int bytesRead;
-            while ((bytesRead = data.read(buffer)) != -1) {
-                mOutput.write(buffer, 0, bytesRead);
-            }
+            writeSegmentDataOrThrow(data);
         } catch (IOException ioe) {
             LOG.warn(ioe.getMessage(), ioe);
         }
     }
+
+    /**
+     * Write out the data for the segment, reporting any failure to the caller.
+     * <p>
+     * This is the same as writeSegmentData(), except that a failure to read or write the data is thrown rather than
+     * logged.
+     *
+     * @param data the data to write.
+     * @throws IOException if the data could not be read or written.
+     */
+    public final void writeSegmentDataOrThrow(final ImageInputStream data) throws IOException {
+        if ((data == null) || transferSegmentData(data)) {
+            return;
+        }
+        data.seek(0);
+        byte[] buffer = new byte[GraphicSegmentWriter.BUFFER_SIZE];
+        int bytesRead;
+        while ((bytesRead = data.read(buffer)) != -1) {
+            mOutput.write(buffer, 0, bytesRead);
+        }
+    }
+
+    private boolean transferSegmentData(final ImageInputStream data) throws IOException {
+        if (!(mOutput instanceof NitfOutput) || !(data instanceof SegmentDataImageInputStream)) {
+            return false;
+        }
+        SegmentDataImageInputStream rangeData = (SegmentDataImageInputStream) data;
+        if (!(rangeData.getSegmentDataSource() instanceof FileChannelSegmentDataSource)) {
+            return false;
+        }
+        FileChannel source = ((FileChannelSegmentDataSource) rangeData.getSegmentDataSource()).getChannel();
+        ((NitfOutput) mOutput).transferFrom(source, rangeData.getRangeOffset(), rangeData.length());
+        return true;
+    }
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import java.nio.ByteBuffer;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+    NitfReader implementation using a ByteBuffer.
+
+    <p>This is intended for NITF content that is already in memory, either on the heap or in a direct
+    (off-heap) buffer. Unlike wrapping the content in an InputStream, the reader can seek, so
+    streaming mode files can be parsed. {@link #readSlice(int)} returns segment data as a view of
+    the original buffer, without copying.
+
+    <p>The NITF content is the bytes between the buffer's position and limit at construction time.
+    The reader works on its own view of the buffer, so the position and limit of the buffer that is
+    passed in are not changed. Instances are not thread safe.
+*/
+public class ByteBufferNitfReader extends SharedReader implements NitfReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ByteBufferNitfReader.class);
+
+    private static final String GENERIC_READ_ERROR_MESSAGE = "Error reading from NITF buffer: ";
+
+    private final ByteBuffer buffer;
+    private ByteBufferSegmentDataSource segmentDataSource = null;
+    private long position = 0;
+
+    /**
+        Constructor.
+
+        @param nitfBuffer the buffer containing the NITF file contents, from the current position to the limit.
+    */
+    public ByteBufferNitfReader(final ByteBuffer nitfBuffer) {
+        buffer = nitfBuffer.slice();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Boolean canSeek() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final SegmentDataSource getSegmentDataSource() {
+        if (segmentDataSource == null) {
+            ByteBuffer content = buffer.duplicate();
+            content.rewind();
+            segmentDataSource = new ByteBufferSegmentDataSource(content);
+        }
+        return segmentDataSource;
+    }
+
+    /**
+     * Get the length of the NITF content.
+     *
+     * @return the number of bytes in the buffer.
+     */
+    public final long getLength() {
+        return buffer.limit();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final long getCurrentOffset() {
+        return position;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void seekToEndOfFile() throws NitfFormatException {
+        position = buffer.limit();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void seekBackwards(final long relativeOffset) throws NitfFormatException {
+        seekToAbsoluteOffset(position - relativeOffset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void seekToAbsoluteOffset(final long absoluteOffset) throws NitfFormatException {
+        if (absoluteOffset < 0) {
+            LOG.warn("Attempt to seek to negative offset");
+            throw new NitfFormatException("Unable to seek to absolute offset: Negative seek offset", position);
+        }
+        position = absoluteOffset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final byte[] readBytesRaw(final int count) throws NitfFormatException {
+        byte[] bytes = new byte[count];
+        readBytesIntoBuffer(bytes, count);
+        return bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected final void readBytesIntoBuffer(final byte[] destination, final int count) throws NitfFormatException {
+        checkAvailable(count);
+        buffer.position((int) position);
+        buffer.get(destination, 0, count);
+        position += count;
+    }
+
+    /**
+     * Read the specified number of bytes as a view of the underlying buffer.
+     *
+     * The returned buffer shares content with the buffer this reader was constructed with (so it is
+     * direct if that buffer is direct), is read-only, and has position zero and its limit set to the count.
+     * The reader advances past the range.
+     *
+     * @param count the number of bytes to read
+     * @return read-only buffer containing the bytes
+     * @throws NitfFormatException if there are fewer than count bytes remaining in the buffer
+     */
+    public final ByteBuffer readSlice(final int count) throws NitfFormatException {
+        checkAvailable(count);
+        ByteBuffer slice = buffer.duplicate();
+        slice.position((int) position);
+        slice.limit((int) position + count);
+        position += count;
+        return slice.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void skip(final long count) throws NitfFormatException {
+        position += count;
+    }
+
+    private void checkAvailable(final int count) throws NitfFormatException {
+        if (count < 0 || position + count > buffer.limit()) {
+            LOG.warn("Attempt to read beyond end of buffer");
+            throw new NitfFormatException(GENERIC_READ_ERROR_MESSAGE + "attempt to read " + count
+                    + " bytes with only " + Math.max(0, buffer.limit() - position) + " remaining", position);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import java.nio.ByteBuffer;
+import javax.imageio.stream.ImageInputStream;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
+
+/**
+    SegmentDataSource implementation over an in-memory ByteBuffer.
+
+    <p>Each read works on its own view of the buffer, so concurrent reads do not interfere.
+*/
+public class ByteBufferSegmentDataSource implements SegmentDataSource {
+
+    private final ByteBuffer buffer;
+
+    /**
+        Constructor.
+
+        @param nitfBuffer the buffer containing the NITF file contents, from the current position to the limit.
+        The position and limit of this buffer are not changed.
+    */
+    public ByteBufferSegmentDataSource(final ByteBuffer nitfBuffer) {
+        buffer = nitfBuffer.slice();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final long getLength() {
+        return buffer.limit();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int read(final ByteBuffer destination, final long offset) throws NitfFormatException {
+        if (offset >= buffer.limit()) {
+            return -1;
+        }
+        if (offset < 0) {
+            throw new NitfFormatException("Error reading from NITF buffer: negative offset", offset);
+        }
+        ByteBuffer view = buffer.duplicate();
+        int count = (int) Math.min(destination.remaining(), buffer.limit() - offset);
+        view.position((int) offset);
+        view.limit((int) offset + count);
+        destination.put(view);
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final ImageInputStream getImageInputStream(final long offset, final long length) throws NitfFormatException {
+        return new SegmentDataImageInputStream(this, offset, length);
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+    NitfReader implementation using a FileChannel with a read-ahead buffer.
+
+    <p>Small reads (such as individual header fields) are served from an internal buffer that
+    is filled one block at a time. Seeking only moves the logical read position, so a seek that
+    lands inside the current block (including seeking backwards) reuses the buffered data. Reads
+    larger than the block size bypass the buffer.
+
+    <p>All reads are positional, so the position of the underlying channel is not used or changed,
+    and several readers can share one channel. Like FileReader, each instance is not thread safe.
+*/
+public class FileChannelReader extends SharedReader implements NitfReader {
+
+    /**
+     * The default read-ahead block size (64 KiB).
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileChannelReader.class);
+
+    private static final String END_OF_FILE_MESSAGE = "unexpected end of file";
+
+    private final RandomAccessFile nitfFile;
+    private final FileChannel channel;
+    private final Path nitfPath;
+    private FileChannelSegmentDataSource segmentDataSource = null;
+    private final byte[] buffer;
+    private final ByteBuffer bufferWrapper;
+    private long bufferStart = 0;
+    private int bufferLength = 0;
+    private long position = 0;
+
+    /**
+        Constructor for File, using the default block size.
+
+        @param file the File to read the NITF file contents from.
+        @throws NitfFormatException if file does not exist as a regular file, or some other error occurs during opening of the file.
+    */
+    public FileChannelReader(final File file) throws NitfFormatException {
+        this(file, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+        Constructor for string file name, using the default block size.
+
+        @param filename the name of the file to read the NITF file contents from.
+        @throws NitfFormatException if file does not exist as a regular file, or some other error occurs during opening of the file.
+    */
+    public FileChannelReader(final String filename) throws NitfFormatException {
+        this(new File(filename), DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+        Constructor for File, with a specified block size.
+
+        @param file the File to read the NITF file contents from.
+        @param blockSize the size of the read-ahead buffer, in bytes. Must be positive.
+        @throws NitfFormatException if file does not exist as a regular file, or some other error occurs during opening of the file.
+    */
+    public FileChannelReader(final File file, final int blockSize) throws NitfFormatException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("FileChannelReader(): block size must be positive, got " + blockSize);
+        }
+        try {
+            nitfFile = new RandomAccessFile(file, FileReader.READ_MODE);
+        } catch (FileNotFoundException ex) {
+            LOG.warn(FileReader.FILE_NOT_FOUND_EXCEPTION_MESSAGE + file.getPath(), ex);
+            throw new NitfFormatException(file.getPath() + FileReader.NOT_FOUND_MESSAGE_JOINER + ex.getMessage());
+        }
+        channel = nitfFile.getChannel();
+        nitfPath = file.toPath();
+        buffer = new byte[blockSize];
+        bufferWrapper = ByteBuffer.wrap(buffer);
+    }
+
+    /**
+        Constructor for an existing channel.
+        <p>
+        Since all reads are positional, several readers (e.g. one per thread) can share a single open
+        channel. The channel remains owned by the caller: close() on this reader does not close it.
+
+        @param fileChannel the channel to read the NITF file contents from.
+        @param blockSize the size of the read-ahead buffer, in bytes. Must be positive.
+    */
+    public FileChannelReader(final FileChannel fileChannel, final int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("FileChannelReader(): block size must be positive, got " + blockSize);
+        }
+        nitfFile = null;
+        channel = fileChannel;
+        nitfPath = null;
+        buffer = new byte[blockSize];
+        bufferWrapper = ByteBuffer.wrap(buffer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Boolean canSeek() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final SegmentDataSource getSegmentDataSource() {
+        if (segmentDataSource == null) {
+            segmentDataSource = new FileChannelSegmentDataSource(channel, nitfPath);
+        }
+        return segmentDataSource;
+    }
+
+    /**
+     * Close underlying resources, if they were opened by this reader.
+     *
+     * @throws NitfFormatException if an error occurs during close.
+     */
+    public final void close() throws NitfFormatException {
+        bufferLength = 0;
+        if (nitfFile == null) {
+            return;
+        }
+        try {
+            nitfFile.close();
+        } catch (IOException ex) {
+            throw new NitfFormatException("IO Exception during close()" + ex.getMessage());
+        }
+    }
+
+    /**
+     * Get the size of the read-ahead buffer.
+     *
+     * @return the block size, in bytes.
+     */
+    public final int getBlockSize() {
+        return buffer.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final long getCurrentOffset() {
+        return position;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void seekToEndOfFile() throws NitfFormatException {
+        try {
+            position = channel.size();
+        } catch (IOException ex) {
+            LOG.warn("IO Exception seeking to end of file", ex);
+            throw new NitfFormatException("Unable to seek to end of file: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void seekBackwards(final long relativeOffset) throws NitfFormatException {
+        if (relativeOffset > position) {
+            LOG.warn("IO Exception seeking backwards");
+            throw new NitfFormatException("Unable to seek backwards: Negative seek offset", position);
+        }
+        position -= relativeOffset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void seekToAbsoluteOffset(final long absoluteOffset) throws NitfFormatException {
+        if (absoluteOffset < 0) {
+            LOG.warn("IO Exception seeking to absolute offset");
+            throw new NitfFormatException("Unable to seek to absolute offset: Negative seek offset", position);
+        }
+        position = absoluteOffset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final byte[] readBytesRaw(final int count) throws NitfFormatException {
+        byte[] bytes = new byte[count];
+        readBytesIntoBuffer(bytes, count);
+        return bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected final void readBytesIntoBuffer(final byte[] destination, final int count) throws NitfFormatException {
+        int copied = copyFromBuffer(destination, 0, count);
+        if (copied < count) {
+            int remaining = count - copied;
+            if (remaining >= buffer.length) {
+                readDirect(destination, copied, remaining);
+            } else {
+                fillBuffer();
+                if (bufferLength < remaining) {
+                    throw endOfFile();
+                }
+                copyFromBuffer(destination, copied, remaining);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void skip(final long count) throws NitfFormatException {
+        position += count;
+    }
+
+    private int copyFromBuffer(final byte[] destination, final int destinationOffset, final int count) {
+        long bufferOffset = position - bufferStart;
+        if ((bufferOffset < 0) || (bufferOffset >= bufferLength)) {
+            return 0;
+        }
+        int available = Math.min(count, bufferLength - (int) bufferOffset);
+        System.arraycopy(buffer, (int) bufferOffset, destination, destinationOffset, available);
+        position += available;
+        return available;
+    }
+
+    private void fillBuffer() throws NitfFormatException {
+        bufferWrapper.clear();
+        bufferStart = position;
+        bufferLength = 0;
+        try {
+            while (bufferWrapper.hasRemaining()) {
+                int bytesRead = channel.read(bufferWrapper, bufferStart + bufferWrapper.position());
+                if (bytesRead < 0) {
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            LOG.warn("IO Exception reading raw bytes", ex);
+            throw new NitfFormatException(FileReader.GENERIC_READ_ERROR_MESSAGE + ex.getMessage(), position);
+        }
+        bufferLength = bufferWrapper.position();
+    }
+
+    private void readDirect(final byte[] destination, final int destinationOffset, final int count) throws NitfFormatException {
+        ByteBuffer target = ByteBuffer.wrap(destination, destinationOffset, count);
+        try {
+            while (target.hasRemaining()) {
+                int bytesRead = channel.read(target, position);
+                if (bytesRead < 0) {
+                    throw endOfFile();
+                }
+                position += bytesRead;
+            }
+        } catch (IOException ex) {
+            LOG.warn("IO Exception reading raw bytes", ex);
+            throw new NitfFormatException(FileReader.GENERIC_READ_ERROR_MESSAGE + ex.getMessage(), position);
+        }
+    }
+
+    private NitfFormatException endOfFile() {
+        LOG.warn("End of file reading raw bytes");
+        return new NitfFormatException(FileReader.GENERIC_READ_ERROR_MESSAGE + END_OF_FILE_MESSAGE, position);
+    }
+}
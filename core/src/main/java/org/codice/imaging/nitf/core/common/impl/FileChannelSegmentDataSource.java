@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import javax.imageio.stream.ImageInputStream;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+    SegmentDataSource implementation using positional reads on a FileChannel.
+
+    <p>FileChannel.read(ByteBuffer, long) does not use or change the channel position, so one
+    open file can serve any number of concurrent readers without locking.
+*/
+public class FileChannelSegmentDataSource implements SegmentDataSource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileChannelSegmentDataSource.class);
+
+    private final FileChannel channel;
+    private final RandomAccessFile ownedFile;
+    private final Path path;
+
+    /**
+        Constructor for File.
+        <p>
+        The file is opened by this source, and is closed by close().
+
+        @param file the File to read the NITF file contents from.
+        @throws NitfFormatException if file does not exist as a regular file, or some other error occurs during opening of the file.
+    */
+    public FileChannelSegmentDataSource(final File file) throws NitfFormatException {
+        try {
+            ownedFile = new RandomAccessFile(file, FileReader.READ_MODE);
+        } catch (FileNotFoundException ex) {
+            LOG.warn(FileReader.FILE_NOT_FOUND_EXCEPTION_MESSAGE + file.getPath(), ex);
+            throw new NitfFormatException(file.getPath() + FileReader.NOT_FOUND_MESSAGE_JOINER + ex.getMessage());
+        }
+        channel = ownedFile.getChannel();
+        path = file.toPath();
+    }
+
+    /**
+        Constructor for an existing channel.
+        <p>
+        The channel remains owned by the caller: close() on this source does not close it.
+
+        @param fileChannel the channel to read the NITF file contents from.
+    */
+    public FileChannelSegmentDataSource(final FileChannel fileChannel) {
+        this(fileChannel, null);
+    }
+
+    /**
+        Constructor for an existing channel on a known file.
+        <p>
+        The channel remains owned by the caller: close() on this source does not close it.
+
+        @param fileChannel the channel to read the NITF file contents from.
+        @param filePath the path of the file that the channel reads from, or null if it is not known.
+    */
+    public FileChannelSegmentDataSource(final FileChannel fileChannel, final Path filePath) {
+        channel = fileChannel;
+        ownedFile = null;
+        path = filePath;
+    }
+
+    /**
+     * Get the underlying channel.
+     *
+     * @return the file channel that this source reads from.
+     */
+    public final FileChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Get the path of the file that this source reads from.
+     *
+     * @return the file path, or null if this source was created from a channel without a path.
+     */
+    public final Path getPath() {
+        return path;
+    }
+
+    /**
+     * Close underlying resources, if they were opened by this source.
+     *
+     * @throws NitfFormatException if an error occurs during close.
+     */
+    public final void close() throws NitfFormatException {
+        if (ownedFile == null) {
+            return;
+        }
+        try {
+            ownedFile.close();
+        } catch (IOException ex) {
+            throw new NitfFormatException("IO Exception during close()" + ex.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final long getLength() throws NitfFormatException {
+        try {
+            return channel.size();
+        } catch (IOException ex) {
+            LOG.warn("IO Exception getting file size", ex);
+            throw new NitfFormatException(FileReader.GENERIC_READ_ERROR_MESSAGE + ex.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int read(final ByteBuffer destination, final long offset) throws NitfFormatException {
+        try {
+            return channel.read(destination, offset);
+        } catch (IOException ex) {
+            LOG.warn("IO Exception reading raw bytes", ex);
+            throw new NitfFormatException(FileReader.GENERIC_READ_ERROR_MESSAGE + ex.getMessage(), offset);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final ImageInputStream getImageInputStream(final long offset, final long length) throws NitfFormatException {
+        return new SegmentDataImageInputStream(this, offset, length);
+    }
+}
@@ -20,11 +20,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import javax.imageio.stream.FileImageInputStream;
 import javax.imageio.stream.ImageInputStream;
 
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +45,8 @@ public class FileReader extends SharedReader implements NitfReader {
     private static final Logger LOG = LoggerFactory.getLogger(FileReader.class);
 
     private RandomAccessFile nitfFile = null;
+    private Path nitfPath = null;
+    private FileChannelSegmentDataSource segmentDataSource = null;
 
     /**
         Constructor for File.
@@ -56,6 +61,7 @@ public class FileReader extends SharedReader implements NitfReader {
             LOG.warn(FILE_NOT_FOUND_EXCEPTION_MESSAGE + file.getPath(), ex);
             throw new NitfFormatException(file.getPath() + NOT_FOUND_MESSAGE_JOINER +  ex.getMessage());
         }
+        nitfPath = file.toPath();
     }
 
     /**
@@ -71,6 +77,7 @@ public class FileReader extends SharedReader implements NitfReader {
             LOG.warn(FILE_NOT_FOUND_EXCEPTION_MESSAGE + filename, ex);
             throw new NitfFormatException(filename + NOT_FOUND_MESSAGE_JOINER +  ex.getMessage());
         }
+        nitfPath = Paths.get(filename);
     }
 
     /**
@@ -81,6 +88,17 @@ public class FileReader extends SharedReader implements NitfReader {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final SegmentDataSource getSegmentDataSource() {
+        if (segmentDataSource == null) {
+            segmentDataSource = new FileChannelSegmentDataSource(nitfFile.getChannel(), nitfPath);
+        }
+        return segmentDataSource;
+    }
+
     /**
      * Close underlying resources.
      *
@@ -151,12 +169,20 @@ public class FileReader extends SharedReader implements NitfReader {
      */
     @Override
     public final byte[] readBytesRaw(final int count) throws NitfFormatException {
+        byte[] bytes = new byte[count];
+        readBytesIntoBuffer(bytes, count);
+        return bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected final void readBytesIntoBuffer(final byte[] destination, final int count) throws NitfFormatException {
         long currentOffset = 0;
         try {
             currentOffset = nitfFile.getFilePointer();
-            byte[] bytes = new byte[count];
-            nitfFile.readFully(bytes);
-            return bytes;
+            nitfFile.readFully(destination, 0, count);
         } catch (IOException ex) {
             LOG.warn("IO Exception reading raw bytes", ex);
             throw new NitfFormatException(GENERIC_READ_ERROR_MESSAGE + ex.getMessage(), currentOffset);
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+    NitfReader implementation using memory mapped regions of a File.
+
+    <p>The file is mapped as a sequence of read-only windows, so files larger than 2GB can be
+    read. Windows are only mapped when first touched. Reads that fall within a single window
+    are served directly from the mapping, and {@link #readSlice(int)} can return the mapped
+    bytes without copying them onto the heap.
+
+    <p>Like FileReader, instances are not thread safe.
+*/
+public class MappedFileReader extends SharedReader implements NitfReader {
+
+    /**
+     * The default size of each mapped window (1 GiB).
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 1024 * 1024 * 1024;
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedFileReader.class);
+
+    private final RandomAccessFile nitfFile;
+    private final FileChannel channel;
+    private final Path nitfPath;
+    private FileChannelSegmentDataSource segmentDataSource = null;
+    private final long fileLength;
+    private final int windowSize;
+    private final MappedByteBuffer[] windows;
+    private long position = 0;
+
+    /**
+        Constructor for File, using the default window size.
+
+        @param file the File to read the NITF file contents from.
+        @throws NitfFormatException if file does not exist as a regular file, or some other error occurs during opening of the file.
+    */
+    public MappedFileReader(final File file) throws NitfFormatException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+        Constructor for string file name, using the default window size.
+
+        @param filename the name of the file to read the NITF file contents from.
+        @throws NitfFormatException if file does not exist as a regular file, or some other error occurs during opening of the file.
+    */
+    public MappedFileReader(final String filename) throws NitfFormatException {
+        this(new File(filename), DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+        Constructor for File, with a specified window size.
+
+        @param file the File to read the NITF file contents from.
+        @param mappedWindowSize the number of bytes to map in each window. Must be positive.
+        @throws NitfFormatException if file does not exist as a regular file, or some other error occurs during opening of the file.
+    */
+    public MappedFileReader(final File file, final int mappedWindowSize) throws NitfFormatException {
+        if (mappedWindowSize <= 0) {
+            throw new IllegalArgumentException("MappedFileReader(): window size must be positive, got " + mappedWindowSize);
+        }
+        try {
+            nitfFile = new RandomAccessFile(file, FileReader.READ_MODE);
+        } catch (FileNotFoundException ex) {
+            LOG.warn(FileReader.FILE_NOT_FOUND_EXCEPTION_MESSAGE + file.getPath(), ex);
+            throw new NitfFormatException(file.getPath() + FileReader.NOT_FOUND_MESSAGE_JOINER + ex.getMessage());
+        }
+        channel = nitfFile.getChannel();
+        nitfPath = file.toPath();
+        try {
+            fileLength = channel.size();
+        } catch (IOException ex) {
+            LOG.warn("IO Exception getting file size", ex);
+            throw new NitfFormatException(FileReader.GENERIC_READ_ERROR_MESSAGE + ex.getMessage());
+        }
+        windowSize = mappedWindowSize;
+        windows = new MappedByteBuffer[(int) ((fileLength + windowSize - 1) / windowSize)];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Boolean canSeek() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final SegmentDataSource getSegmentDataSource() {
+        if (segmentDataSource == null) {
+            segmentDataSource = new FileChannelSegmentDataSource(channel, nitfPath);
+        }
+        return segmentDataSource;
+    }
+
+    /**
+     * Close underlying resources.
+     *
+     * The mapped regions are released when they are garbage collected. Slices returned from
+     * readSlice() remain readable after close().
+     *
+     * @throws NitfFormatException if an error occurs during close.
+     */
+    public final void close() throws NitfFormatException {
+        try {
+            for (int i = 0; i < windows.length; ++i) {
+                windows[i] = null;
+            }
+            nitfFile.close();
+        } catch (IOException ex) {
+            throw new NitfFormatException("IO Exception during close()" + ex.getMessage());
+        }
+    }
+
+    /**
+     * Get the length of the underlying file.
+     *
+     * @return the file length, in bytes.
+     */
+    public final long getFileLength() {
+        return fileLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final long getCurrentOffset() {
+        return position;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void seekToEndOfFile() throws NitfFormatException {
+        position = fileLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void seekBackwards(final long relativeOffset) throws NitfFormatException {
+        seekToAbsoluteOffset(position - relativeOffset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void seekToAbsoluteOffset(final long absoluteOffset) throws NitfFormatException {
+        if (absoluteOffset < 0) {
+            LOG.warn("Attempt to seek to negative offset");
+            throw new NitfFormatException("Unable to seek to absolute offset: Negative seek offset", position);
+        }
+        position = absoluteOffset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final byte[] readBytesRaw(final int count) throws NitfFormatException {
+        byte[] bytes = new byte[count];
+        readBytesIntoBuffer(bytes, count);
+        return bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected final void readBytesIntoBuffer(final byte[] destination, final int count) throws NitfFormatException {
+        checkAvailable(count);
+        copyTo(destination, count);
+    }
+
+    /**
+     * Read the specified number of bytes, without copying them where possible.
+     *
+     * If the requested range lies within a single mapped window, the result is a read-only view
+     * of the mapped file content. Otherwise the bytes are copied into a heap buffer. In either case
+     * the returned buffer has position zero and its limit set to the count, and the reader advances
+     * past the range.
+     *
+     * @param count the number of bytes to read
+     * @return read-only buffer containing the bytes
+     * @throws NitfFormatException if there are fewer than count bytes remaining in the file
+     */
+    public final ByteBuffer readSlice(final int count) throws NitfFormatException {
+        checkAvailable(count);
+        int windowIndex = (int) (position / windowSize);
+        int windowOffset = (int) (position % windowSize);
+        if ((count > 0) && ((long) windowOffset + count <= windowSize)) {
+            ByteBuffer slice = getWindow(windowIndex).duplicate();
+            slice.position(windowOffset);
+            slice.limit(windowOffset + count);
+            position += count;
+            return slice.slice().asReadOnlyBuffer();
+        }
+        byte[] bytes = new byte[count];
+        copyTo(bytes, count);
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void skip(final long count) throws NitfFormatException {
+        position += count;
+    }
+
+    private void checkAvailable(final int count) throws NitfFormatException {
+        if (count < 0 || position + count > fileLength) {
+            LOG.warn("Attempt to read beyond end of file");
+            throw new NitfFormatException(FileReader.GENERIC_READ_ERROR_MESSAGE + "attempt to read " + count
+                    + " bytes with only " + Math.max(0, fileLength - position) + " remaining", position);
+        }
+    }
+
+    private void copyTo(final byte[] destination, final int count) throws NitfFormatException {
+        int copied = 0;
+        while (copied < count) {
+            int windowIndex = (int) (position / windowSize);
+            int windowOffset = (int) (position % windowSize);
+            MappedByteBuffer window = getWindow(windowIndex);
+            int thisCopy = Math.min(count - copied, window.limit() - windowOffset);
+            window.position(windowOffset);
+            window.get(destination, copied, thisCopy);
+            copied += thisCopy;
+            position += thisCopy;
+        }
+    }
+
+    private MappedByteBuffer getWindow(final int windowIndex) throws NitfFormatException {
+        if (windows[windowIndex] == null) {
+            long windowStart = (long) windowIndex * windowSize;
+            long windowLength = Math.min(windowSize, fileLength - windowStart);
+            try {
+                windows[windowIndex] = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+            } catch (IOException ex) {
+                LOG.warn("IO Exception mapping file region", ex);
+                throw new NitfFormatException(FileReader.GENERIC_READ_ERROR_MESSAGE + ex.getMessage(), windowStart);
+            }
+        }
+        return windows[windowIndex];
+    }
+}
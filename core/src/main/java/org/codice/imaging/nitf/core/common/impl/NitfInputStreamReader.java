@@ -19,6 +19,7 @@ import java.io.InputStream;
 
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +52,15 @@ public class NitfInputStreamReader extends SharedReader implements NitfReader {
         return false;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final SegmentDataSource getSegmentDataSource() {
+        // We can't seek, so there is no positional access.
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -88,11 +98,20 @@ public class NitfInputStreamReader extends SharedReader implements NitfReader {
      */
     @Override
     public final byte[] readBytesRaw(final int count) throws NitfFormatException {
+        byte[] bytes = new byte[count];
+        readBytesIntoBuffer(bytes, count);
+        return bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected final void readBytesIntoBuffer(final byte[] destination, final int count) throws NitfFormatException {
         try {
-            byte[] bytes = new byte[count];
             int thisRead = 0;
             while (thisRead != count) {
-                int read = input.read(bytes, thisRead, count - thisRead);
+                int read = input.read(destination, thisRead, count - thisRead);
                 if (read == -1) {
                     throw new NitfFormatException("End of file reading from NITF stream.",
                             numBytesRead);
@@ -100,7 +119,6 @@ public class NitfInputStreamReader extends SharedReader implements NitfReader {
                 thisRead += read;
             }
             numBytesRead += thisRead;
-            return bytes;
         } catch (IOException ex) {
             LOG.warn("IO Exception reading raw bytes", ex);
             throw new NitfFormatException(GENERIC_READ_ERROR_MESSAGE + ex.getMessage(), numBytesRead);
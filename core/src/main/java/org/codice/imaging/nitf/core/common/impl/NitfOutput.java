@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+    Buffered DataOutput for writing NITF files, backed by a channel.
+
+    <p>Writes go into a direct buffer, which is only written to the channel when it is full, when
+    a write is too large for it, or on flush(). The NITF header and segment writers write many
+    small fixed width fields, so this turns one system call per field into one per buffer.
+    writeFixedLengthString() and writeFixedLengthNumber() encode those fields directly into the
+    buffer, without formatting a String first.
+
+    <p>The position is the number of bytes written so far, including any bytes that are still in
+    the buffer, and for a FileChannel it starts at the position of the channel.
+
+    <p>transferFrom() copies a range of another file with FileChannel.transferTo(), so that segment
+    data that is unchanged from a parsed file does not have to be read into the Java heap.
+
+    <p>Data is not written to the channel until flush() is called, so flush() must be called once
+    writing is complete. Like the readers, each instance is not thread safe.
+*/
+public class NitfOutput implements DataOutput, Flushable {
+
+    /**
+     * The default buffer size (256 KiB).
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    private static final int DECIMAL_BASE = 10;
+
+    // The length of Long.MIN_VALUE as text.
+    private static final int MAX_LONG_LENGTH = 20;
+
+    private static final byte SPACE = ' ';
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] scratch = new byte[MAX_LONG_LENGTH];
+    private long flushedPosition;
+
+    /**
+        Constructor for a channel, using the default buffer size.
+
+        @param outputChannel the channel to write to.
+        @throws IOException if the position of a FileChannel could not be read.
+    */
+    public NitfOutput(final WritableByteChannel outputChannel) throws IOException {
+        this(outputChannel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+        Constructor for a channel.
+
+        @param outputChannel the channel to write to.
+        @param bufferSize the size of the write buffer, in bytes.
+        @throws IOException if the position of a FileChannel could not be read.
+    */
+    public NitfOutput(final WritableByteChannel outputChannel, final int bufferSize) throws IOException {
+        if (outputChannel == null) {
+            throw new IllegalArgumentException("NitfOutput(): argument 'outputChannel' may not be null.");
+        }
+        if (bufferSize < MAX_LONG_LENGTH) {
+            throw new IllegalArgumentException("NitfOutput(): argument 'bufferSize' must be at least " + MAX_LONG_LENGTH);
+        }
+        channel = outputChannel;
+        buffer = ByteBuffer.allocateDirect(bufferSize);
+        if (outputChannel instanceof FileChannel) {
+            flushedPosition = ((FileChannel) outputChannel).position();
+        } else {
+            flushedPosition = 0;
+        }
+    }
+
+    /**
+     * Get the current position.
+     *
+     * @return the position that the next byte will be written at.
+     */
+    public final long getPosition() {
+        return flushedPosition + buffer.position();
+    }
+
+    /**
+     * Write any buffered data to the channel.
+     *
+     * @throws IOException on writing problems.
+     */
+    @Override
+    public final void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            flushedPosition += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Copy a range of a file to the output.
+     * <p>
+     * Any buffered data is written first, and the range is then copied with FileChannel.transferTo(). Depending on
+     * the platform and the output channel, the data is copied by the operating system, without being read into the
+     * Java heap. The position of the source channel is not used or changed.
+     *
+     * @param source the channel to copy from.
+     * @param offset the offset in the source of the start of the range.
+     * @param length the length of the range, in bytes.
+     * @throws IOException on reading or writing problems, or if the source ends before the end of the range.
+     */
+    public final void transferFrom(final FileChannel source, final long offset, final long length) throws IOException {
+        flush();
+        long transferred = 0;
+        while (transferred < length) {
+            long count = source.transferTo(offset + transferred, length - transferred, channel);
+            if (count <= 0) {
+                throw new EOFException(String.format("Source ended after %d of %d bytes at offset %d", transferred, length, offset));
+            }
+            transferred += count;
+            flushedPosition += count;
+        }
+    }
+
+    private void ensureSpace(final int length) throws IOException {
+        if (buffer.remaining() < length) {
+            flush();
+        }
+    }
+
+    /**
+     * Write out a string, padded with trailing spaces to a fixed length.
+     * <p>
+     * Each character is written as one byte, as for writeBytes(). A string that is longer than the length is written
+     * in full, so the caller has to check that first.
+     *
+     * @param s the string to write.
+     * @param length the length that the string should be.
+     * @throws IOException on writing problems.
+     */
+    public final void writeFixedLengthString(final String s, final int length) throws IOException {
+        writeBytes(s);
+        for (int i = s.length(); i < length; ++i) {
+            ensureSpace(1);
+            buffer.put(SPACE);
+        }
+    }
+
+    /**
+     * Write out a number, padded with leading zeros to a fixed length.
+     * <p>
+     * This gives the same result as String.format("%0" + length + "d", number), with the sign (if any) before the
+     * zeros.
+     *
+     * @param number the number to write out.
+     * @param length the length (number of characters) that the number should be.
+     * @return true if the number was written, or false (and nothing is written) if it does not fit into the length.
+     * @throws IOException on writing problems.
+     */
+    public final boolean writeFixedLengthNumber(final long number, final int length) throws IOException {
+        if (length > scratch.length) {
+            byte[] digits = new byte[length];
+            if (!encodeFixedLengthNumber(digits, 0, number, length)) {
+                return false;
+            }
+            write(digits);
+            return true;
+        }
+        if (!encodeFixedLengthNumber(scratch, 0, number, length)) {
+            return false;
+        }
+        write(scratch, 0, length);
+        return true;
+    }
+
+    /**
+     * Encode a number as ASCII digits, padded with leading zeros to a fixed length.
+     * <p>
+     * This gives the same result as String.format("%0" + length + "d", number), with the sign (if any) before the
+     * zeros.
+     *
+     * @param destination the array to encode into.
+     * @param offset the offset in the array of the first character.
+     * @param number the number to encode.
+     * @param length the length (number of characters) that the number should be.
+     * @return true if the number was encoded, or false if it does not fit into the length (in which case the contents
+     * of the array at the offset are not valid).
+     */
+    public static boolean encodeFixedLengthNumber(final byte[] destination, final int offset, final long number,
+            final int length) {
+        if (length <= 0) {
+            return false;
+        }
+        int firstDigit = offset;
+        if (number < 0) {
+            destination[offset] = '-';
+            firstDigit++;
+        }
+        // Negative numbers are worked on as negative, so that Long.MIN_VALUE works too.
+        long remaining = number;
+        for (int i = offset + length - 1; i >= firstDigit; --i) {
+            destination[i] = (byte) ('0' + Math.abs(remaining % DECIMAL_BASE));
+            remaining /= DECIMAL_BASE;
+        }
+        return remaining == 0;
+    }
+
+    @Override
+    public final void write(final int b) throws IOException {
+        ensureSpace(1);
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public final void write(final byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public final void write(final byte[] b, final int off, final int len) throws IOException {
+        if (len <= buffer.remaining()) {
+            buffer.put(b, off, len);
+            return;
+        }
+        flush();
+        if (len < buffer.capacity()) {
+            buffer.put(b, off, len);
+            return;
+        }
+        // Too big to be worth copying into the buffer.
+        ByteBuffer data = ByteBuffer.wrap(b, off, len);
+        while (data.hasRemaining()) {
+            flushedPosition += channel.write(data);
+        }
+    }
+
+    @Override
+    public final void writeBoolean(final boolean v) throws IOException {
+        if (v) {
+            write(1);
+        } else {
+            write(0);
+        }
+    }
+
+    @Override
+    public final void writeByte(final int v) throws IOException {
+        write(v);
+    }
+
+    @Override
+    public final void writeShort(final int v) throws IOException {
+        ensureSpace(Short.BYTES);
+        buffer.putShort((short) v);
+    }
+
+    @Override
+    public final void writeChar(final int v) throws IOException {
+        ensureSpace(Character.BYTES);
+        buffer.putChar((char) v);
+    }
+
+    @Override
+    public final void writeInt(final int v) throws IOException {
+        ensureSpace(Integer.BYTES);
+        buffer.putInt(v);
+    }
+
+    @Override
+    public final void writeLong(final long v) throws IOException {
+        ensureSpace(Long.BYTES);
+        buffer.putLong(v);
+    }
+
+    @Override
+    public final void writeFloat(final float v) throws IOException {
+        writeInt(Float.floatToIntBits(v));
+    }
+
+    @Override
+    public final void writeDouble(final double v) throws IOException {
+        writeLong(Double.doubleToLongBits(v));
+    }
+
+    @Override
+    public final void writeBytes(final String s) throws IOException {
+        int written = 0;
+        while (written < s.length()) {
+            ensureSpace(1);
+            int end = Math.min(s.length(), written + buffer.remaining());
+            for (int i = written; i < end; ++i) {
+                buffer.put((byte) s.charAt(i));
+            }
+            written = end;
+        }
+    }
+
+    @Override
+    public final void writeChars(final String s) throws IOException {
+        for (int i = 0; i < s.length(); ++i) {
+            writeChar(s.charAt(i));
+        }
+    }
+
+    @Override
+    public final void writeUTF(final String s) throws IOException {
+        // Not used for NITF data, so just use the DataOutputStream encoding.
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        new DataOutputStream(encoded).writeUTF(s);
+        write(encoded.toByteArray());
+    }
+}
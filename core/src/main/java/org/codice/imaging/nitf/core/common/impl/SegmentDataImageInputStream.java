@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javax.imageio.stream.ImageInputStreamImpl;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
+
+/**
+    ImageInputStream view of a range of a SegmentDataSource.
+
+    <p>Stream positions are relative to the start of the range. Content is read on demand using
+    positional reads, through a small buffer for byte-at-a-time access. The stream is not thread
+    safe, but any number of streams can be used concurrently over the same source.
+*/
+public class SegmentDataImageInputStream extends ImageInputStreamImpl {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int BYTE_MASK = 0xFF;
+
+    private final SegmentDataSource source;
+    private final long rangeOffset;
+    private final long rangeLength;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long bufferStart = 0;
+    private int bufferLength = 0;
+
+    /**
+        Constructor.
+
+        @param dataSource the source to read from.
+        @param offset the absolute offset of the start of the range in the source.
+        @param length the length of the range, in bytes.
+        @throws NitfFormatException if the range is not within the source content.
+    */
+    public SegmentDataImageInputStream(final SegmentDataSource dataSource, final long offset, final long length)
+            throws NitfFormatException {
+        if ((offset < 0) || (length < 0) || (offset + length > dataSource.getLength())) {
+            throw new NitfFormatException(String.format("Segment data range [%d, +%d] is not within the source length %d",
+                    offset, length, dataSource.getLength()), offset);
+        }
+        source = dataSource;
+        rangeOffset = offset;
+        rangeLength = length;
+    }
+
+    /**
+     * Get the source that this stream reads from.
+     *
+     * @return the segment data source.
+     */
+    public final SegmentDataSource getSegmentDataSource() {
+        return source;
+    }
+
+    /**
+     * Get the offset of the start of this stream in the source.
+     *
+     * @return the absolute offset of the range.
+     */
+    public final long getRangeOffset() {
+        return rangeOffset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final long length() {
+        return rangeLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int read() throws IOException {
+        checkClosed();
+        bitOffset = 0;
+        if (streamPos >= rangeLength) {
+            return -1;
+        }
+        if (!isBuffered(streamPos)) {
+            fillBuffer();
+            if (bufferLength == 0) {
+                return -1;
+            }
+        }
+        int value = buffer[(int) (streamPos - bufferStart)] & BYTE_MASK;
+        streamPos++;
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int read(final byte[] destination, final int offset, final int length) throws IOException {
+        checkClosed();
+        if ((offset < 0) || (length < 0) || (offset + length > destination.length)) {
+            throw new IndexOutOfBoundsException("read(): offset and length do not fit the destination");
+        }
+        if (length == 0) {
+            return 0;
+        }
+        bitOffset = 0;
+        long remainingInRange = rangeLength - streamPos;
+        if (remainingInRange <= 0) {
+            return -1;
+        }
+        int count = (int) Math.min(length, remainingInRange);
+        if (!isBuffered(streamPos)) {
+            if (count >= BUFFER_SIZE) {
+                int bytesRead = readFromSource(ByteBuffer.wrap(destination, offset, count), streamPos);
+                if (bytesRead > 0) {
+                    streamPos += bytesRead;
+                }
+                return bytesRead;
+            }
+            fillBuffer();
+            if (bufferLength == 0) {
+                return -1;
+            }
+        }
+        int bufferOffset = (int) (streamPos - bufferStart);
+        count = Math.min(count, bufferLength - bufferOffset);
+        System.arraycopy(buffer, bufferOffset, destination, offset, count);
+        streamPos += count;
+        return count;
+    }
+
+    private boolean isBuffered(final long position) {
+        return (position >= bufferStart) && (position < bufferStart + bufferLength);
+    }
+
+    private void fillBuffer() throws IOException {
+        bufferStart = streamPos;
+        bufferLength = 0;
+        int count = (int) Math.min(BUFFER_SIZE, rangeLength - streamPos);
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, count);
+        while (target.hasRemaining()) {
+            if (readFromSource(target, streamPos + target.position()) < 0) {
+                break;
+            }
+        }
+        bufferLength = target.position();
+    }
+
+    private int readFromSource(final ByteBuffer target, final long position) throws IOException {
+        try {
+            return source.read(target, rangeOffset + position);
+        } catch (NitfFormatException ex) {
+            throw new IOException(ex);
+        }
+    }
+}
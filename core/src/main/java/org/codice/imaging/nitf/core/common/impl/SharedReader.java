@@ -38,6 +38,21 @@ abstract class SharedReader extends NitfReaderDefaultImpl implements NitfReader
         return defaultReadBytesAsDouble(count);
     }
 
+    @Override
+    public final int readAsciiInt(final int count) throws NitfFormatException {
+        return defaultReadAsciiInt(count);
+    }
+
+    @Override
+    public final long readAsciiLong(final int count) throws NitfFormatException {
+        return defaultReadAsciiLong(count);
+    }
+
+    @Override
+    public final double readAsciiDouble(final int count) throws NitfFormatException {
+        return defaultReadAsciiDouble(count);
+    }
+
     @Override
     public final String readTrimmedBytes(final int count) throws NitfFormatException {
         return defaultReadTrimmedBytes(count);
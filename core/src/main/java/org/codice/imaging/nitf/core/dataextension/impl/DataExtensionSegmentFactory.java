@@ -104,6 +104,25 @@ public final class DataExtensionSegmentFactory {
         return des;
     }
 
+    /**
+     * Create a streaming file header data extension segment (DES), without data.
+     *
+     * This sets the STREAMING_FILE_HEADER identifier. The data (the replacement file header) is written by the
+     * streaming writer.
+     *
+     * @param fileType the type (version) of NITF file this data extension segment is for
+     * @return default valid data extension segment, containing no data.
+     */
+    public static DataExtensionSegment getStreamingFileHeader(final FileType fileType) {
+        if (fileType.equals(FileType.UNKNOWN)) {
+            throw new UnsupportedOperationException("Cannot make DES for unsupported FileType: " + fileType.toString());
+        }
+        DataExtensionSegmentImpl des = makeBasicDesImpl(fileType);
+        des.setIdentifier(DataExtensionConstants.STREAMING_FILE_HEADER);
+        des.setDESVersion(1);
+        return des;
+    }
+
     private static DataExtensionSegmentImpl makeBasicDesImpl(final FileType fileType) {
         DataExtensionSegmentImpl des = new DataExtensionSegmentImpl(fileType);
         des.setDESVersion(0);
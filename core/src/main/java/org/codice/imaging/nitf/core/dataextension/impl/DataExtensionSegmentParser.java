@@ -78,7 +78,7 @@ public class DataExtensionSegmentParser extends AbstractSegmentParser {
     }
 
     private void readDESVER() throws NitfFormatException {
-        segment.setDESVersion(reader.readBytesAsInteger(DESVER_LENGTH));
+        segment.setDESVersion(reader.readAsciiInt(DESVER_LENGTH));
     }
 
     private void readDESOFLW() throws NitfFormatException {
@@ -86,11 +86,11 @@ public class DataExtensionSegmentParser extends AbstractSegmentParser {
     }
 
     private void readDESITEM() throws NitfFormatException {
-        segment.setItemOverflowed(reader.readBytesAsInteger(DESITEM_LENGTH));
+        segment.setItemOverflowed(reader.readAsciiInt(DESITEM_LENGTH));
     }
 
     private void readDSSHL() throws NitfFormatException {
-        userDefinedSubheaderLength = reader.readBytesAsInteger(DESSHL_LENGTH);
+        userDefinedSubheaderLength = reader.readAsciiInt(DESSHL_LENGTH);
     }
 
     private void readDSSHF() throws NitfFormatException {
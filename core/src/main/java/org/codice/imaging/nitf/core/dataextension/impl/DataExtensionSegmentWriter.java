@@ -52,6 +52,18 @@ public class DataExtensionSegmentWriter extends AbstractSegmentWriter {
      * @throws NitfFormatException on TRE parse problems
      */
     public final void writeDESHeader(final DataExtensionSegment des) throws IOException, NitfFormatException {
+        writeDESSubheader(des);
+        des.consume(this::writeSegmentData);
+    }
+
+    /**
+     * Write out the subheader for this data extension segment, without the segment data.
+     *
+     * @param des the header to write
+     * @throws IOException on write failure
+     * @throws NitfFormatException on TRE parse problems
+     */
+    public final void writeDESSubheader(final DataExtensionSegment des) throws IOException, NitfFormatException {
         writeFixedLengthString(DE, DE.length());
         writeFixedLengthString(des.getIdentifier(), DESID_LENGTH);
         writeFixedLengthNumber(des.getDESVersion(), DESVER_LENGTH);
@@ -67,6 +79,5 @@ public class DataExtensionSegmentWriter extends AbstractSegmentWriter {
             byte[] treData = mTreParser.getTREs(des, TreSource.TreOverflowDES);
             mOutput.write(treData);
         }
-        des.consume(this::writeSegmentData);
     }
 }
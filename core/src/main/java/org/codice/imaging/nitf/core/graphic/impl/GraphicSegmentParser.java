@@ -116,21 +116,21 @@ public class GraphicSegmentParser extends AbstractSegmentParser {
     }
 
     private void readSDLVL() throws NitfFormatException {
-        segment.setGraphicDisplayLevel(reader.readBytesAsInteger(SDLVL_LENGTH));
+        segment.setGraphicDisplayLevel(reader.readAsciiInt(SDLVL_LENGTH));
     }
 
     private void readSALVL() throws NitfFormatException {
-        segment.setAttachmentLevel(reader.readBytesAsInteger(SALVL_LENGTH));
+        segment.setAttachmentLevel(reader.readAsciiInt(SALVL_LENGTH));
     }
 
     private void readSLOC() throws NitfFormatException {
-        segment.setGraphicLocationRow(reader.readBytesAsInteger(SLOC_HALF_LENGTH));
-        segment.setGraphicLocationColumn(reader.readBytesAsInteger(SLOC_HALF_LENGTH));
+        segment.setGraphicLocationRow(reader.readAsciiInt(SLOC_HALF_LENGTH));
+        segment.setGraphicLocationColumn(reader.readAsciiInt(SLOC_HALF_LENGTH));
     }
 
     private void readSBND1() throws NitfFormatException {
-        segment.setBoundingBox1Row(reader.readBytesAsInteger(SBND1_HALF_LENGTH));
-        segment.setBoundingBox1Column(reader.readBytesAsInteger(SBND1_HALF_LENGTH));
+        segment.setBoundingBox1Row(reader.readAsciiInt(SBND1_HALF_LENGTH));
+        segment.setBoundingBox1Column(reader.readAsciiInt(SBND1_HALF_LENGTH));
     }
 
     private void readSCOLOR() throws NitfFormatException {
@@ -139,8 +139,8 @@ public class GraphicSegmentParser extends AbstractSegmentParser {
     }
 
     private void readSBND2() throws NitfFormatException {
-        segment.setBoundingBox2Row(reader.readBytesAsInteger(SBND2_HALF_LENGTH));
-        segment.setBoundingBox2Column(reader.readBytesAsInteger(SBND2_HALF_LENGTH));
+        segment.setBoundingBox2Row(reader.readAsciiInt(SBND2_HALF_LENGTH));
+        segment.setBoundingBox2Column(reader.readAsciiInt(SBND2_HALF_LENGTH));
     }
 
     private void readSRES() throws NitfFormatException {
@@ -148,11 +148,11 @@ public class GraphicSegmentParser extends AbstractSegmentParser {
     }
 
     private void readSXSHDL() throws NitfFormatException {
-        graphicExtendedSubheaderLength = reader.readBytesAsInteger(SXSHDL_LENGTH);
+        graphicExtendedSubheaderLength = reader.readAsciiInt(SXSHDL_LENGTH);
     }
 
     private void readSXSOFL() throws NitfFormatException {
-        segment.setExtendedHeaderDataOverflow(reader.readBytesAsInteger(SXSOFL_LENGTH));
+        segment.setExtendedHeaderDataOverflow(reader.readAsciiInt(SXSOFL_LENGTH));
     }
 
     private void readSXSHD() throws NitfFormatException {
@@ -16,6 +16,8 @@ package org.codice.imaging.nitf.core.header.impl;
 
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import org.codice.imaging.nitf.core.DataSource;
 import org.codice.imaging.nitf.core.header.NitfHeader;
 import org.codice.imaging.nitf.core.impl.RGBColourImpl;
@@ -38,6 +40,9 @@ import org.codice.imaging.nitf.core.tre.TreSource;
  */
 public class NitfHeaderWriter extends AbstractSegmentWriter {
 
+    // The value of a length field that is not known yet, up to the longest (FL) field.
+    private static final String ALL_NINES = Long.toString(NitfHeaderConstants.STREAMING_FILE_MODE);
+
     /**
      * Constructor.
      *
@@ -56,6 +61,58 @@ public class NitfHeaderWriter extends AbstractSegmentWriter {
      * @throws NitfFormatException on TRE parsing problems
      */
     public final void writeFileHeader(final DataSource dataSource) throws IOException, NitfFormatException {
+        writeFileHeader(dataSource, null, true);
+    }
+
+    /**
+     * Write out the file-level header for a file that is written as it is produced.
+     * <p>
+     * If the lengths are not known yet, the file length, and the data lengths of the image, graphic, symbol and data
+     * extension segments, are written as all nines. This is the first header of a streaming mode file (see
+     * MIL-STD-2500C Section 5.8.3.2), or a placeholder to be overwritten once the lengths are known. The header is the
+     * same length either way.
+     *
+     * @param dataSource the data source to take NITF structure from.
+     * @param streamingFileHeader the STREAMING_FILE_HEADER data extension segment to list after the other data extension
+     * segments, with its data length set, or null for none.
+     * @param lengthsKnown true if the segment data lengths are known, otherwise false.
+     * @throws IOException on read or write problems
+     * @throws NitfFormatException on TRE parsing problems
+     */
+    public final void writeStreamingFileHeader(final DataSource dataSource, final DataExtensionSegment streamingFileHeader,
+            final boolean lengthsKnown) throws IOException, NitfFormatException {
+        writeFileHeader(dataSource, streamingFileHeader, lengthsKnown);
+    }
+
+    /**
+     * Write out the data of a STREAMING_FILE_HEADER data extension segment.
+     * <p>
+     * See MIL-STD-2500C Table A-8(B).
+     *
+     * @param fileHeader the replacement file header, with all lengths known.
+     * @throws IOException on write problems
+     */
+    public final void writeStreamingFileHeaderData(final byte[] fileHeader) throws IOException {
+        writeFixedLengthNumber(fileHeader.length, NitfHeaderConstants.SFH_L1_LENGTH);
+        mOutput.write(NitfHeaderConstants.SFH_DELIM1);
+        mOutput.write(fileHeader);
+        mOutput.write(NitfHeaderConstants.SFH_DELIM2);
+        writeFixedLengthNumber(fileHeader.length, NitfHeaderConstants.SFH_L2_LENGTH);
+    }
+
+    /**
+     * Get the data length of a STREAMING_FILE_HEADER data extension segment.
+     *
+     * @param fileHeaderLength the length of the replacement file header.
+     * @return the length of the data written by writeStreamingFileHeaderData().
+     */
+    public static long getStreamingFileHeaderDataLength(final long fileHeaderLength) {
+        return NitfHeaderConstants.SFH_L1_LENGTH + NitfHeaderConstants.SFH_DELIM1_LENGTH + fileHeaderLength
+                + NitfHeaderConstants.SFH_DELIM2_LENGTH + NitfHeaderConstants.SFH_L2_LENGTH;
+    }
+
+    private void writeFileHeader(final DataSource dataSource, final DataExtensionSegment streamingFileHeader,
+            final boolean lengthsKnown) throws IOException, NitfFormatException {
         NitfHeader header = dataSource.getNitfHeader();
         writeBytes(header.getFileType().getTextEquivalent(), NitfHeaderConstants.FHDR_LENGTH + NitfHeaderConstants.FVER_LENGTH);
         writeFixedLengthNumber(header.getComplexityLevel(), NitfHeaderConstants.CLEVEL_LENGTH);
@@ -89,13 +146,17 @@ public class NitfHeaderWriter extends AbstractSegmentWriter {
         headerLength += numberOfSymbolSegments * (NitfHeaderConstants.LSSH_LENGTH + NitfHeaderConstants.LS_LENGTH);
         headerLength += numberOfTextSegments * (NitfHeaderConstants.LTSH_LENGTH + NitfHeaderConstants.LT_LENGTH);
 
-        int numberOfDataExtensionSegments = 0;
+        List<DataExtensionSegment> dataExtensionSegments = new ArrayList<>();
         for (DataExtensionSegment desHeader : dataSource.getDataExtensionSegments()) {
             if (!desHeader.isStreamingMode()) {
-                headerLength += NitfHeaderConstants.LDSH_LENGTH + NitfHeaderConstants.LD_LENGTH;
-                numberOfDataExtensionSegments++;
+                dataExtensionSegments.add(desHeader);
             }
         }
+        if (streamingFileHeader != null) {
+            dataExtensionSegments.add(streamingFileHeader);
+        }
+        int numberOfDataExtensionSegments = dataExtensionSegments.size();
+        headerLength += numberOfDataExtensionSegments * (NitfHeaderConstants.LDSH_LENGTH + NitfHeaderConstants.LD_LENGTH);
 
         byte[] userDefinedHeaderData = mTreParser.getTREs(header, TreSource.UserDefinedHeaderData);
         int userDefinedHeaderDataLength = userDefinedHeaderData.length;
@@ -132,32 +193,32 @@ public class NitfHeaderWriter extends AbstractSegmentWriter {
             fileLength += textSegment.getHeaderLength();
             fileLength += textSegment.getData().length();
         }
-        for (int i = 0; i < numberOfDataExtensionSegments; ++i) {
-            DataExtensionSegment desHeader = dataSource.getDataExtensionSegments().get(i);
-            if (!desHeader.isStreamingMode()) {
-                fileLength += dataSource.getDataExtensionSegments().get(i).getHeaderLength();
-                fileLength += dataSource.getDataExtensionSegments().get(i).getDataLength();
-            }
+        for (DataExtensionSegment desHeader : dataExtensionSegments) {
+            fileLength += desHeader.getHeaderLength();
+            fileLength += desHeader.getDataLength();
+        }
+        if (!lengthsKnown) {
+            fileLength = NitfHeaderConstants.STREAMING_FILE_MODE;
         }
         writeFixedLengthNumber(fileLength, NitfHeaderConstants.FL_LENGTH);
         writeFixedLengthNumber(headerLength, NitfHeaderConstants.HL_LENGTH);
         writeFixedLengthNumber(numberOfImageSegments, NitfHeaderConstants.NUMI_LENGTH);
         for (ImageSegment imageSegment : dataSource.getImageSegments()) {
             writeFixedLengthNumber(imageSegment.getHeaderLength(), NitfHeaderConstants.LISH_LENGTH);
-            writeFixedLengthNumber(imageSegment.getDataLength(), NitfHeaderConstants.LI_LENGTH);
+            writeDataLength(imageSegment.getDataLength(), NitfHeaderConstants.LI_LENGTH, lengthsKnown);
         }
         if ((header.getFileType() == FileType.NITF_TWO_ONE) || (header.getFileType() == FileType.NSIF_ONE_ZERO)) {
             writeFixedLengthNumber(numberOfGraphicSegments, NitfHeaderConstants.NUMS_LENGTH);
             for (GraphicSegment graphicSegment : dataSource.getGraphicSegments()) {
                 writeFixedLengthNumber(graphicSegment.getHeaderLength(), NitfHeaderConstants.LSSH_LENGTH);
-                writeFixedLengthNumber(graphicSegment.getDataLength(), NitfHeaderConstants.LS_LENGTH);
+                writeDataLength(graphicSegment.getDataLength(), NitfHeaderConstants.LS_LENGTH, lengthsKnown);
             }
             writeFixedLengthNumber(0, NitfHeaderConstants.NUMX_LENGTH);
         } else {
             writeFixedLengthNumber(numberOfSymbolSegments, NitfHeaderConstants.NUMS_LENGTH);
             for (SymbolSegment symbolSegment : dataSource.getSymbolSegments()) {
                 writeFixedLengthNumber(symbolSegment.getHeaderLength(), NitfHeaderConstants.LSSH_LENGTH);
-                writeFixedLengthNumber(symbolSegment.getDataLength(), NitfHeaderConstants.LS_LENGTH);
+                writeDataLength(symbolSegment.getDataLength(), NitfHeaderConstants.LS_LENGTH, lengthsKnown);
             }
             writeFixedLengthNumber(numberOfLabelSegments, NitfHeaderConstants.NUML20_LENGTH);
             for (LabelSegment labelSegment : dataSource.getLabelSegments()) {
@@ -171,12 +232,9 @@ public class NitfHeaderWriter extends AbstractSegmentWriter {
             writeFixedLengthNumber(textSegment.getData().length(), NitfHeaderConstants.LT_LENGTH);
         }
         writeFixedLengthNumber(numberOfDataExtensionSegments, NitfHeaderConstants.NUMDES_LENGTH);
-        for (int i = 0; i < numberOfDataExtensionSegments; ++i) {
-            DataExtensionSegment desHeader = dataSource.getDataExtensionSegments().get(i);
-            if (!desHeader.isStreamingMode()) {
-                writeFixedLengthNumber(dataSource.getDataExtensionSegments().get(i).getHeaderLength(), NitfHeaderConstants.LDSH_LENGTH);
-                writeFixedLengthNumber(dataSource.getDataExtensionSegments().get(i).getDataLength(), NitfHeaderConstants.LD_LENGTH);
-            }
+        for (DataExtensionSegment desHeader : dataExtensionSegments) {
+            writeFixedLengthNumber(desHeader.getHeaderLength(), NitfHeaderConstants.LDSH_LENGTH);
+            writeDataLength(desHeader.getDataLength(), NitfHeaderConstants.LD_LENGTH, lengthsKnown || (desHeader == streamingFileHeader));
         }
         writeFixedLengthNumber(0, NitfHeaderConstants.NUMRES_LENGTH);
         writeFixedLengthNumber(userDefinedHeaderDataLength, NitfHeaderConstants.UDHDL_LENGTH);
@@ -191,6 +249,14 @@ public class NitfHeaderWriter extends AbstractSegmentWriter {
         }
     }
 
+    private void writeDataLength(final long length, final int fieldLength, final boolean known) throws IOException {
+        if (known) {
+            writeFixedLengthNumber(length, fieldLength);
+        } else {
+            writeFixedLengthString(ALL_NINES.substring(0, fieldLength), fieldLength);
+        }
+    }
+
     private long getBasicHeaderLength(final NitfHeader header) {
         long headerLength = NitfHeaderConstants.FHDR_LENGTH
                 + NitfHeaderConstants.FVER_LENGTH
@@ -19,13 +19,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import org.codice.imaging.nitf.core.header.NitfHeader;
 import org.codice.imaging.nitf.core.impl.RGBColourImpl;
 import org.codice.imaging.nitf.core.common.impl.AbstractSegmentParser;
 import org.codice.imaging.nitf.core.common.FileType;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.common.NitfReader;
 import org.codice.imaging.nitf.core.common.ParseStrategy;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex;
 import org.codice.imaging.nitf.core.security.impl.FileSecurityMetadataParser;
 import org.codice.imaging.nitf.core.tre.TreCollection;
 import org.codice.imaging.nitf.core.tre.TreSource;
@@ -81,42 +81,104 @@ public final class NitfParser extends AbstractSegmentParser {
      */
     public static void parse(final NitfReader nitfReader, final ParseStrategy parseStrategy) throws NitfFormatException {
         NitfParser parser = new NitfParser(nitfReader, parseStrategy);
+        NitfSegmentIndex segmentIndex = parser.readHeaderAndIndex();
 
-        parser.readBaseHeaders();
-        if (parser.isStreamingMode()) {
-            parser.handleStreamingMode();
+        try {
+            parseStrategy.parseSegments(nitfReader, segmentIndex);
+        } catch (NitfFormatException ex) {
+            LOGGER.error(ex.getMessage() + ex);
         }
+    }
 
-        NitfHeader nitfHeader = parser.nitfFileHeader;
+    /**
+     * Parse the NITF file header, and compute the location of every segment.
+     *
+     * The file header is passed to the parsing strategy, but none of the segments are parsed. The reader is left
+     * positioned at the start of the first segment subheader. Individual segments can then be parsed with
+     * parseSegment(), in any order if the reader can seek.
+     *
+     * @param nitfReader the reader to use
+     * @param parseStrategy the parsing strategy
+     * @return the segment index
+     * @throws NitfFormatException if an error occurs during parsing
+     */
+    public static NitfSegmentIndex parseSegmentIndex(final NitfReader nitfReader, final ParseStrategy parseStrategy)
+            throws NitfFormatException {
+        NitfParser parser = new NitfParser(nitfReader, parseStrategy);
+        return parser.readHeaderAndIndex();
+    }
 
-        try {
-            for (Long dataLength : parser.li) {
-                parseStrategy.handleImageSegment(nitfReader, dataLength);
-            }
-            if (nitfHeader.getFileType() == FileType.NITF_TWO_ZERO) {
-                for (Integer dataLength : parser.ls) {
-                    parseStrategy.handleSymbolSegment(nitfReader, dataLength);
-                }
-                for (Integer dataLength : parser.ll) {
-                    parseStrategy.handleLabelSegment(nitfReader, dataLength);
-                }
-            } else {
-                for (Integer dataLength : parser.ls) {
-                    parseStrategy.handleGraphicSegment(nitfReader, dataLength);
-                }
+    /**
+     * Parse a single segment, using the location from a segment index.
+     *
+     * If the reader is not already positioned at the start of the segment subheader, the reader must be able to
+     * seek. After this call, the reader is positioned at the end of the segment data.
+     *
+     * @param nitfReader the reader to use, which must have been used with parseSegmentIndex() (or be reading the same
+     * file).
+     * @param parseStrategy the parsing strategy
+     * @param segment the location of the segment to parse
+     * @throws NitfFormatException if an error occurs during parsing
+     */
+    public static void parseSegment(final NitfReader nitfReader, final ParseStrategy parseStrategy,
+            final NitfSegmentIndex.SegmentLocation segment) throws NitfFormatException {
+        if (nitfReader.getCurrentOffset() != segment.getSubheaderOffset()) {
+            nitfReader.seekToAbsoluteOffset(segment.getSubheaderOffset());
+        }
+        parseStrategy.handleSegment(nitfReader, segment.getType(), segment.getDataLength());
+    }
+
+    /**
+     * Parse a single segment, starting at the current position of the reader.
+     *
+     * This does not seek, so it can be used with a reader that only holds the segment subheader (and optionally the
+     * segment data). The reader must contain the subheader for the specified segment type.
+     *
+     * @param nitfReader the reader to use
+     * @param parseStrategy the parsing strategy
+     * @param segmentType the type of segment to parse
+     * @param dataLength the length of the segment data, in bytes
+     * @throws NitfFormatException if an error occurs during parsing
+     */
+    public static void parseSegment(final NitfReader nitfReader, final ParseStrategy parseStrategy,
+            final NitfSegmentIndex.SegmentType segmentType, final long dataLength) throws NitfFormatException {
+        parseStrategy.handleSegment(nitfReader, segmentType, dataLength);
+    }
+
+    private NitfSegmentIndex readHeaderAndIndex() throws NitfFormatException {
+        readBaseHeaders();
+        if (isStreamingMode()) {
+            handleStreamingMode();
+        }
+        return buildSegmentIndex(reader.getCurrentOffset());
+    }
+
+    private NitfSegmentIndex buildSegmentIndex(final long firstSubheaderOffset) {
+        NitfSegmentIndex.Builder builder = new NitfSegmentIndex.Builder(nitfFileHeader.getFileType(), firstSubheaderOffset);
+        for (int i = 0; i < numberImageSegments; ++i) {
+            builder.add(NitfSegmentIndex.SegmentType.IMAGE, lish.get(i), li.get(i));
+        }
+        if (nitfFileHeader.getFileType() == FileType.NITF_TWO_ZERO) {
+            for (int i = 0; i < ls.size(); ++i) {
+                builder.add(NitfSegmentIndex.SegmentType.SYMBOL, lssh.get(i), ls.get(i));
             }
-            for (Integer dataLength : parser.lt) {
-                parseStrategy.handleTextSegment(nitfReader, dataLength);
+            for (int i = 0; i < ll.size(); ++i) {
+                builder.add(NitfSegmentIndex.SegmentType.LABEL, llsh.get(i), ll.get(i));
             }
-            for (Long dataLength : parser.ld) {
-                parseStrategy.handleDataExtensionSegment(nitfReader, dataLength);
+        } else {
+            for (int i = 0; i < ls.size(); ++i) {
+                builder.add(NitfSegmentIndex.SegmentType.GRAPHIC, lssh.get(i), ls.get(i));
             }
-        } catch (NitfFormatException ex) {
-            LOGGER.error(ex.getMessage() + ex);
         }
+        for (int i = 0; i < lt.size(); ++i) {
+            builder.add(NitfSegmentIndex.SegmentType.TEXT, ltsh.get(i), lt.get(i));
+        }
+        for (int i = 0; i < numberDataExtensionSegments; ++i) {
+            builder.add(NitfSegmentIndex.SegmentType.DATA_EXTENSION, ldsh.get(i), ld.get(i));
+        }
+        return builder.build();
     }
 
-
     private void readBaseHeaders() throws NitfFormatException {
         readFHDRFVER();
         reader.setFileType(nitfFileHeader.getFileType());
@@ -151,6 +213,8 @@ public final class NitfParser extends AbstractSegmentParser {
 
     private void readBaseHeaderGraphicParts() throws NitfFormatException {
         readNUMS();
+        lssh.clear();
+        ls.clear();
         for (int i = 0; i < numberGraphicSegments; ++i) {
             readLSSH();
             readLS();
@@ -159,6 +223,8 @@ public final class NitfParser extends AbstractSegmentParser {
 
     private void readBaseHeaderLabelParts() throws NitfFormatException {
         readNUMX();
+        llsh.clear();
+        ll.clear();
         for (int i = 0; i < numberLabelSegments; ++i) {
             readLLSH();
             readLL();
@@ -167,6 +233,8 @@ public final class NitfParser extends AbstractSegmentParser {
 
     private void readBaseHeaderTextParts() throws NitfFormatException {
         readNUMT();
+        ltsh.clear();
+        lt.clear();
         for (int i = 0; i < numberTextSegments; ++i) {
             readLTSH();
             readLT();
@@ -227,12 +295,12 @@ public final class NitfParser extends AbstractSegmentParser {
 
         verifySfhDelim2();
 
-        long sfhL2 = reader.readBytesAsLong(NitfHeaderConstants.SFH_L2_LENGTH);
+        long sfhL2 = reader.readAsciiLong(NitfHeaderConstants.SFH_L2_LENGTH);
 
         seekToSfhDelim1(sfhL2);
 
         // verify the lengths match.
-        long sfhL1 = reader.readBytesAsLong(NitfHeaderConstants.SFH_L1_LENGTH);
+        long sfhL1 = reader.readAsciiLong(NitfHeaderConstants.SFH_L1_LENGTH);
         if (sfhL1 != sfhL2) {
             throw new NitfFormatException("Mismatch between SFH_L1 and SFH_L2", reader.getCurrentOffset());
         }
@@ -277,7 +345,7 @@ public final class NitfParser extends AbstractSegmentParser {
     }
 
     private void readCLEVEL() throws NitfFormatException {
-        nitfFileHeader.setComplexityLevel(reader.readBytesAsInteger(NitfHeaderConstants.CLEVEL_LENGTH));
+        nitfFileHeader.setComplexityLevel(reader.readAsciiInt(NitfHeaderConstants.CLEVEL_LENGTH));
         if ((nitfFileHeader.getComplexityLevel() < NitfHeaderConstants.MIN_COMPLEXITY_LEVEL)
                 || (nitfFileHeader.getComplexityLevel() > NitfHeaderConstants.MAX_COMPLEXITY_LEVEL)) {
             throw new NitfFormatException(String.format("CLEVEL out of range: %d", nitfFileHeader.getComplexityLevel()), reader.getCurrentOffset());
@@ -336,7 +404,7 @@ public final class NitfParser extends AbstractSegmentParser {
     }
 
     private void readFL() throws NitfFormatException {
-        nitfFileLength = reader.readBytesAsLong(NitfHeaderConstants.FL_LENGTH);
+        nitfFileLength = reader.readAsciiLong(NitfHeaderConstants.FL_LENGTH);
     }
 
     private void readHL() throws NitfFormatException {
@@ -344,96 +412,96 @@ public final class NitfParser extends AbstractSegmentParser {
     }
 
     private void readNUMI() throws NitfFormatException {
-        numberImageSegments = reader.readBytesAsInteger(NitfHeaderConstants.NUMI_LENGTH);
+        numberImageSegments = reader.readAsciiInt(NitfHeaderConstants.NUMI_LENGTH);
     }
 
     private void readLISH(final int i) throws NitfFormatException {
         if (i < lish.size()) {
-            lish.set(i, reader.readBytesAsInteger(NitfHeaderConstants.LISH_LENGTH));
+            lish.set(i, reader.readAsciiInt(NitfHeaderConstants.LISH_LENGTH));
         } else {
-            lish.add(reader.readBytesAsInteger(NitfHeaderConstants.LISH_LENGTH));
+            lish.add(reader.readAsciiInt(NitfHeaderConstants.LISH_LENGTH));
         }
     }
 
     private void readLI(final int i) throws NitfFormatException {
         if (i < li.size()) {
-            li.set(i, reader.readBytesAsLong(NitfHeaderConstants.LI_LENGTH));
+            li.set(i, reader.readAsciiLong(NitfHeaderConstants.LI_LENGTH));
         } else {
-            li.add(reader.readBytesAsLong(NitfHeaderConstants.LI_LENGTH));
+            li.add(reader.readAsciiLong(NitfHeaderConstants.LI_LENGTH));
         }
     }
 
     // The next three methods are also used for NITF 2.0 Symbol segment lengths
     private void readNUMS() throws NitfFormatException {
-        numberGraphicSegments = reader.readBytesAsInteger(NitfHeaderConstants.NUMS_LENGTH);
+        numberGraphicSegments = reader.readAsciiInt(NitfHeaderConstants.NUMS_LENGTH);
     }
 
     private void readLSSH() throws NitfFormatException {
-        lssh.add(reader.readBytesAsInteger(NitfHeaderConstants.LSSH_LENGTH));
+        lssh.add(reader.readAsciiInt(NitfHeaderConstants.LSSH_LENGTH));
     }
 
     private void readLS() throws NitfFormatException {
-        ls.add(reader.readBytesAsInteger(NitfHeaderConstants.LS_LENGTH));
+        ls.add(reader.readAsciiInt(NitfHeaderConstants.LS_LENGTH));
     }
 
     private void readNUMX() throws NitfFormatException {
         if (reader.getFileType() == FileType.NITF_TWO_ZERO) {
-            numberLabelSegments = reader.readBytesAsInteger(NitfHeaderConstants.NUML20_LENGTH);
+            numberLabelSegments = reader.readAsciiInt(NitfHeaderConstants.NUML20_LENGTH);
         } else {
             reader.skip(NitfHeaderConstants.NUMX_LENGTH);
         }
     }
 
     private void readLLSH() throws NitfFormatException {
-        llsh.add(reader.readBytesAsInteger(NitfHeaderConstants.LLSH_LENGTH));
+        llsh.add(reader.readAsciiInt(NitfHeaderConstants.LLSH_LENGTH));
     }
 
     private void readLL() throws NitfFormatException {
-        ll.add(reader.readBytesAsInteger(NitfHeaderConstants.LL_LENGTH));
+        ll.add(reader.readAsciiInt(NitfHeaderConstants.LL_LENGTH));
     }
 
     private void readNUMT() throws NitfFormatException {
-        numberTextSegments = reader.readBytesAsInteger(NitfHeaderConstants.NUMT_LENGTH);
+        numberTextSegments = reader.readAsciiInt(NitfHeaderConstants.NUMT_LENGTH);
     }
 
     private void readLTSH() throws NitfFormatException {
-        ltsh.add(reader.readBytesAsInteger(NitfHeaderConstants.LTSH_LENGTH));
+        ltsh.add(reader.readAsciiInt(NitfHeaderConstants.LTSH_LENGTH));
     }
 
     private void readLT() throws NitfFormatException {
-        lt.add(reader.readBytesAsInteger(NitfHeaderConstants.LT_LENGTH));
+        lt.add(reader.readAsciiInt(NitfHeaderConstants.LT_LENGTH));
     }
 
     private void readNUMDES() throws NitfFormatException {
-        numberDataExtensionSegments = reader.readBytesAsInteger(NitfHeaderConstants.NUMDES_LENGTH);
+        numberDataExtensionSegments = reader.readAsciiInt(NitfHeaderConstants.NUMDES_LENGTH);
     }
 
     private void readLDSH(final int i) throws NitfFormatException {
         if (i < ldsh.size()) {
-            ldsh.set(i, reader.readBytesAsInteger(NitfHeaderConstants.LDSH_LENGTH));
+            ldsh.set(i, reader.readAsciiInt(NitfHeaderConstants.LDSH_LENGTH));
         } else {
-            ldsh.add(reader.readBytesAsInteger(NitfHeaderConstants.LDSH_LENGTH));
+            ldsh.add(reader.readAsciiInt(NitfHeaderConstants.LDSH_LENGTH));
         }
     }
 
     private void readLD(final int i) throws NitfFormatException {
         if (i < ld.size()) {
-            ld.set(i, reader.readBytesAsLong(NitfHeaderConstants.LD_LENGTH));
+            ld.set(i, reader.readAsciiLong(NitfHeaderConstants.LD_LENGTH));
         } else {
-            ld.add(reader.readBytesAsLong(NitfHeaderConstants.LD_LENGTH));
+            ld.add(reader.readAsciiLong(NitfHeaderConstants.LD_LENGTH));
         }
     }
 
     private void readNUMRES() throws NitfFormatException {
-        numberReservedExtensionSegments = reader.readBytesAsInteger(NitfHeaderConstants.NUMRES_LENGTH);
+        numberReservedExtensionSegments = reader.readAsciiInt(NitfHeaderConstants.NUMRES_LENGTH);
     }
 
     private void readUDHDL() throws NitfFormatException {
-        userDefinedHeaderDataLength = reader.readBytesAsInteger(NitfHeaderConstants.UDHDL_LENGTH);
+        userDefinedHeaderDataLength = reader.readAsciiInt(NitfHeaderConstants.UDHDL_LENGTH);
     }
 
     private void readUDHOFL() throws NitfFormatException {
-        nitfFileHeader.setUserDefinedHeaderOverflow(reader.readBytesAsInteger(NitfHeaderConstants.UDHOFL_LENGTH));
+        nitfFileHeader.setUserDefinedHeaderOverflow(reader.readAsciiInt(NitfHeaderConstants.UDHOFL_LENGTH));
     }
 
     private void readUDHD() throws NitfFormatException {
@@ -444,11 +512,11 @@ public final class NitfParser extends AbstractSegmentParser {
     }
 
     private void readXHDL() throws NitfFormatException {
-        extendedHeaderDataLength = reader.readBytesAsInteger(NitfHeaderConstants.XHDL_LENGTH);
+        extendedHeaderDataLength = reader.readAsciiInt(NitfHeaderConstants.XHDL_LENGTH);
     }
 
     private void readXHDLOFL() throws NitfFormatException {
-        nitfFileHeader.setExtendedHeaderDataOverflow(reader.readBytesAsInteger(NitfHeaderConstants.XHDLOFL_LENGTH));
+        nitfFileHeader.setExtendedHeaderDataOverflow(reader.readAsciiInt(NitfHeaderConstants.XHDLOFL_LENGTH));
     }
 
     private void readXHD() throws NitfFormatException {
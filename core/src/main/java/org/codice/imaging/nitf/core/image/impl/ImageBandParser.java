@@ -75,10 +75,10 @@ class ImageBandParser {
     }
 
     private void readNLUTS() throws NitfFormatException {
-        numLUTs = reader.readBytesAsInteger(NLUTS_LENGTH);
+        numLUTs = reader.readAsciiInt(NLUTS_LENGTH);
     }
 
     private void readNELUT() throws NitfFormatException {
-        imageBand.setNumLUTEntries(reader.readBytesAsInteger(NELUT_LENGTH));
+        imageBand.setNumLUTEntries(reader.readAsciiInt(NELUT_LENGTH));
     }
 }
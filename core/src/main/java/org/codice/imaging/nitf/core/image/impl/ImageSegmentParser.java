@@ -104,19 +104,7 @@ public class ImageSegmentParser extends AbstractSegmentParser {
         parsingStrategy = parseStrategy;
         segment.setFileType(nitfReader.getFileType());
 
-        readIM();
-        readIID1();
-        readIDATIM();
-        readTGTID();
-        readIID2();
-        segment.setSecurityMetadata(new SecurityMetadataParser().parseSecurityMetadata(reader));
-        readENCRYP();
-        readISORCE();
-        readNROWS();
-        readNCOLS();
-        readPVTYPE();
-        readIREP();
-        readICAT();
+        readLeadingFields();
         readABPP();
         readPJUST();
         readICORDS();
@@ -165,6 +153,41 @@ public class ImageSegmentParser extends AbstractSegmentParser {
         return segment;
     }
 
+    /**
+     * Parse the leading fields of the image segment header, up to and including the image category (ICAT).
+     * <p>
+     * This is much cheaper than a full parse, since the bands, comments and TREs are not read. It can be used to
+     * decide whether the full header is required. The reader is left positioned just after ICAT.
+     *
+     * @param nitfReader the reader to use to get the data, positioned at the start of the image segment header
+     * @return an image segment with only the leading fields (identifiers, date/time, security, size, pixel value
+     * type, representation and category) populated
+     * @throws NitfFormatException on parse failure
+     */
+    public final ImageSegment parseLeadingFields(final NitfReader nitfReader) throws NitfFormatException {
+        reader = nitfReader;
+        segment = new ImageSegmentImpl();
+        segment.setFileType(nitfReader.getFileType());
+        readLeadingFields();
+        return segment;
+    }
+
+    private void readLeadingFields() throws NitfFormatException {
+        readIM();
+        readIID1();
+        readIDATIM();
+        readTGTID();
+        readIID2();
+        segment.setSecurityMetadata(new SecurityMetadataParser().parseSecurityMetadata(reader));
+        readENCRYP();
+        readISORCE();
+        readNROWS();
+        readNCOLS();
+        readPVTYPE();
+        readIREP();
+        readICAT();
+    }
+
     private void readIM() throws NitfFormatException {
        reader.verifyHeaderMagic(IM);
     }
@@ -190,11 +213,11 @@ public class ImageSegmentParser extends AbstractSegmentParser {
     }
 
     private void readNROWS() throws NitfFormatException {
-        segment.setNumberOfRows(reader.readBytesAsLong(NROWS_LENGTH));
+        segment.setNumberOfRows(reader.readAsciiLong(NROWS_LENGTH));
     }
 
     private void readNCOLS() throws NitfFormatException {
-        segment.setNumberOfColumns(reader.readBytesAsLong(NCOLS_LENGTH));
+        segment.setNumberOfColumns(reader.readAsciiLong(NCOLS_LENGTH));
     }
 
     private void readPVTYPE() throws NitfFormatException {
@@ -213,7 +236,7 @@ public class ImageSegmentParser extends AbstractSegmentParser {
     }
 
     private void readABPP() throws NitfFormatException {
-        segment.setActualBitsPerPixelPerBand(reader.readBytesAsInteger(ABPP_LENGTH));
+        segment.setActualBitsPerPixelPerBand(reader.readAsciiInt(ABPP_LENGTH));
     }
 
     private void readPJUST() throws NitfFormatException {
@@ -265,7 +288,7 @@ public class ImageSegmentParser extends AbstractSegmentParser {
     }
 
     private void readNICOM() throws NitfFormatException {
-        numImageComments = reader.readBytesAsInteger(NICOM_LENGTH);
+        numImageComments = reader.readAsciiInt(NICOM_LENGTH);
     }
 
     private void readIC() throws NitfFormatException {
@@ -274,11 +297,11 @@ public class ImageSegmentParser extends AbstractSegmentParser {
     }
 
     private void readNBANDS() throws NitfFormatException {
-        numBands = reader.readBytesAsInteger(NBANDS_LENGTH);
+        numBands = reader.readAsciiInt(NBANDS_LENGTH);
     }
 
     private void readXBANDS() throws NitfFormatException {
-        numBands = reader.readBytesAsInteger(XBANDS_LENGTH);
+        numBands = reader.readAsciiInt(XBANDS_LENGTH);
     }
 
     private void readISYNC() throws NitfFormatException {
@@ -291,36 +314,36 @@ public class ImageSegmentParser extends AbstractSegmentParser {
     }
 
     private void readNBPR() throws NitfFormatException {
-        segment.setNumberOfBlocksPerRow(reader.readBytesAsInteger(NBPR_LENGTH));
+        segment.setNumberOfBlocksPerRow(reader.readAsciiInt(NBPR_LENGTH));
     }
 
     private void readNBPC() throws NitfFormatException {
-        segment.setNumberOfBlocksPerColumn(reader.readBytesAsInteger(NBPC_LENGTH));
+        segment.setNumberOfBlocksPerColumn(reader.readAsciiInt(NBPC_LENGTH));
     }
 
     private void readNPPBH() throws NitfFormatException {
-        segment.setNumberOfPixelsPerBlockHorizontalRaw(reader.readBytesAsInteger(NPPBH_LENGTH));
+        segment.setNumberOfPixelsPerBlockHorizontalRaw(reader.readAsciiInt(NPPBH_LENGTH));
     }
 
     private void readNPPBV() throws NitfFormatException {
-        segment.setNumberOfPixelsPerBlockVerticalRaw(reader.readBytesAsInteger(NPPBV_LENGTH));
+        segment.setNumberOfPixelsPerBlockVerticalRaw(reader.readAsciiInt(NPPBV_LENGTH));
     }
 
     private void readNBPP() throws NitfFormatException {
-        segment.setNumberOfBitsPerPixelPerBand(reader.readBytesAsInteger(NBPP_LENGTH));
+        segment.setNumberOfBitsPerPixelPerBand(reader.readAsciiInt(NBPP_LENGTH));
     }
 
     private void readIDLVL() throws NitfFormatException {
-        segment.setImageDisplayLevel(reader.readBytesAsInteger(IDLVL_LENGTH));
+        segment.setImageDisplayLevel(reader.readAsciiInt(IDLVL_LENGTH));
     }
 
     private void readIALVL() throws NitfFormatException {
-        segment.setAttachmentLevel(reader.readBytesAsInteger(IALVL_LENGTH));
+        segment.setAttachmentLevel(reader.readAsciiInt(IALVL_LENGTH));
     }
 
     private void readILOC() throws NitfFormatException {
-        segment.setImageLocationRow(reader.readBytesAsInteger(ILOC_HALF_LENGTH));
-        segment.setImageLocationColumn(reader.readBytesAsInteger(ILOC_HALF_LENGTH));
+        segment.setImageLocationRow(reader.readAsciiInt(ILOC_HALF_LENGTH));
+        segment.setImageLocationColumn(reader.readAsciiInt(ILOC_HALF_LENGTH));
     }
 
     private void readIMAG() throws NitfFormatException {
@@ -328,11 +351,11 @@ public class ImageSegmentParser extends AbstractSegmentParser {
     }
 
     private void readUDIDL() throws NitfFormatException {
-        userDefinedImageDataLength = reader.readBytesAsInteger(UDIDL_LENGTH);
+        userDefinedImageDataLength = reader.readAsciiInt(UDIDL_LENGTH);
     }
 
     private void readUDOFL() throws NitfFormatException {
-        segment.setUserDefinedHeaderOverflow(reader.readBytesAsInteger(UDOFL_LENGTH));
+        segment.setUserDefinedHeaderOverflow(reader.readAsciiInt(UDOFL_LENGTH));
     }
 
     private void readUDID() throws NitfFormatException {
@@ -343,11 +366,11 @@ public class ImageSegmentParser extends AbstractSegmentParser {
     }
 
     private void readIXSHDL() throws NitfFormatException {
-        imageExtendedSubheaderDataLength = reader.readBytesAsInteger(IXSHDL_LENGTH);
+        imageExtendedSubheaderDataLength = reader.readAsciiInt(IXSHDL_LENGTH);
     }
 
     private void readIXSOFL() throws NitfFormatException {
-        segment.setExtendedHeaderDataOverflow(reader.readBytesAsInteger(IXSOFL_LENGTH));
+        segment.setExtendedHeaderDataOverflow(reader.readAsciiInt(IXSOFL_LENGTH));
     }
 
     private void readIXSHD() throws NitfFormatException {
@@ -16,6 +16,7 @@ package org.codice.imaging.nitf.core.impl;
 
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import org.codice.imaging.nitf.core.HeapStrategy;
@@ -26,6 +27,9 @@ import org.slf4j.LoggerFactory;
 /**
  * An implementation of HeapStrategy that either stores the data in memory or on disk based
  * on the supplied configuration.
+ * <p>
+ * If the configuration has a MemoryBudget, data stored in memory is reserved from that budget, and the reservations
+ * are released by cleanUp().
  *
  * @param <R> The type to be returned by this heap strategy.
  */
@@ -39,6 +43,8 @@ public class ConfigurableHeapStrategy<R> implements HeapStrategy<R> {
 
     private final HeapStrategyConfiguration heapStrategyConfiguration;
 
+    private final AtomicLong reservedBytes = new AtomicLong(0);
+
     /**
      * @param dataStrategyConfiguration a HeapStrategyConfiguration which tells this
      *                                  HeapStrategy when to use JVM heap or disk. May
@@ -58,7 +64,8 @@ public class ConfigurableHeapStrategy<R> implements HeapStrategy<R> {
 
         this.heapStrategyConfiguration = dataStrategyConfiguration;
         this.inMemoryImageDataStrategy = new InMemoryHeapStrategy<>(inputStreamTFunction);
-        this.fileBackedImageDataStrategy = new FileBackedHeapStrategy<>(fileTFunction);
+        this.fileBackedImageDataStrategy = new FileBackedHeapStrategy<>(fileTFunction,
+                dataStrategyConfiguration.spillDirectory());
     }
 
     /**
@@ -74,25 +81,59 @@ public class ConfigurableHeapStrategy<R> implements HeapStrategy<R> {
 
         if (heapStrategyConfiguration.temporaryFilePredicate().test(length)) {
             return fileBackedImageDataStrategy.handleSegment(reader, length);
-        } else {
-            return inMemoryImageDataStrategy.handleSegment(reader, length);
         }
+
+        MemoryBudget memoryBudget = heapStrategyConfiguration.memoryBudget();
+        if ((memoryBudget != null) && !reserveMemory(memoryBudget, reader, length)) {
+            if (heapStrategyConfiguration.exhaustedPolicy() == MemoryBudget.ExhaustedPolicy.SPILL) {
+                LOGGER.debug(String.format("Memory budget exhausted, storing %d bytes in temporary file.", length));
+                return fileBackedImageDataStrategy.handleSegment(reader, length);
+            }
+            LOGGER.warn(String.format("Memory budget exhausted, skipping %d bytes of segment data.", length));
+            reader.skip(length);
+            return null;
+        }
+        return inMemoryImageDataStrategy.handleSegment(reader, length);
     }
 
     @Override
     public final void cleanUp() {
         inMemoryImageDataStrategy.cleanUp();
         fileBackedImageDataStrategy.cleanUp();
+        MemoryBudget memoryBudget = heapStrategyConfiguration.memoryBudget();
+        if (memoryBudget != null) {
+            memoryBudget.release(reservedBytes.getAndSet(0));
+        }
     }
 
     /**
+     * Check whether segment data of the specified length should be stored.
+     * <p>
+     * If the configuration has a MemoryBudget, only the maximum size is checked here, and the budget is applied when
+     * the data is stored. Otherwise, the length is also compared with the current free memory.
      *
      * @param length the length of the image data segment.
      * @return a boolean indicating whether the image data should be set on the ImageSegment.
      */
     public final boolean isRenderable(final long length) {
-        return heapStrategyConfiguration.maximumFileSizePredicate().test(length)
-                && (getFreeMemory() > length);
+        if (!heapStrategyConfiguration.maximumFileSizePredicate().test(length)) {
+            return false;
+        }
+        return (heapStrategyConfiguration.memoryBudget() != null) || (getFreeMemory() > length);
+    }
+
+    private boolean reserveMemory(final MemoryBudget memoryBudget, final NitfReader reader, final long length)
+            throws NitfFormatException {
+        try {
+            if (memoryBudget.reserve(length, heapStrategyConfiguration.exhaustedPolicy())) {
+                reservedBytes.addAndGet(length);
+                return true;
+            }
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new NitfFormatException("Interrupted while waiting for memory budget", reader.getCurrentOffset());
+        }
     }
 
     private long getFreeMemory() {
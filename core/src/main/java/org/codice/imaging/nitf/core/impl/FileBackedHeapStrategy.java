@@ -15,38 +15,98 @@
 package org.codice.imaging.nitf.core.impl;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 
 import org.codice.imaging.nitf.core.HeapStrategy;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
+import org.codice.imaging.nitf.core.common.impl.FileChannelSegmentDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * An implementation of HeapStrategy that stores the image data in a temporary file and
  * returns an FileImageImputStream pointing to that.
+ * <p>
+ * Each segment is stored in its own temporary ("spill") file. The segment data is copied in bounded chunks, or
+ * transferred directly between channels when the reader is backed by a file, so the heap usage does not depend on the
+ * segment size. All spill files are deleted by cleanUp(). Calling reset() instead keeps the files, and reuses them for
+ * the segments handled afterwards.
  *
  * @param <R> the return type for this heap strategy.
  */
 public class FileBackedHeapStrategy<R> implements HeapStrategy<R> {
     private static final Logger LOGGER = LoggerFactory.getLogger(FileBackedHeapStrategy.class);
 
+    private static final int COPY_CHUNK_SIZE = 64 * 1024;
+
+    private static final String SPILL_FILE_PREFIX = "nitf";
+
+    private static final String SPILL_FILE_MODE = "rw";
+
     private final Function<RandomAccessFile, R> resultConversionFunction;
 
-    private File dataFile;
+    private final File spillDirectory;
+
+    private final List<SpillFile> spillFiles = new ArrayList<>();
+
+    private int spillFilesInUse = 0;
+
+    /**
+     * Holds one temporary file, and the handle that is currently open on it (if any).
+     */
+    private static final class SpillFile {
+        private final File file;
+        private RandomAccessFile randomAccessFile;
 
-    private RandomAccessFile randomAccessFile;
+        SpillFile(final File spillFile) {
+            file = spillFile;
+        }
+    }
 
     /**
      * @param resultConverter a function that converts a RandomAccessFile to &lt;R&gt;
      */
     public FileBackedHeapStrategy(final Function<RandomAccessFile, R> resultConverter) {
+        this(resultConverter, null);
+    }
+
+    /**
+     * @param resultConverter a function that converts a RandomAccessFile to &lt;R&gt;
+     * @param directory the directory to create temporary files in. If null, the default temporary-file directory is
+     * used.
+     */
+    public FileBackedHeapStrategy(final Function<RandomAccessFile, R> resultConverter, final File directory) {
         this.resultConversionFunction = resultConverter;
+        this.spillDirectory = directory;
+    }
+
+    /**
+     * Get the directory that temporary files are created in.
+     *
+     * @return the spill directory, or null if the default temporary-file directory is used.
+     */
+    public final File getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Get the number of temporary files created by this strategy that have not yet been deleted.
+     *
+     * @return the number of spill files.
+     */
+    public final int getSpillFileCount() {
+        synchronized (spillFiles) {
+            return spillFiles.size();
+        }
     }
 
     /**
@@ -56,34 +116,136 @@ public class FileBackedHeapStrategy<R> implements HeapStrategy<R> {
     public final R handleSegment(final NitfReader reader, final long dataLength)
             throws NitfFormatException {
         LOGGER.info(String.format("Storing %s bytes in temporary file.", dataLength));
-        byte[] bytes = reader.readBytesRaw((int) dataLength);
-
+        SpillFile spillFile = acquireSpillFile();
         try {
-            dataFile = File.createTempFile("nitf", (String) null);
-            dataFile.deleteOnExit();
-        } catch (IOException ioe) {
-            throw new RuntimeException(ioe);
+            RandomAccessFile randomAccessFile = new RandomAccessFile(spillFile.file, SPILL_FILE_MODE);
+            spillFile.randomAccessFile = randomAccessFile;
+            randomAccessFile.setLength(dataLength);
+            copySegment(reader, dataLength, randomAccessFile.getChannel());
+            randomAccessFile.seek(0);
+            return resultConversionFunction.apply(randomAccessFile);
+        } catch (IOException ex) {
+            LOGGER.warn("IO Exception writing temporary file", ex);
+            throw new NitfFormatException("Unable to store segment data in temporary file: " + ex.getMessage(),
+                    reader.getCurrentOffset());
         }
+    }
 
-        try (FileOutputStream fos = new FileOutputStream(dataFile)) {
-            fos.write(bytes);
-            this.randomAccessFile = new RandomAccessFile(dataFile, "rwd");
-            R result = resultConversionFunction.apply(randomAccessFile);
-            return result;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * Make all of the spill files available for reuse.
+     * <p>
+     * The files are not deleted, but are overwritten by the segments handled after this call. Any results returned
+     * from earlier calls to handleSegment() are invalid after this call.
+     */
+    public final void reset() {
+        synchronized (spillFiles) {
+            for (SpillFile spillFile : spillFiles) {
+                closeQuietly(spillFile);
+            }
+            spillFilesInUse = 0;
         }
     }
 
     @Override
     public final void cleanUp() {
-        if (dataFile != null) {
+        synchronized (spillFiles) {
+            for (SpillFile spillFile : spillFiles) {
+                closeQuietly(spillFile);
+                try {
+                    Files.deleteIfExists(spillFile.file.toPath());
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to delete file.", e);
+                }
+            }
+            spillFiles.clear();
+            spillFilesInUse = 0;
+        }
+    }
+
+    private SpillFile acquireSpillFile() throws NitfFormatException {
+        synchronized (spillFiles) {
+            if (spillFilesInUse < spillFiles.size()) {
+                return spillFiles.get(spillFilesInUse++);
+            }
+            try {
+                File dataFile = File.createTempFile(SPILL_FILE_PREFIX, (String) null, spillDirectory);
+                dataFile.deleteOnExit();
+                SpillFile spillFile = new SpillFile(dataFile);
+                spillFiles.add(spillFile);
+                spillFilesInUse++;
+                return spillFile;
+            } catch (IOException ex) {
+                LOGGER.warn("IO Exception creating temporary file", ex);
+                throw new NitfFormatException("Unable to create temporary file: " + ex.getMessage());
+            }
+        }
+    }
+
+    private void copySegment(final NitfReader reader, final long dataLength, final FileChannel target)
+            throws IOException, NitfFormatException {
+        SegmentDataSource source = null;
+        if (reader.canSeek()) {
+            source = reader.getSegmentDataSource();
+        }
+        if (source instanceof FileChannelSegmentDataSource) {
+            transferSegment(((FileChannelSegmentDataSource) source).getChannel(), reader.getCurrentOffset(),
+                    dataLength, target);
+            reader.skip(dataLength);
+        } else if (source != null) {
+            copySegment(source, reader.getCurrentOffset(), dataLength, target);
+            reader.skip(dataLength);
+        } else {
+            long remaining = dataLength;
+            while (remaining > 0) {
+                int chunkLength = (int) Math.min(remaining, COPY_CHUNK_SIZE);
+                ByteBuffer chunk = ByteBuffer.wrap(reader.readBytesRaw(chunkLength));
+                while (chunk.hasRemaining()) {
+                    target.write(chunk);
+                }
+                remaining -= chunkLength;
+            }
+        }
+    }
+
+    private void transferSegment(final FileChannel sourceChannel, final long offset, final long dataLength,
+            final FileChannel target) throws IOException, NitfFormatException {
+        long transferred = 0;
+        while (transferred < dataLength) {
+            long count = sourceChannel.transferTo(offset + transferred, dataLength - transferred, target);
+            if (count <= 0) {
+                throw new NitfFormatException("Unable to store segment data in temporary file: unexpected end of file",
+                        offset + transferred);
+            }
+            transferred += count;
+        }
+    }
+
+    private void copySegment(final SegmentDataSource source, final long offset, final long dataLength,
+            final FileChannel target) throws IOException, NitfFormatException {
+        ByteBuffer chunk = ByteBuffer.allocate(COPY_CHUNK_SIZE);
+        long copied = 0;
+        while (copied < dataLength) {
+            chunk.clear();
+            chunk.limit((int) Math.min(COPY_CHUNK_SIZE, dataLength - copied));
+            if (source.read(chunk, offset + copied) < 0) {
+                throw new NitfFormatException("Unable to store segment data in temporary file: unexpected end of file",
+                        offset + copied);
+            }
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                copied += target.write(chunk);
+            }
+        }
+    }
+
+    private void closeQuietly(final SpillFile spillFile) {
+        if (spillFile.randomAccessFile != null) {
             try {
-                randomAccessFile.close();
-                Files.deleteIfExists(dataFile.toPath());
+                spillFile.randomAccessFile.close();
             } catch (IOException e) {
-                LOGGER.warn("Unable to delete file.", e);
+                LOGGER.warn("Unable to close file.", e);
             }
+            spillFile.randomAccessFile = null;
         }
     }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+import org.codice.imaging.nitf.core.HeapStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An implementation of HeapStrategy which returns an ImageInputStream view of the segment data
+ * in the source file, without copying it.
+ * <p>
+ * For readers that can seek and provide a SegmentDataSource, only the offset and length of the
+ * segment data are recorded, and the reader skips over the data. Segments larger than 2GB are
+ * supported. The returned stream reads from the source on demand, so the reader must not be
+ * closed while the segment data is still in use.
+ * <p>
+ * For other readers (e.g. those reading from a stream), the segment data is copied into memory.
+ *
+ * @param <R> the return type for this heap strategy.
+ */
+public class FileRangeHeapStrategy<R> implements HeapStrategy<R> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileRangeHeapStrategy.class);
+
+    private static final int MAX_COPY_CHUNK = Integer.MAX_VALUE - 8;
+
+    private final Function<ImageInputStream, R> resultConversionFunction;
+
+    /**
+     * @param resultConverter a function that converts an ImageInputStream to &lt;R&gt;
+     */
+    public FileRangeHeapStrategy(final Function<ImageInputStream, R> resultConverter) {
+        this.resultConversionFunction = resultConverter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final R handleSegment(final NitfReader reader, final long length)
+            throws NitfFormatException {
+        SegmentDataSource source = null;
+        if (reader.canSeek()) {
+            source = reader.getSegmentDataSource();
+        }
+        if (source == null) {
+            LOGGER.info(String.format("Reader does not support positional access, storing %s bytes in heap space.", length));
+            return resultConversionFunction.apply(new MemoryCacheImageInputStream(copySegment(reader, length)));
+        }
+        long offset = reader.getCurrentOffset();
+        LOGGER.debug(String.format("Referencing %s bytes at offset %s in source file.", length, offset));
+        ImageInputStream imageInputStream = source.getImageInputStream(offset, length);
+        reader.skip(length);
+        return resultConversionFunction.apply(imageInputStream);
+    }
+
+    private InputStream copySegment(final NitfReader reader, final long length) throws NitfFormatException {
+        List<InputStream> chunks = new ArrayList<>();
+        long remaining = length;
+        while (remaining > 0) {
+            int chunkLength = (int) Math.min(remaining, MAX_COPY_CHUNK);
+            chunks.add(new ByteArrayInputStream(reader.readBytesRaw(chunkLength)));
+            remaining -= chunkLength;
+        }
+        return new SequenceInputStream(Collections.enumeration(chunks));
+    }
+
+    @Override
+    public final void cleanUp() {
+        // Nothing to do, the segment data belongs to the reader.
+    }
+}
@@ -14,6 +14,7 @@
  */
 package org.codice.imaging.nitf.core.impl;
 
+import java.io.File;
 import java.util.function.Predicate;
 
 /**
@@ -27,6 +28,12 @@ import java.util.function.Predicate;
  * The other setting determines whether data is stored at all, as opposed to being skipped. That corresponds to the
  * maximumFileSizePredicate, and maximumSize parameter. If the maximumFileSizePredicate results in data not being
  * stored, the temporaryFilePredicate has no effect.
+ *
+ * Optionally, the directory used for temporary files can also be set.
+ *
+ * Optionally, a MemoryBudget can be set. Data that would be stored in memory is then reserved from that budget, and
+ * the ExhaustedPolicy determines what happens when the budget is exhausted. This replaces the check of the current
+ * free memory, which is unreliable when several parses run at once.
  */
 public class HeapStrategyConfiguration {
     private long maximumSegmentSize = Long.MAX_VALUE;
@@ -35,6 +42,12 @@ public class HeapStrategyConfiguration {
 
     private final Predicate<Long> maximumFileSizePredicate = length -> length <= maximumSegmentSize;
 
+    private File temporaryFileDirectory = null;
+
+    private MemoryBudget budget = null;
+
+    private MemoryBudget.ExhaustedPolicy budgetExhaustedPolicy = MemoryBudget.ExhaustedPolicy.BLOCK;
+
     /**
      * HeapStrategyConfiguration that allows selective storage.
      *
@@ -95,4 +108,51 @@ public class HeapStrategyConfiguration {
     public final Predicate<Long> maximumFileSizePredicate() {
         return this.maximumFileSizePredicate;
     }
+
+    /**
+     * Set the directory that temporary files are created in.
+     *
+     * @param directory the directory for temporary files, or null to use the default temporary-file directory.
+     */
+    public final void setSpillDirectory(final File directory) {
+        this.temporaryFileDirectory = directory;
+    }
+
+    /**
+     * @return the directory that temporary files are created in, or null if the default temporary-file directory is
+     * used.
+     */
+    public final File spillDirectory() {
+        return this.temporaryFileDirectory;
+    }
+
+    /**
+     * Set the memory budget to reserve in-memory segment data from.
+     *
+     * @param memoryBudget the budget to use (e.g. MemoryBudget.getGlobalBudget()), or null to check the current free
+     * memory instead.
+     * @param exhaustedPolicy the action to take when the budget is exhausted. If null, BLOCK is used.
+     */
+    public final void setMemoryBudget(final MemoryBudget memoryBudget, final MemoryBudget.ExhaustedPolicy exhaustedPolicy) {
+        this.budget = memoryBudget;
+        if (exhaustedPolicy != null) {
+            this.budgetExhaustedPolicy = exhaustedPolicy;
+        } else {
+            this.budgetExhaustedPolicy = MemoryBudget.ExhaustedPolicy.BLOCK;
+        }
+    }
+
+    /**
+     * @return the memory budget to reserve in-memory segment data from, or null if no budget is used.
+     */
+    public final MemoryBudget memoryBudget() {
+        return this.budget;
+    }
+
+    /**
+     * @return the action to take when the memory budget is exhausted.
+     */
+    public final MemoryBudget.ExhaustedPolicy exhaustedPolicy() {
+        return this.budgetExhaustedPolicy;
+    }
 }
@@ -16,6 +16,7 @@ package org.codice.imaging.nitf.core.impl;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import org.codice.imaging.nitf.core.HeapStrategy;
@@ -27,6 +28,9 @@ import org.slf4j.LoggerFactory;
 /**
  * An implementation of HeapStrategy which returns an ImageInputStream backed by an
  * in-memory stream of bytes.
+ * <p>
+ * If a MemoryBudget is supplied, the segment length is reserved from it (waiting if required) before the data is
+ * read, and all reservations are released by cleanUp().
  *
  * @param <R> the return type for this heap strategy.
  */
@@ -35,11 +39,24 @@ public class InMemoryHeapStrategy<R> implements HeapStrategy<R> {
 
     private final Function<InputStream, R> resultConversionFunction;
 
+    private final MemoryBudget memoryBudget;
+
+    private final AtomicLong reservedBytes = new AtomicLong(0);
+
     /**
      * @param resultConverter a function that converts a RandomAccessFile to &lt;R&gt;
      */
     public InMemoryHeapStrategy(final Function<InputStream, R> resultConverter) {
+        this(resultConverter, null);
+    }
+
+    /**
+     * @param resultConverter a function that converts a RandomAccessFile to &lt;R&gt;
+     * @param budget the memory budget to reserve segment data from, or null for no accounting.
+     */
+    public InMemoryHeapStrategy(final Function<InputStream, R> resultConverter, final MemoryBudget budget) {
         this.resultConversionFunction = resultConverter;
+        this.memoryBudget = budget;
     }
 
     /**
@@ -48,6 +65,9 @@ public class InMemoryHeapStrategy<R> implements HeapStrategy<R> {
     @Override
     public final R handleSegment(final NitfReader reader, final long length)
             throws NitfFormatException {
+        if (memoryBudget != null) {
+            reserve(length, reader);
+        }
         LOGGER.info(String.format("Storing %s bytes in heap space.", length));
         ByteArrayInputStream inputStream = new ByteArrayInputStream(
                 reader.readBytesRaw((int) length));
@@ -57,6 +77,22 @@ public class InMemoryHeapStrategy<R> implements HeapStrategy<R> {
 
     @Override
     public final void cleanUp() {
-        // Nothing to do
+        if (memoryBudget != null) {
+            memoryBudget.release(reservedBytes.getAndSet(0));
+        }
+    }
+
+    private void reserve(final long length, final NitfReader reader) throws NitfFormatException {
+        try {
+            if (!memoryBudget.reserve(length, MemoryBudget.ExhaustedPolicy.BLOCK)) {
+                LOGGER.warn(String.format("Segment data length %d exceeds the memory budget", length));
+                throw new NitfFormatException(String.format("Segment data length %d exceeds the memory budget capacity %d",
+                        length, memoryBudget.getCapacity()), reader.getCurrentOffset());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new NitfFormatException("Interrupted while waiting for memory budget", reader.getCurrentOffset());
+        }
+        reservedBytes.addAndGet(length);
     }
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pool of bytes shared by the parts of the library that buffer large amounts of data.
+ * <p>
+ * Users of the budget reserve the number of bytes they are about to allocate, and release them when that memory is
+ * no longer held. Unlike checking Runtime.freeMemory(), the accounting is exact and atomic, so concurrent parses
+ * (and renders) cannot together exceed the budget.
+ * <p>
+ * What happens when a reservation cannot be made depends on the ExhaustedPolicy chosen by the caller. Usually one
+ * instance is shared by the whole process, see getGlobalBudget().
+ */
+public final class MemoryBudget {
+
+    /**
+     * The action to take when there is not enough budget available for a reservation.
+     */
+    public enum ExhaustedPolicy {
+        /**
+         * Wait until enough budget has been released by other users.
+         */
+        BLOCK,
+        /**
+         * Store the data in a temporary file instead. Where that is not possible (e.g. rendering), this behaves like
+         * BLOCK.
+         */
+        SPILL,
+        /**
+         * Do not store (or render) the data.
+         */
+        REJECT
+    }
+
+    private static final int GLOBAL_BUDGET_FRACTION = 2;
+
+    private static MemoryBudget globalBudget = null;
+
+    private final long capacity;
+
+    private long reserved = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param capacityInBytes the total number of bytes that may be reserved at any one time. Must be positive.
+     */
+    public MemoryBudget(final long capacityInBytes) {
+        if (capacityInBytes <= 0) {
+            throw new IllegalArgumentException("MemoryBudget(): capacity must be positive, got " + capacityInBytes);
+        }
+        capacity = capacityInBytes;
+    }
+
+    /**
+     * Get the budget shared by the whole process.
+     * <p>
+     * Unless replaced with setGlobalBudget(), this has a capacity of half the maximum heap size.
+     *
+     * @return the global memory budget.
+     */
+    public static synchronized MemoryBudget getGlobalBudget() {
+        if (globalBudget == null) {
+            globalBudget = new MemoryBudget(Runtime.getRuntime().maxMemory() / GLOBAL_BUDGET_FRACTION);
+        }
+        return globalBudget;
+    }
+
+    /**
+     * Replace the budget shared by the whole process.
+     * <p>
+     * This is intended to be called once, during application start-up. Reservations made against the previous
+     * budget must still be released to that budget.
+     *
+     * @param budget the new global memory budget. May not be null.
+     */
+    public static synchronized void setGlobalBudget(final MemoryBudget budget) {
+        if (budget == null) {
+            throw new IllegalArgumentException("setGlobalBudget(): argument 'budget' may not be null.");
+        }
+        globalBudget = budget;
+    }
+
+    /**
+     * Get the total number of bytes that may be reserved.
+     *
+     * @return the capacity of this budget, in bytes.
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the number of bytes currently reserved.
+     *
+     * @return the reserved byte count.
+     */
+    public synchronized long getReserved() {
+        return reserved;
+    }
+
+    /**
+     * Get the number of bytes that can currently be reserved.
+     *
+     * @return the available byte count.
+     */
+    public synchronized long getAvailable() {
+        return capacity - reserved;
+    }
+
+    /**
+     * Check whether a reservation could ever succeed.
+     *
+     * @param bytes the number of bytes.
+     * @return true if the number of bytes is not more than the capacity, otherwise false.
+     */
+    public boolean canEverReserve(final long bytes) {
+        return bytes <= capacity;
+    }
+
+    /**
+     * Reserve bytes if they are available now, without waiting.
+     *
+     * @param bytes the number of bytes to reserve. Must not be negative.
+     * @return true if the bytes were reserved, otherwise false.
+     */
+    public synchronized boolean tryReserve(final long bytes) {
+        checkNotNegative(bytes);
+        if (bytes > capacity - reserved) {
+            return false;
+        }
+        reserved += bytes;
+        return true;
+    }
+
+    /**
+     * Reserve bytes, waiting for them to become available if required.
+     *
+     * @param bytes the number of bytes to reserve. Must not be negative or more than the capacity.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public synchronized void reserve(final long bytes) throws InterruptedException {
+        checkReservable(bytes);
+        while (bytes > capacity - reserved) {
+            wait();
+        }
+        reserved += bytes;
+    }
+
+    /**
+     * Reserve bytes, waiting up to the specified time for them to become available.
+     *
+     * @param bytes the number of bytes to reserve. Must not be negative or more than the capacity.
+     * @param timeout the maximum time to wait.
+     * @param unit the unit of the timeout argument.
+     * @return true if the bytes were reserved, or false if the timeout elapsed first.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public synchronized boolean reserve(final long bytes, final long timeout, final TimeUnit unit)
+            throws InterruptedException {
+        checkReservable(bytes);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (bytes > capacity - reserved) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        reserved += bytes;
+        return true;
+    }
+
+    /**
+     * Reserve bytes according to a policy.
+     * <p>
+     * With BLOCK, this waits until the bytes are available. With SPILL or REJECT, this returns immediately. In all
+     * cases, a request for more than the capacity fails without waiting.
+     *
+     * @param bytes the number of bytes to reserve. Must not be negative.
+     * @param policy the action to take if the bytes are not available now.
+     * @return true if the bytes were reserved, otherwise false.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public boolean reserve(final long bytes, final ExhaustedPolicy policy) throws InterruptedException {
+        if (!canEverReserve(bytes)) {
+            return false;
+        }
+        if (policy == ExhaustedPolicy.BLOCK) {
+            reserve(bytes);
+            return true;
+        }
+        return tryReserve(bytes);
+    }
+
+    /**
+     * Release previously reserved bytes.
+     *
+     * @param bytes the number of bytes to release. Must not be more than the number currently reserved.
+     */
+    public synchronized void release(final long bytes) {
+        checkNotNegative(bytes);
+        if (bytes > reserved) {
+            throw new IllegalStateException(String.format("release(): %d bytes released, but only %d reserved",
+                    bytes, reserved));
+        }
+        reserved -= bytes;
+        notifyAll();
+    }
+
+    private void checkReservable(final long bytes) {
+        checkNotNegative(bytes);
+        if (!canEverReserve(bytes)) {
+            throw new IllegalArgumentException(String.format("reserve(): %d bytes requested, but capacity is only %d",
+                    bytes, capacity));
+        }
+    }
+
+    private static void checkNotNegative(final long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("MemoryBudget: byte count must not be negative, got " + bytes);
+        }
+    }
+}
@@ -0,0 +1,537 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.stream.ImageInputStream;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileChannelReader;
+import org.codice.imaging.nitf.core.common.impl.FileChannelSegmentDataSource;
+import org.codice.imaging.nitf.core.common.impl.NitfOutput;
+import org.codice.imaging.nitf.core.common.impl.SegmentDataImageInputStream;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.dataextension.impl.DataExtensionSegmentWriter;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+import org.codice.imaging.nitf.core.graphic.impl.GraphicSegmentWriter;
+import org.codice.imaging.nitf.core.header.impl.NitfHeaderWriter;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex.SegmentLocation;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex.SegmentType;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentWriter;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.label.impl.LabelSegmentWriter;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.symbol.impl.SymbolSegmentWriter;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.codice.imaging.nitf.core.text.impl.TextSegmentWriter;
+import org.codice.imaging.nitf.core.tre.impl.TreParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A NitfWriter implementation that updates an existing file in place.
+ * <p>
+ * The data source must have been parsed from the file that is being patched, typically with FileRangeHeapStrategy
+ * (or with headers only, for example from a NitfIndexSidecar). The file header and every segment subheader are
+ * rendered with the usual writers, and compared against the file. Only the bytes that differ are written, so changing
+ * a header field or a TRE of the same length only writes that field (and the file header, if a length changed).
+ * <p>
+ * Segment data that is a range of the file being patched at the original location of that segment's data, or that is
+ * not loaded at all, is taken to be unchanged and is not read. If a subheader grows or shrinks, the unchanged data
+ * after it is moved with large sequential copies within the file. Other segment data (for example, replaced text, or
+ * data read from another file) is written at its new location.
+ * <p>
+ * If the file cannot be patched in place (for example, segments have been added or removed, segment data refers to a
+ * different part of the file, or segment data is read from a channel whose file is not known), it is written out in
+ * full to a temporary file, which then replaces the original.
+ * <p>
+ * An in-place patch is not atomic: if it fails part way through, the file may be left inconsistent.
+ */
+public class NitfFilePatcher extends SharedNitfWriter {
+
+    /**
+     * The outcome of a patch.
+     */
+    public enum PatchResult {
+        /**
+         * The file already matched the data source, and was not written to.
+         */
+        UNCHANGED,
+
+        /**
+         * Changed bytes were written in place, and no data was moved.
+         */
+        PATCHED,
+
+        /**
+         * Changed bytes were written in place, and data was moved (or the file length changed) to make room.
+         */
+        SHIFTED,
+
+        /**
+         * The file could not be patched in place, and was written out in full.
+         */
+        REWRITTEN
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NitfFilePatcher.class);
+
+    private static final int COPY_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    // Differences closer together than this are written with a single write.
+    private static final int MERGE_GAP = 512;
+
+    private static final long NOT_IN_FILE = -1;
+
+    private final DataSource mDataSource;
+    private final File mFile;
+
+    /**
+     * Construct a NITF file patcher.
+     *
+     * @param nitfDataSource the source of data to be written out, which was parsed from the file.
+     * @param fileName the name (including path) of the file to patch.
+     */
+    public NitfFilePatcher(final DataSource nitfDataSource, final String fileName) {
+        super(nitfDataSource);
+        mDataSource = nitfDataSource;
+        mFile = new File(fileName);
+    }
+
+    @Override
+    public final void write() {
+        try {
+            patch();
+        } catch (IOException | NitfFormatException ex) {
+            LOGGER.error("Could not write", ex.getMessage());
+        }
+    }
+
+    /**
+     * Patch the file to match the data source.
+     *
+     * @return how the file was updated.
+     * @throws NitfFormatException if there is a problem reading the file or the data source.
+     * @throws IOException if there is a problem writing the file.
+     */
+    public final PatchResult patch() throws NitfFormatException, IOException {
+        try (RandomAccessFile file = new RandomAccessFile(mFile, NitfFileWriter.WRITE_MODE)) {
+            FileChannel channel = file.getChannel();
+            NitfSegmentIndex index = NitfParser.parseSegmentIndex(new FileChannelReader(channel, FileChannelReader.DEFAULT_BLOCK_SIZE),
+                    new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY));
+            List<Region> regions = new PatchPlan(index).build();
+            if (regions != null) {
+                return apply(channel, regions);
+            }
+        }
+        checkDataLoaded();
+        rewrite();
+        return PatchResult.REWRITTEN;
+    }
+
+    private PatchResult apply(final FileChannel channel, final List<Region> regions) throws IOException {
+        long originalLength = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+        boolean shifted = false;
+        // The new locations of unchanged data are in the same order as the old ones, and do not overlap, so moving
+        // data towards the start of the file in file order, and towards the end in reverse order, never overwrites
+        // data that has not been moved yet.
+        for (Region region : regions) {
+            if (region.shift() < 0) {
+                moveRange(channel, region.originalOffset, region.offset, region.length, buffer);
+                shifted = true;
+            }
+        }
+        for (int i = regions.size() - 1; i >= 0; --i) {
+            Region region = regions.get(i);
+            if (region.shift() > 0) {
+                moveRange(channel, region.originalOffset, region.offset, region.length, buffer);
+                shifted = true;
+            }
+        }
+        boolean written = false;
+        long end = 0;
+        for (Region region : regions) {
+            if (region.bytes != null) {
+                written |= writeChanges(channel, region.offset, region.bytes);
+            } else if (region.stream != null) {
+                copyStream(channel, region.stream, region.offset, region.length);
+                written = true;
+            }
+            end = region.offset + region.length;
+        }
+        if (end != originalLength) {
+            channel.truncate(end);
+            shifted = true;
+        }
+        if (shifted) {
+            return PatchResult.SHIFTED;
+        }
+        if (written) {
+            return PatchResult.PATCHED;
+        }
+        return PatchResult.UNCHANGED;
+    }
+
+    private void checkDataLoaded() throws NitfFormatException {
+        boolean loaded = true;
+        for (ImageSegment imageSegment : mDataSource.getImageSegments()) {
+            loaded &= (imageSegment.getData() != null) || (imageSegment.getDataLength() == 0);
+        }
+        for (GraphicSegment graphicSegment : mDataSource.getGraphicSegments()) {
+            loaded &= (graphicSegment.getData() != null) || (graphicSegment.getDataLength() == 0);
+        }
+        for (SymbolSegment symbolSegment : mDataSource.getSymbolSegments()) {
+            loaded &= (symbolSegment.getData() != null) || (symbolSegment.getDataLength() == 0);
+        }
+        for (DataExtensionSegment des : mDataSource.getDataExtensionSegments()) {
+            List<ImageInputStream> data = new ArrayList<>();
+            des.consume(data::add);
+            loaded &= !data.isEmpty() || (des.getDataLength() == 0) || des.isStreamingMode();
+        }
+        if (!loaded) {
+            throw new NitfFormatException(String.format("Cannot rewrite %s in full, because segment data is not loaded", mFile));
+        }
+    }
+
+    private void rewrite() throws NitfFormatException, IOException {
+        File directory = mFile.getAbsoluteFile().getParentFile();
+        File temporaryFile = File.createTempFile(mFile.getName(), null, directory);
+        try {
+            try (RandomAccessFile outputFile = new RandomAccessFile(temporaryFile, NitfFileWriter.WRITE_MODE)) {
+                mOutput = new NitfOutput(outputFile.getChannel());
+                writeData();
+            }
+            try {
+                Files.move(temporaryFile.toPath(), mFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temporaryFile.toPath(), mFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+    }
+
+    private static void moveRange(final FileChannel channel, final long from, final long to, final long length,
+            final ByteBuffer buffer) throws IOException {
+        long done = 0;
+        while (done < length) {
+            int chunk = (int) Math.min(buffer.capacity(), length - done);
+            long position = done;
+            if (to > from) {
+                // Copy from the end, so that overlapping data is read before it is overwritten.
+                position = length - done - chunk;
+            }
+            buffer.clear();
+            buffer.limit(chunk);
+            readFully(channel, buffer, from + position);
+            buffer.flip();
+            writeFully(channel, buffer, to + position);
+            done += chunk;
+        }
+    }
+
+    private static boolean writeChanges(final FileChannel channel, final long offset, final byte[] bytes) throws IOException {
+        int existingLength = (int) Math.max(0, Math.min(bytes.length, channel.size() - offset));
+        byte[] existing = new byte[existingLength];
+        readFully(channel, ByteBuffer.wrap(existing), offset);
+        int runStart = -1;
+        int runEnd = -1;
+        for (int i = 0; i < bytes.length; ++i) {
+            if ((i < existingLength) && (bytes[i] == existing[i])) {
+                continue;
+            }
+            if ((runStart >= 0) && (i - runEnd > MERGE_GAP)) {
+                writeFully(channel, ByteBuffer.wrap(bytes, runStart, runEnd - runStart), offset + runStart);
+                runStart = -1;
+            }
+            if (runStart < 0) {
+                runStart = i;
+            }
+            runEnd = i + 1;
+        }
+        if (runStart < 0) {
+            return false;
+        }
+        writeFully(channel, ByteBuffer.wrap(bytes, runStart, runEnd - runStart), offset + runStart);
+        return true;
+    }
+
+    private static void copyStream(final FileChannel channel, final ImageInputStream stream, final long offset,
+            final long length) throws IOException {
+        byte[] chunk = new byte[STREAM_BUFFER_SIZE];
+        stream.seek(0);
+        long done = 0;
+        while (done < length) {
+            int bytesRead = stream.read(chunk, 0, (int) Math.min(chunk.length, length - done));
+            if (bytesRead < 0) {
+                throw new EOFException(String.format("Segment data ended after %d of %d bytes", done, length));
+            }
+            writeFully(channel, ByteBuffer.wrap(chunk, 0, bytesRead), offset + done);
+            done += bytesRead;
+        }
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int bytesRead = channel.read(buffer, position);
+            if (bytesRead < 0) {
+                throw new EOFException(String.format("File ended at offset %d", position));
+            }
+            position += bytesRead;
+        }
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, final long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+        Part of the new file content.
+
+        <p>Exactly one of the rendered bytes, the stream to copy, or the original location of the unchanged content
+        is set.
+    */
+    private static final class Region {
+        private final long offset;
+        private final long length;
+        private final byte[] bytes;
+        private final ImageInputStream stream;
+        private final long originalOffset;
+
+        private Region(final long newOffset, final long newLength, final byte[] content, final ImageInputStream data,
+                final long unchangedOffset) {
+            offset = newOffset;
+            length = newLength;
+            bytes = content;
+            stream = data;
+            originalOffset = unchangedOffset;
+        }
+
+        private long shift() {
+            if (originalOffset == NOT_IN_FILE) {
+                return 0;
+            }
+            return offset - originalOffset;
+        }
+    }
+
+    /**
+        Works out the new file content, as regions in file order.
+    */
+    private final class PatchPlan {
+        private final NitfSegmentIndex originalIndex;
+        private final List<SegmentLocation> originalSegments;
+        private final TreParser treParser;
+        private final ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+        private final NitfOutput output;
+        private final List<Region> regions = new ArrayList<>();
+        private int segmentCount = 0;
+        private long nextOffset = 0;
+
+        PatchPlan(final NitfSegmentIndex index) throws NitfFormatException, IOException {
+            originalIndex = index;
+            treParser = new TreParser();
+            originalSegments = index.getSegments();
+            output = new NitfOutput(Channels.newChannel(rendered));
+        }
+
+        /**
+         * Build the plan.
+         *
+         * @return the regions of the new file, or null if the file has to be rewritten.
+         * @throws NitfFormatException if the headers could not be rendered.
+         * @throws IOException if the headers could not be rendered.
+         */
+        List<Region> build() throws NitfFormatException, IOException {
+            FileType fileType = mDataSource.getNitfHeader().getFileType();
+            if (fileType != originalIndex.getFileType()) {
+                return rewriteBecause("the file type has changed");
+            }
+            for (DataExtensionSegment des : mDataSource.getDataExtensionSegments()) {
+                if (des.isStreamingMode()) {
+                    return rewriteBecause("the file has a streaming mode header");
+                }
+            }
+            new NitfHeaderWriter(output, treParser).writeFileHeader(mDataSource);
+            addBytes(takeRendered());
+
+            ImageSegmentWriter imageSegmentWriter = new ImageSegmentWriter(output, treParser);
+            for (ImageSegment imageSegment : mDataSource.getImageSegments()) {
+                imageSegmentWriter.writeImageSubheader(imageSegment, fileType);
+                if (!addSegment(SegmentType.IMAGE, imageSegment, imageSegment.getData(), imageSegment.getDataLength())) {
+                    return null;
+                }
+            }
+            GraphicSegmentWriter graphicSegmentWriter = new GraphicSegmentWriter(output, treParser);
+            for (GraphicSegment graphicSegment : mDataSource.getGraphicSegments()) {
+                graphicSegmentWriter.writeGraphicSubheader(graphicSegment);
+                if (!addSegment(SegmentType.GRAPHIC, graphicSegment, graphicSegment.getData(), graphicSegment.getDataLength())) {
+                    return null;
+                }
+            }
+            SymbolSegmentWriter symbolSegmentWriter = new SymbolSegmentWriter(output, treParser);
+            for (SymbolSegment symbolSegment : mDataSource.getSymbolSegments()) {
+                symbolSegmentWriter.writeSymbolSubheader(symbolSegment);
+                if (!addSegment(SegmentType.SYMBOL, symbolSegment, symbolSegment.getData(), symbolSegment.getDataLength())) {
+                    return null;
+                }
+            }
+            LabelSegmentWriter labelSegmentWriter = new LabelSegmentWriter(output, treParser);
+            for (LabelSegment labelSegment : mDataSource.getLabelSegments()) {
+                labelSegmentWriter.writeLabelSubheader(labelSegment);
+                if (!addTextSegment(SegmentType.LABEL, labelSegment, labelSegment.getData())) {
+                    return null;
+                }
+            }
+            TextSegmentWriter textSegmentWriter = new TextSegmentWriter(output, treParser);
+            for (TextSegment textSegment : mDataSource.getTextSegments()) {
+                textSegmentWriter.writeTextSubheader(textSegment, fileType);
+                if (!addTextSegment(SegmentType.TEXT, textSegment, textSegment.getData())) {
+                    return null;
+                }
+            }
+            DataExtensionSegmentWriter dataExtensionSegmentWriter = new DataExtensionSegmentWriter(output, treParser);
+            for (DataExtensionSegment des : mDataSource.getDataExtensionSegments()) {
+                dataExtensionSegmentWriter.writeDESSubheader(des);
+                List<ImageInputStream> data = new ArrayList<>();
+                des.consume(data::add);
+                ImageInputStream stream = null;
+                if (!data.isEmpty()) {
+                    stream = data.get(0);
+                }
+                if (!addSegment(SegmentType.DATA_EXTENSION, des, stream, des.getDataLength())) {
+                    return null;
+                }
+            }
+            if (segmentCount != originalSegments.size()) {
+                return rewriteBecause("segments have been removed");
+            }
+            return regions;
+        }
+
+        private boolean addSegment(final SegmentType type, final CommonSegment segment, final ImageInputStream data,
+                final long dataLength) throws NitfFormatException, IOException {
+            SegmentLocation original = nextOriginal(type, segment);
+            if (original == null) {
+                return false;
+            }
+            addBytes(takeRendered());
+            if (data == null) {
+                if (dataLength != original.getDataLength()) {
+                    throw new NitfFormatException(String.format("Data for %s segment %d is not loaded, but its length has changed",
+                            type, original.getIndex()));
+                }
+                addUnchanged(original.getDataOffset(), dataLength);
+            } else if (isFileRange(data) && (getFilePath(data) == null)) {
+                rewriteBecause(String.format("the file holding data for %s segment %d is not known", type, original.getIndex()));
+                return false;
+            } else if (isFileRange(data) && Files.isSameFile(getFilePath(data), mFile.toPath())) {
+                SegmentDataImageInputStream rangeData = (SegmentDataImageInputStream) data;
+                if ((rangeData.getRangeOffset() != original.getDataOffset()) || (rangeData.length() != original.getDataLength())
+                        || (dataLength != original.getDataLength())) {
+                    rewriteBecause(String.format("data for %s segment %d is a different part of a file", type, original.getIndex()));
+                    return false;
+                }
+                addUnchanged(original.getDataOffset(), dataLength);
+            } else {
+                regions.add(new Region(nextOffset, dataLength, null, data, NOT_IN_FILE));
+                nextOffset += dataLength;
+            }
+            return true;
+        }
+
+        private boolean addTextSegment(final SegmentType type, final CommonSegment segment, final String data)
+                throws NitfFormatException, IOException {
+            if (nextOriginal(type, segment) == null) {
+                return false;
+            }
+            output.writeBytes(data);
+            addBytes(takeRendered());
+            return true;
+        }
+
+        private SegmentLocation nextOriginal(final SegmentType type, final CommonSegment segment)
+                throws NitfFormatException, IOException {
+            output.flush();
+            if (rendered.size() != segment.getHeaderLength()) {
+                throw new NitfFormatException(String.format("%s subheader was written as %d bytes, but its length is %d",
+                        type, rendered.size(), segment.getHeaderLength()));
+            }
+            if ((segmentCount >= originalSegments.size()) || (originalSegments.get(segmentCount).getType() != type)) {
+                rewriteBecause("the segments do not match the file");
+                return null;
+            }
+            return originalSegments.get(segmentCount++);
+        }
+
+        private byte[] takeRendered() throws IOException {
+            output.flush();
+            byte[] bytes = rendered.toByteArray();
+            rendered.reset();
+            return bytes;
+        }
+
+        private void addBytes(final byte[] bytes) {
+            regions.add(new Region(nextOffset, bytes.length, bytes, null, NOT_IN_FILE));
+            nextOffset += bytes.length;
+        }
+
+        private void addUnchanged(final long originalOffset, final long length) {
+            regions.add(new Region(nextOffset, length, null, null, originalOffset));
+            nextOffset += length;
+        }
+
+        private boolean isFileRange(final ImageInputStream data) {
+            return (data instanceof SegmentDataImageInputStream)
+                    && (((SegmentDataImageInputStream) data).getSegmentDataSource() instanceof FileChannelSegmentDataSource);
+        }
+
+        private Path getFilePath(final ImageInputStream data) {
+            return ((FileChannelSegmentDataSource) ((SegmentDataImageInputStream) data).getSegmentDataSource()).getPath();
+        }
+
+        private List<Region> rewriteBecause(final String reason) {
+            LOGGER.debug("Rewriting {} in full, because {}", mFile, reason);
+            return null;
+        }
+    }
+}
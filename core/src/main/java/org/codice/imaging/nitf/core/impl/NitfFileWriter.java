@@ -19,6 +19,7 @@ import java.io.RandomAccessFile;
 
 import org.codice.imaging.nitf.core.DataSource;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,7 +50,7 @@ public class NitfFileWriter extends SharedNitfWriter {
         try {
             try (RandomAccessFile outputFile = new RandomAccessFile(mOutputFileName, WRITE_MODE)) {
                 outputFile.setLength(0);
-                mOutput = outputFile;
+                mOutput = new NitfOutput(outputFile.getChannel());
                 writeData();
             }
         } catch (IOException | NitfFormatException ex) {
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
+import org.codice.imaging.nitf.core.common.impl.ByteBufferNitfReader;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Metadata for a NITF file, loaded from (or saved to) a sidecar index file.
+ * <p>
+ * The sidecar holds the raw bytes of the file header and of every segment subheader, the segment locations, and the
+ * data of any TRE overflow DES. It is keyed by the length and modification time of the NITF file. Opening a NITF file
+ * with a valid sidecar parses these bytes from memory, and does not read the NITF file at all. Only the fixed
+ * subheader fields are parsed again: the TREs are split by tag, but each TRE body is only decoded when it is first
+ * used (see SlottedParseStrategy.setLazyTreDecoding()). If the sidecar is missing, stale or unreadable, the NITF file
+ * is parsed instead (also with lazy TRE decoding) and the sidecar is (re-)written.
+ * <p>
+ * The resulting DataSource contains the file header and all segment headers, with TREs (including overflow TREs),
+ * but no segment data. Use the segment index with a reader on the NITF file to access the data.
+ * <p>
+ * Sidecars are not written for streaming mode files, since their headers cannot be parsed in isolation.
+ */
+public final class NitfIndexSidecar {
+
+    /**
+     * The file name extension used for sidecar files.
+     */
+    public static final String FILE_EXTENSION = ".nitfidx";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NitfIndexSidecar.class);
+
+    private static final byte[] MAGIC = {'N', 'I', 'T', 'F', 'I', 'D', 'X', '\n'};
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String STREAMING_FILE_HEADER = "STREAMING_FILE_HEADER";
+
+    private final DataSource dataSource;
+
+    private final NitfSegmentIndex segmentIndex;
+
+    private final boolean loadedFromSidecar;
+
+    private NitfIndexSidecar(final DataSource source, final NitfSegmentIndex index, final boolean fromSidecar) {
+        dataSource = source;
+        segmentIndex = index;
+        loadedFromSidecar = fromSidecar;
+    }
+
+    /**
+     * Get the default sidecar file for a NITF file.
+     *
+     * @param nitfFile the NITF file.
+     * @return the sidecar file, which is in the same directory as the NITF file.
+     */
+    public static File getSidecarFile(final File nitfFile) {
+        return new File(nitfFile.getPath() + FILE_EXTENSION);
+    }
+
+    /**
+     * Open a NITF file, using the default sidecar file.
+     *
+     * @param nitfFile the NITF file.
+     * @return the parsed metadata.
+     * @throws NitfFormatException if the sidecar could not be used, and the NITF file could not be parsed.
+     */
+    public static NitfIndexSidecar open(final File nitfFile) throws NitfFormatException {
+        return open(nitfFile, getSidecarFile(nitfFile));
+    }
+
+    /**
+     * Open a NITF file, using the specified sidecar file.
+     *
+     * @param nitfFile the NITF file.
+     * @param sidecarFile the sidecar file to load from if valid, or to write otherwise.
+     * @return the parsed metadata.
+     * @throws NitfFormatException if the sidecar could not be used, and the NITF file could not be parsed.
+     */
+    public static NitfIndexSidecar open(final File nitfFile, final File sidecarFile) throws NitfFormatException {
+        if (sidecarFile.isFile()) {
+            try {
+                NitfIndexSidecar sidecar = load(nitfFile, sidecarFile);
+                if (sidecar != null) {
+                    return sidecar;
+                }
+                LOGGER.debug(String.format("Sidecar %s is stale, parsing %s", sidecarFile.getPath(), nitfFile.getPath()));
+            } catch (IOException | NitfFormatException ex) {
+                LOGGER.warn(String.format("Unable to load sidecar %s, parsing %s", sidecarFile.getPath(), nitfFile.getPath()), ex);
+            }
+        }
+        return parseAndSave(nitfFile, sidecarFile);
+    }
+
+    /**
+     * Check whether a sidecar file matches the current state of a NITF file.
+     *
+     * @param nitfFile the NITF file.
+     * @param sidecarFile the sidecar file.
+     * @return true if the sidecar exists and matches the length and modification time of the NITF file.
+     */
+    public static boolean isValid(final File nitfFile, final File sidecarFile) {
+        if (!sidecarFile.isFile()) {
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecarFile)))) {
+            return readKey(input, nitfFile);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Get the parsed file header and segment headers.
+     *
+     * @return the data source, which does not contain segment data.
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Get the locations of the segments in the NITF file.
+     *
+     * @return the segment index.
+     */
+    public NitfSegmentIndex getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    /**
+     * Check whether the metadata was loaded from the sidecar.
+     *
+     * @return true if the sidecar was used, or false if the NITF file was parsed.
+     */
+    public boolean isLoadedFromSidecar() {
+        return loadedFromSidecar;
+    }
+
+    private static boolean readKey(final DataInputStream input, final File nitfFile) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        input.readFully(magic);
+        if (!Arrays.equals(MAGIC, magic) || (input.readInt() != FORMAT_VERSION)) {
+            return false;
+        }
+        long fileLength = input.readLong();
+        long lastModified = input.readLong();
+        return (fileLength == nitfFile.length()) && (lastModified == nitfFile.lastModified());
+    }
+
+    private static NitfIndexSidecar load(final File nitfFile, final File sidecarFile) throws IOException, NitfFormatException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecarFile)))) {
+            if (!readKey(input, nitfFile)) {
+                return null;
+            }
+            long sidecarLength = sidecarFile.length();
+            SlottedParseStrategy parseStrategy = createParseStrategy();
+            NitfSegmentIndex index = NitfParser.parseSegmentIndex(wrap(readBytes(input, sidecarLength)), parseStrategy);
+            int numberOfSegments = input.readInt();
+            if (numberOfSegments != index.getSegments().size()) {
+                throw new NitfFormatException("Sidecar segment count does not match file header");
+            }
+            for (NitfSegmentIndex.SegmentLocation segment : index.getSegments()) {
+                byte[] subheader = readBytes(input, sidecarLength);
+                if (subheader.length != segment.getSubheaderLength()) {
+                    throw new NitfFormatException("Sidecar subheader length does not match file header");
+                }
+                ByteBufferNitfReader subheaderReader = wrap(subheader);
+                subheaderReader.setFileType(index.getFileType());
+                NitfParser.parseSegment(subheaderReader, parseStrategy, segment.getType(), segment.getDataLength());
+                if ((segment.getType() == NitfSegmentIndex.SegmentType.DATA_EXTENSION) && input.readBoolean()) {
+                    mergeOverflowTres(parseStrategy, segment, readBytes(input, sidecarLength));
+                }
+            }
+            return new NitfIndexSidecar(parseStrategy.getDataSource(), index, true);
+        }
+    }
+
+    private static NitfIndexSidecar parseAndSave(final File nitfFile, final File sidecarFile) throws NitfFormatException {
+        long lastModified = nitfFile.lastModified();
+        FileReader reader = new FileReader(nitfFile);
+        try {
+            SlottedParseStrategy parseStrategy = createParseStrategy();
+            NitfSegmentIndex index = NitfParser.parseSegmentIndex(reader, parseStrategy);
+            List<byte[]> overflowData = new ArrayList<>();
+            for (NitfSegmentIndex.SegmentLocation segment : index.getSegments()) {
+                NitfParser.parseSegment(reader, parseStrategy, segment);
+                if (segment.getType() == NitfSegmentIndex.SegmentType.DATA_EXTENSION) {
+                    overflowData.add(readOverflowData(reader.getSegmentDataSource(), parseStrategy, segment));
+                }
+            }
+            NitfIndexSidecar result = new NitfIndexSidecar(parseStrategy.getDataSource(), index, false);
+            if (isStreamingMode(result.getDataSource())) {
+                LOGGER.debug(String.format("Not writing sidecar for streaming mode file %s", nitfFile.getPath()));
+            } else {
+                save(nitfFile.length(), lastModified, index, reader.getSegmentDataSource(), overflowData, sidecarFile);
+            }
+            return result;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static SlottedParseStrategy createParseStrategy() {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+        parseStrategy.setLazyTreDecoding(true);
+        return parseStrategy;
+    }
+
+    private static byte[] readOverflowData(final SegmentDataSource source, final SlottedParseStrategy parseStrategy,
+            final NitfSegmentIndex.SegmentLocation segment) throws NitfFormatException {
+        List<DataExtensionSegment> dataExtensionSegments = parseStrategy.getDataSource().getDataExtensionSegments();
+        DataExtensionSegment dataExtensionSegment = dataExtensionSegments.get(dataExtensionSegments.size() - 1);
+        if (!dataExtensionSegment.isTreOverflow() || (segment.getDataLength() == 0)) {
+            return null;
+        }
+        byte[] data = readRange(source, segment.getDataOffset(), (int) segment.getDataLength());
+        mergeOverflowTres(parseStrategy, segment, data);
+        return data;
+    }
+
+    private static void mergeOverflowTres(final SlottedParseStrategy parseStrategy,
+            final NitfSegmentIndex.SegmentLocation segment, final byte[] data) throws NitfFormatException {
+        DataExtensionSegment dataExtensionSegment = parseStrategy.getDataSource().getDataExtensionSegments().get(segment.getIndex());
+        ByteBufferNitfReader dataReader = wrap(data);
+        dataReader.setFileType(parseStrategy.getNitfHeader().getFileType());
+        dataExtensionSegment.mergeTREs(parseStrategy.parseTREs(dataReader, data.length, TreSource.TreOverflowDES));
+    }
+
+    private static boolean isStreamingMode(final DataSource source) {
+        for (DataExtensionSegment dataExtensionSegment : source.getDataExtensionSegments()) {
+            if (STREAMING_FILE_HEADER.equals(dataExtensionSegment.getIdentifier().trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void save(final long fileLength, final long lastModified, final NitfSegmentIndex index,
+            final SegmentDataSource source, final List<byte[]> overflowData, final File sidecarFile) {
+        File directory = sidecarFile.getAbsoluteFile().getParentFile();
+        File temporaryFile = null;
+        try {
+            temporaryFile = File.createTempFile(sidecarFile.getName(), null, directory);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+                output.write(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeLong(fileLength);
+                output.writeLong(lastModified);
+                writeBytes(output, readRange(source, 0, (int) index.getHeaderLength()));
+                output.writeInt(index.getSegments().size());
+                int desIndex = 0;
+                for (NitfSegmentIndex.SegmentLocation segment : index.getSegments()) {
+                    writeBytes(output, readRange(source, segment.getSubheaderOffset(), segment.getSubheaderLength()));
+                    if (segment.getType() == NitfSegmentIndex.SegmentType.DATA_EXTENSION) {
+                        byte[] data = overflowData.get(desIndex++);
+                        output.writeBoolean(data != null);
+                        if (data != null) {
+                            writeBytes(output, data);
+                        }
+                    }
+                }
+            }
+            moveIntoPlace(temporaryFile, sidecarFile);
+        } catch (IOException | NitfFormatException ex) {
+            LOGGER.warn(String.format("Unable to write sidecar %s", sidecarFile.getPath()), ex);
+            if (temporaryFile != null && !temporaryFile.delete()) {
+                LOGGER.debug(String.format("Unable to delete %s", temporaryFile.getPath()));
+            }
+        }
+    }
+
+    private static void moveIntoPlace(final File temporaryFile, final File sidecarFile) throws IOException {
+        try {
+            Files.move(temporaryFile.toPath(), sidecarFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temporaryFile.toPath(), sidecarFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static byte[] readRange(final SegmentDataSource source, final long offset, final int length)
+            throws NitfFormatException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer, offset + buffer.position()) < 0) {
+                throw new NitfFormatException("Unexpected end of file reading header bytes", offset + buffer.position());
+            }
+        }
+        return buffer.array();
+    }
+
+    private static ByteBufferNitfReader wrap(final byte[] bytes) {
+        return new ByteBufferNitfReader(ByteBuffer.wrap(bytes));
+    }
+
+    private static byte[] readBytes(final DataInputStream input, final long sidecarLength) throws IOException, NitfFormatException {
+        int length = input.readInt();
+        if ((length < 0) || (length > sidecarLength)) {
+            throw new NitfFormatException(String.format("Sidecar byte array length %d is invalid", length));
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeBytes(final DataOutputStream output, final byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+}
@@ -42,6 +42,28 @@ public abstract class NitfReaderDefaultImpl implements NitfReader {
     */
     protected static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
 
+    private static final String BAD_INTEGER_FORMAT = "Bad Integer format: [%s]";
+    private static final String BAD_LONG_FORMAT = "Bad Long format: %s";
+    private static final String BAD_DOUBLE_FORMAT = "Bad Double format: %s";
+
+    private static final int RADIX = 10;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int INITIAL_FIELD_BUFFER_SIZE = 32;
+
+    // A decimal with at most this many significant digits fits exactly in a double mantissa.
+    private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+
+    // Powers of ten that are exactly representable as a double.
+    private static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+        Reusable buffer for numeric fields, so primitive reads do not allocate.
+    */
+    private byte[] fieldBuffer = new byte[INITIAL_FIELD_BUFFER_SIZE];
+
     /** {@inheritDoc} */
     @Override
     public final void setFileType(final FileType fileType) {
@@ -63,6 +85,173 @@ public abstract class NitfReaderDefaultImpl implements NitfReader {
         }
     }
 
+    /**
+        Read bytes from the file into an existing array.
+        <p>
+        This is the allocation-free counterpart to readBytesRaw(), used by the primitive numeric reads.
+
+        @param destination the array to read into, starting at index zero. Must be at least count bytes long.
+        @param count the number of bytes to read.
+        @throws NitfFormatException if something went wrong during parsing (e.g. end of file).
+    */
+    protected abstract void readBytesIntoBuffer(final byte[] destination, final int count) throws NitfFormatException;
+
+    /**
+        Default implementation for readAsciiInt.
+        <p>
+        This reads into a reusable buffer, and converts the digits with the same rules as Integer.parseInt().
+
+        @param count the number of bytes to read and convert to an integer.
+        @return integer representation of the specified number of bytes.
+        @throws NitfFormatException if the content could not be converted, or something else went wrong during parsing (e.g. end of file).
+    */
+    protected final int defaultReadAsciiInt(final int count) throws NitfFormatException {
+        byte[] bytes = readField(count);
+        return (int) parseAsciiInteger(bytes, count, Integer.MIN_VALUE, Integer.MAX_VALUE, BAD_INTEGER_FORMAT);
+    }
+
+    /**
+        Default implementation for readAsciiLong.
+        <p>
+        This reads into a reusable buffer, and converts the digits with the same rules as Long.parseLong().
+
+        @param count the number of bytes to read and convert to a long integer.
+        @return long integer representation of the specified number of bytes.
+        @throws NitfFormatException if the content could not be converted, or something else went wrong during parsing (e.g. end of file).
+    */
+    protected final long defaultReadAsciiLong(final int count) throws NitfFormatException {
+        byte[] bytes = readField(count);
+        return parseAsciiInteger(bytes, count, Long.MIN_VALUE, Long.MAX_VALUE, BAD_LONG_FORMAT);
+    }
+
+    /**
+        Default implementation for readAsciiDouble.
+        <p>
+        This reads into a reusable buffer. Plain decimal values (optional sign, digits, optional fraction)
+        with up to 15 significant digits are converted directly, which gives the same result as
+        Double.parseDouble(). Anything else (e.g. exponents) is passed to Double.parseDouble().
+
+        @param count the number of bytes to read and convert to a double.
+        @return double representation of the specified number of bytes.
+        @throws NitfFormatException if the content could not be converted, or something else went wrong during parsing (e.g. end of file).
+    */
+    protected final double defaultReadAsciiDouble(final int count) throws NitfFormatException {
+        byte[] bytes = readField(count);
+        int start = 0;
+        int end = count;
+        // Same whitespace handling as String.trim()
+        while ((start < end) && ((bytes[start] & BYTE_MASK) <= ' ')) {
+            start++;
+        }
+        while ((end > start) && ((bytes[end - 1] & BYTE_MASK) <= ' ')) {
+            end--;
+        }
+        int i = start;
+        boolean negative = false;
+        if ((i < end) && ((bytes[i] == '-') || (bytes[i] == '+'))) {
+            negative = (bytes[i] == '-');
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        int digits = 0;
+        boolean seenPoint = false;
+        for (; i < end; ++i) {
+            int b = bytes[i];
+            if ((b == '.') && !seenPoint) {
+                seenPoint = true;
+                continue;
+            }
+            int digit = b - '0';
+            if ((digit < 0) || (digit >= RADIX)) {
+                break;
+            }
+            digits++;
+            if (seenPoint) {
+                fractionDigits++;
+            }
+            if ((mantissa != 0) || (digit != 0)) {
+                significantDigits++;
+            }
+            mantissa = mantissa * RADIX + digit;
+            if (significantDigits > MAX_EXACT_DOUBLE_DIGITS) {
+                break;
+            }
+        }
+        if ((i == end) && (digits > 0) && (fractionDigits < EXACT_POWERS_OF_TEN.length)) {
+            double value = mantissa / EXACT_POWERS_OF_TEN[fractionDigits];
+            if (negative) {
+                return -value;
+            }
+            return value;
+        }
+        String doubleString = new String(bytes, 0, count, StandardCharsets.ISO_8859_1);
+        try {
+            return Double.parseDouble(doubleString.trim());
+        } catch (NumberFormatException ex) {
+            throw new NitfFormatException(String.format(BAD_DOUBLE_FORMAT, doubleString), getCurrentOffset());
+        }
+    }
+
+    private byte[] readField(final int count) throws NitfFormatException {
+        if (fieldBuffer.length < count) {
+            fieldBuffer = new byte[count];
+        }
+        readBytesIntoBuffer(fieldBuffer, count);
+        return fieldBuffer;
+    }
+
+    /**
+        Convert ASCII digits with an optional leading sign, using the same rules as Long.parseLong().
+        <p>
+        The accumulation is done with negative values so that the minimum value can be represented.
+    */
+    private long parseAsciiInteger(final byte[] bytes, final int count, final long minValue, final long maxValue,
+            final String errorFormat) throws NitfFormatException {
+        if (count <= 0) {
+            throw badNumber(bytes, count, errorFormat);
+        }
+        int i = 0;
+        boolean negative = false;
+        long limit = -maxValue;
+        byte firstByte = bytes[0];
+        if (firstByte < '0') {
+            if (firstByte == '-') {
+                negative = true;
+                limit = minValue;
+            } else if (firstByte != '+') {
+                throw badNumber(bytes, count, errorFormat);
+            }
+            if (count == 1) {
+                throw badNumber(bytes, count, errorFormat);
+            }
+            i++;
+        }
+        long multiplicationLimit = limit / RADIX;
+        long result = 0;
+        while (i < count) {
+            int digit = bytes[i++] - '0';
+            if ((digit < 0) || (digit >= RADIX) || (result < multiplicationLimit)) {
+                throw badNumber(bytes, count, errorFormat);
+            }
+            result *= RADIX;
+            if (result < limit + digit) {
+                throw badNumber(bytes, count, errorFormat);
+            }
+            result -= digit;
+        }
+        if (negative) {
+            return result;
+        }
+        return -result;
+    }
+
+    private NitfFormatException badNumber(final byte[] bytes, final int count, final String errorFormat) {
+        String numberString = new String(bytes, 0, Math.max(count, 0), StandardCharsets.ISO_8859_1);
+        return new NitfFormatException(String.format(errorFormat, numberString), getCurrentOffset());
+    }
+
     /**
         Default implementation for readBytesAsInteger.
         <p>
@@ -78,7 +267,7 @@ public abstract class NitfReaderDefaultImpl implements NitfReader {
         try {
             intValue = Integer.parseInt(intString);
         } catch (NumberFormatException ex) {
-            throw new NitfFormatException(String.format("Bad Integer format: [%s]", intString), getCurrentOffset());
+            throw new NitfFormatException(String.format(BAD_INTEGER_FORMAT, intString), getCurrentOffset());
         }
         return intValue;
     }
@@ -98,7 +287,7 @@ public abstract class NitfReaderDefaultImpl implements NitfReader {
         try {
             longValue = Long.parseLong(longString);
         } catch (NumberFormatException ex) {
-            throw new NitfFormatException(String.format("Bad Long format: %s", longString), getCurrentOffset());
+            throw new NitfFormatException(String.format(BAD_LONG_FORMAT, longString), getCurrentOffset());
         }
         return longValue;
     }
@@ -118,7 +307,7 @@ public abstract class NitfReaderDefaultImpl implements NitfReader {
         try {
             doubleValue = Double.parseDouble(doubleString.trim());
         } catch (NumberFormatException ex) {
-            throw new NitfFormatException(String.format("Bad Double format: %s", doubleString), getCurrentOffset());
+            throw new NitfFormatException(String.format(BAD_DOUBLE_FORMAT, doubleString), getCurrentOffset());
         }
         return doubleValue;
     }
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.NitfWriter;
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfOutput;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.dataextension.impl.DataExtensionSegmentFactory;
+import org.codice.imaging.nitf.core.dataextension.impl.DataExtensionSegmentWriter;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+import org.codice.imaging.nitf.core.graphic.impl.GraphicSegmentWriter;
+import org.codice.imaging.nitf.core.header.impl.NitfHeaderWriter;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentWriter;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.label.impl.LabelSegmentWriter;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.symbol.impl.SymbolSegmentWriter;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.codice.imaging.nitf.core.text.impl.TextSegmentWriter;
+import org.codice.imaging.nitf.core.tre.impl.TreParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A NitfWriter implementation that does not need the segment data lengths in advance.
+ * <p>
+ * The other writers write the file header first, so every segment data length has to be known before anything is
+ * written. This writer reads the data of each image, graphic, symbol and data extension segment until the end of its
+ * stream, and sets the segment data length from the number of bytes written. The data can therefore be produced while
+ * it is written (for example, by an ImageInputStream that generates tiles on demand), and does not need to be held in
+ * memory.
+ * <p>
+ * The segments (and their subheaders) do need to be in the data source before writing starts, because the file header
+ * lists them.
+ * <p>
+ * If the output is a FileChannel, space for the file header is reserved, and the header is written again with the
+ * actual lengths at the end. Otherwise, the file is written in streaming mode (see MIL-STD-2500C Section 5.8.3.2): the
+ * file header has all nines for the lengths that are not known, and the complete header is written at the end of the
+ * file in a STREAMING_FILE_HEADER data extension segment. If the data source already has a streaming file header
+ * segment, that is used (with new data), otherwise a default one is added.
+ */
+public class NitfStreamingWriter implements NitfWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NitfStreamingWriter.class);
+
+    private static final int HEADER_BUFFER_SIZE = 8192;
+
+    private final DataSource mDataSource;
+    private final WritableByteChannel mChannel;
+
+    /**
+     * Construct a streaming NITF writer for a channel.
+     *
+     * @param nitfDataSource the source of data to be written out.
+     * @param outputChannel the channel to write to, which is used from its current position if it is a FileChannel.
+     */
+    public NitfStreamingWriter(final DataSource nitfDataSource, final WritableByteChannel outputChannel) {
+        if (outputChannel == null) {
+            throw new IllegalArgumentException("NitfStreamingWriter(): argument 'outputChannel' may not be null.");
+        }
+        mDataSource = nitfDataSource;
+        mChannel = outputChannel;
+    }
+
+    /**
+     * Construct a streaming NITF writer for an output stream.
+     *
+     * @param nitfDataSource the source of data to be written out.
+     * @param outputStream the stream to write to.
+     */
+    public NitfStreamingWriter(final DataSource nitfDataSource, final OutputStream outputStream) {
+        this(nitfDataSource, Channels.newChannel(outputStream));
+    }
+
+    @Override
+    public final void write() {
+        try {
+            writeStream();
+        } catch (IOException | NitfFormatException ex) {
+            LOGGER.error("Could not write", ex.getMessage());
+        }
+    }
+
+    /**
+     * Write out the data source.
+     * <p>
+     * The data lengths of the segments in the data source are updated to the lengths that were written. If the data
+     * of a segment cannot be read to the end, this fails rather than recording the truncated length.
+     *
+     * @throws NitfFormatException if there is a problem reading data
+     * @throws IOException if there is a problem reading segment data, or writing data
+     */
+    public final void writeStream() throws NitfFormatException, IOException {
+        NitfOutput output = new NitfOutput(mChannel);
+        TreParser treParser = new TreParser();
+        DataExtensionSegment streamingFileHeader = null;
+        if (!(mChannel instanceof FileChannel)) {
+            streamingFileHeader = getStreamingFileHeader();
+        }
+
+        byte[] fileHeader = renderFileHeader(treParser, streamingFileHeader, false);
+        if (streamingFileHeader != null) {
+            streamingFileHeader.setDataLength(NitfHeaderWriter.getStreamingFileHeaderDataLength(fileHeader.length));
+            fileHeader = renderFileHeader(treParser, streamingFileHeader, false);
+        }
+        long fileHeaderOffset = output.getPosition();
+        output.write(fileHeader);
+
+        writeSegments(output, treParser);
+
+        if (streamingFileHeader == null) {
+            output.flush();
+            rewriteFileHeader((FileChannel) mChannel, fileHeaderOffset, fileHeader.length, renderFileHeader(treParser, null, true));
+        } else {
+            new DataExtensionSegmentWriter(output, treParser).writeDESSubheader(streamingFileHeader);
+            new NitfHeaderWriter(output, treParser).writeStreamingFileHeaderData(renderFileHeader(treParser, streamingFileHeader, true));
+            output.flush();
+        }
+    }
+
+    private DataExtensionSegment getStreamingFileHeader() {
+        for (DataExtensionSegment des : mDataSource.getDataExtensionSegments()) {
+            if (des.isStreamingMode()) {
+                return des;
+            }
+        }
+        return DataExtensionSegmentFactory.getStreamingFileHeader(mDataSource.getNitfHeader().getFileType());
+    }
+
+    private byte[] renderFileHeader(final TreParser treParser, final DataExtensionSegment streamingFileHeader,
+            final boolean lengthsKnown) throws NitfFormatException, IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        NitfOutput output = new NitfOutput(Channels.newChannel(bytes), HEADER_BUFFER_SIZE);
+        new NitfHeaderWriter(output, treParser).writeStreamingFileHeader(mDataSource, streamingFileHeader, lengthsKnown);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private void rewriteFileHeader(final FileChannel channel, final long offset, final int reservedLength, final byte[] fileHeader)
+            throws IOException, NitfFormatException {
+        if (fileHeader.length != reservedLength) {
+            throw new NitfFormatException(String.format("File header is %d bytes, but %d bytes were reserved", fileHeader.length,
+                    reservedLength));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(fileHeader);
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void writeSegments(final NitfOutput output, final TreParser treParser) throws NitfFormatException, IOException {
+        FileType fileType = mDataSource.getNitfHeader().getFileType();
+        ImageSegmentWriter imageSegmentWriter = new ImageSegmentWriter(output, treParser);
+        for (ImageSegment imageSegment : mDataSource.getImageSegments()) {
+            long start = output.getPosition();
+            imageSegmentWriter.writeImageSubheader(imageSegment, fileType);
+            imageSegmentWriter.writeSegmentDataOrThrow(imageSegment.getData());
+            imageSegment.setDataLength(getDataLength(imageSegment, output, start));
+        }
+        GraphicSegmentWriter graphicSegmentWriter = new GraphicSegmentWriter(output, treParser);
+        for (GraphicSegment graphicSegment : mDataSource.getGraphicSegments()) {
+            long start = output.getPosition();
+            graphicSegmentWriter.writeGraphicSubheader(graphicSegment);
+            graphicSegmentWriter.writeSegmentDataOrThrow(graphicSegment.getData());
+            graphicSegment.setDataLength(getDataLength(graphicSegment, output, start));
+        }
+        SymbolSegmentWriter symbolSegmentWriter = new SymbolSegmentWriter(output, treParser);
+        for (SymbolSegment symbolSegment : mDataSource.getSymbolSegments()) {
+            long start = output.getPosition();
+            symbolSegmentWriter.writeSymbolSubheader(symbolSegment);
+            symbolSegmentWriter.writeSegmentDataOrThrow(symbolSegment.getData());
+            symbolSegment.setDataLength(getDataLength(symbolSegment, output, start));
+        }
+        LabelSegmentWriter labelSegmentWriter = new LabelSegmentWriter(output, treParser);
+        for (LabelSegment labelSegment : mDataSource.getLabelSegments()) {
+            labelSegmentWriter.writeLabel(labelSegment);
+        }
+        TextSegmentWriter textSegmentWriter = new TextSegmentWriter(output, treParser);
+        for (TextSegment textSegment : mDataSource.getTextSegments()) {
+            textSegmentWriter.writeTextSegment(textSegment, fileType);
+        }
+        DataExtensionSegmentWriter dataExtensionSegmentWriter = new DataExtensionSegmentWriter(output, treParser);
+        for (DataExtensionSegment des : mDataSource.getDataExtensionSegments()) {
+            if (!des.isStreamingMode()) {
+                long start = output.getPosition();
+                dataExtensionSegmentWriter.writeDESSubheader(des);
+                writeDataExtensionSegmentData(dataExtensionSegmentWriter, des);
+                des.setDataLength(getDataLength(des, output, start));
+            }
+        }
+    }
+
+    // The data is only available through a Consumer, which cannot throw, so the failure is passed out unchecked.
+    private static void writeDataExtensionSegmentData(final DataExtensionSegmentWriter writer, final DataExtensionSegment des)
+            throws IOException {
+        try {
+            des.consume(data -> {
+                try {
+                    writer.writeSegmentDataOrThrow(data);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static long getDataLength(final CommonSegment segment, final NitfOutput output, final long start)
+            throws NitfFormatException, IOException {
+        return output.getPosition() - start - segment.getHeaderLength();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.codice.imaging.nitf.core.common.CommonSegment;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
+import org.codice.imaging.nitf.core.common.impl.ByteBufferNitfReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+    Parser for a NITF file that parses the segment subheaders concurrently.
+    <p>
+    The file header is parsed first, which gives the location of every segment subheader (see
+    NitfSegmentIndex). Each subheader, including its TREs, is then parsed by a task on a
+    fork-join pool. Each task reads its subheader with a single positional read from the
+    reader's SegmentDataSource, and parses it with its own reader.
+    <p>
+    The segment data is handled afterwards on the calling thread, in file order, using the heap
+    strategies of the parse strategy. The segments are stored in file order, so the result is
+    the same as for NitfParser.parse(). Any segment selector set on the parse strategy is
+    applied on the calling thread, before the tasks are submitted.
+    <p>
+    This is most useful for files with many segments (e.g. RPF frames or WAMI collections). If
+    the reader cannot seek, or does not provide a SegmentDataSource, the file is parsed
+    sequentially with NitfParser.
+*/
+public final class ParallelNitfParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelNitfParser.class);
+
+    private ParallelNitfParser() {
+    }
+
+    /**
+     * Parse a NITF file using the common fork-join pool.
+     *
+     * @param nitfReader the reader to use
+     * @param parseStrategy the parsing strategy
+     * @throws NitfFormatException if an error occurs during parsing of the file header
+     */
+    public static void parse(final NitfReader nitfReader, final SlottedParseStrategy parseStrategy) throws NitfFormatException {
+        parse(nitfReader, parseStrategy, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parse a NITF file using a specified fork-join pool.
+     *
+     * As for NitfParser.parse(), an error in a segment is logged, and the segments before it are kept.
+     *
+     * @param nitfReader the reader to use
+     * @param parseStrategy the parsing strategy
+     * @param pool the pool to parse the segment subheaders on
+     * @throws NitfFormatException if an error occurs during parsing of the file header
+     */
+    public static void parse(final NitfReader nitfReader, final SlottedParseStrategy parseStrategy, final ForkJoinPool pool)
+            throws NitfFormatException {
+        SegmentDataSource source = null;
+        if (nitfReader.canSeek()) {
+            source = nitfReader.getSegmentDataSource();
+        }
+        if (source == null) {
+            LOGGER.debug("Reader does not support positional access, parsing segments sequentially.");
+            NitfParser.parse(nitfReader, parseStrategy);
+            return;
+        }
+        NitfSegmentIndex segmentIndex = NitfParser.parseSegmentIndex(nitfReader, parseStrategy);
+        parseStrategy.prepareForConcurrentParsing();
+
+        List<NitfSegmentIndex.SegmentLocation> selectedSegments = new ArrayList<>();
+        List<Callable<CommonSegment>> tasks = new ArrayList<>();
+        for (NitfSegmentIndex.SegmentLocation segment : segmentIndex.getSegments()) {
+            if (parseStrategy.isSelected(segment, nitfReader, segment.getSubheaderOffset())) {
+                selectedSegments.add(segment);
+                tasks.add(new SubheaderTask(source, parseStrategy, segmentIndex, segment));
+            }
+        }
+        List<Future<CommonSegment>> results = pool.invokeAll(tasks);
+
+        try {
+            for (int i = 0; i < results.size(); ++i) {
+                NitfSegmentIndex.SegmentLocation segment = selectedSegments.get(i);
+                CommonSegment parsedSegment = getResult(results.get(i));
+                if (nitfReader.getCurrentOffset() != segment.getDataOffset()) {
+                    nitfReader.seekToAbsoluteOffset(segment.getDataOffset());
+                }
+                parseStrategy.addSegment(parsedSegment, nitfReader, segment.getType(), segment.getDataLength());
+            }
+        } catch (NitfFormatException ex) {
+            LOGGER.error(ex.getMessage() + ex);
+        }
+    }
+
+    private static CommonSegment getResult(final Future<CommonSegment> result) throws NitfFormatException {
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new NitfFormatException("Interrupted while parsing segment subheaders", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof NitfFormatException) {
+                throw (NitfFormatException) ex.getCause();
+            }
+            throw new NitfFormatException(ex.getCause());
+        }
+    }
+
+    /**
+     * Parses one segment subheader, from a copy of the subheader bytes.
+     */
+    private static final class SubheaderTask implements Callable<CommonSegment> {
+        private final SegmentDataSource source;
+        private final SlottedParseStrategy parseStrategy;
+        private final NitfSegmentIndex segmentIndex;
+        private final NitfSegmentIndex.SegmentLocation segment;
+
+        SubheaderTask(final SegmentDataSource dataSource, final SlottedParseStrategy strategy,
+                final NitfSegmentIndex index, final NitfSegmentIndex.SegmentLocation location) {
+            source = dataSource;
+            parseStrategy = strategy;
+            segmentIndex = index;
+            segment = location;
+        }
+
+        @Override
+        public CommonSegment call() throws NitfFormatException {
+            ByteBuffer subheader = ByteBuffer.allocate(segment.getSubheaderLength());
+            while (subheader.hasRemaining()) {
+                if (source.read(subheader, segment.getSubheaderOffset() + subheader.position()) < 0) {
+                    throw new NitfFormatException("Unexpected end of file reading segment subheader",
+                            segment.getSubheaderOffset() + subheader.position());
+                }
+            }
+            subheader.flip();
+            ByteBufferNitfReader reader = new ByteBufferNitfReader(subheader);
+            reader.setFileType(segmentIndex.getFileType());
+            try {
+                return parseStrategy.parseSubheader(reader, segment.getType(), segment.getDataLength());
+            } catch (NitfFormatException ex) {
+                throw new NitfFormatException(ex.getMessage(), segment.getSubheaderOffset() + ex.getOffset());
+            }
+        }
+    }
+}
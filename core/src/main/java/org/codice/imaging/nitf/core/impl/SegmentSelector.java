@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex;
+import org.codice.imaging.nitf.core.image.ImageCategory;
+
+/**
+ * Selects the segments to be parsed by a SlottedParseStrategy.
+ * <p>
+ * Segments that are not selected are not parsed or stored. On a reader that can seek, they are not read at all (apart
+ * from any subheader fields that the selector asks for).
+ */
+@FunctionalInterface
+public interface SegmentSelector {
+
+    /**
+     * Decide whether a segment should be parsed.
+     *
+     * @param segment the summary of the segment.
+     * @return true if the segment should be parsed, otherwise false.
+     * @throws NitfFormatException if a subheader field required to make the decision could not be read.
+     */
+    boolean select(SegmentSummary segment) throws NitfFormatException;
+
+    /**
+     * Select the segments that both this selector and another selector select.
+     *
+     * @param other the other selector.
+     * @return the combined selector.
+     */
+    default SegmentSelector and(final SegmentSelector other) {
+        return segment -> select(segment) && other.select(segment);
+    }
+
+    /**
+     * Select the segments that either this selector or another selector select.
+     *
+     * @param other the other selector.
+     * @return the combined selector.
+     */
+    default SegmentSelector or(final SegmentSelector other) {
+        return segment -> select(segment) || other.select(segment);
+    }
+
+    /**
+     * Select all segments of the specified types.
+     *
+     * @param type the first segment type.
+     * @param otherTypes any other segment types.
+     * @return the selector.
+     */
+    static SegmentSelector ofType(final NitfSegmentIndex.SegmentType type, final NitfSegmentIndex.SegmentType... otherTypes) {
+        Set<NitfSegmentIndex.SegmentType> types = EnumSet.of(type, otherTypes);
+        return segment -> types.contains(segment.getType());
+    }
+
+    /**
+     * Select specific segments of one type.
+     *
+     * @param type the segment type.
+     * @param indexes the zero-based indexes of the segments within that type.
+     * @return the selector.
+     */
+    static SegmentSelector segments(final NitfSegmentIndex.SegmentType type, final int... indexes) {
+        int[] sortedIndexes = indexes.clone();
+        Arrays.sort(sortedIndexes);
+        return segment -> (segment.getType() == type) && (Arrays.binarySearch(sortedIndexes, segment.getIndex()) >= 0);
+    }
+
+    /**
+     * Select segments by identifier (IID1, SID, LID, TEXTID or DESID).
+     *
+     * @param type the segment type.
+     * @param predicate the test to apply to the identifier, which has trailing spaces removed.
+     * @return the selector.
+     */
+    static SegmentSelector identifier(final NitfSegmentIndex.SegmentType type, final Predicate<String> predicate) {
+        return segment -> (segment.getType() == type) && predicate.test(segment.getIdentifier());
+    }
+
+    /**
+     * Select image segments by image category (ICAT).
+     *
+     * @param category the first image category.
+     * @param otherCategories any other image categories.
+     * @return the selector.
+     */
+    static SegmentSelector imageCategory(final ImageCategory category, final ImageCategory... otherCategories) {
+        Set<ImageCategory> categories = EnumSet.of(category, otherCategories);
+        return segment -> (segment.getType() == NitfSegmentIndex.SegmentType.IMAGE)
+                && categories.contains(segment.getImageCategory());
+    }
+}
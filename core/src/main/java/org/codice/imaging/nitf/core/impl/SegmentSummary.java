@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import static org.codice.imaging.nitf.core.dataextension.impl.DataExtensionConstants.DESID_LENGTH;
+import static org.codice.imaging.nitf.core.graphic.impl.GraphicSegmentConstants.SID_LENGTH;
+import static org.codice.imaging.nitf.core.image.impl.ImageConstants.IID1_LENGTH;
+import static org.codice.imaging.nitf.core.label.impl.LabelConstants.LID_LENGTH;
+import static org.codice.imaging.nitf.core.text.impl.TextConstants.TEXTID20_LENGTH;
+import static org.codice.imaging.nitf.core.text.impl.TextConstants.TEXTID_LENGTH;
+
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex;
+import org.codice.imaging.nitf.core.image.ImageCategory;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentParser;
+
+/**
+ * A summary of one segment, used by a SegmentSelector to decide whether the segment should be parsed.
+ * <p>
+ * The location of the segment is always available. The leading subheader fields are only read from the file when
+ * they are first requested, so a selector that only uses the segment type and index does not read anything.
+ */
+public final class SegmentSummary {
+
+    private static final int SEGMENT_TAG_LENGTH = 2;
+
+    private final NitfSegmentIndex.SegmentLocation segmentLocation;
+
+    private final NitfReader reader;
+
+    private final long subheaderStart;
+
+    private String identifier = null;
+
+    private ImageSegment imageLeadingFields = null;
+
+    /**
+     * Constructor.
+     *
+     * @param location the location of the segment.
+     * @param subheaderReader the reader to read subheader fields from, which must be able to seek.
+     * @param subheaderOffset the offset of the start of the subheader within the reader.
+     */
+    SegmentSummary(final NitfSegmentIndex.SegmentLocation location, final NitfReader subheaderReader,
+            final long subheaderOffset) {
+        segmentLocation = location;
+        reader = subheaderReader;
+        subheaderStart = subheaderOffset;
+    }
+
+    /**
+     * Get the type of segment.
+     *
+     * @return the segment type.
+     */
+    public NitfSegmentIndex.SegmentType getType() {
+        return segmentLocation.getType();
+    }
+
+    /**
+     * Get the position of this segment among the segments of the same type.
+     *
+     * @return the zero-based index of this segment within its type.
+     */
+    public int getIndex() {
+        return segmentLocation.getIndex();
+    }
+
+    /**
+     * Get the location of this segment in the file.
+     *
+     * @return the segment location.
+     */
+    public NitfSegmentIndex.SegmentLocation getLocation() {
+        return segmentLocation;
+    }
+
+    /**
+     * Get the segment identifier.
+     * <p>
+     * This is the first field of the subheader (IID1, SID, LID, TEXTID or DESID, depending on the segment type).
+     *
+     * @return the identifier, with trailing spaces removed.
+     * @throws NitfFormatException if the identifier could not be read.
+     */
+    public String getIdentifier() throws NitfFormatException {
+        if (identifier == null) {
+            reader.seekToAbsoluteOffset(subheaderStart + SEGMENT_TAG_LENGTH);
+            identifier = reader.readTrimmedBytes(getIdentifierLength());
+        }
+        return identifier;
+    }
+
+    /**
+     * Get the leading fields of an image segment subheader.
+     * <p>
+     * Only the fields up to and including the image category (ICAT) are populated. In particular, there are no bands
+     * and no TREs.
+     *
+     * @return the partially populated image segment, or null if this is not an image segment.
+     * @throws NitfFormatException if the fields could not be read.
+     */
+    public ImageSegment getImageLeadingFields() throws NitfFormatException {
+        if (getType() != NitfSegmentIndex.SegmentType.IMAGE) {
+            return null;
+        }
+        if (imageLeadingFields == null) {
+            reader.seekToAbsoluteOffset(subheaderStart);
+            imageLeadingFields = new ImageSegmentParser().parseLeadingFields(reader);
+        }
+        return imageLeadingFields;
+    }
+
+    /**
+     * Get the image category (ICAT) of an image segment.
+     *
+     * @return the image category, or null if this is not an image segment.
+     * @throws NitfFormatException if the image category could not be read.
+     */
+    public ImageCategory getImageCategory() throws NitfFormatException {
+        ImageSegment imageSegment = getImageLeadingFields();
+        if (imageSegment == null) {
+            return null;
+        }
+        return imageSegment.getImageCategory();
+    }
+
+    private int getIdentifierLength() {
+        switch (getType()) {
+            case IMAGE:
+                return IID1_LENGTH;
+            case GRAPHIC:
+            case SYMBOL:
+                return SID_LENGTH;
+            case LABEL:
+                return LID_LENGTH;
+            case TEXT:
+                if (reader.getFileType() == FileType.NITF_TWO_ZERO) {
+                    return TEXTID20_LENGTH;
+                }
+                return TEXTID_LENGTH;
+            default:
+                return DESID_LENGTH;
+        }
+    }
+}
@@ -14,12 +14,12 @@
  */
 package org.codice.imaging.nitf.core.impl;
 
-import java.io.DataOutput;
 import java.io.IOException;
 
 import org.codice.imaging.nitf.core.DataSource;
 import org.codice.imaging.nitf.core.NitfWriter;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfOutput;
 import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
 import org.codice.imaging.nitf.core.dataextension.impl.DataExtensionSegmentWriter;
 import org.codice.imaging.nitf.core.graphic.GraphicSegment;
@@ -45,8 +45,10 @@ public abstract class SharedNitfWriter implements NitfWriter {
 
     /**
      * The target to write the data to.
+     * <p>
+     * This is flushed at the end of writeData().
      */
-    protected DataOutput mOutput = null;
+    protected NitfOutput mOutput = null;
 
     /**
      * Initialise shared state.
@@ -73,6 +75,7 @@ public abstract class SharedNitfWriter implements NitfWriter {
         writeLabelSegments();
         writeTextSegments();
         writeDataExtensionSegments();
+        mOutput.flush();
     }
 
     private void writeImageSegments() throws NitfFormatException, IOException {
@@ -14,22 +14,26 @@
  */
 package org.codice.imaging.nitf.core.impl;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import javax.imageio.stream.ImageInputStream;
 import javax.imageio.stream.MemoryCacheImageInputStream;
 import javax.xml.transform.Source;
 
 import org.codice.imaging.nitf.core.DataSource;
 import org.codice.imaging.nitf.core.HeapStrategy;
+import org.codice.imaging.nitf.core.common.CommonSegment;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.common.NitfReader;
 import org.codice.imaging.nitf.core.common.ParseStrategy;
+import org.codice.imaging.nitf.core.common.impl.ByteBufferNitfReader;
 import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
 import org.codice.imaging.nitf.core.dataextension.impl.DataExtensionSegmentParser;
 import org.codice.imaging.nitf.core.graphic.GraphicSegment;
 import org.codice.imaging.nitf.core.graphic.impl.GraphicSegmentParser;
 import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex;
 import org.codice.imaging.nitf.core.image.ImageSegment;
 import org.codice.imaging.nitf.core.image.impl.ImageSegmentParser;
 import org.codice.imaging.nitf.core.label.LabelSegment;
@@ -53,6 +57,10 @@ public class SlottedParseStrategy implements ParseStrategy {
             new InMemoryHeapStrategy<>((InputStream is) -> new MemoryCacheImageInputStream(is));
     private HeapStrategy<ImageInputStream> desHeapStrategy
             = new InMemoryHeapStrategy<>((InputStream is) -> new MemoryCacheImageInputStream(is));
+    private HeapStrategy<ImageInputStream> graphicHeapStrategy
+            = new InMemoryHeapStrategy<>((InputStream is) -> new MemoryCacheImageInputStream(is));
+    private HeapStrategy<ImageInputStream> symbolHeapStrategy
+            = new InMemoryHeapStrategy<>((InputStream is) -> new MemoryCacheImageInputStream(is));
 
     /**
      * Stores the NITF data.
@@ -113,6 +121,10 @@ public class SlottedParseStrategy implements ParseStrategy {
 
     private int segmentsToExtract = ALL_SEGMENT_DATA;
 
+    private SegmentSelector segmentSelector = null;
+
+    private boolean lazyTreDecoding = false;
+
     /**
      * Constructor.
      */
@@ -155,6 +167,148 @@ public class SlottedParseStrategy implements ParseStrategy {
         }
     }
 
+    /**
+     * Set the strategy to use for storing graphic segment data.
+     *
+     * @param dataStrategy the HeapStrategy to use for this parser's graphic data storage. If null, then this instance
+     * will use an InMemoryHeapStrategy instance.
+     */
+    public final void setGraphicHeapStrategy(final HeapStrategy<ImageInputStream> dataStrategy) {
+        if (dataStrategy != null) {
+            this.graphicHeapStrategy = dataStrategy;
+        }
+    }
+
+    /**
+     * Set the strategy to use for storing symbol segment data.
+     *
+     * @param dataStrategy the HeapStrategy to use for this parser's symbol data storage. If null, then this instance
+     * will use an InMemoryHeapStrategy instance.
+     */
+    public final void setSymbolHeapStrategy(final HeapStrategy<ImageInputStream> dataStrategy) {
+        if (dataStrategy != null) {
+            this.symbolHeapStrategy = dataStrategy;
+        }
+    }
+
+    /**
+     * Set the strategy to use for storing image, graphic, symbol and DES data.
+     * <p>
+     * For example, a FileRangeHeapStrategy can be used to reference all of the segment data in the source file,
+     * instead of copying it.
+     *
+     * @param dataStrategy the HeapStrategy to use for all of this parser's segment data storage. If null, the
+     * existing strategies are not changed.
+     */
+    public final void setSegmentDataHeapStrategy(final HeapStrategy<ImageInputStream> dataStrategy) {
+        setImageHeapStrategy(dataStrategy);
+        setGraphicHeapStrategy(dataStrategy);
+        setSymbolHeapStrategy(dataStrategy);
+        setDataExtensionSegmentHeapStrategy(dataStrategy);
+    }
+
+    /**
+     * Set the selector for the segments to parse.
+     * <p>
+     * Segments that are not selected are not parsed or stored, so (for example) the first stored image segment may
+     * not be the first image segment in the file. On a reader that can seek, unselected segments are skipped by
+     * seeking, without reading their subheaders or data. The required segment data flags still apply to the
+     * selected segments.
+     *
+     * @param selector the segment selector, or null to parse all segments.
+     */
+    public final void setSegmentSelector(final SegmentSelector selector) {
+        this.segmentSelector = selector;
+    }
+
+    /**
+     * Get the selector for the segments to parse.
+     *
+     * @return the segment selector, or null if all segments are parsed.
+     */
+    public final SegmentSelector getSegmentSelector() {
+        return segmentSelector;
+    }
+
+    /**
+     * Set whether TREs are decoded when they are parsed, or when they are first used.
+     * <p>
+     * Lazy decoding avoids the cost of decoding TREs that are never looked at. Those TREs are written out using the
+     * original bytes. The default is to decode each TRE as it is parsed.
+     *
+     * @param lazy true to decode each TRE on first use, false to decode each TRE when it is parsed.
+     */
+    public final void setLazyTreDecoding(final boolean lazy) {
+        this.lazyTreDecoding = lazy;
+        if (treCollectionParser != null) {
+            treCollectionParser.setLazyDecoding(lazy);
+        }
+    }
+
+    /**
+     * Check whether TREs are decoded on first use.
+     *
+     * @return true if TREs are decoded on first use, false if they are decoded when they are parsed.
+     */
+    public final boolean isLazyTreDecoding() {
+        return lazyTreDecoding;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If a segment selector has been set, only the segments chosen by the selector are handled.
+     */
+    @Override
+    public final void parseSegments(final NitfReader reader, final NitfSegmentIndex segmentIndex)
+            throws NitfFormatException {
+        if (segmentSelector == null) {
+            ParseStrategy.super.parseSegments(reader, segmentIndex);
+            return;
+        }
+        for (NitfSegmentIndex.SegmentLocation segment : segmentIndex.getSegments()) {
+            if (reader.canSeek()) {
+                if (isSelected(segment, reader, segment.getSubheaderOffset())) {
+                    NitfParser.parseSegment(reader, this, segment);
+                }
+            } else {
+                parseSelectedSegment(reader, segment);
+            }
+        }
+    }
+
+    /**
+     * Check whether a segment is chosen by the segment selector.
+     *
+     * @param segment the location of the segment.
+     * @param subheaderReader the reader to read subheader fields from, which must be able to seek.
+     * @param subheaderOffset the offset of the start of the subheader within the reader.
+     * @return true if there is no selector, or the selector selects the segment.
+     * @throws NitfFormatException if the selector could not read a subheader field.
+     */
+    final boolean isSelected(final NitfSegmentIndex.SegmentLocation segment, final NitfReader subheaderReader,
+            final long subheaderOffset) throws NitfFormatException {
+        if (segmentSelector == null) {
+            return true;
+        }
+        return segmentSelector.select(new SegmentSummary(segment, subheaderReader, subheaderOffset));
+    }
+
+    private void parseSelectedSegment(final NitfReader reader, final NitfSegmentIndex.SegmentLocation segment)
+            throws NitfFormatException {
+        // The reader cannot go back, so give the selector a copy of the subheader.
+        ByteBufferNitfReader subheaderReader
+                = new ByteBufferNitfReader(ByteBuffer.wrap(reader.readBytesRaw(segment.getSubheaderLength())));
+        subheaderReader.setFileType(reader.getFileType());
+        if (isSelected(segment, subheaderReader, 0)) {
+            subheaderReader.seekToAbsoluteOffset(0);
+            CommonSegment parsedSegment = parseSubheader(subheaderReader, segment.getType(), segment.getDataLength());
+            addSegment(parsedSegment, reader, segment.getType(), segment.getDataLength());
+        } else if (segment.getDataLength() > 0) {
+            reader.skip(segment.getDataLength());
+        }
+    }
+
     @Override
     public final NitfHeader getNitfHeader() {
         return nitfStorage.getNitfHeader();
@@ -176,6 +330,7 @@ public class SlottedParseStrategy implements ParseStrategy {
     private void initialiseTreCollectionParserIfRequired() throws NitfFormatException {
         if (treCollectionParser == null) {
             treCollectionParser = new TreCollectionParser();
+            treCollectionParser.setLazyDecoding(lazyTreDecoding);
         }
     }
 
@@ -184,8 +339,134 @@ public class SlottedParseStrategy implements ParseStrategy {
      */
     @Override
     public final void handleImageSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        addImageSegment(parseImageSubheader(reader, dataLength), reader, dataLength);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void handleGraphicSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        addGraphicSegment(parseGraphicSubheader(reader, dataLength), reader, dataLength);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void handleSymbolSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        addSymbolSegment(parseSymbolSubheader(reader, dataLength), reader, dataLength);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void handleLabelSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        addLabelSegment(parseLabelSubheader(reader), reader, dataLength);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void handleTextSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        addTextSegment(parseTextSubheader(reader), reader, dataLength);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void handleDataExtensionSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        addDataExtensionSegment(parseDataExtensionSubheader(reader, dataLength), reader, dataLength);
+    }
+
+    /**
+     * Prepare this strategy for subheaders to be parsed concurrently with parseSubheader().
+     *
+     * @throws NitfFormatException if the TRE parser could not be created.
+     */
+    final void prepareForConcurrentParsing() throws NitfFormatException {
+        initialiseTreCollectionParserIfRequired();
+    }
+
+    /**
+     * Parse a segment subheader, without reading the segment data or storing the segment.
+     * <p>
+     * This does not modify the state of this strategy, so it can be called from several threads at once (with a
+     * different reader for each thread), once prepareForConcurrentParsing() has been called.
+     *
+     * @param reader the reader, positioned at the start of the subheader.
+     * @param segmentType the type of segment.
+     * @param dataLength the length of the segment data.
+     * @return the parsed segment.
+     * @throws NitfFormatException if the subheader could not be parsed.
+     */
+    final CommonSegment parseSubheader(final NitfReader reader, final NitfSegmentIndex.SegmentType segmentType,
+            final long dataLength) throws NitfFormatException {
+        switch (segmentType) {
+            case IMAGE:
+                return parseImageSubheader(reader, dataLength);
+            case GRAPHIC:
+                return parseGraphicSubheader(reader, dataLength);
+            case SYMBOL:
+                return parseSymbolSubheader(reader, dataLength);
+            case LABEL:
+                return parseLabelSubheader(reader);
+            case TEXT:
+                return parseTextSubheader(reader);
+            case DATA_EXTENSION:
+                return parseDataExtensionSubheader(reader, dataLength);
+            default:
+                throw new NitfFormatException("Unhandled segment type: " + segmentType, reader.getCurrentOffset());
+        }
+    }
+
+    /**
+     * Read (or skip) the data for a segment returned by parseSubheader(), and store the segment.
+     * <p>
+     * Segments are stored in the order that this method is called.
+     *
+     * @param segment the parsed segment.
+     * @param reader the reader, positioned at the start of the segment data.
+     * @param segmentType the type of segment.
+     * @param dataLength the length of the segment data.
+     * @throws NitfFormatException if the segment data could not be read.
+     */
+    final void addSegment(final CommonSegment segment, final NitfReader reader,
+            final NitfSegmentIndex.SegmentType segmentType, final long dataLength) throws NitfFormatException {
+        switch (segmentType) {
+            case IMAGE:
+                addImageSegment((ImageSegment) segment, reader, dataLength);
+                break;
+            case GRAPHIC:
+                addGraphicSegment((GraphicSegment) segment, reader, dataLength);
+                break;
+            case SYMBOL:
+                addSymbolSegment((SymbolSegment) segment, reader, dataLength);
+                break;
+            case LABEL:
+                addLabelSegment((LabelSegment) segment, reader, dataLength);
+                break;
+            case TEXT:
+                addTextSegment((TextSegment) segment, reader, dataLength);
+                break;
+            case DATA_EXTENSION:
+                addDataExtensionSegment((DataExtensionSegment) segment, reader, dataLength);
+                break;
+            default:
+                throw new NitfFormatException("Unhandled segment type: " + segmentType, reader.getCurrentOffset());
+        }
+    }
+
+    private ImageSegment parseImageSubheader(final NitfReader reader, final long dataLength) throws NitfFormatException {
         ImageSegmentParser imageSegmentParser = new ImageSegmentParser();
-        ImageSegment imageSegment = imageSegmentParser.parse(reader, this, dataLength);
+        return imageSegmentParser.parse(reader, this, dataLength);
+    }
+
+    private void addImageSegment(final ImageSegment imageSegment, final NitfReader reader, final long dataLength)
+            throws NitfFormatException {
         if ((segmentsToExtract & IMAGE_DATA) == IMAGE_DATA) {
             if (dataLength > 0) {
                 ImageInputStream iis = imageHeapStrategy.handleSegment(reader, dataLength);
@@ -199,18 +480,16 @@ public class SlottedParseStrategy implements ParseStrategy {
         nitfStorage.getImageSegments().add(imageSegment);
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public final void handleGraphicSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+    private GraphicSegment parseGraphicSubheader(final NitfReader reader, final long dataLength) throws NitfFormatException {
         GraphicSegmentParser graphicSegmentParser = new GraphicSegmentParser();
-        GraphicSegment graphicSegment = graphicSegmentParser.parse(reader, this, dataLength);
+        return graphicSegmentParser.parse(reader, this, dataLength);
+    }
+
+    private void addGraphicSegment(final GraphicSegment graphicSegment, final NitfReader reader, final long dataLength)
+            throws NitfFormatException {
         if ((segmentsToExtract & GRAPHIC_DATA) == GRAPHIC_DATA) {
             if (dataLength > 0) {
-                // TODO: [IMG-77] this implementation probably should have a file-backed option
-                byte[] bytes = reader.readBytesRaw((int) dataLength);
-                graphicSegment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes)));
+                graphicSegment.setData(graphicHeapStrategy.handleSegment(reader, dataLength));
             }
         } else {
             if (dataLength > 0) {
@@ -220,17 +499,16 @@ public class SlottedParseStrategy implements ParseStrategy {
         nitfStorage.getGraphicSegments().add(graphicSegment);
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public final void handleSymbolSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+    private SymbolSegment parseSymbolSubheader(final NitfReader reader, final long dataLength) throws NitfFormatException {
         SymbolSegmentParser symbolSegmentParser = new SymbolSegmentParser();
-        SymbolSegment symbolSegment = symbolSegmentParser.parse(reader, this, dataLength);
+        return symbolSegmentParser.parse(reader, this, dataLength);
+    }
+
+    private void addSymbolSegment(final SymbolSegment symbolSegment, final NitfReader reader, final long dataLength)
+            throws NitfFormatException {
         if ((segmentsToExtract & SYMBOL_DATA) == SYMBOL_DATA) {
             if (dataLength > 0) {
-                byte[] bytes = reader.readBytesRaw((int) dataLength);
-                symbolSegment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes)));
+                symbolSegment.setData(symbolHeapStrategy.handleSegment(reader, dataLength));
             }
         } else {
             if (dataLength > 0) {
@@ -240,13 +518,13 @@ public class SlottedParseStrategy implements ParseStrategy {
         nitfStorage.getSymbolSegments().add(symbolSegment);
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public final void handleLabelSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+    private LabelSegment parseLabelSubheader(final NitfReader reader) throws NitfFormatException {
         LabelSegmentParser labelSegmentParser = new LabelSegmentParser();
-        LabelSegment labelSegment = labelSegmentParser.parse(reader, this);
+        return labelSegmentParser.parse(reader, this);
+    }
+
+    private void addLabelSegment(final LabelSegment labelSegment, final NitfReader reader, final long dataLength)
+            throws NitfFormatException {
         if ((segmentsToExtract & LABEL_DATA) == LABEL_DATA) {
             if (dataLength > 0) {
                 labelSegment.setData(reader.readBytes((int) dataLength));
@@ -259,13 +537,13 @@ public class SlottedParseStrategy implements ParseStrategy {
         nitfStorage.getLabelSegments().add(labelSegment);
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public final void handleTextSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+    private TextSegment parseTextSubheader(final NitfReader reader) throws NitfFormatException {
         TextSegmentParser textSegmentParser = new TextSegmentParser();
-        TextSegment textSegment = textSegmentParser.parse(reader, this);
+        return textSegmentParser.parse(reader, this);
+    }
+
+    private void addTextSegment(final TextSegment textSegment, final NitfReader reader, final long dataLength)
+            throws NitfFormatException {
         if ((segmentsToExtract & TEXT_DATA) == TEXT_DATA) {
             if (dataLength > 0) {
                 String text = reader.readBytes((int) dataLength);
@@ -281,14 +559,14 @@ public class SlottedParseStrategy implements ParseStrategy {
         nitfStorage.getTextSegments().add(textSegment);
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public final void handleDataExtensionSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
-
+    private DataExtensionSegment parseDataExtensionSubheader(final NitfReader reader, final long dataLength)
+            throws NitfFormatException {
         DataExtensionSegmentParser dataExtensionSegmentParser = new DataExtensionSegmentParser();
-        DataExtensionSegment dataExtensionSegment = dataExtensionSegmentParser.parse(reader, dataLength);
+        return dataExtensionSegmentParser.parse(reader, dataLength);
+    }
+
+    private void addDataExtensionSegment(final DataExtensionSegment dataExtensionSegment, final NitfReader reader,
+            final long dataLength) throws NitfFormatException {
         if ((segmentsToExtract & DES_DATA) == DES_DATA) {
             if (dataLength > 0) {
                 readDataExtensionSegmentData(dataExtensionSegment, reader, dataLength);
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import javax.xml.transform.Source;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.SegmentVisitor;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.ParseStrategy;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.dataextension.impl.DataExtensionSegmentParser;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+import org.codice.imaging.nitf.core.graphic.impl.GraphicSegmentParser;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.impl.ImageSegmentParser;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.label.impl.LabelSegmentParser;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.symbol.impl.SymbolSegmentParser;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.codice.imaging.nitf.core.text.impl.TextSegmentParser;
+import org.codice.imaging.nitf.core.tre.TreCollection;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.codice.imaging.nitf.core.tre.impl.TreCollectionParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * "Streaming" parse strategy, which passes each segment to a SegmentVisitor as it is parsed.
+ * <p>
+ * Unlike SlottedParseStrategy, the segments and their data are not stored. The segment data is passed to the visitor
+ * as a length-limited InputStream that reads directly from the NitfReader, and any data the visitor does not read is
+ * skipped. The memory used does not depend on the size of the file, so arbitrarily large files can be processed from
+ * non-seekable sources (e.g. using NitfInputStreamReader).
+ * <p>
+ * The DataSource for this strategy only holds the file header.
+ * <p>
+ * NitfParser.parse() logs parsing failures rather than throwing them, so a failure (including one reported by the
+ * visitor) stops the parse without an exception. Use isFailed() or getFailure() to check whether every segment was
+ * visited.
+ */
+public class StreamingParseStrategy implements ParseStrategy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamingParseStrategy.class);
+
+    private final SegmentVisitor segmentVisitor;
+
+    private final SlottedStorage headerStorage = new SlottedStorage();
+
+    private TreCollectionParser treCollectionParser = null;
+
+    private boolean fileHeaderVisited = false;
+
+    private NitfFormatException failure = null;
+
+    /**
+     * Constructor.
+     *
+     * @param visitor the visitor to pass the file header and segments to.
+     */
+    public StreamingParseStrategy(final SegmentVisitor visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException("StreamingParseStrategy(): argument 'visitor' may not be null.");
+        }
+        segmentVisitor = visitor;
+    }
+
+    @Override
+    public final void setFileHeader(final NitfHeader nitfHeader) {
+        headerStorage.setNitfHeader(nitfHeader);
+        fileHeaderVisited = false;
+        failure = null;
+    }
+
+    @Override
+    public final NitfHeader getNitfHeader() {
+        return headerStorage.getNitfHeader();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * For this strategy, the data source only contains the file header. The segments are not retained.
+     */
+    @Override
+    public final DataSource getDataSource() {
+        return headerStorage;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The file header is visited first, so it is visited even if the file has no segments. If parsing or visiting
+     * fails, the failure is also recorded for getFailure().
+     */
+    @Override
+    public final void parseSegments(final NitfReader reader, final NitfSegmentIndex segmentIndex) throws NitfFormatException {
+        try {
+            visitFileHeaderIfRequired(reader);
+            ParseStrategy.super.parseSegments(reader, segmentIndex);
+        } catch (NitfFormatException ex) {
+            failure = ex;
+            throw ex;
+        }
+    }
+
+    /**
+     * Check whether the parse stopped because of a failure.
+     *
+     * @return true if parsing or visiting failed, otherwise false.
+     */
+    public final boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Get the failure that stopped the parse.
+     * <p>
+     * A failure reported by the visitor (as an IOException) is converted to a NitfFormatException, with the original
+     * exception as the cause, unless the IOException was itself caused by a NitfFormatException.
+     *
+     * @return the failure, or null if the parse did not fail.
+     */
+    public final NitfFormatException getFailure() {
+        return failure;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final TreCollection parseTREs(final NitfReader reader, final int length, final TreSource source)
+            throws NitfFormatException {
+        initialiseTreCollectionParserIfRequired();
+        return treCollectionParser.parse(reader, length, source);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void registerAdditionalTREdescriptor(final Source source) throws NitfFormatException {
+        initialiseTreCollectionParserIfRequired();
+        treCollectionParser.registerAdditionalTREdescriptor(source);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void handleImageSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        ImageSegment imageSegment = new ImageSegmentParser().parse(reader, this, dataLength);
+        visitFileHeaderIfRequired(reader);
+        try (SegmentDataInputStream data = new SegmentDataInputStream(reader, dataLength)) {
+            segmentVisitor.visitImageSegment(imageSegment, data);
+        } catch (IOException ex) {
+            throw visitorFailure(ex, reader);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void handleGraphicSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        GraphicSegment graphicSegment = new GraphicSegmentParser().parse(reader, this, dataLength);
+        visitFileHeaderIfRequired(reader);
+        try (SegmentDataInputStream data = new SegmentDataInputStream(reader, dataLength)) {
+            segmentVisitor.visitGraphicSegment(graphicSegment, data);
+        } catch (IOException ex) {
+            throw visitorFailure(ex, reader);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void handleSymbolSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        SymbolSegment symbolSegment = new SymbolSegmentParser().parse(reader, this, dataLength);
+        visitFileHeaderIfRequired(reader);
+        try (SegmentDataInputStream data = new SegmentDataInputStream(reader, dataLength)) {
+            segmentVisitor.visitSymbolSegment(symbolSegment, data);
+        } catch (IOException ex) {
+            throw visitorFailure(ex, reader);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void handleLabelSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        LabelSegment labelSegment = new LabelSegmentParser().parse(reader, this);
+        visitFileHeaderIfRequired(reader);
+        try (SegmentDataInputStream data = new SegmentDataInputStream(reader, dataLength)) {
+            segmentVisitor.visitLabelSegment(labelSegment, data);
+        } catch (IOException ex) {
+            throw visitorFailure(ex, reader);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void handleTextSegment(final NitfReader reader, final long dataLength) throws NitfFormatException {
+        TextSegment textSegment = new TextSegmentParser().parse(reader, this);
+        visitFileHeaderIfRequired(reader);
+        try (SegmentDataInputStream data = new SegmentDataInputStream(reader, dataLength)) {
+            segmentVisitor.visitTextSegment(textSegment, data);
+        } catch (IOException ex) {
+            throw visitorFailure(ex, reader);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void handleDataExtensionSegment(final NitfReader reader, final long dataLength)
+            throws NitfFormatException {
+        DataExtensionSegment dataExtensionSegment = new DataExtensionSegmentParser().parse(reader, dataLength);
+        visitFileHeaderIfRequired(reader);
+        long streamLength = dataLength;
+        if (dataExtensionSegment.isTreOverflow() && (dataLength > 0)) {
+            dataExtensionSegment.mergeTREs(parseTREs(reader, (int) dataLength, TreSource.TreOverflowDES));
+            streamLength = 0;
+        }
+        try (SegmentDataInputStream data = new SegmentDataInputStream(reader, streamLength)) {
+            segmentVisitor.visitDataExtensionSegment(dataExtensionSegment, data);
+        } catch (IOException ex) {
+            throw visitorFailure(ex, reader);
+        }
+    }
+
+    private void initialiseTreCollectionParserIfRequired() throws NitfFormatException {
+        if (treCollectionParser == null) {
+            treCollectionParser = new TreCollectionParser();
+        }
+    }
+
+    private void visitFileHeaderIfRequired(final NitfReader reader) throws NitfFormatException {
+        if (!fileHeaderVisited) {
+            fileHeaderVisited = true;
+            try {
+                segmentVisitor.visitFileHeader(getNitfHeader());
+            } catch (IOException ex) {
+                throw visitorFailure(ex, reader);
+            }
+        }
+    }
+
+    private NitfFormatException visitorFailure(final IOException ex, final NitfReader reader) {
+        LOGGER.warn("Segment visitor failed", ex);
+        if (ex.getCause() instanceof NitfFormatException) {
+            return (NitfFormatException) ex.getCause();
+        }
+        NitfFormatException visitorException = new NitfFormatException("Segment visitor failed: " + ex.getMessage(),
+                reader.getCurrentOffset());
+        visitorException.initCause(ex);
+        return visitorException;
+    }
+
+    /**
+     * An InputStream over the next part of a NitfReader.
+     * <p>
+     * On close, any bytes that have not been read are skipped, so the reader is left positioned at the end of the
+     * segment data. The stream cannot be read after it is closed.
+     */
+    private static final class SegmentDataInputStream extends InputStream {
+        private static final int BYTE_MASK = 0xFF;
+        private final NitfReader reader;
+        private long remaining;
+        private boolean closed = false;
+
+        SegmentDataInputStream(final NitfReader nitfReader, final long length) {
+            reader = nitfReader;
+            remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] singleByte = new byte[1];
+            if (read(singleByte, 0, 1) < 0) {
+                return -1;
+            }
+            return singleByte[0] & BYTE_MASK;
+        }
+
+        @Override
+        public int read(final byte[] destination, final int offset, final int length) throws IOException {
+            checkNotClosed();
+            if (length == 0) {
+                return 0;
+            }
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = (int) Math.min(length, remaining);
+            try {
+                System.arraycopy(reader.readBytesRaw(count), 0, destination, offset, count);
+            } catch (NitfFormatException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+            remaining -= count;
+            return count;
+        }
+
+        @Override
+        public long skip(final long count) throws IOException {
+            checkNotClosed();
+            long skipped = Math.max(0, Math.min(count, remaining));
+            skipRemaining(skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            checkNotClosed();
+            return (int) Math.min(remaining, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                skipRemaining(remaining);
+                closed = true;
+            }
+        }
+
+        private void skipRemaining(final long count) throws IOException {
+            if (count > 0) {
+                try {
+                    reader.skip(count);
+                } catch (NitfFormatException ex) {
+                    throw new IOException(ex.getMessage(), ex);
+                }
+                remaining -= count;
+            }
+        }
+
+        private void checkNotClosed() throws IOException {
+            if (closed) {
+                throw new IOException("Segment data can only be read while the segment is being visited.");
+            }
+        }
+    }
+}
@@ -14,7 +14,10 @@
  */
 package org.codice.imaging.nitf.core.label.impl;
 
-final class LabelConstants {
+/**
+ * Shared label segment values.
+ */
+public final class LabelConstants {
     // label segment
     /**
      * Marker string for NITF label segment.
@@ -28,7 +31,7 @@ final class LabelConstants {
      * <p>
      * See MIL-STD-2500A Table XI and XII.
      */
-    protected static final int LID_LENGTH = 10;
+    public static final int LID_LENGTH = 10;
 
     /**
      * Length of the "Label Font Style" field in the NITF label segment.
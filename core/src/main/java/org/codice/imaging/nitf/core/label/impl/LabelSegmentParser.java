@@ -101,24 +101,24 @@ public class LabelSegmentParser extends AbstractSegmentParser {
     }
 
     private void readLCW() throws NitfFormatException {
-        segment.setLabelCellWidth(reader.readBytesAsInteger(LCW_LENGTH));
+        segment.setLabelCellWidth(reader.readAsciiInt(LCW_LENGTH));
     }
 
     private void readLCH() throws NitfFormatException {
-        segment.setLabelCellHeight(reader.readBytesAsInteger(LCH_LENGTH));
+        segment.setLabelCellHeight(reader.readAsciiInt(LCH_LENGTH));
     }
 
     private void readLDLVL() throws NitfFormatException {
-        segment.setLabelDisplayLevel(reader.readBytesAsInteger(LDLVL_LENGTH));
+        segment.setLabelDisplayLevel(reader.readAsciiInt(LDLVL_LENGTH));
     }
 
     private void readLALVL() throws NitfFormatException {
-        segment.setAttachmentLevel(reader.readBytesAsInteger(LALVL_LENGTH));
+        segment.setAttachmentLevel(reader.readAsciiInt(LALVL_LENGTH));
     }
 
     private void readLLOC() throws NitfFormatException {
-        segment.setLabelLocationRow(reader.readBytesAsInteger(LLOC_HALF_LENGTH));
-        segment.setLabelLocationColumn(reader.readBytesAsInteger(LLOC_HALF_LENGTH));
+        segment.setLabelLocationRow(reader.readAsciiInt(LLOC_HALF_LENGTH));
+        segment.setLabelLocationColumn(reader.readAsciiInt(LLOC_HALF_LENGTH));
     }
 
     private void readLTC() throws NitfFormatException {
@@ -130,11 +130,11 @@ public class LabelSegmentParser extends AbstractSegmentParser {
     }
 
     private void readLXSHDL() throws NitfFormatException {
-        labelExtendedSubheaderLength = reader.readBytesAsInteger(LXSHDL_LENGTH);
+        labelExtendedSubheaderLength = reader.readAsciiInt(LXSHDL_LENGTH);
     }
 
     private void readLXSOFL() throws NitfFormatException {
-        segment.setExtendedHeaderDataOverflow(reader.readBytesAsInteger(LXSOFL_LENGTH));
+        segment.setExtendedHeaderDataOverflow(reader.readAsciiInt(LXSOFL_LENGTH));
     }
 
     private void readLXSHD() throws NitfFormatException {
@@ -119,37 +119,37 @@ public class SymbolSegmentParser extends AbstractSegmentParser {
     }
 
     private void readNLIPS() throws NitfFormatException {
-        segment.setNumberOfLinesPerSymbol(reader.readBytesAsInteger(NLIPS_LENGTH));
+        segment.setNumberOfLinesPerSymbol(reader.readAsciiInt(NLIPS_LENGTH));
     }
 
     private void readNPIXPL() throws NitfFormatException {
-        segment.setNumberOfPixelsPerLine(reader.readBytesAsInteger(NPIXPL_LENGTH));
+        segment.setNumberOfPixelsPerLine(reader.readAsciiInt(NPIXPL_LENGTH));
     }
 
     private void readNWDTH() throws NitfFormatException {
-        segment.setLineWidth(reader.readBytesAsInteger(NWDTH_LENGTH));
+        segment.setLineWidth(reader.readAsciiInt(NWDTH_LENGTH));
     }
 
     private void readNBPP() throws NitfFormatException {
-        segment.setNumberOfBitsPerPixel(reader.readBytesAsInteger(SYNBPP_LENGTH));
+        segment.setNumberOfBitsPerPixel(reader.readAsciiInt(SYNBPP_LENGTH));
     }
 
     private void readSDLVL() throws NitfFormatException {
-        segment.setSymbolDisplayLevel(reader.readBytesAsInteger(SDLVL_LENGTH));
+        segment.setSymbolDisplayLevel(reader.readAsciiInt(SDLVL_LENGTH));
     }
 
     private void readSALVL() throws NitfFormatException {
-        segment.setAttachmentLevel(reader.readBytesAsInteger(SALVL_LENGTH));
+        segment.setAttachmentLevel(reader.readAsciiInt(SALVL_LENGTH));
     }
 
     private void readSLOC() throws NitfFormatException {
-        segment.setSymbolLocationRow(reader.readBytesAsInteger(SLOC_HALF_LENGTH));
-        segment.setSymbolLocationColumn(reader.readBytesAsInteger(SLOC_HALF_LENGTH));
+        segment.setSymbolLocationRow(reader.readAsciiInt(SLOC_HALF_LENGTH));
+        segment.setSymbolLocationColumn(reader.readAsciiInt(SLOC_HALF_LENGTH));
     }
 
     private void readSLOC2() throws NitfFormatException {
-        segment.setSymbolLocation2Row(reader.readBytesAsInteger(SLOC_HALF_LENGTH));
-        segment.setSymbolLocation2Column(reader.readBytesAsInteger(SLOC_HALF_LENGTH));
+        segment.setSymbolLocation2Row(reader.readAsciiInt(SLOC_HALF_LENGTH));
+        segment.setSymbolLocation2Column(reader.readAsciiInt(SLOC_HALF_LENGTH));
     }
 
     private void readSCOLOR() throws NitfFormatException {
@@ -162,19 +162,19 @@ public class SymbolSegmentParser extends AbstractSegmentParser {
     }
 
     private void readSROT() throws NitfFormatException {
-        segment.setSymbolRotation(reader.readBytesAsInteger(SROT_LENGTH));
+        segment.setSymbolRotation(reader.readAsciiInt(SROT_LENGTH));
     }
 
     private void readNELUT() throws NitfFormatException {
-        numberOfEntriesInLUT = reader.readBytesAsInteger(SYNELUT_LENGTH);
+        numberOfEntriesInLUT = reader.readAsciiInt(SYNELUT_LENGTH);
     }
 
     private void readSXSHDL() throws NitfFormatException {
-        symbolExtendedSubheaderLength = reader.readBytesAsInteger(SXSHDL_LENGTH);
+        symbolExtendedSubheaderLength = reader.readAsciiInt(SXSHDL_LENGTH);
     }
 
     private void readSXSOFL() throws NitfFormatException {
-        segment.setExtendedHeaderDataOverflow(reader.readBytesAsInteger(SXSOFL_LENGTH));
+        segment.setExtendedHeaderDataOverflow(reader.readAsciiInt(SXSOFL_LENGTH));
     }
 
     private void readSXSHD() throws NitfFormatException {
@@ -14,7 +14,10 @@
  */
 package org.codice.imaging.nitf.core.text.impl;
 
-final class TextConstants {
+/**
+ * Shared text segment values.
+ */
+public final class TextConstants {
 
     private TextConstants() {
     }
@@ -31,7 +34,7 @@ final class TextConstants {
      * <p>
      * See MIL-STD-2500C Table A-6.
      */
-    protected static final int TEXTID_LENGTH = 7;
+    public static final int TEXTID_LENGTH = 7;
 
     /**
      * Length of the "Text Attachment Level" field in the NITF text segment.
@@ -45,7 +48,7 @@ final class TextConstants {
      * <p>
      * See MIL-STD-2500A.
      */
-    protected static final int TEXTID20_LENGTH = 10;
+    public static final int TEXTID20_LENGTH = 10;
 
     /**
      * Length of the "Text Title" field in the NITF text segment.
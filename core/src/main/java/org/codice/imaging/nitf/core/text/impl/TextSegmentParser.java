@@ -101,7 +101,7 @@ public class TextSegmentParser extends AbstractSegmentParser {
 
     private void readTXTALVL() throws NitfFormatException {
         if ((reader.getFileType() == FileType.NITF_TWO_ONE) || (reader.getFileType() == FileType.NSIF_ONE_ZERO)) {
-            segment.setAttachmentLevel(reader.readBytesAsInteger(TXTALVL_LENGTH));
+            segment.setAttachmentLevel(reader.readAsciiInt(TXTALVL_LENGTH));
         }
     }
 
@@ -119,11 +119,11 @@ public class TextSegmentParser extends AbstractSegmentParser {
     }
 
     private void readTXSHDL() throws NitfFormatException {
-        textExtendedSubheaderLength = reader.readBytesAsInteger(TXSHDL_LENGTH);
+        textExtendedSubheaderLength = reader.readAsciiInt(TXSHDL_LENGTH);
     }
 
     private void readTXSOFL() throws NitfFormatException {
-        segment.setExtendedHeaderDataOverflow(reader.readBytesAsInteger(TXSOFL_LENGTH));
+        segment.setExtendedHeaderDataOverflow(reader.readAsciiInt(TXSOFL_LENGTH));
     }
 
     private void readTXSHD() throws NitfFormatException {
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.tre.TreGroup;
+
+/**
+    Base class for the compiled TRE parsers.
+    <p>
+    The subclasses are generated at build time (by the tregen module) from the built-in TRE
+    descriptors in nitf_spec.xml, and are looked up by tag with CompiledTres.get(). Each one
+    parses and serializes the same structure as the TreParser interpreter does for that
+    descriptor, but with the field reads, loops and conditions written out as straight-line
+    code.
+    <p>
+    The static methods are used by the generated code.
+*/
+abstract class CompiledTre {
+
+    private static final int DECIMAL_BASE = 10;
+
+    /**
+     * Parse the body of the TRE.
+     *
+     * @param reader the reader for the TRE body.
+     * @return the entries of the TRE.
+     * @throws NitfFormatException if the TRE body could not be parsed.
+     */
+    abstract TreGroupImpl parse(TreBodyReader reader) throws NitfFormatException;
+
+    /**
+     * Serialize the body of the TRE.
+     *
+     * @param group the entries of the TRE.
+     * @param output the buffer to write the serialized body to.
+     * @param params the parameter values written so far.
+     * @throws NitfFormatException if the entries do not match the TRE descriptor.
+     */
+    abstract void serialize(TreGroup group, TreWriteBuffer output, TreParams params) throws NitfFormatException;
+
+    static String value(final String parameterValue, final String name) throws NitfFormatException {
+        if (parameterValue == null) {
+            throw new NitfFormatException("No value for TRE parameter " + name);
+        }
+        return parameterValue;
+    }
+
+    static int intValue(final String parameterValue, final String name) throws NitfFormatException {
+        return Integer.parseInt(value(parameterValue, name), DECIMAL_BASE);
+    }
+
+    static int uintValue(final String parameterValue, final String name) throws NitfFormatException {
+        return TreParams.getUintValue(value(parameterValue, name));
+    }
+
+    static boolean isEmpty(final String parameterValue, final String name) throws NitfFormatException {
+        return value(parameterValue, name).trim().isEmpty();
+    }
+
+    static int divide(final int dividend, final int divisor) throws NitfFormatException {
+        checkDivisor(divisor);
+        return dividend / divisor;
+    }
+
+    static int remainder(final int dividend, final int divisor) throws NitfFormatException {
+        checkDivisor(divisor);
+        return dividend % divisor;
+    }
+
+    static int toInt(final boolean value) {
+        if (value) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private static void checkDivisor(final int divisor) throws NitfFormatException {
+        if (divisor == 0) {
+            throw new NitfFormatException("Division by zero in TRE expression");
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreEntry;
+import org.codice.imaging.nitf.core.tre.TreGroup;
+import org.codice.imaging.nitf.core.tre.TreSource;
+
+/**
+    Tagged registered extension (TRE) that is decoded on first use.
+    <p>
+    Only the tag and the TRE body are kept when the TRE is parsed. The body is decoded (with the
+    TreParser that read it) the first time anything other than the name or source is requested,
+    and the result is kept. Decoding is thread safe.
+    <p>
+    Until the TRE has been decoded, it is written out using the original body.
+*/
+final class LazyTre implements Tre {
+
+    private final String name;
+
+    private final TreSource source;
+
+    private final byte[] encodedData;
+
+    private final TreParser treParser;
+
+    private volatile Tre decodedTre = null;
+
+    /**
+     * Constructor.
+     *
+     * @param tag the TRE tag.
+     * @param treSource the source of the TRE.
+     * @param treBody the undecoded TRE body (excluding the tag and length).
+     * @param parser the parser to decode the body with.
+     */
+    LazyTre(final String tag, final TreSource treSource, final byte[] treBody, final TreParser parser) {
+        name = tag;
+        source = treSource;
+        encodedData = treBody;
+        treParser = parser;
+    }
+
+    /**
+     * Check whether the TRE has been decoded.
+     *
+     * @return true if the TRE has been decoded (and so may have been modified), otherwise false.
+     */
+    boolean isDecoded() {
+        return decodedTre != null;
+    }
+
+    /**
+     * Get the original TRE body.
+     *
+     * @return the TRE body, as read from the file.
+     */
+    byte[] getEncodedData() {
+        return encodedData;
+    }
+
+    private Tre getDecodedTre() {
+        Tre tre = decodedTre;
+        if (tre == null) {
+            synchronized (this) {
+                tre = decodedTre;
+                if (tre == null) {
+                    tre = treParser.decodeTre(encodedData, name, source);
+                    decodedTre = tre;
+                }
+            }
+        }
+        return tre;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public TreSource getSource() {
+        return source;
+    }
+
+    @Override
+    public void setPrefix(final String mdPrefix) {
+        getDecodedTre().setPrefix(mdPrefix);
+    }
+
+    @Override
+    public String getPrefix() {
+        return getDecodedTre().getPrefix();
+    }
+
+    @Override
+    public void setRawData(final byte[] treDataRaw) {
+        getDecodedTre().setRawData(treDataRaw);
+    }
+
+    @Override
+    public byte[] getRawData() {
+        return getDecodedTre().getRawData();
+    }
+
+    @Override
+    public List<TreEntry> getEntries() {
+        return getDecodedTre().getEntries();
+    }
+
+    @Override
+    public void add(final TreEntry entry) {
+        getDecodedTre().add(entry);
+    }
+
+    @Override
+    public void addAll(final TreGroup group) {
+        getDecodedTre().addAll(group);
+    }
+
+    @Override
+    public void setEntries(final List<TreEntry> treEntries) {
+        getDecodedTre().setEntries(treEntries);
+    }
+
+    @Override
+    public TreEntry getEntry(final String tagName) throws NitfFormatException {
+        return getDecodedTre().getEntry(tagName);
+    }
+
+    @Override
+    public TreGroup getGroup(final String tagName, final int index) throws NitfFormatException {
+        return getDecodedTre().getGroup(tagName, index);
+    }
+
+    @Override
+    public String getFieldValue(final String tagName) throws NitfFormatException {
+        return getDecodedTre().getFieldValue(tagName);
+    }
+
+    @Override
+    public int getIntValue(final String tagName) throws NitfFormatException {
+        return getDecodedTre().getIntValue(tagName);
+    }
+
+    @Override
+    public long getLongValue(final String tagName) throws NitfFormatException {
+        return getDecodedTre().getLongValue(tagName);
+    }
+
+    @Override
+    public BigInteger getBigIntegerValue(final String tagName) throws NitfFormatException {
+        return getDecodedTre().getBigIntegerValue(tagName);
+    }
+
+    @Override
+    public double getDoubleValue(final String tagName) throws NitfFormatException {
+        return getDecodedTre().getDoubleValue(tagName);
+    }
+
+    @Override
+    public void dump() {
+        getDecodedTre().dump();
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+    List of named items (TRE entries or TREs), with an index by name.
+    <p>
+    This is an ordinary list, so callers can still change it directly (for example, through
+    TreGroup.getEntries()). The index is built on the first lookup by name, and is rebuilt on
+    the next lookup after the list has been changed. Short lists are not indexed, because a
+    scan is cheaper than building the index.
+    <p>
+    The items are expected to keep their names. A caller that renames an item has to check the
+    result of a lookup (see TreGroupImpl.getEntry()).
+*/
+final class NameIndexedList<T> extends ArrayList<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MIN_INDEXED_SIZE = 8;
+
+    private final transient Function<T, String> nameFunction;
+
+    private transient volatile NameIndex<T> nameIndex = null;
+
+    // ArrayList.set() does not count as a modification, so it is counted separately.
+    private transient int replacementCount = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param getName the function that gets the name of an item.
+     */
+    NameIndexedList(final Function<T, String> getName) {
+        nameFunction = getName;
+    }
+
+    @Override
+    public T set(final int index, final T element) {
+        replacementCount++;
+        return super.set(index, element);
+    }
+
+    /**
+     * Get the items with the specified name.
+     *
+     * @param name the name to look up.
+     * @return the items with the name, in list order. The list is empty if there are no items with the name, and
+     * must not be modified.
+     */
+    List<T> getAllWithName(final String name) {
+        if (size() < MIN_INDEXED_SIZE) {
+            List<T> items = new ArrayList<>();
+            for (T item : this) {
+                if (Objects.equals(name, nameFunction.apply(item))) {
+                    items.add(item);
+                }
+            }
+            return items;
+        }
+        List<T> items = getIndex().itemsByName.get(name);
+        if (items == null) {
+            return Collections.emptyList();
+        }
+        return items;
+    }
+
+    /**
+     * Get the first item with the specified name.
+     *
+     * @param name the name to look up.
+     * @return the first item with the name, or null if there is no item with the name.
+     */
+    T getFirstWithName(final String name) {
+        if (size() < MIN_INDEXED_SIZE) {
+            for (T item : this) {
+                if (Objects.equals(name, nameFunction.apply(item))) {
+                    return item;
+                }
+            }
+            return null;
+        }
+        List<T> items = getIndex().itemsByName.get(name);
+        if (items == null) {
+            return null;
+        }
+        return items.get(0);
+    }
+
+    /**
+     * Get the names of the items.
+     *
+     * @return the unique names, in order of first use.
+     */
+    Set<String> getNames() {
+        return getIndex().itemsByName.keySet();
+    }
+
+    private NameIndex<T> getIndex() {
+        NameIndex<T> index = nameIndex;
+        if ((index == null) || (index.modificationCount != modCount) || (index.replacementCount != replacementCount)) {
+            index = new NameIndex<>(this);
+            nameIndex = index;
+        }
+        return index;
+    }
+
+    private static final class NameIndex<T> {
+
+        private final int modificationCount;
+
+        private final int replacementCount;
+
+        private final Map<String, List<T>> itemsByName = new LinkedHashMap<>();
+
+        private NameIndex(final NameIndexedList<T> list) {
+            modificationCount = list.modCount;
+            replacementCount = list.replacementCount;
+            for (T item : list) {
+                itemsByName.computeIfAbsent(list.nameFunction.apply(item), k -> new ArrayList<>()).add(item);
+            }
+        }
+    }
+}
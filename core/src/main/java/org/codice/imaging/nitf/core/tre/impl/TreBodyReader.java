@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import java.nio.charset.StandardCharsets;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+
+/**
+    Reader for the fields of one TRE body.
+    <p>
+    The TRE body is read from the file once, into a byte array. Fields are then read from that
+    array by offset. Entries that are not used as parameters refer to their range of the array,
+    and their value is only converted to a String when it is first requested (see
+    TreEntryImpl.getFieldValue()). The array is shared by all of the entries of the TRE, so it
+    must not be changed after it is passed to this reader.
+*/
+final class TreBodyReader {
+
+    private final byte[] data;
+
+    private int position = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param treBody the TRE body (excluding the tag and length).
+     */
+    TreBodyReader(final byte[] treBody) {
+        data = treBody;
+    }
+
+    /**
+     * Read a field as an entry that refers to the TRE body.
+     *
+     * @param name the field name.
+     * @param length the field length, in bytes.
+     * @param dataType the field data type.
+     * @return the entry.
+     * @throws NitfFormatException if the field extends beyond the end of the TRE body.
+     */
+    TreEntryImpl readEntry(final String name, final int length, final String dataType) throws NitfFormatException {
+        checkAvailable(length);
+        TreEntryImpl entry = new TreEntryImpl(name, data, position, length, dataType);
+        position += length;
+        return entry;
+    }
+
+    /**
+     * Read a loop of fixed width numeric fields as columns.
+     * <p>
+     * If the loop cannot be held as columns, nothing is read, and the loop should be read as groups instead.
+     *
+     * @param name the loop name.
+     * @param rows the number of repetitions of the loop.
+     * @param layout the column layout for the loop, or null if the loop cannot be held as columns.
+     * @return the loop entry, or null if the loop was not read.
+     */
+    TreEntryImpl readColumns(final String name, final int rows, final TreColumnLayout layout) {
+        if ((layout == null) || (rows <= 0) || ((long) rows * layout.getRecordLength() > data.length - position)) {
+            return null;
+        }
+        TreColumnsImpl columns = TreColumnsImpl.decode(layout, data, position, rows);
+        if (columns == null) {
+            return null;
+        }
+        position += rows * layout.getRecordLength();
+        return new TreEntryImpl(name, columns);
+    }
+
+    /**
+     * Read a field as a String.
+     *
+     * @param length the field length, in bytes.
+     * @return the field value.
+     * @throws NitfFormatException if the field extends beyond the end of the TRE body.
+     */
+    String readString(final int length) throws NitfFormatException {
+        checkAvailable(length);
+        String value = new String(data, position, length, StandardCharsets.ISO_8859_1);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Skip over a field.
+     *
+     * @param length the field length, in bytes.
+     */
+    void skip(final int length) {
+        position += length;
+    }
+
+    private void checkAvailable(final int length) throws NitfFormatException {
+        if ((length < 0) || (length > data.length - position)) {
+            throw new NitfFormatException(String.format("Cannot read %d bytes at offset %d of %d byte TRE body", length, position,
+                    data.length));
+        }
+    }
+}
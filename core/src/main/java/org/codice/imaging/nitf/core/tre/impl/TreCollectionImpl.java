@@ -25,7 +25,7 @@ import org.codice.imaging.nitf.core.tre.TreSource;
     Collection of TREs.
 */
 public class TreCollectionImpl implements TreCollection {
-    private final List<Tre> treCollectionEntries = new ArrayList<>();
+    private final NameIndexedList<Tre> treCollectionEntries = new NameIndexedList<>(Tre::getName);
 
     /**
      *
@@ -71,14 +71,7 @@ public class TreCollectionImpl implements TreCollection {
      */
     @Override
     public final List<String> getUniqueNamesOfTRE() {
-        List<String> treNames = new ArrayList<String>();
-        for (Tre tre : treCollectionEntries) {
-            String treName = tre.getName();
-            if (!treNames.contains(treName)) {
-                treNames.add(treName);
-            }
-        }
-        return treNames;
+        return new ArrayList<>(treCollectionEntries.getNames());
     }
 
     /**
@@ -87,14 +80,7 @@ public class TreCollectionImpl implements TreCollection {
      */
     @Override
     public final List<Tre> getTREsWithName(final String nameToMatch) {
-        List<Tre> tres = new ArrayList<Tre>();
-        for (Tre tre : treCollectionEntries) {
-            String treName = tre.getName();
-            if (treName.equals(nameToMatch)) {
-                tres.add(tre);
-            }
-        }
-        return tres;
+        return new ArrayList<>(treCollectionEntries.getAllWithName(nameToMatch));
     }
 
     /**
@@ -32,6 +32,8 @@ public class TreCollectionParser {
 
     private final TreParser treParser;
 
+    private boolean lazyDecoding = false;
+
     /**
      * default constructor.
      * @throws NitfFormatException when the TreParser constructor does.
@@ -55,9 +57,14 @@ public class TreCollectionParser {
         while (bytesRead < treLength) {
             String tag = reader.readBytes(TAG_LENGTH);
             bytesRead += TAG_LENGTH;
-            int fieldLength = reader.readBytesAsInteger(TAGLEN_LENGTH);
+            int fieldLength = reader.readAsciiInt(TAGLEN_LENGTH);
             bytesRead += TAGLEN_LENGTH;
-            Tre tre = treParser.parseOneTre(reader, tag, fieldLength, sourceSegment);
+            Tre tre;
+            if (lazyDecoding) {
+                tre = treParser.parseOneTreLazily(reader, tag, fieldLength, sourceSegment);
+            } else {
+                tre = treParser.parseOneTre(reader, tag, fieldLength, sourceSegment);
+            }
 
             if (tre != null) {
                 treCollection.add(tre);
@@ -68,6 +75,45 @@ public class TreCollectionParser {
         return treCollection;
     }
 
+    /**
+     * Set whether TREs are decoded when they are parsed, or when they are first used.
+     * <p>
+     * With lazy decoding, each TRE only holds its undecoded body until something other than the name or source is
+     * requested. TREs that are never looked at are written out unchanged. The default is to decode each TRE as it
+     * is parsed.
+     *
+     * @param lazy true to decode each TRE on first use, false to decode each TRE when it is parsed.
+     */
+    public final void setLazyDecoding(final boolean lazy) {
+        lazyDecoding = lazy;
+    }
+
+    /**
+     * Check whether TREs are decoded on first use.
+     *
+     * @return true if TREs are decoded on first use, false if they are decoded when they are parsed.
+     */
+    public final boolean isLazyDecoding() {
+        return lazyDecoding;
+    }
+
+    /**
+     * Check whether a TRE has been decoded.
+     * <p>
+     * A TRE parsed with lazy decoding is decoded the first time something other than its name or source is
+     * requested. Any other TRE is decoded when it is parsed. A TRE that cannot be decoded (for example, because
+     * there is no descriptor for the tag) only holds the TRE body as raw data, and is never decoded.
+     *
+     * @param tre the TRE to check.
+     * @return true if the TRE has been decoded into entries, false if it only holds the TRE body.
+     */
+    public static boolean isDecoded(final Tre tre) {
+        if (tre instanceof LazyTre) {
+            return ((LazyTre) tre).isDecoded();
+        }
+        return tre.getRawData() == null;
+    }
+
     /**
      * Registers TreImpl descriptors for the supplied source.
      * @param source - The source for the TreImpl descriptor.
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codice.imaging.nitf.core.schema.FieldType;
+import org.codice.imaging.nitf.core.tre.TreEntry;
+
+/**
+    The columns of a loop whose fields are all fixed width numbers.
+    <p>
+    Each field is held as an int, long or double column, depending on its type and width: integer
+    fields of up to 9 characters and UINT fields of up to 3 bytes are int columns, integer fields
+    of up to 18 characters and UINT fields of up to 8 bytes are long columns, and real fields are
+    double columns. A loop with any other field cannot be held as columns.
+    <p>
+    The layout for a loop descriptor with variable length (length_var) fields does not have the
+    field lengths. Those are filled in with withLengths() each time the loop is read.
+    <p>
+    A layout is not modified after it is created, so it can be shared between threads.
+*/
+final class TreColumnLayout {
+
+    /**
+     * The storage type of a column.
+     */
+    enum ColumnType {
+        INT, LONG, DOUBLE
+    }
+
+    private static final int MAX_INT_DIGITS = 9;
+
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final int MAX_INT_UINT_BYTES = 3;
+
+    private static final int MAX_LONG_UINT_BYTES = Long.BYTES;
+
+    private final String[] names;
+
+    private final String[] dataTypes;
+
+    private final int[] lengths;
+
+    private final ColumnType[] columnTypes;
+
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+
+    private int recordLength = 0;
+
+    private boolean fixedLengths = true;
+
+    private TreColumnLayout(final int columnCount) {
+        names = new String[columnCount];
+        dataTypes = new String[columnCount];
+        lengths = new int[columnCount];
+        columnTypes = new ColumnType[columnCount];
+    }
+
+    /**
+     * Create the layout for the fields of a loop descriptor.
+     *
+     * @param fields the field descriptors, in order.
+     * @return the layout, or null if the fields cannot be held as columns.
+     */
+    static TreColumnLayout create(final FieldType... fields) {
+        if (fields.length == 0) {
+            return null;
+        }
+        TreColumnLayout layout = new TreColumnLayout(fields.length);
+        for (int i = 0; i < fields.length; ++i) {
+            FieldType field = fields[i];
+            String name = getEntryName(field);
+            if (name == null) {
+                return null;
+            }
+            if (field.getLength() != null) {
+                if (!layout.setColumn(i, name, field.getType(), field.getLength().intValue())) {
+                    return null;
+                }
+            } else if ((field.getLengthVar() != null) && isNumericType(field.getType())) {
+                layout.names[i] = name;
+                layout.dataTypes[i] = field.getType();
+                layout.fixedLengths = false;
+            } else {
+                return null;
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Create a layout with the same fields, but with the given lengths.
+     *
+     * @param fieldLengths the length of each field, in order.
+     * @return the layout, or null if the fields cannot be held as columns with those lengths.
+     */
+    TreColumnLayout withLengths(final int... fieldLengths) {
+        TreColumnLayout layout = new TreColumnLayout(names.length);
+        for (int i = 0; i < names.length; ++i) {
+            if (!layout.setColumn(i, names[i], dataTypes[i], fieldLengths[i])) {
+                return null;
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Create the layout for the entries of one group of a loop.
+     *
+     * @param entries the entries of the group, in order.
+     * @return the layout, or null if the entries cannot be held as columns.
+     */
+    static TreColumnLayout create(final List<TreEntry> entries) {
+        if (entries.isEmpty()) {
+            return null;
+        }
+        TreColumnLayout layout = new TreColumnLayout(entries.size());
+        for (int i = 0; i < entries.size(); ++i) {
+            TreEntry entry = entries.get(i);
+            String value = entry.getFieldValue();
+            if ((value == null) || !layout.setColumn(i, entry.getName(), entry.getDataType(), value.length())) {
+                return null;
+            }
+        }
+        return layout;
+    }
+
+    private static String getEntryName(final FieldType field) {
+        // The same naming as TreParser uses for the entries. A field without a name is skipped by the parser.
+        String name = field.getName();
+        if ((name != null) && name.isEmpty()) {
+            name = field.getLongname();
+            if ((name != null) && name.isEmpty()) {
+                name = "no name";
+            }
+        }
+        return name;
+    }
+
+    private boolean setColumn(final int column, final String name, final String dataType, final int length) {
+        ColumnType columnType = getColumnType(dataType, length);
+        if ((name == null) || (columnType == null)) {
+            return false;
+        }
+        names[column] = name;
+        dataTypes[column] = dataType;
+        lengths[column] = length;
+        columnTypes[column] = columnType;
+        columnIndexes.putIfAbsent(name, column);
+        recordLength += length;
+        return true;
+    }
+
+    private static boolean isNumericType(final String dataType) {
+        return "integer".equals(dataType) || "UINT".equals(dataType) || "real".equals(dataType);
+    }
+
+    private static ColumnType getColumnType(final String dataType, final int length) {
+        if (length <= 0) {
+            return null;
+        }
+        if ("integer".equals(dataType)) {
+            if (length <= MAX_INT_DIGITS) {
+                return ColumnType.INT;
+            } else if (length <= MAX_LONG_DIGITS) {
+                return ColumnType.LONG;
+            }
+        } else if ("UINT".equals(dataType)) {
+            if (length <= MAX_INT_UINT_BYTES) {
+                return ColumnType.INT;
+            } else if (length <= MAX_LONG_UINT_BYTES) {
+                return ColumnType.LONG;
+            }
+        } else if ("real".equals(dataType)) {
+            return ColumnType.DOUBLE;
+        }
+        return null;
+    }
+
+    /**
+     * Check whether the field lengths are known.
+     *
+     * @return true if every field has a fixed length, false if the lengths have to be given with withLengths().
+     */
+    boolean hasFixedLengths() {
+        return fixedLengths;
+    }
+
+    /**
+     * Get the number of columns.
+     *
+     * @return the number of fields in the loop.
+     */
+    int getColumnCount() {
+        return names.length;
+    }
+
+    /**
+     * Get the column names.
+     *
+     * @return the entry names, in order.
+     */
+    List<String> getNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * Get the index of a column.
+     *
+     * @param name the entry name.
+     * @return the index of the first column with the name, or -1 if there is no such column.
+     */
+    int getIndex(final String name) {
+        Integer index = columnIndexes.get(name);
+        if (index == null) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Get the entry name for a column.
+     *
+     * @param column the column index.
+     * @return the entry name.
+     */
+    String getName(final int column) {
+        return names[column];
+    }
+
+    /**
+     * Get the data type for a column.
+     *
+     * @param column the column index.
+     * @return the entry data type ("integer", "UINT" or "real").
+     */
+    String getDataType(final int column) {
+        return dataTypes[column];
+    }
+
+    /**
+     * Get the field length for a column.
+     *
+     * @param column the column index.
+     * @return the field length, in bytes.
+     */
+    int getLength(final int column) {
+        return lengths[column];
+    }
+
+    /**
+     * Get the storage type for a column.
+     *
+     * @param column the column index.
+     * @return the storage type.
+     */
+    ColumnType getColumnType(final int column) {
+        return columnTypes[column];
+    }
+
+    /**
+     * Get the length of one repetition of the loop.
+     *
+     * @return the total length of the fields, in bytes.
+     */
+    int getRecordLength() {
+        return recordLength;
+    }
+}
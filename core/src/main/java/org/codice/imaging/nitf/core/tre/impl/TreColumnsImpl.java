@@ -0,0 +1,459 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.tre.TreColumns;
+import org.codice.imaging.nitf.core.tre.TreEntry;
+import org.codice.imaging.nitf.core.tre.TreGroup;
+
+/**
+    The values of a loop of fixed width numeric fields, as int, long and double arrays.
+    <p>
+    When a loop is read from a TRE body, all of the values are decoded in one pass, and the TRE
+    body is kept so that the groups can be created (with exactly the values that were read) if
+    they are asked for. A loop that has any value that is not a valid number is read as groups
+    instead.
+*/
+final class TreColumnsImpl implements TreColumns {
+
+    private static final int DECIMAL_BASE = 10;
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private static final int MAX_EXACT_POWER = 22;
+
+    private static final int MAX_EXPONENT_DIGITS = 3;
+
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; ++i) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * DECIMAL_BASE;
+        }
+    }
+
+    private final TreColumnLayout layout;
+
+    private final int rowCount;
+
+    private final int[][] intColumns;
+
+    private final long[][] longColumns;
+
+    private final double[][] doubleColumns;
+
+    // The loop as read from the TRE body, or null if the columns were built from groups.
+    private byte[] encodedData = null;
+
+    private int encodedOffset = 0;
+
+    private TreColumnsImpl(final TreColumnLayout columnLayout, final int rows) {
+        layout = columnLayout;
+        rowCount = rows;
+        int columnCount = columnLayout.getColumnCount();
+        intColumns = new int[columnCount][];
+        longColumns = new long[columnCount][];
+        doubleColumns = new double[columnCount][];
+        for (int column = 0; column < columnCount; ++column) {
+            switch (columnLayout.getColumnType(column)) {
+                case INT:
+                    intColumns[column] = new int[rows];
+                    break;
+                case LONG:
+                    longColumns[column] = new long[rows];
+                    break;
+                default:
+                    doubleColumns[column] = new double[rows];
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Decode a loop from a TRE body.
+     *
+     * @param layout the layout of one repetition of the loop.
+     * @param treBody the TRE body, which must not be changed after this call.
+     * @param offset the offset of the first repetition in the TRE body.
+     * @param rows the number of repetitions.
+     * @return the columns, or null if any value is not a valid number.
+     */
+    static TreColumnsImpl decode(final TreColumnLayout layout, final byte[] treBody, final int offset, final int rows) {
+        TreColumnsImpl columns = new TreColumnsImpl(layout, rows);
+        try {
+            int position = offset;
+            for (int row = 0; row < rows; ++row) {
+                for (int column = 0; column < layout.getColumnCount(); ++column) {
+                    columns.setValue(column, row, treBody, position, layout.getLength(column));
+                    position += layout.getLength(column);
+                }
+            }
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        columns.encodedData = treBody;
+        columns.encodedOffset = offset;
+        return columns;
+    }
+
+    /**
+     * Build the columns for the groups of a loop.
+     *
+     * @param groups the groups of the loop entry.
+     * @return the columns, or null if the groups do not all have the same numeric fields.
+     */
+    static TreColumnsImpl fromGroups(final List<TreGroup> groups) {
+        if (groups.isEmpty()) {
+            return null;
+        }
+        TreColumnLayout layout = TreColumnLayout.create(groups.get(0).getEntries());
+        if (layout == null) {
+            return null;
+        }
+        TreColumnsImpl columns = new TreColumnsImpl(layout, groups.size());
+        try {
+            for (int row = 0; row < groups.size(); ++row) {
+                List<TreEntry> entries = groups.get(row).getEntries();
+                if (entries.size() != layout.getColumnCount()) {
+                    return null;
+                }
+                for (int column = 0; column < layout.getColumnCount(); ++column) {
+                    TreEntry entry = entries.get(column);
+                    String value = entry.getFieldValue();
+                    if ((value == null) || !layout.getName(column).equals(entry.getName())
+                            || !Objects.equals(layout.getDataType(column), entry.getDataType())) {
+                        return null;
+                    }
+                    byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+                    columns.setValue(column, row, bytes, 0, bytes.length);
+                }
+            }
+        } catch (NumberFormatException | ArithmeticException ex) {
+            return null;
+        }
+        return columns;
+    }
+
+    private void setValue(final int column, final int row, final byte[] data, final int offset, final int length) {
+        switch (layout.getColumnType(column)) {
+            case INT:
+                intColumns[column][row] = Math.toIntExact(parseInteger(layout.getDataType(column), data, offset, length));
+                break;
+            case LONG:
+                longColumns[column][row] = parseInteger(layout.getDataType(column), data, offset, length);
+                break;
+            default:
+                doubleColumns[column][row] = parseReal(data, offset, length);
+                break;
+        }
+    }
+
+    private static long parseInteger(final String dataType, final byte[] data, final int offset, final int length) {
+        if ("UINT".equals(dataType)) {
+            if (length > Long.BYTES) {
+                throw new NumberFormatException("UINT value too long for a long column");
+            }
+            long value = 0;
+            for (int i = offset; i < offset + length; ++i) {
+                value = (value << Byte.SIZE) + (data[i] & BYTE_MASK);
+            }
+            if (value < 0) {
+                throw new NumberFormatException("UINT value out of range for a long column");
+            }
+            return value;
+        }
+        return parseDecimal(data, offset, length);
+    }
+
+    // Accepts the same values as Long.parseLong(), which is what the TreGroup accessors use.
+    private static long parseDecimal(final byte[] data, final int offset, final int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if ((i < end) && ((data[i] == '+') || (data[i] == '-'))) {
+            negative = (data[i] == '-');
+            i++;
+        }
+        if ((i == end) || (end - i > MAX_LONG_DIGITS)) {
+            throw new NumberFormatException("Not a valid integer value");
+        }
+        long value = 0;
+        for (; i < end; ++i) {
+            int digit = data[i] - '0';
+            if ((digit < 0) || (digit >= DECIMAL_BASE)) {
+                throw new NumberFormatException("Not a valid integer value");
+            }
+            value = value * DECIMAL_BASE + digit;
+        }
+        if (negative) {
+            return -value;
+        }
+        return value;
+    }
+
+    // Plain decimal values with up to 15 significant digits are converted directly (which is exact, because the
+    // digits and the power of ten are both exact doubles). Anything else is left to Double.parseDouble(), which is
+    // what the TreGroup accessors use.
+    private static double parseReal(final byte[] data, final int offset, final int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if ((i < end) && ((data[i] == '+') || (data[i] == '-'))) {
+            negative = (data[i] == '-');
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int scale = 0;
+        boolean hasDigits = false;
+        boolean inFraction = false;
+        for (; i < end; ++i) {
+            if ((data[i] == '.') && !inFraction) {
+                inFraction = true;
+                continue;
+            }
+            int digit = data[i] - '0';
+            if ((digit < 0) || (digit >= DECIMAL_BASE)) {
+                break;
+            }
+            hasDigits = true;
+            if ((mantissa != 0) || (digit != 0)) {
+                significantDigits++;
+            }
+            mantissa = mantissa * DECIMAL_BASE + digit;
+            if (inFraction) {
+                scale--;
+            }
+        }
+        int exponent = 0;
+        if ((i < end) && ((data[i] == 'E') || (data[i] == 'e'))) {
+            exponent = parseExponent(data, i + 1, end);
+            i = end;
+        }
+        int power = scale + exponent;
+        if ((i != end) || !hasDigits || (significantDigits > MAX_EXACT_DIGITS) || (Math.abs(power) > MAX_EXACT_POWER)) {
+            return Double.parseDouble(new String(data, offset, length, StandardCharsets.ISO_8859_1));
+        }
+        double value = mantissa;
+        if (power < 0) {
+            value /= POWERS_OF_TEN[-power];
+        } else {
+            value *= POWERS_OF_TEN[power];
+        }
+        if (negative) {
+            return -value;
+        }
+        return value;
+    }
+
+    private static int parseExponent(final byte[] data, final int start, final int end) {
+        int i = start;
+        boolean negative = false;
+        if ((i < end) && ((data[i] == '+') || (data[i] == '-'))) {
+            negative = (data[i] == '-');
+            i++;
+        }
+        if ((i == end) || (end - i > MAX_EXPONENT_DIGITS)) {
+            // Out of the fast path range; Double.parseDouble() decides.
+            return Integer.MAX_VALUE;
+        }
+        int exponent = 0;
+        for (; i < end; ++i) {
+            int digit = data[i] - '0';
+            if ((digit < 0) || (digit >= DECIMAL_BASE)) {
+                return Integer.MAX_VALUE;
+            }
+            exponent = exponent * DECIMAL_BASE + digit;
+        }
+        if (negative) {
+            return -exponent;
+        }
+        return exponent;
+    }
+
+    /**
+     * Create the groups for a loop that was read from a TRE body.
+     *
+     * @return one group for each row, with entries that refer to the TRE body.
+     */
+    List<TreGroup> createGroups() {
+        List<TreGroup> groups = new ArrayList<>(rowCount);
+        int position = encodedOffset;
+        for (int row = 0; row < rowCount; ++row) {
+            TreGroupImpl group = new TreGroupImpl();
+            for (int column = 0; column < layout.getColumnCount(); ++column) {
+                int length = layout.getLength(column);
+                group.add(new TreEntryImpl(layout.getName(column), encodedData, position, length, layout.getDataType(column)));
+                position += length;
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    /**
+     * Write out a loop that was read from a TRE body, exactly as it was read.
+     *
+     * @param output the buffer to write to.
+     */
+    void writeEncodedData(final TreWriteBuffer output) {
+        output.write(encodedData, encodedOffset, rowCount * layout.getRecordLength());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getColumnNames() {
+        return layout.getNames();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[] getIntColumn(final String columnName) throws NitfFormatException {
+        int column = getColumn(columnName);
+        if (intColumns[column] != null) {
+            return intColumns[column].clone();
+        }
+        int[] values = new int[rowCount];
+        for (int row = 0; row < rowCount; ++row) {
+            values[row] = getIntValue(columnName, column, row);
+        }
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getLongColumn(final String columnName) throws NitfFormatException {
+        int column = getColumn(columnName);
+        if (longColumns[column] != null) {
+            return longColumns[column].clone();
+        }
+        long[] values = new long[rowCount];
+        for (int row = 0; row < rowCount; ++row) {
+            values[row] = getLongValue(columnName, column, row);
+        }
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getDoubleColumn(final String columnName) throws NitfFormatException {
+        int column = getColumn(columnName);
+        if (doubleColumns[column] != null) {
+            return doubleColumns[column].clone();
+        }
+        double[] values = new double[rowCount];
+        for (int row = 0; row < rowCount; ++row) {
+            values[row] = getDoubleValue(column, row);
+        }
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getIntValue(final String columnName, final int row) throws NitfFormatException {
+        return getIntValue(columnName, getColumn(columnName), checkRow(columnName, row));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLongValue(final String columnName, final int row) throws NitfFormatException {
+        return getLongValue(columnName, getColumn(columnName), checkRow(columnName, row));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getDoubleValue(final String columnName, final int row) throws NitfFormatException {
+        return getDoubleValue(getColumn(columnName), checkRow(columnName, row));
+    }
+
+    private int getIntValue(final String columnName, final int column, final int row) throws NitfFormatException {
+        if (intColumns[column] != null) {
+            return intColumns[column][row];
+        }
+        long value = getLongValue(columnName, column, row);
+        if ((value < Integer.MIN_VALUE) || (value > Integer.MAX_VALUE)) {
+            throw new NitfFormatException(String.format("Failed to look up %s as an integer value", columnName));
+        }
+        return (int) value;
+    }
+
+    private long getLongValue(final String columnName, final int column, final int row) throws NitfFormatException {
+        if (intColumns[column] != null) {
+            return intColumns[column][row];
+        }
+        if (longColumns[column] != null) {
+            return longColumns[column][row];
+        }
+        throw new NitfFormatException(String.format("Failed to look up %s as an integer value", columnName));
+    }
+
+    private double getDoubleValue(final int column, final int row) {
+        if (intColumns[column] != null) {
+            return intColumns[column][row];
+        }
+        if (longColumns[column] != null) {
+            return longColumns[column][row];
+        }
+        return doubleColumns[column][row];
+    }
+
+    private int getColumn(final String columnName) throws NitfFormatException {
+        int column = layout.getIndex(columnName);
+        if (column < 0) {
+            throw new NitfFormatException(String.format("Failed to look up %s", columnName));
+        }
+        return column;
+    }
+
+    private int checkRow(final String columnName, final int row) throws NitfFormatException {
+        if ((row < 0) || (row >= rowCount)) {
+            throw new NitfFormatException(String.format("Failed to look up row %d of %s", row, columnName));
+        }
+        return row;
+    }
+}
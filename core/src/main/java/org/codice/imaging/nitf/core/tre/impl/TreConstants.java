@@ -18,7 +18,4 @@ final class TreConstants {
      * See MIL-STD-2500C Table A-7.
      */
     static final int TAGLEN_LENGTH = 5;
-
-    static final String AND_CONDITION = " AND ";
-    static final String UNSUPPORTED_IFTYPE_FORMAT_MESSAGE = "Unsupported format for iftype:";
 }
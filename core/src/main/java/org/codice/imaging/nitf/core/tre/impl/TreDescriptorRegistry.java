@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.schema.TreType;
+import org.codice.imaging.nitf.core.schema.Tres;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+    Immutable set of TRE descriptors, indexed by TRE tag.
+    <p>
+    The built-in descriptors (from nitf_spec.xml) are loaded once per process, and shared by all
+    parsers and writers. Adding descriptors does not modify a registry: it returns a new registry
+    that layers the additional descriptors on top of the existing one. A registry can therefore
+    be used from any number of threads without locking.
+    <p>
+    If more than one descriptor has the same tag, the one that was registered first is used. The descriptors themselves must not be modified.
+*/
+public final class TreDescriptorRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TreDescriptorRegistry.class);
+
+    private static final String TRE_XML_LOAD_ERROR_MESSAGE = "Exception while loading TRE XML";
+
+    private static final String BUILT_IN_DESCRIPTORS = "/nitf_spec.xml";
+
+    private static final AtomicReference<TreDescriptorRegistry> GLOBAL_REGISTRY = new AtomicReference<>();
+
+    private static JAXBContext jaxbContext = null;
+
+    private final TreDescriptorRegistry parent;
+
+    private final Map<String, TreType> descriptors;
+
+    // TreType does not override equals(), so this is keyed by identity.
+    private final Map<TreType, TreLayout> layouts = new ConcurrentHashMap<>();
+
+    private TreDescriptorRegistry(final TreDescriptorRegistry parentRegistry, final List<TreType> additionalDescriptors) {
+        parent = parentRegistry;
+        Map<String, TreType> layer = new HashMap<>();
+        for (TreType treType : additionalDescriptors) {
+            layer.putIfAbsent(treType.getName(), treType);
+        }
+        descriptors = Collections.unmodifiableMap(layer);
+    }
+
+    /**
+     * Get the registry shared by the whole process.
+     * <p>
+     * This holds the built-in descriptors, and any descriptors added with addGlobalDescriptors(). The built-in
+     * descriptors are loaded on the first call.
+     *
+     * @return the global registry.
+     * @throws NitfFormatException if the built-in descriptors could not be loaded.
+     */
+    public static TreDescriptorRegistry getGlobal() throws NitfFormatException {
+        TreDescriptorRegistry registry = GLOBAL_REGISTRY.get();
+        if (registry == null) {
+            synchronized (GLOBAL_REGISTRY) {
+                registry = GLOBAL_REGISTRY.get();
+                if (registry == null) {
+                    registry = new TreDescriptorRegistry(null, loadBuiltInDescriptors());
+                    GLOBAL_REGISTRY.set(registry);
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Add descriptors to the registry shared by the whole process.
+     * <p>
+     * Parsers and writers that are created after this call will use the additional descriptors. Existing parsers
+     * are not affected.
+     *
+     * @param source the Source to read the TRE descriptors from.
+     * @throws NitfFormatException if parsing fails (typically invalid descriptors).
+     */
+    public static void addGlobalDescriptors(final Source source) throws NitfFormatException {
+        List<TreType> additionalDescriptors = unmarshal(source).getTre();
+        TreDescriptorRegistry current;
+        do {
+            current = getGlobal();
+        } while (!GLOBAL_REGISTRY.compareAndSet(current, new TreDescriptorRegistry(current, additionalDescriptors)));
+    }
+
+    /**
+     * Create a registry with additional descriptors.
+     * <p>
+     * This registry is not modified.
+     *
+     * @param source the Source to read the TRE descriptors from.
+     * @return a new registry containing the descriptors in this registry, and the additional descriptors.
+     * @throws NitfFormatException if parsing fails (typically invalid descriptors).
+     */
+    public TreDescriptorRegistry withAdditionalDescriptors(final Source source) throws NitfFormatException {
+        return new TreDescriptorRegistry(this, unmarshal(source).getTre());
+    }
+
+    /**
+     * Get the descriptor for a TRE.
+     *
+     * @param tag the TRE tag. Trailing spaces are ignored.
+     * @return the descriptor, or null if there is no descriptor for the tag.
+     */
+    public TreType getDescriptor(final String tag) {
+        return findDescriptor(tag.trim());
+    }
+
+    /**
+     * Check whether a descriptor is one of the built-in descriptors from nitf_spec.xml.
+     *
+     * @param treType the descriptor, as returned by getDescriptor().
+     * @return true if the descriptor is built-in, otherwise false.
+     */
+    boolean isBuiltIn(final TreType treType) {
+        TreDescriptorRegistry builtIn = this;
+        while (builtIn.parent != null) {
+            builtIn = builtIn.parent;
+        }
+        return builtIn.descriptors.get(treType.getName()) == treType;
+    }
+
+    /**
+     * Get the parameter layout and compiled expressions for a descriptor.
+     * <p>
+     * The layout is built on first use, and kept by the registry that holds the descriptor, so each descriptor is
+     * only compiled once however many registries are layered on top.
+     *
+     * @param treType the descriptor, as returned by getDescriptor().
+     * @return the layout for the descriptor.
+     */
+    TreLayout getLayout(final TreType treType) {
+        TreDescriptorRegistry owner = this;
+        while ((owner.parent != null) && (owner.descriptors.get(treType.getName()) != treType)) {
+            owner = owner.parent;
+        }
+        return owner.layouts.computeIfAbsent(treType, TreLayout::new);
+    }
+
+    private TreType findDescriptor(final String name) {
+        // The parent is checked first, so the first registered descriptor for a tag is used.
+        if (parent != null) {
+            TreType treType = parent.findDescriptor(name);
+            if (treType != null) {
+                return treType;
+            }
+        }
+        return descriptors.get(name);
+    }
+
+    private static List<TreType> loadBuiltInDescriptors() throws NitfFormatException {
+        try (InputStream is = TreDescriptorRegistry.class.getResourceAsStream(BUILT_IN_DESCRIPTORS)) {
+            return unmarshal(new StreamSource(is)).getTre();
+        } catch (IOException ex) {
+            LOG.warn("IOException parsing TRE XML specification", ex);
+            throw new NitfFormatException(TRE_XML_LOAD_ERROR_MESSAGE + ex.getMessage());
+        }
+    }
+
+    private static Tres unmarshal(final Source source) throws NitfFormatException {
+        try {
+            return (Tres) getJaxbContext().createUnmarshaller().unmarshal(source);
+        } catch (JAXBException ex) {
+            LOG.warn("JAXBException parsing TRE XML specification", ex);
+            throw new NitfFormatException(TRE_XML_LOAD_ERROR_MESSAGE + ex.getMessage());
+        }
+    }
+
+    private static synchronized JAXBContext getJaxbContext() throws JAXBException {
+        // JAXBContext is thread safe (unlike the Unmarshallers it creates), and expensive to create.
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(Tres.class);
+        }
+        return jaxbContext;
+    }
+}
@@ -14,9 +14,11 @@
  */
 package org.codice.imaging.nitf.core.tre.impl;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.codice.imaging.nitf.core.tre.TreColumns;
 import org.codice.imaging.nitf.core.tre.TreEntry;
 import org.codice.imaging.nitf.core.tre.TreGroup;
 import org.slf4j.Logger;
@@ -34,7 +36,13 @@ public class TreEntryImpl implements TreEntry {
     private String name = null;
     private String value = null;
     private String dataType = null;
+    // The undecoded value, as a range of the TRE body. Only used while value is null.
+    private byte[] encodedData = null;
+    private int encodedOffset = 0;
+    private int encodedLength = 0;
     private List<TreGroup> groups = null;
+    // A loop that was read as columns. Only used until the groups are created.
+    private volatile TreColumnsImpl columns = null;
 
     /**
      * Construct a TRE entry with a specific field name, field value and parent.
@@ -51,6 +59,38 @@ public class TreEntryImpl implements TreEntry {
         dataType = fieldType;
     }
 
+    /**
+     * Construct a TRE entry whose value is a range of the TRE body.
+     * <p>
+     * The value is converted to a String when it is first requested.
+     *
+     * @param fieldName the field name of the new TRE entry.
+     * @param treBody the TRE body, which must not be changed after this call.
+     * @param offset the offset of the field value in the TRE body.
+     * @param length the length of the field value.
+     * @param fieldType the data type ("string", "real", "UINT", "integer") for the data
+     */
+    TreEntryImpl(final String fieldName, final byte[] treBody, final int offset, final int length, final String fieldType) {
+        name = fieldName;
+        encodedData = treBody;
+        encodedOffset = offset;
+        encodedLength = length;
+        dataType = fieldType;
+    }
+
+    /**
+     * Construct a repeating TRE entry that holds its values as columns.
+     * <p>
+     * The groups are created from the columns when they are first requested.
+     *
+     * @param fieldName the field name of the new TRE entry.
+     * @param loopColumns the values of the loop, which must have been read from a TRE body.
+     */
+    TreEntryImpl(final String fieldName, final TreColumnsImpl loopColumns) {
+        name = fieldName;
+        columns = loopColumns;
+    }
+
     /**
         Construct a TRE entry with a specific field name and parent.
         <p>
@@ -88,6 +128,7 @@ public class TreEntryImpl implements TreEntry {
     */
     public final void setFieldValue(final String fieldValue) {
         value = fieldValue;
+        encodedData = null;
     }
 
     /**
@@ -96,6 +137,10 @@ public class TreEntryImpl implements TreEntry {
      */
     @Override
     public final String getFieldValue() {
+        if ((value == null) && (encodedData != null)) {
+            // String is immutable, so a race here just decodes the same value twice.
+            value = new String(encodedData, encodedOffset, encodedLength, StandardCharsets.ISO_8859_1);
+        }
         return value;
     }
 
@@ -103,7 +148,7 @@ public class TreEntryImpl implements TreEntry {
         Initialise the groups for this TRE entry.
     */
     public final void initGroups() {
-        if (groups == null) {
+        if (getGroups() == null) {
             groups = new ArrayList<TreGroup>();
         }
     }
@@ -114,16 +159,52 @@ public class TreEntryImpl implements TreEntry {
      */
     @Override
     public final List<TreGroup> getGroups() {
+        if (columns != null) {
+            createGroupsFromColumns();
+        }
         return groups;
     }
 
+    private synchronized void createGroupsFromColumns() {
+        if (columns != null) {
+            groups = columns.createGroups();
+            // From here on the groups hold the values, and may be changed.
+            columns = null;
+        }
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public final TreColumns getColumns() {
+        TreColumnsImpl loopColumns = columns;
+        if (loopColumns != null) {
+            return loopColumns;
+        }
+        if (groups == null) {
+            return null;
+        }
+        return TreColumnsImpl.fromGroups(groups);
+    }
+
+    /**
+     * Get the columns of a loop entry whose groups have not been created.
+     *
+     * @return the columns as read from the TRE body, or null if this entry is not held as columns.
+     */
+    final TreColumnsImpl getEncodedColumns() {
+        return columns;
+    }
+
     /**
      *
      * {@inheritDoc}
      */
     @Override
     public final boolean isSimpleField() {
-        return (name != null) && (value != null);
+        return (name != null) && (getFieldValue() != null);
     }
 
     /**
@@ -132,6 +213,10 @@ public class TreEntryImpl implements TreEntry {
      */
     @Override
     public final boolean hasGroups() {
+        TreColumnsImpl loopColumns = columns;
+        if (loopColumns != null) {
+            return loopColumns.getRowCount() > 0;
+        }
         return ((groups != null) && (groups.size() > 0));
     }
 
@@ -141,7 +226,7 @@ public class TreEntryImpl implements TreEntry {
         @param group the group to add.
     */
     public final void addGroup(final TreGroup group) {
-        groups.add(group);
+        getGroups().add(group);
     }
 
     /**
@@ -159,9 +244,9 @@ public class TreEntryImpl implements TreEntry {
     @Override
     public final void dump() {
         LOG.debug("\tName: " + name);
-        if (value != null) {
+        if (getFieldValue() != null) {
             LOG.debug("\tValue: " + value);
-        } else if (groups != null) {
+        } else if (getGroups() != null) {
             for (TreGroup group : groups) {
                 LOG.debug("\t--New Group--");
                 group.dump();
@@ -175,7 +260,7 @@ public class TreEntryImpl implements TreEntry {
      */
     @Override
     public final String toString() {
-        if (value != null) {
+        if (getFieldValue() != null) {
             return name + ": " + value;
         } else {
             return name;
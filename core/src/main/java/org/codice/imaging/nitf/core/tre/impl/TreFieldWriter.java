@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.schema.FieldType;
+import org.codice.imaging.nitf.core.tre.TreEntry;
+import org.codice.imaging.nitf.core.tre.TreGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+    Writer for one field of a TRE descriptor.
+    <p>
+    Everything that only depends on the descriptor (the entry name, length, type, padding and
+    value range) is worked out once, when the writer is created. Each TreLayout has a writer for
+    every field in its descriptor, and the generated parsers (see CompiledTre) have their own.
+    <p>
+    A value that already has the field length is written as it is. Shorter values are padded
+    according to the field type: integers with leading zeros, strings with trailing spaces, real
+    values in the field format (with as many decimal places as fit the field, up to six), and UINT
+    values with leading zero bytes.
+*/
+final class TreFieldWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TreFieldWriter.class);
+
+    private static final int NO_LENGTH = -1;
+
+    private static final int DEFAULT_REAL_DECIMALS = 6;
+
+    private enum FieldKind {
+        INTEGER, STRING, REAL, UINT, UNKNOWN, UNSUPPORTED
+    }
+
+    private final String name;
+
+    private final String entryName;
+
+    private final int length;
+
+    private final String lengthVar;
+
+    private final String type;
+
+    private final FieldKind kind;
+
+    private final String format;
+
+    private final byte[] padding;
+
+    private final String minval;
+
+    private final String maxval;
+
+    private final Integer minIntValue;
+
+    private final Integer maxIntValue;
+
+    private final Double minRealValue;
+
+    private final Double maxRealValue;
+
+    /**
+     * Create the writer for a field.
+     *
+     * @param field the field descriptor.
+     */
+    TreFieldWriter(final FieldType field) {
+        name = field.getName();
+        String fieldEntryName = field.getName();
+        if ("".equals(fieldEntryName)) {
+            fieldEntryName = field.getLongname();
+        }
+        entryName = fieldEntryName;
+        if (field.getLength() == null) {
+            length = NO_LENGTH;
+        } else {
+            length = field.getLength().intValue();
+        }
+        lengthVar = field.getLengthVar();
+        type = field.getType();
+        kind = getKind(type);
+        format = field.getFormat();
+        padding = getPadding(field.getFixedValue(), length);
+        minval = field.getMinval();
+        maxval = field.getMaxval();
+        minIntValue = parseInteger(minval);
+        maxIntValue = parseInteger(maxval);
+        minRealValue = parseReal(minval);
+        maxRealValue = parseReal(maxval);
+    }
+
+    private static FieldKind getKind(final String fieldType) {
+        if (fieldType == null) {
+            return FieldKind.UNKNOWN;
+        }
+        switch (fieldType) {
+            case "integer":
+                return FieldKind.INTEGER;
+            case "string":
+                return FieldKind.STRING;
+            case "real":
+                return FieldKind.REAL;
+            case "UINT":
+                return FieldKind.UINT;
+            default:
+                return FieldKind.UNSUPPORTED;
+        }
+    }
+
+    private static byte[] getPadding(final String fixedValue, final int fieldLength) {
+        if ((fixedValue != null) && (!fixedValue.isEmpty())) {
+            return fixedValue.getBytes(StandardCharsets.ISO_8859_1);
+        }
+        if (fieldLength == NO_LENGTH) {
+            return null;
+        }
+        byte[] spaces = new byte[fieldLength];
+        Arrays.fill(spaces, (byte) ' ');
+        return spaces;
+    }
+
+    // A range limit that cannot be parsed is reported when it is used, as it was before the writers were precomputed.
+    private static Integer parseInteger(final String limit) {
+        try {
+            return Integer.valueOf(limit);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static Double parseReal(final String limit) {
+        if (limit == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(limit);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Write the field.
+     *
+     * @param group the group containing the field entry.
+     * @param params the parameter values written so far, which this field is added to.
+     * @param output the buffer to write to.
+     * @throws NitfFormatException if the field entry does not match the descriptor.
+     */
+    void write(final TreGroup group, final TreParams params, final TreWriteBuffer output) throws NitfFormatException {
+        if (entryName == null) {
+            if (padding == null) {
+                throw new NitfFormatException("Cannot serialize pad field without a length");
+            }
+            output.write(padding);
+            return;
+        }
+        TreEntry entry = group.getEntry(entryName);
+        String value = entry.getFieldValue();
+        if (value == null) {
+            throw new NitfFormatException("Cannot serialize null entry for: " + name);
+        }
+        if (lengthVar != null) {
+            int specifiedLength = params.getIntValue(lengthVar);
+            if (specifiedLength != value.length()) {
+                throw logged(String.format("Actual length for %s did not match specified length of %d", name, specifiedLength));
+            }
+        }
+        if ((length == NO_LENGTH) || (length == value.length())) {
+            params.addParameter(entryName, value, entry.getDataType());
+            output.write(value);
+            return;
+        }
+        switch (kind) {
+            case INTEGER:
+                writeInteger(value, entry, params, output);
+                break;
+            case STRING:
+                if (value.length() > length) {
+                    throw new NitfFormatException("Incorrect length serialising out: " + name);
+                }
+                addPaddedParameter(params, entry, value);
+                output.writePadded(value, length);
+                break;
+            case REAL:
+                writeReal(value, entry, params, output);
+                break;
+            case UINT:
+                params.addParameter(entryName, value, entry.getDataType());
+                output.writeZeroBytes(length - value.length());
+                output.write(value);
+                break;
+            case UNKNOWN:
+                throw logged("Cannot pad unknown data type for " + name);
+            default:
+                throw new UnsupportedOperationException("Unsupported field type for serialisation:" + type);
+        }
+    }
+
+    private void writeInteger(final String value, final TreEntry entry, final TreParams params, final TreWriteBuffer output)
+            throws NitfFormatException {
+        if (value.length() > length) {
+            throw new NitfFormatException("Incorrect length serialising out: " + name);
+        }
+        String parseError = "Could not parse " + name + " value " + value + " as a number.";
+        int intValue;
+        try {
+            intValue = Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw logged(parseError);
+        }
+        if (minval != null) {
+            if (minIntValue == null) {
+                throw logged(parseError);
+            }
+            if (intValue < minIntValue) {
+                throw new NitfFormatException(String.format("Minimum value for %s is %d, got %d", name, minIntValue, intValue));
+            }
+        }
+        if (maxval != null) {
+            if (maxIntValue == null) {
+                throw logged(parseError);
+            }
+            if (intValue > maxIntValue) {
+                throw new NitfFormatException(String.format("Maximum value for %s is %d, got %d", name, maxIntValue, intValue));
+            }
+        }
+        int start = output.size();
+        output.writeZeroPadded(intValue, length);
+        if (params.getLayout().getSlot(entryName) != TreLayout.NO_SLOT) {
+            params.addParameter(entryName, new String(output.toByteArray(start), StandardCharsets.ISO_8859_1), entry.getDataType());
+        }
+    }
+
+    private void writeReal(final String value, final TreEntry entry, final TreParams params, final TreWriteBuffer output)
+            throws NitfFormatException {
+        String parseError = "Could not parse " + name + " value " + value + " as a floating point number.";
+        double realValue;
+        try {
+            realValue = Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw logged(parseError);
+        }
+        if (minval != null) {
+            if (minRealValue == null) {
+                throw logged(parseError);
+            }
+            if (realValue < minRealValue) {
+                throw new NitfFormatException(String.format("Minimum value for %s is %f, got %f", name, minRealValue, realValue));
+            }
+        }
+        if (maxval != null) {
+            if (maxRealValue == null) {
+                throw logged(parseError);
+            }
+            if (realValue > maxRealValue) {
+                throw new NitfFormatException(String.format("Maximum value for %s is %f, got %f", name, maxRealValue, realValue));
+            }
+        }
+        String paddedValue = formatReal(realValue, value.trim().startsWith("+"));
+        params.addParameter(entryName, paddedValue, entry.getDataType());
+        output.write(paddedValue);
+    }
+
+    private String formatReal(final double value, final boolean explicitSign) throws NitfFormatException {
+        if ("UE".equals(format)) {
+            if (Double.isNaN(value)) {
+                return String.format("%1$-" + length + "s", "NaN");
+            }
+            return String.format("%0" + length + "." + (length - "X.".length() - "E+ZZ".length()) + "E", value);
+        }
+        // Decimal places are dropped if the value would not fit the field.
+        String flags = "";
+        if (explicitSign) {
+            flags = "+";
+        }
+        for (int decimals = DEFAULT_REAL_DECIMALS; decimals >= 0; --decimals) {
+            String formattedValue = String.format("%" + flags + length + "." + decimals + "f", value);
+            if (formattedValue.length() <= length) {
+                return formattedValue;
+            }
+        }
+        throw new NitfFormatException("Incorrect length serialising out: " + name);
+    }
+
+    private void addPaddedParameter(final TreParams params, final TreEntry entry, final String value) {
+        if (params.getLayout().getSlot(entryName) != TreLayout.NO_SLOT) {
+            params.addParameter(entryName, String.format("%1$-" + length + "s", value), entry.getDataType());
+        }
+    }
+
+    private static NitfFormatException logged(final String message) {
+        LOG.error(message);
+        return new NitfFormatException(message);
+    }
+}
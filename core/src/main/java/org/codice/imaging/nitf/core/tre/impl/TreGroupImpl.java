@@ -16,7 +16,6 @@ package org.codice.imaging.nitf.core.tre.impl;
 
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.tre.TreEntry;
@@ -31,8 +30,10 @@ class TreGroupImpl implements TreGroup {
 
     private static final Logger LOG = LoggerFactory.getLogger(TreGroupImpl.class);
     private static final int DECIMAL_BASE = 10;
+    // Any decimal value of up to this length (including the sign) fits in a long.
+    private static final int MAX_LONG_LENGTH = 18;
 
-    private List<TreEntry> entries = new ArrayList<>();
+    private NameIndexedList<TreEntry> entries = new NameIndexedList<>(TreEntry::getName);
 
     /**
      * {@inheritDoc}
@@ -67,7 +68,7 @@ class TreGroupImpl implements TreGroup {
      */
     @Override
     public final void setEntries(final List<TreEntry> treEntries) {
-        entries = new ArrayList<>();
+        entries = new NameIndexedList<>(TreEntry::getName);
         entries.addAll(treEntries);
     }
 
@@ -76,6 +77,11 @@ class TreGroupImpl implements TreGroup {
      */
     @Override
     public final TreEntry getEntry(final String tagName) throws NitfFormatException {
+        TreEntry indexedEntry = entries.getFirstWithName(tagName);
+        if ((indexedEntry != null) && indexedEntry.getName().equals(tagName)) {
+            return indexedEntry;
+        }
+        // Not found, or the entry has been renamed since the index was built.
         for (TreEntry entry : entries) {
             if (entry.getName().equals(tagName)) {
                 return entry;
@@ -98,7 +104,7 @@ class TreGroupImpl implements TreGroup {
      */
     @Override
     public final int getIntValue(final String tagName) throws NitfFormatException {
-        return getBigIntegerValue(tagName).intValueExact();
+        return Math.toIntExact(getLongValue(tagName));
     }
 
     /**
@@ -106,7 +112,12 @@ class TreGroupImpl implements TreGroup {
      */
     @Override
     public final long getLongValue(final String tagName) throws NitfFormatException {
-        return getBigIntegerValue(tagName).longValueExact();
+        TreEntry entry = getNumericEntry(tagName);
+        String value = entry.getFieldValue();
+        if (!"UINT".equals(entry.getDataType()) && (value.length() <= MAX_LONG_LENGTH)) {
+            return Long.parseLong(value, DECIMAL_BASE);
+        }
+        return toBigInteger(entry).longValueExact();
     }
 
     /**
@@ -114,18 +125,25 @@ class TreGroupImpl implements TreGroup {
      */
     @Override
     public final BigInteger getBigIntegerValue(final String tagName) throws NitfFormatException {
+        return toBigInteger(getNumericEntry(tagName));
+    }
+
+    private TreEntry getNumericEntry(final String tagName) throws NitfFormatException {
         try {
-            TreEntry entry = getEntry(tagName);
-            if ("UINT".equals(entry.getDataType())) {
-                return new BigInteger(1, entry.getFieldValue().getBytes(StandardCharsets.ISO_8859_1));
-            } else {
-                return new BigInteger(entry.getFieldValue(), DECIMAL_BASE);
-            }
+            return getEntry(tagName);
         } catch (NitfFormatException ex) {
             throw new NitfFormatException(String.format("Failed to look up %s as a numerical value", tagName));
         }
     }
 
+    private static BigInteger toBigInteger(final TreEntry entry) {
+        if ("UINT".equals(entry.getDataType())) {
+            return new BigInteger(1, entry.getFieldValue().getBytes(StandardCharsets.ISO_8859_1));
+        } else {
+            return new BigInteger(entry.getFieldValue(), DECIMAL_BASE);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.schema.FieldType;
+import org.codice.imaging.nitf.core.schema.IfType;
+import org.codice.imaging.nitf.core.schema.LoopType;
+import org.codice.imaging.nitf.core.schema.TreType;
+import org.codice.imaging.nitf.core.tre.TreExpression;
+
+/**
+    The parameters and compiled expressions for one TRE descriptor.
+    <p>
+    Only the fields that are used in an expression (as a loop counter, a field length, or in a
+    condition or formula) are kept as parameters while a TRE is parsed or written. Each of those
+    parameters has a slot in the TreParams, so the expressions look values up by index instead of
+    by name.
+    <p>
+    The layout also has the column layouts for loops that can be held as columns, and a writer for
+    each field, with the padding and value range worked out when the layout is built.
+    <p>
+    A layout is built once for each descriptor (see TreDescriptorRegistry.getLayout()), and is not
+    modified after that, so it can be shared between threads.
+*/
+final class TreLayout {
+
+    /**
+     * The slot for a name that is not used as a parameter.
+     */
+    static final int NO_SLOT = -1;
+
+    private final Map<String, Integer> slotsByName = new HashMap<>();
+
+    private final List<String> names = new ArrayList<>();
+
+    private final Map<Object, TreExpression> expressions = new IdentityHashMap<>();
+
+    private final Map<FieldType, Integer> fieldSlots = new IdentityHashMap<>();
+
+    private final Map<LoopType, TreColumnLayout> columnLayouts = new IdentityHashMap<>();
+
+    private final Map<FieldType, TreFieldWriter> fieldWriters = new IdentityHashMap<>();
+
+    /**
+     * Build the layout for a descriptor.
+     *
+     * @param treType the TRE descriptor.
+     */
+    TreLayout(final TreType treType) {
+        compileExpressions(treType.getFieldOrLoopOrIf());
+        assignFieldSlots(treType.getFieldOrLoopOrIf());
+        assignColumnLayouts(treType.getFieldOrLoopOrIf());
+    }
+
+    private void compileExpressions(final List<Object> fieldOrLoopOrIf) {
+        for (Object fieldLoopIf : fieldOrLoopOrIf) {
+            if (fieldLoopIf instanceof FieldType) {
+                FieldType field = (FieldType) fieldLoopIf;
+                if ((field.getLength() == null) && (field.getLengthVar() != null)) {
+                    expressions.put(field, parameter(field.getLengthVar()));
+                }
+            } else if (fieldLoopIf instanceof LoopType) {
+                LoopType loop = (LoopType) fieldLoopIf;
+                if (loop.getIterations() == null) {
+                    if (loop.getCounter() != null) {
+                        expressions.put(loop, parameter(loop.getCounter()));
+                    } else if (loop.getFormula() != null) {
+                        expressions.put(loop, compile(loop.getFormula()));
+                    }
+                }
+                compileExpressions(loop.getFieldOrLoopOrIf());
+            } else if (fieldLoopIf instanceof IfType) {
+                IfType ifType = (IfType) fieldLoopIf;
+                expressions.put(ifType, compile(ifType.getCond()));
+                compileExpressions(ifType.getFieldOrLoopOrIf());
+            }
+        }
+    }
+
+    private void assignFieldSlots(final List<Object> fieldOrLoopOrIf) {
+        for (Object fieldLoopIf : fieldOrLoopOrIf) {
+            if (fieldLoopIf instanceof FieldType) {
+                FieldType field = (FieldType) fieldLoopIf;
+                Integer slot = slotsByName.get(getParameterName(field));
+                if (slot != null) {
+                    fieldSlots.put(field, slot);
+                }
+                fieldWriters.put(field, new TreFieldWriter(field));
+            } else if (fieldLoopIf instanceof LoopType) {
+                assignFieldSlots(((LoopType) fieldLoopIf).getFieldOrLoopOrIf());
+            } else if (fieldLoopIf instanceof IfType) {
+                assignFieldSlots(((IfType) fieldLoopIf).getFieldOrLoopOrIf());
+            }
+        }
+    }
+
+    private void assignColumnLayouts(final List<Object> fieldOrLoopOrIf) {
+        for (Object fieldLoopIf : fieldOrLoopOrIf) {
+            if (fieldLoopIf instanceof LoopType) {
+                LoopType loop = (LoopType) fieldLoopIf;
+                TreColumnLayout columnLayout = createColumnLayout(loop);
+                if (columnLayout != null) {
+                    columnLayouts.put(loop, columnLayout);
+                }
+                assignColumnLayouts(loop.getFieldOrLoopOrIf());
+            } else if (fieldLoopIf instanceof IfType) {
+                assignColumnLayouts(((IfType) fieldLoopIf).getFieldOrLoopOrIf());
+            }
+        }
+    }
+
+    private TreColumnLayout createColumnLayout(final LoopType loop) {
+        // Only plain fields, and none of them used as parameters.
+        List<FieldType> fields = new ArrayList<>();
+        for (Object fieldLoopIf : loop.getFieldOrLoopOrIf()) {
+            if (!(fieldLoopIf instanceof FieldType) || fieldSlots.containsKey(fieldLoopIf)) {
+                return null;
+            }
+            fields.add((FieldType) fieldLoopIf);
+        }
+        return TreColumnLayout.create(fields.toArray(new FieldType[fields.size()]));
+    }
+
+    private static String getParameterName(final FieldType field) {
+        String name = field.getName();
+        if ("".equals(name)) {
+            name = field.getLongname();
+        }
+        return name;
+    }
+
+    private TreExpression parameter(final String name) {
+        return TreExpression.parameter(name, allocateSlot(name));
+    }
+
+    private TreExpression compile(final String expression) {
+        if (expression == null) {
+            return TreExpression.invalid("Missing TRE expression");
+        }
+        try {
+            return TreExpression.parse(expression, this::allocateSlot);
+        } catch (NitfFormatException ex) {
+            // Reported if the expression is used, as for other problems with the descriptor.
+            return TreExpression.invalid(ex.getMessage());
+        }
+    }
+
+    private int allocateSlot(final String name) {
+        Integer slot = slotsByName.get(name);
+        if (slot == null) {
+            slot = names.size();
+            slotsByName.put(name, slot);
+            names.add(name);
+        }
+        return slot;
+    }
+
+    /**
+     * Get the number of parameter slots.
+     *
+     * @return the number of parameters used by the expressions.
+     */
+    int getSlotCount() {
+        return names.size();
+    }
+
+    /**
+     * Get the name of the parameter in a slot.
+     *
+     * @param slot the parameter slot.
+     * @return the parameter name.
+     */
+    String getName(final int slot) {
+        return names.get(slot);
+    }
+
+    /**
+     * Get the slot for a parameter name.
+     *
+     * @param name the field name.
+     * @return the slot, or NO_SLOT if the field is not used as a parameter.
+     */
+    int getSlot(final String name) {
+        Integer slot = slotsByName.get(name);
+        if (slot == null) {
+            return NO_SLOT;
+        }
+        return slot;
+    }
+
+    /**
+     * Get the slot for a field in the descriptor.
+     *
+     * @param field the field descriptor.
+     * @return the slot, or NO_SLOT if the field is not used as a parameter.
+     */
+    int getSlot(final FieldType field) {
+        Integer slot = fieldSlots.get(field);
+        if (slot == null) {
+            return NO_SLOT;
+        }
+        return slot;
+    }
+
+    /**
+     * Get the length expression for a variable length field in the descriptor.
+     *
+     * @param field the field descriptor.
+     * @return the length expression, or null if the field does not have a length_var.
+     */
+    TreExpression getLength(final FieldType field) {
+        return expressions.get(field);
+    }
+
+    /**
+     * Get the repetition count expression for a loop in the descriptor.
+     *
+     * @param loop the loop descriptor.
+     * @return the count expression, or null if the loop has a fixed number of iterations or no count.
+     */
+    TreExpression getCount(final LoopType loop) {
+        return expressions.get(loop);
+    }
+
+    /**
+     * Get the column layout for a loop in the descriptor.
+     *
+     * @param loop the loop descriptor.
+     * @return the column layout, or null if the loop cannot be held as columns.
+     */
+    TreColumnLayout getColumns(final LoopType loop) {
+        return columnLayouts.get(loop);
+    }
+
+    /**
+     * Get the writer for a field in the descriptor.
+     *
+     * @param field the field descriptor.
+     * @return the field writer.
+     */
+    TreFieldWriter getWriter(final FieldType field) {
+        return fieldWriters.get(field);
+    }
+
+    /**
+     * Get the condition for a conditional part of the descriptor.
+     *
+     * @param ifType the conditional descriptor.
+     * @return the condition expression.
+     */
+    TreExpression getCondition(final IfType ifType) {
+        return expressions.get(ifType);
+    }
+}
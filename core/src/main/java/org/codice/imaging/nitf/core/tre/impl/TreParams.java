@@ -15,45 +15,108 @@
  */
 package org.codice.imaging.nitf.core.tre.impl;
 
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.tre.TreExpression;
 
-class TreParams {
-
-    private final Map<String, TreParameter> parameters = new HashMap<>();
+/**
+    Parameter values for one TRE, while it is being parsed or written.
+    <p>
+    The values are held in the slots given by the TreLayout for the TRE descriptor. Values for
+    fields that are not used as parameters are not kept. Integer values are converted when they
+    are first used.
+*/
+class TreParams implements TreExpression.Parameters {
 
     private static final int DECIMAL_BASE = 10;
 
-    int getIntValue(final String key) {
-        TreParameter parameter = parameters.get(key);
-        if ("UINT".equals(parameter.mFieldType)) {
-            int res = 0;
-            for (int i = 0; i < parameter.mFieldValue.length(); ++i) {
-                res = (res << Byte.SIZE) + Byte.toUnsignedInt(parameter.mFieldValue.getBytes(StandardCharsets.ISO_8859_1)[i]);
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final String UINT_TYPE = "UINT";
+
+    private final TreLayout layout;
+
+    private final String[] values;
+
+    private final String[] types;
+
+    private final int[] intValues;
+
+    private final boolean[] hasIntValue;
+
+    /**
+     * Constructor.
+     *
+     * @param treLayout the layout for the TRE descriptor.
+     */
+    TreParams(final TreLayout treLayout) {
+        layout = treLayout;
+        int slotCount = treLayout.getSlotCount();
+        values = new String[slotCount];
+        types = new String[slotCount];
+        intValues = new int[slotCount];
+        hasIntValue = new boolean[slotCount];
+    }
+
+    TreLayout getLayout() {
+        return layout;
+    }
+
+    @Override
+    public int getIntValue(final int slot) throws NitfFormatException {
+        if (!hasIntValue[slot]) {
+            String value = values[slot];
+            if (value == null) {
+                throw new NitfFormatException("No value for TRE parameter " + layout.getName(slot));
             }
-            return res;
-        } else {
-            return Integer.parseInt(parameter.mFieldValue, DECIMAL_BASE);
+            if (UINT_TYPE.equals(types[slot])) {
+                intValues[slot] = getUintValue(value);
+            } else {
+                intValues[slot] = Integer.parseInt(value, DECIMAL_BASE);
+            }
+            hasIntValue[slot] = true;
         }
+        return intValues[slot];
     }
 
-    String getFieldValue(final String key) {
-        return parameters.get(key).mFieldValue;
+    int getIntValue(final String key) throws NitfFormatException {
+        int slot = layout.getSlot(key);
+        if (slot == TreLayout.NO_SLOT) {
+            throw new NitfFormatException("No value for TRE parameter " + key);
+        }
+        return getIntValue(slot);
     }
 
-    void addParameter(final String fieldKey, final String fieldValue, final String fieldType) {
-        parameters.put(fieldKey, new TreParameter(fieldValue, fieldType));
+    static int getUintValue(final String fieldValue) {
+        int res = 0;
+        // The value was read as ISO-8859-1, so each character is one byte.
+        for (int i = 0; i < fieldValue.length(); i++) {
+            res = (res << Byte.SIZE) + (fieldValue.charAt(i) & BYTE_MASK);
+        }
+        return res;
     }
 
-    private static final class TreParameter {
+    @Override
+    public String getFieldValue(final int slot) {
+        return values[slot];
+    }
 
-        private final String mFieldValue;
-        private final String mFieldType;
+    String getFieldValue(final String key) {
+        int slot = layout.getSlot(key);
+        if (slot == TreLayout.NO_SLOT) {
+            return null;
+        }
+        return values[slot];
+    }
 
-        private TreParameter(final String fieldValue, final String fieldType) {
-            mFieldValue = fieldValue;
-            mFieldType = fieldType;
+    void addParameter(final int slot, final String fieldValue, final String fieldType) {
+        if (slot != TreLayout.NO_SLOT) {
+            values[slot] = fieldValue;
+            types[slot] = fieldType;
+            hasIntValue[slot] = false;
         }
     }
+
+    void addParameter(final String fieldKey, final String fieldValue, final String fieldType) {
+        addParameter(layout.getSlot(fieldKey), fieldValue, fieldType);
+    }
 }
@@ -14,35 +14,25 @@
  **/
 package org.codice.imaging.nitf.core.tre.impl;
 
-import static org.codice.imaging.nitf.core.tre.impl.TreConstants.AND_CONDITION;
 import static org.codice.imaging.nitf.core.tre.impl.TreConstants.TAGLEN_LENGTH;
 import static org.codice.imaging.nitf.core.tre.impl.TreConstants.TAG_LENGTH;
-import static org.codice.imaging.nitf.core.tre.impl.TreConstants.UNSUPPORTED_IFTYPE_FORMAT_MESSAGE;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.transform.Source;
 
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.common.NitfReader;
 import org.codice.imaging.nitf.core.common.TaggedRecordExtensionHandler;
-import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
 import org.codice.imaging.nitf.core.schema.FieldType;
 import org.codice.imaging.nitf.core.schema.IfType;
 import org.codice.imaging.nitf.core.schema.LoopType;
 import org.codice.imaging.nitf.core.schema.TreType;
-import org.codice.imaging.nitf.core.schema.Tres;
 import org.codice.imaging.nitf.core.tre.Tre;
 import org.codice.imaging.nitf.core.tre.TreEntry;
+import org.codice.imaging.nitf.core.tre.TreExpression;
 import org.codice.imaging.nitf.core.tre.TreGroup;
 import org.codice.imaging.nitf.core.tre.TreSource;
 import org.slf4j.Logger;
@@ -55,8 +45,6 @@ public class TreParser {
 
     private static final Logger LOG = LoggerFactory.getLogger(TreParser.class);
 
-    private static final String TRE_XML_LOAD_ERROR_MESSAGE = "Exception while loading TRE XML";
-
     // If this isn't obvious, the max len is 99999, but first 3 are for the
     // overflow DES index, if any.
     private static final int MAX_HEADER_DATA_LEN = 99996;
@@ -72,84 +60,132 @@ public class TreParser {
     // We seem unlikely to hit this: 10^9 - 2
     private static final int MAX_DES_DATA_LEN = 999999998;
 
-    private static Tres tresStructure = null;
+    private volatile TreDescriptorRegistry descriptorRegistry;
+
+    private boolean compiledTresEnabled = true;
+
+    // Reused by getTREs() and serializeTRE(), which are synchronized.
+    private final TreWriteBuffer writeBuffer = new TreWriteBuffer();
 
     /**
         Constructor for TRE parser.
         <p>
-        This does reasonably complex initialisation, so try to re-use it if possible.
+        This uses the global TRE descriptor registry, which is loaded on first use and then shared.
 
         @throws NitfFormatException if the initialisation fails.
     */
     public TreParser() throws NitfFormatException {
-        try (InputStream is = getClass().getResourceAsStream("/nitf_spec.xml")) {
-            unmarshal(is);
-        } catch (JAXBException ex) {
-            LOG.warn("JAXBException parsing TRE XML specification", ex);
-            throw new NitfFormatException(TRE_XML_LOAD_ERROR_MESSAGE + ex.getMessage());
-        } catch (IOException ex) {
-            LOG.warn("IOException parsing TRE XML specification", ex);
-            throw new NitfFormatException(TRE_XML_LOAD_ERROR_MESSAGE + ex.getMessage());
-        }
+        this(TreDescriptorRegistry.getGlobal());
     }
 
-    private void unmarshal(final InputStream inputStream) throws JAXBException {
-        tresStructure = (Tres) getUnmarshaller().unmarshal(inputStream);
-    }
+    /**
+        Constructor for TRE parser, using a specific set of TRE descriptors.
 
-    private Unmarshaller getUnmarshaller() throws JAXBException {
-        JAXBContext jc = JAXBContext.newInstance(Tres.class);
-        return jc.createUnmarshaller();
+        @param registry the TRE descriptors to use.
+    */
+    public TreParser(final TreDescriptorRegistry registry) {
+        if (registry == null) {
+            throw new IllegalArgumentException("TreParser(): argument 'registry' may not be null.");
+        }
+        descriptorRegistry = registry;
     }
 
     /**
      * Add one or more TRE descriptor to the existing descriptor set.
+     * <p>
+     * The additional descriptors only apply to this parser. Use TreDescriptorRegistry.addGlobalDescriptors() to make
+     * descriptors available to all parsers and writers.
      *
      * @param source the Source to read the TRE descriptors from
      * @throws NitfFormatException if parsing fails (typically invalid descriptors)
      */
     public final void registerAdditionalTREdescriptor(final Source source) throws NitfFormatException {
+        descriptorRegistry = descriptorRegistry.withAdditionalDescriptors(source);
+    }
+
+    final Tre parseOneTre(final NitfReader reader, final String tag, final int fieldLength, final TreSource source) {
+        byte[] treBytes;
         try {
-            Tres extraTres = (Tres) getUnmarshaller().unmarshal(source);
-            tresStructure.getTre().addAll(extraTres.getTre());
-        } catch (JAXBException ex) {
-            LOG.warn("JAXBException parsing additional TRE XML specification", ex);
-            throw new NitfFormatException(TRE_XML_LOAD_ERROR_MESSAGE + ex.getMessage());
+            treBytes = reader.readBytesRaw(fieldLength);
+        } catch (NitfFormatException e) {
+            logParseFailure(tag, e);
+            return new TreImpl(tag, source);
         }
+        return decodeTre(treBytes, tag, source);
     }
 
-    final Tre parseOneTre(final NitfReader reader, final String tag, final int fieldLength, final TreSource source) {
+    /**
+     * Read one TRE, deferring the decoding of the TRE body until it is first used.
+     *
+     * @param reader the reader, positioned at the start of the TRE body.
+     * @param tag the TRE tag.
+     * @param fieldLength the length of the TRE body.
+     * @param source the source of the TRE.
+     * @return the TRE.
+     */
+    final Tre parseOneTreLazily(final NitfReader reader, final String tag, final int fieldLength, final TreSource source) {
+        byte[] treBytes;
+        try {
+            treBytes = reader.readBytesRaw(fieldLength);
+        } catch (NitfFormatException e) {
+            logParseFailure(tag, e);
+            return new TreImpl(tag, source);
+        }
+        if (getTreTypeForTag(tag) == null) {
+            // Nothing to decode.
+            Tre tre = new TreImpl(tag, source);
+            tre.setRawData(treBytes);
+            return tre;
+        }
+        return new LazyTre(tag, source, treBytes, this);
+    }
+
+    /**
+     * Decode the body of a TRE.
+     * <p>
+     * If the TRE is not known, or cannot be decoded, the TRE holds the body as raw data.
+     *
+     * @param treBytes the TRE body (excluding the tag and length).
+     * @param tag the TRE tag.
+     * @param source the source of the TRE.
+     * @return the TRE.
+     */
+    final Tre decodeTre(final byte[] treBytes, final String tag, final TreSource source) {
         Tre tre = new TreImpl(tag, source);
         TreType treType = getTreTypeForTag(tag);
-        byte[] treBytes = null;
 
         try {
-            treBytes = reader.readBytesRaw(fieldLength);
-
             if (treType == null) {
                 tre.setRawData(treBytes);
             } else {
-                NitfReader treReader =
-                        new NitfInputStreamReader(new ByteArrayInputStream(treBytes));
-                TreParams parameters = new TreParams();
+                TreBodyReader treReader = new TreBodyReader(treBytes);
                 tre.setPrefix(treType.getMdPrefix());
-                TreGroupImpl group = parseTreComponents(treType.getFieldOrLoopOrIf(),
-                        treReader,
-                        parameters);
+                CompiledTre compiledTre = getCompiledTre(treType);
+                TreGroupImpl group;
+                if (compiledTre != null) {
+                    group = compiledTre.parse(treReader);
+                } else {
+                    TreParams params = new TreParams(descriptorRegistry.getLayout(treType));
+                    group = parseTreComponents(treType.getFieldOrLoopOrIf(), treReader, params);
+                }
                 tre.setEntries(group.getEntries());
             }
 
         } catch (Exception e) {
             tre.setRawData(treBytes);
-            LOG.warn("Failed to parse TRE {}. See debug log for exception information.", tag);
-            LOG.debug(e.getMessage(), e);
+            logParseFailure(tag, e);
         }
 
         return tre;
     }
 
+    private void logParseFailure(final String tag, final Exception e) {
+        LOG.warn("Failed to parse TRE {}. See debug log for exception information.", tag);
+        LOG.debug(e.getMessage(), e);
+    }
+
     private TreGroupImpl parseTreComponents(final List<Object> fieldOrLoopOrIf,
-            final NitfReader reader, final TreParams params) throws NitfFormatException {
+            final TreBodyReader reader, final TreParams params) throws NitfFormatException {
         TreGroupImpl group = new TreGroupImpl();
         for (Object fieldLoopIf : fieldOrLoopOrIf) {
             if (fieldLoopIf instanceof FieldType) {
@@ -166,7 +202,7 @@ public class TreParser {
         return group;
     }
 
-    private TreEntry parseField(final FieldType field, final NitfReader reader,
+    private TreEntry parseField(final FieldType field, final TreBodyReader reader,
             final TreParams parameters) throws NitfFormatException {
         String fieldKey = field.getName();
         String fieldType = field.getType();
@@ -178,101 +214,70 @@ public class TreParser {
                 fieldKey = field.getLongname();
             }
             int bytesToRead = getLengthForField(field, parameters);
-            String fieldValue = reader.readBytes(bytesToRead);
             if (fieldKey.isEmpty()) {
-                return new TreEntryImpl("no name", fieldValue, fieldType);
-            } else {
-                parameters.addParameter(fieldKey, fieldValue, fieldType);
-                return new TreEntryImpl(fieldKey, fieldValue, fieldType);
+                return reader.readEntry("no name", bytesToRead, fieldType);
+            }
+            int slot = parameters.getLayout().getSlot(field);
+            if (slot == TreLayout.NO_SLOT) {
+                return reader.readEntry(fieldKey, bytesToRead, fieldType);
             }
+            String fieldValue = reader.readString(bytesToRead);
+            parameters.addParameter(slot, fieldValue, fieldType);
+            return new TreEntryImpl(fieldKey, fieldValue, fieldType);
         }
     }
 
-    private int getLengthForField(final FieldType field, final TreParams parameters) throws UnsupportedOperationException, NumberFormatException {
-        int fieldLength = 0;
+    private int getLengthForField(final FieldType field, final TreParams parameters) throws NitfFormatException {
         BigInteger fieldLengthBigInt = field.getLength();
         if (fieldLengthBigInt != null) {
-            fieldLength = fieldLengthBigInt.intValue();
-        } else if (field.getLengthVar() != null) {
-            fieldLength = parameters.getIntValue(field.getLengthVar());
-        } else {
-            throw new UnsupportedOperationException("Unhandled field type parsing issue");
+            return fieldLengthBigInt.intValue();
         }
-        return fieldLength;
-    }
-
-    private int computeFormula(final String formula, final TreParams treParas) throws NitfFormatException {
-        int result = 0;
-        switch (formula) {
-            case "(NPART+1)*(NPART)/2":
-                result = computeAverageNPart(treParas);
-                break;
-            case "(NUMOPG+1)*(NUMOPG)/2":
-                result = computeAverageNumOrg(treParas);
-                break;
-            case "NPAR*NPARO":
-                result = computeProductNParNParo(treParas);
-                break;
-            case "NPLN-1":
-                result = computeNplnMinus(treParas);
-                break;
-            case "NXPTS*NYPTS":
-                result = computeProductNxptsNypts(treParas);
-                break;
-            default:
-                // There shouldn't be any others, so hitting this probably indicates a parse error
-                throw new UnsupportedOperationException("Implement missing formula:" + formula);
+        TreExpression lengthExpression = parameters.getLayout().getLength(field);
+        if (lengthExpression == null) {
+            throw new UnsupportedOperationException("Unhandled field type parsing issue");
         }
-        return result;
-    }
-
-    private int computeAverageNPart(final TreParams parameters) throws NitfFormatException {
-        int npart = parameters.getIntValue("NPART");
-        return (npart + 1) * (npart) / 2;
-    }
-
-    private int computeAverageNumOrg(final TreParams parameters) throws NitfFormatException {
-        int numopg = parameters.getIntValue("NUMOPG");
-        return (numopg + 1) * (numopg) / 2;
-    }
-
-    private int computeProductNParNParo(final TreParams parameters) throws NitfFormatException {
-        int npar = parameters.getIntValue("NPAR");
-        int nparo = parameters.getIntValue("NPARO");
-        return npar * nparo;
-    }
-
-    private int computeNplnMinus(final TreParams parameters) throws NitfFormatException {
-        int npln = parameters.getIntValue("NPLN");
-        return npln - 1;
+        return lengthExpression.intValue(parameters);
     }
 
-    private int computeProductNxptsNypts(final TreParams parameters) throws NitfFormatException {
-        int nxpts = parameters.getIntValue("NXPTS");
-        int nypts = parameters.getIntValue("NYPTS");
-        return nxpts * nypts;
+    private TreType getTreTypeForTag(final String tag) {
+        return descriptorRegistry.getDescriptor(tag);
     }
 
-    private TreType getTreTypeForTag(final String tag) {
-        for (TreType treType : tresStructure.getTre()) {
-            if (treType.getName().equals(tag.trim())) {
-                return treType;
-            }
+    private CompiledTre getCompiledTre(final TreType treType) {
+        if (compiledTresEnabled && descriptorRegistry.isBuiltIn(treType)) {
+            return CompiledTres.get(treType.getName());
         }
         return null;
     }
 
-    private TreEntry parseLoop(final LoopType loopType, final NitfReader reader, final TreParams params) throws NitfFormatException {
+    /**
+     * Enable or disable the compiled TRE parsers.
+     * <p>
+     * When disabled, every TRE is parsed and serialized by the descriptor interpreter. This is intended for testing
+     * that the two give the same results.
+     *
+     * @param enabled true to use the compiled parsers where available (the default), false to always interpret.
+     */
+    final void setCompiledTresEnabled(final boolean enabled) {
+        compiledTresEnabled = enabled;
+    }
+
+    private TreEntry parseLoop(final LoopType loopType, final TreBodyReader reader, final TreParams params) throws NitfFormatException {
         int numRepetitions = 0;
         if (loopType.getIterations() != null) {
             numRepetitions = loopType.getIterations().intValue();
-        } else if (loopType.getCounter() != null) {
-            String repetitionCounter = loopType.getCounter();
-            numRepetitions = params.getIntValue(repetitionCounter);
-        } else if (loopType.getFormula() != null) {
-            numRepetitions = computeFormula(loopType.getFormula(), params);
         } else {
-            throw new UnsupportedOperationException("Need to implement other loop type");
+            TreExpression countExpression = params.getLayout().getCount(loopType);
+            if (countExpression == null) {
+                throw new UnsupportedOperationException("Need to implement other loop type");
+            }
+            numRepetitions = countExpression.intValue(params);
+        }
+        if (numRepetitions > 0) {
+            TreEntryImpl columnEntry = reader.readColumns(loopType.getName(), numRepetitions, getColumnLayout(loopType, params));
+            if (columnEntry != null) {
+                return columnEntry;
+            }
         }
         TreEntryImpl treEntry = new TreEntryImpl(loopType.getName());
         for (int i = 0; i < numRepetitions; ++i) {
@@ -283,63 +288,25 @@ public class TreParser {
         return treEntry;
     }
 
-    private TreGroupImpl parseIf(final IfType ifType, final NitfReader reader, final TreParams params) throws NitfFormatException {
-        String condition = ifType.getCond();
-        if (evaluateCondition(condition, params)) {
-            return parseTreComponents(ifType.getFieldOrLoopOrIf(), reader, params);
-        }
-        return null;
-    }
-
-    private boolean evaluateCondition(final String condition, final TreParams params) {
-        if (condition.contains(TreConstants.AND_CONDITION)) {
-            return evaluateConditionBooleanAnd(condition, params);
-        } else if (condition.endsWith("!=")) {
-            return evaluateConditionIsNotEmpty(condition, params);
-        } else if (condition.contains("!=")) {
-            return evaluateConditionIsNotEqual(condition, params);
-        } else if (condition.contains("=")) {
-            return evaluateConditionIsEqual(condition, params);
-        } else {
-            throw new UnsupportedOperationException(UNSUPPORTED_IFTYPE_FORMAT_MESSAGE + condition);
-        }
-    }
-
-    private boolean evaluateConditionBooleanAnd(final String condition, final TreParams parameters) {
-        String[] condParts = condition.split(AND_CONDITION);
-        if (condParts.length != 2) {
-            // This is an error
-            throw new UnsupportedOperationException(UNSUPPORTED_IFTYPE_FORMAT_MESSAGE + condition);
+    private TreColumnLayout getColumnLayout(final LoopType loopType, final TreParams params) throws NitfFormatException {
+        TreColumnLayout columnLayout = params.getLayout().getColumns(loopType);
+        if ((columnLayout == null) || columnLayout.hasFixedLengths()) {
+            return columnLayout;
         }
-        boolean lhs = evaluateCondition(condParts[0], parameters);
-        boolean rhs = evaluateCondition(condParts[1], parameters);
-        return lhs && rhs;
-    }
-
-    private boolean evaluateConditionIsNotEmpty(final String condition, final TreParams parameters) {
-        String conditionPart = condition.substring(0, condition.length() - "!=".length());
-        String actualValue = parameters.getFieldValue(conditionPart);
-        return !actualValue.trim().isEmpty();
-    }
-
-    private boolean evaluateConditionIsNotEqual(final String condition, final TreParams parameters) {
-        String[] conditionParts = condition.split("!=");
-        if (conditionParts.length != 2) {
-            // This is an error
-            throw new UnsupportedOperationException(UNSUPPORTED_IFTYPE_FORMAT_MESSAGE + condition);
+        // The layout only has loop fields, and none of them are parameters, so the lengths are the same for every row.
+        List<Object> fields = loopType.getFieldOrLoopOrIf();
+        int[] lengths = new int[fields.size()];
+        for (int i = 0; i < lengths.length; ++i) {
+            lengths[i] = getLengthForField((FieldType) fields.get(i), params);
         }
-        String actualValue = parameters.getFieldValue(conditionParts[0]);
-        return !conditionParts[1].equals(actualValue);
+        return columnLayout.withLengths(lengths);
     }
 
-    private boolean evaluateConditionIsEqual(final String condition, final TreParams params) {
-        String[] conditionParts = condition.split("=");
-        if (conditionParts.length != 2) {
-            // This is an error
-            throw new UnsupportedOperationException(UNSUPPORTED_IFTYPE_FORMAT_MESSAGE + condition);
+    private TreGroupImpl parseIf(final IfType ifType, final TreBodyReader reader, final TreParams params) throws NitfFormatException {
+        if (params.getLayout().getCondition(ifType).isTrue(params)) {
+            return parseTreComponents(ifType.getFieldOrLoopOrIf(), reader, params);
         }
-        String actualValue = params.getFieldValue(conditionParts[0]);
-        return conditionParts[1].equals(actualValue);
+        return null;
     }
 
     /**
@@ -351,43 +318,32 @@ public class TreParser {
      * @throws NitfFormatException on TRE parsing problem.
      * @throws IOException on reading or writing problems.
      */
-    public final byte[] getTREs(final TaggedRecordExtensionHandler handler, final TreSource source) throws NitfFormatException, IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    public final synchronized byte[] getTREs(final TaggedRecordExtensionHandler handler, final TreSource source)
+            throws NitfFormatException, IOException {
+        int sizeLimit = getValidSizeForTreSource(source);
+        writeBuffer.reset();
         for (Tre tre : handler.getTREsRawStructure().getTREsForSource(source)) {
-            String name = padStringToLength(tre.getName(), TAG_LENGTH);
-            baos.write(name.getBytes(StandardCharsets.ISO_8859_1));
-            if (tre.getRawData() != null) {
-                String tagLen = padIntegerToLength(tre.getRawData().length, TAGLEN_LENGTH);
-                baos.write(tagLen.getBytes(StandardCharsets.ISO_8859_1));
-                baos.write(tre.getRawData());
+            writeBuffer.writePadded(tre.getName(), TAG_LENGTH);
+            int lengthOffset = writeBuffer.size();
+            writeBuffer.writeSpaces(TAGLEN_LENGTH);
+            int dataOffset = writeBuffer.size();
+            if ((tre instanceof LazyTre) && !((LazyTre) tre).isDecoded()) {
+                // Never looked at, so cannot have changed.
+                writeBuffer.write(((LazyTre) tre).getEncodedData());
+            } else if (tre.getRawData() != null) {
+                writeBuffer.write(tre.getRawData());
             } else {
-                byte[] treData = serializeTRE(tre);
-                baos.write(padIntegerToLength(treData.length, TAGLEN_LENGTH).getBytes(StandardCharsets.ISO_8859_1));
-                baos.write(treData);
+                writeTreData(tre, writeBuffer);
             }
-        }
-        if (baos.size() > getValidSizeForTreSource(source)) {
-            throw new NitfFormatException("TREs exceed valid limit for source");
-        }
-        return baos.toByteArray();
-    }
-
-    private String padIntegerToLength(final long number, final int length) {
-        return String.format("%0" + length + "d", number);
-    }
-
-    private String padStringToLength(final String s, final int length) {
-        return String.format("%1$-" + length + "s", s);
-    }
-
-    private String padRealToLength(final double number, final String format, final int length) {
-        if ((format != null) && (format.equals("UE"))) {
-            if (Double.isNaN(number)) {
-                return padStringToLength("NaN", length);
+            int dataLength = writeBuffer.size() - dataOffset;
+            if (!writeBuffer.writeZeroPaddedAt(lengthOffset, dataLength, TAGLEN_LENGTH)) {
+                throw new NitfFormatException(String.format("TRE %s is too long to write: %d bytes", tre.getName(), dataLength));
+            }
+            if (writeBuffer.size() > sizeLimit) {
+                throw new NitfFormatException("TREs exceed valid limit for source");
             }
-            return String.format("%0" + length + "." + (length - "X.".length() - "E+ZZ".length()) + "E", number);
         }
-        return String.format("%" + length + "f", number);
+        return writeBuffer.toByteArray(0);
     }
 
     /**
@@ -397,199 +353,68 @@ public class TreParser {
      * @return byte array containing serialised TRE.
      * @throws NitfFormatException if TRE serialisation fails.
      */
-    public final byte[] serializeTRE(final Tre tre) throws NitfFormatException {
+    public final synchronized byte[] serializeTRE(final Tre tre) throws NitfFormatException {
+        writeBuffer.reset();
+        writeTreData(tre, writeBuffer);
+        return writeBuffer.toByteArray(0);
+    }
+
+    private void writeTreData(final Tre tre, final TreWriteBuffer output) throws NitfFormatException {
         TreType treType = getTreTypeForTag(tre.getName());
         checkTreLocationMatchesTreSource(treType.getLocation(), tre.getSource());
-        TreParams parameters = new TreParams();
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        serializeFieldOrLoopOrIf(treType.getFieldOrLoopOrIf(), tre, output, parameters);
-        return output.toByteArray();
+        TreParams parameters = new TreParams(descriptorRegistry.getLayout(treType));
+        CompiledTre compiledTre = getCompiledTre(treType);
+        if (compiledTre != null) {
+            compiledTre.serialize(tre, output, parameters);
+        } else {
+            serializeFieldOrLoopOrIf(treType.getFieldOrLoopOrIf(), tre, output, parameters);
+        }
     }
 
     private void serializeFieldOrLoopOrIf(final List<Object> fieldOrLoopOrIf,
             final TreGroup treGroup,
-            final ByteArrayOutputStream baos,
+            final TreWriteBuffer output,
             final TreParams params) throws NitfFormatException {
-        try {
-            for (Object fieldLoopIf : fieldOrLoopOrIf) {
-                if (fieldLoopIf instanceof FieldType) {
-                    byte[] field = getFieldValue((FieldType) fieldLoopIf, treGroup, params);
-                    baos.write(field);
-                } else if (fieldLoopIf instanceof LoopType) {
-                    LoopType loopType = (LoopType) fieldLoopIf;
-                    TreEntry loopDataEntry = treGroup.getEntry(loopType.getName());
+        for (Object fieldLoopIf : fieldOrLoopOrIf) {
+            if (fieldLoopIf instanceof FieldType) {
+                params.getLayout().getWriter((FieldType) fieldLoopIf).write(treGroup, params, output);
+            } else if (fieldLoopIf instanceof LoopType) {
+                LoopType loopType = (LoopType) fieldLoopIf;
+                TreEntry loopDataEntry = treGroup.getEntry(loopType.getName());
+                if (!writeEncodedColumns(loopDataEntry, output)) {
                     for (TreGroup subGroup : loopDataEntry.getGroups()) {
-                        serializeFieldOrLoopOrIf(loopType.getFieldOrLoopOrIf(), subGroup, baos, params);
-                    }
-                } else if (fieldLoopIf instanceof IfType) {
-                    IfType ifType = (IfType) fieldLoopIf;
-                    if (evaluateCondition(ifType.getCond(), params)) {
-                        serializeFieldOrLoopOrIf(ifType.getFieldOrLoopOrIf(), treGroup, baos, params);
+                        serializeFieldOrLoopOrIf(loopType.getFieldOrLoopOrIf(), subGroup, output, params);
                     }
-                } else {
-                    throw new NitfFormatException("Unexpected TRE structure type");
                 }
-            }
-        } catch (IOException ex) {
-            throw new NitfFormatException("Failed to write TRE:" + ex.getMessage());
-        }
-    }
-
-    private byte[] getFieldValue(final FieldType fieldType, final TreGroup treGroup, final TreParams params) throws NitfFormatException {
-        String fieldTypeName = getFieldTypeName(fieldType);
-        if (fieldTypeName != null) {
-            TreEntry entry = treGroup.getEntry(fieldTypeName);
-            return getValueForEntry(params, fieldType, entry);
-        } else {
-            // This is a pad field
-            String value = fieldType.getFixedValue();
-            if ((value != null) && (!value.isEmpty())) {
-                return value.getBytes(StandardCharsets.ISO_8859_1);
+            } else if (fieldLoopIf instanceof IfType) {
+                IfType ifType = (IfType) fieldLoopIf;
+                if (params.getLayout().getCondition(ifType).isTrue(params)) {
+                    serializeFieldOrLoopOrIf(ifType.getFieldOrLoopOrIf(), treGroup, output, params);
+                }
             } else {
-                return padStringToLength("", fieldType.getLength().intValueExact()).getBytes(StandardCharsets.ISO_8859_1);
+                throw new NitfFormatException("Unexpected TRE structure type");
             }
         }
     }
 
-    private String getFieldTypeName(final FieldType fieldType) {
-        String fieldTypeName = fieldType.getName();
-        if ("".equals(fieldTypeName)) {
-            fieldTypeName = fieldType.getLongname();
-        }
-        return fieldTypeName;
-    }
-
-    private byte[] getValueForEntry(final TreParams params, final FieldType fieldType, final TreEntry entry)
-            throws NitfFormatException {
-        String value = entry.getFieldValue();
-        if (value == null) {
-            throw new NitfFormatException("Cannot serialize null entry for: " + fieldType.getName());
-        }
-        if (fieldType.getLengthVar() != null) {
-            String lengthVar = fieldType.getLengthVar();
-            int specifiedLength = params.getIntValue(lengthVar);
-            if (specifiedLength != value.length()) {
-                String err = String.format("Actual length for %s did not match specified length of %d", fieldType.getName(), specifiedLength);
-                LOG.error(err);
-                throw new NitfFormatException(err);
-            }
-        }
-        if ((fieldType.getLength() == null) || (fieldType.getLength().intValueExact() == value.length())) {
-            params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            return value.getBytes(StandardCharsets.ISO_8859_1);
-        }
-        // Try to pad out to the required length.
-        if (fieldType.getType() == null) {
-            String err = "Cannot pad unknown data type for " + fieldType.getName();
-            LOG.error(err);
-            throw new NitfFormatException(err);
-        }
-        if (fieldType.getType().equals("integer")) {
-            value = getValidatedIntegerValue(value, fieldType);
-            params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            return value.getBytes(StandardCharsets.ISO_8859_1);
-        }
-
-        if (fieldType.getType().equals("string")) {
-            value = padStringToLength(value, fieldType.getLength().intValue());
-            if (value.length() > fieldType.getLength().intValue()) {
-               throw new NitfFormatException("Incorrect length serialising out: " + fieldType.getName());
-            }
-            params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            return value.getBytes(StandardCharsets.ISO_8859_1);
-        }
-
-        if (fieldType.getType().equals("real")) {
-            value = getValidatedRealValue(value, fieldType);
-            params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            return value.getBytes(StandardCharsets.ISO_8859_1);
-        }
-        if (fieldType.getType().equals("UINT")) {
-            byte[] result = getValidatedUINTValue(entry.getFieldValue().getBytes(StandardCharsets.ISO_8859_1), fieldType);
-            params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            // params.addUintParameter(getFieldTypeName(fieldType), result);
-            return result;
-        }
-        throw new UnsupportedOperationException("Unsupported field type for serialisation:" + fieldType.getType());
-    }
-
-
-    private String getValidatedIntegerValue(final String value, final FieldType fieldType) throws NitfFormatException {
-        String paddedValue;
-        if (value.length() > fieldType.getLength().intValue()) {
-            throw new NitfFormatException("Incorrect length serialising out: " + fieldType.getName());
-        }
-        try {
-            int intValue = Integer.parseInt(value);
-            validateIntegerValueRange(intValue, fieldType);
-            paddedValue = padIntegerToLength(intValue, fieldType.getLength().intValue());
-        } catch (NumberFormatException ex) {
-            String err = "Could not parse " + fieldType.getName() + " value " + value + " as a number.";
-            LOG.error(err);
-            throw new NitfFormatException(err);
-        }
-        return paddedValue;
-    }
-
-    private void validateIntegerValueRange(final int intValue, final FieldType fieldType) throws NitfFormatException {
-        if (fieldType.getMinval() != null) {
-            int minValue = Integer.parseInt(fieldType.getMinval());
-            if (intValue < minValue) {
-                throw new NitfFormatException(String.format("Minimum value for %s is %d, got %d", fieldType.getName(), minValue, intValue));
-            }
-        }
-        if (fieldType.getMaxval() != null) {
-            int maxValue = Integer.parseInt(fieldType.getMaxval());
-            if (intValue > maxValue) {
-                throw new NitfFormatException(String.format("Maximum value for %s is %d, got %d", fieldType.getName(), maxValue, intValue));
-            }
-        }
-    }
-
-    private String getValidatedRealValue(final String value, final FieldType fieldType) throws NitfFormatException {
-        String paddedValue;
-        try {
-            double realValue = Double.parseDouble(value);
-            validateRealValueRange(realValue, fieldType);
-            paddedValue = padRealToLength(realValue, fieldType.getFormat(), fieldType.getLength().intValue());
-        } catch (NumberFormatException ex) {
-            String err = "Could not parse " + fieldType.getName() + " value " + value + " as a floating point number.";
-            LOG.error(err);
-            throw new NitfFormatException(err);
-        }
-        return paddedValue;
-    }
-
-    private void validateRealValueRange(final double realValue, final FieldType fieldType) throws NitfFormatException {
-        if (fieldType.getMinval() != null) {
-            double minValue = Double.parseDouble(fieldType.getMinval());
-            if (realValue < minValue) {
-                throw new NitfFormatException(String.format("Minimum value for %s is %f, got %f", fieldType.getName(), minValue, realValue));
-            }
-        }
-        if (fieldType.getMaxval() != null) {
-            double maxValue = Double.parseDouble(fieldType.getMaxval());
-            if (realValue > maxValue) {
-                throw new NitfFormatException(String.format("Maximum value for %s is %f, got %f", fieldType.getName(), maxValue, realValue));
-            }
-        }
-    }
-
-    private byte[] getValidatedUINTValue(final byte[] value, final FieldType fieldType) {
-        // TODO: validate range properly
-        int requiredLength = fieldType.getLength().intValueExact();
-        if (requiredLength > value.length) {
-            byte[] paddedResult = new byte[requiredLength];
-            int numPadBytes = requiredLength - value.length;
-            for (int i = 0; i < numPadBytes; ++i) {
-                paddedResult[i] = 0;
-            }
-            for (int i = 0; i < value.length; ++i) {
-                paddedResult[i + numPadBytes] = value[i];
+    /**
+     * Write out a loop entry that is still held as the columns that were read.
+     * <p>
+     * The groups of such an entry have never been asked for, so the values cannot have changed.
+     *
+     * @param loopEntry the loop entry.
+     * @param output the buffer to write the serialized loop to.
+     * @return true if the loop was written, false if it has to be written group by group.
+     */
+    static boolean writeEncodedColumns(final TreEntry loopEntry, final TreWriteBuffer output) {
+        if (loopEntry instanceof TreEntryImpl) {
+            TreColumnsImpl columns = ((TreEntryImpl) loopEntry).getEncodedColumns();
+            if (columns != null) {
+                columns.writeEncodedData(output);
+                return true;
             }
-            return paddedResult;
         }
-        return value;
+        return false;
     }
 
     private void checkTreLocationMatchesTreSource(final String location, final TreSource source) throws NitfFormatException {
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import java.util.Arrays;
+
+import org.codice.imaging.nitf.core.common.impl.NitfOutput;
+
+/**
+    Growable byte buffer for serializing TREs.
+    <p>
+    Text is written as ISO-8859-1 (one byte per character), and integers are written as digits,
+    directly into the buffer. A buffer is intended to be reused (see reset()), so that writing
+    many TREs does not allocate a new array, or intermediate Strings, for each one.
+*/
+final class TreWriteBuffer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Larger arrays are not kept by reset(), so that one very large TRE does not hold on to memory.
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+
+    // The length of Long.MIN_VALUE as text.
+    private static final int MAX_LONG_LENGTH = 20;
+
+    private static final byte SPACE = ' ';
+
+    private static final char MAX_ISO_8859_1 = 0xFF;
+
+    // What String.getBytes() writes for a character that ISO-8859-1 does not have.
+    private static final byte UNMAPPABLE = '?';
+
+    private byte[] data = new byte[INITIAL_CAPACITY];
+
+    private int size = 0;
+
+    /**
+     * Discard the contents of the buffer.
+     */
+    void reset() {
+        size = 0;
+        if (data.length > MAX_RETAINED_CAPACITY) {
+            data = new byte[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Get the number of bytes written.
+     *
+     * @return the number of bytes in the buffer.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get a copy of part of the buffer.
+     *
+     * @param offset the offset of the first byte to copy.
+     * @return the bytes from offset to the end of the buffer.
+     */
+    byte[] toByteArray(final int offset) {
+        return Arrays.copyOfRange(data, offset, size);
+    }
+
+    /**
+     * Write bytes.
+     *
+     * @param bytes the array to write from.
+     * @param offset the offset of the first byte to write.
+     * @param length the number of bytes to write.
+     */
+    void write(final byte[] bytes, final int offset, final int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, data, size, length);
+        size += length;
+    }
+
+    /**
+     * Write bytes.
+     *
+     * @param bytes the bytes to write.
+     */
+    void write(final byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Write text, as ISO-8859-1.
+     *
+     * @param text the text to write.
+     */
+    void write(final String text) {
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            if (c <= MAX_ISO_8859_1) {
+                data[size++] = (byte) c;
+            } else {
+                data[size++] = UNMAPPABLE;
+            }
+        }
+    }
+
+    /**
+     * Write text, padded with trailing spaces to a length.
+     * <p>
+     * Text that is longer than the length is written in full.
+     *
+     * @param text the text to write.
+     * @param length the length to pad to.
+     */
+    void writePadded(final String text, final int length) {
+        write(text);
+        writeSpaces(length - text.length());
+    }
+
+    /**
+     * Write spaces.
+     *
+     * @param count the number of spaces to write, which may be zero or less to write nothing.
+     */
+    void writeSpaces(final int count) {
+        fill(SPACE, count);
+    }
+
+    /**
+     * Write zero bytes.
+     *
+     * @param count the number of zero bytes to write, which may be zero or less to write nothing.
+     */
+    void writeZeroBytes(final int count) {
+        fill((byte) 0, count);
+    }
+
+    private void fill(final byte value, final int count) {
+        if (count > 0) {
+            ensureCapacity(count);
+            Arrays.fill(data, size, size + count, value);
+            size += count;
+        }
+    }
+
+    /**
+     * Write an integer, padded with leading zeros to a length.
+     * <p>
+     * This gives the same result as String.format("%0" + length + "d", value). In particular, a negative number
+     * has the sign before the zeros, and a number that is longer than the length is written in full.
+     *
+     * @param value the integer to write.
+     * @param length the length to pad to.
+     */
+    void writeZeroPadded(final long value, final int length) {
+        int start = size;
+        ensureCapacity(Math.max(length, MAX_LONG_LENGTH));
+        size += length;
+        if (!writeZeroPaddedAt(start, value, length)) {
+            size = start;
+            write(Long.toString(value));
+        }
+    }
+
+    /**
+     * Overwrite part of the buffer with an integer, padded with leading zeros to a length.
+     *
+     * @param offset the offset to write at.
+     * @param value the integer to write.
+     * @param length the length to pad to.
+     * @return true if the integer was written, false if it does not fit in the length (in which case the bytes at
+     * the offset are not valid).
+     */
+    boolean writeZeroPaddedAt(final int offset, final long value, final int length) {
+        return NitfOutput.encodeFixedLengthNumber(data, offset, value, length);
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (size + additional > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + additional));
+        }
+    }
+}
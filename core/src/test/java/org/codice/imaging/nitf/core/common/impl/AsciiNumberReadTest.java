@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.junit.Test;
+
+/**
+ * Tests for the primitive readAsciiInt / readAsciiLong / readAsciiDouble methods.
+ *
+ * These should give the same results (and fail in the same cases) as the boxed readBytesAs... methods.
+ */
+public class AsciiNumberReadTest {
+
+    private static final String[] INTEGER_INPUTS = {
+        "0", "00042", "+17", "-17", "-0", "2147483647", "-2147483648", "2147483648", "-2147483649",
+        "9223372036854775807", "-9223372036854775808", "9223372036854775808", "99999999999999999999",
+        " 42", "42 ", "4 2", "+", "-", "", "abc", "1.5", "0x10", "0000000000000000000001"
+    };
+
+    private static final String[] DOUBLE_INPUTS = {
+        "0", "-0", "0.0", "-0.000", "1.5", "+1.5", "-273.15", " 12.25 ", "12.", ".5", "000123.4560",
+        "3.141592653589793", "0.1", "0.30000000000000004", "123456789012345", "1234567890123456789",
+        "0.0000000000000000000001", "0.00000000000000000000001234", "1e5", "-1.5E-3", "Infinity", "NaN",
+        "", "   ", ".", "+", "1.2.3", "12a", "1,5", "99999.99999", "+00.00", "-.25"
+    };
+
+    private NitfReader readerFor(final String value) {
+        return new NitfInputStreamReader(new ByteArrayInputStream(value.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    @Test
+    public void testIntegersMatchBoxedReads() throws NitfFormatException {
+        for (String input : INTEGER_INPUTS) {
+            String expected = describeBoxedInteger(input);
+            String actual;
+            try {
+                actual = Integer.toString(readerFor(input).readAsciiInt(input.length()));
+            } catch (NitfFormatException ex) {
+                actual = ex.getMessage();
+            }
+            assertThat(input, actual, is(expected));
+        }
+    }
+
+    @Test
+    public void testLongsMatchBoxedReads() throws NitfFormatException {
+        for (String input : INTEGER_INPUTS) {
+            String expected = describeBoxedLong(input);
+            String actual;
+            try {
+                actual = Long.toString(readerFor(input).readAsciiLong(input.length()));
+            } catch (NitfFormatException ex) {
+                actual = ex.getMessage();
+            }
+            assertThat(input, actual, is(expected));
+        }
+    }
+
+    @Test
+    public void testDoublesMatchBoxedReads() throws NitfFormatException {
+        for (String input : DOUBLE_INPUTS) {
+            String expected = describeBoxedDouble(input);
+            String actual;
+            try {
+                actual = Double.toString(readerFor(input).readAsciiDouble(input.length()));
+            } catch (NitfFormatException ex) {
+                actual = ex.getMessage();
+            }
+            assertThat(input, actual, is(expected));
+        }
+    }
+
+    @Test
+    public void testSequentialReads() throws NitfFormatException {
+        NitfReader reader = readerFor("001-3456789012345122.50End");
+        assertThat(reader.readAsciiInt(3), is(1));
+        assertThat(reader.readAsciiInt(4), is(-345));
+        assertThat(reader.readAsciiLong(12), is(678901234512L));
+        assertThat(reader.readAsciiDouble(3), is(2.5));
+        assertThat(reader.getCurrentOffset(), is(22L));
+        assertThat(reader.readBytes(4), is("0End"));
+    }
+
+    @Test
+    public void testEndOfFile() {
+        try {
+            readerFor("12").readAsciiInt(3);
+            fail("Expected end of file exception");
+        } catch (NitfFormatException ex) {
+            assertThat(ex.getMessage(), is("End of file reading from NITF stream."));
+        }
+    }
+
+    private String describeBoxedInteger(final String input) {
+        try {
+            return readerFor(input).readBytesAsInteger(input.length()).toString();
+        } catch (NitfFormatException ex) {
+            return ex.getMessage();
+        }
+    }
+
+    private String describeBoxedLong(final String input) {
+        try {
+            return readerFor(input).readBytesAsLong(input.length()).toString();
+        } catch (NitfFormatException ex) {
+            return ex.getMessage();
+        }
+    }
+
+    private String describeBoxedDouble(final String input) {
+        try {
+            return readerFor(input).readBytesAsDouble(input.length()).toString();
+        } catch (NitfFormatException ex) {
+            return ex.getMessage();
+        }
+    }
+}
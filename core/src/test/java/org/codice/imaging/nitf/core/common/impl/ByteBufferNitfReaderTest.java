@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.impl.NitfFileWriter;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for ByteBufferNitfReader class
+ */
+public class ByteBufferNitfReaderTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File getTestFile(final String testfile) throws URISyntaxException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        return new File(getClass().getResource(testfile).toURI());
+    }
+
+    private ByteBuffer loadDirect(final File file) throws IOException {
+        byte[] content = Files.readAllBytes(file.toPath());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
+        buffer.put(content);
+        buffer.flip();
+        return buffer;
+    }
+
+    @Test
+    public void testReadsAndSeeks() throws NitfFormatException {
+        ByteBuffer source = ByteBuffer.wrap("XXNITF02.10".getBytes());
+        source.position(2);
+        ByteBufferNitfReader reader = new ByteBufferNitfReader(source);
+        assertTrue(reader.canSeek());
+        assertThat(reader.getLength(), is(9L));
+        reader.verifyHeaderMagic("NITF");
+        assertThat(reader.readBytes(2), is("02"));
+        assertThat(reader.getCurrentOffset(), is(6L));
+        reader.seekBackwards(2);
+        assertThat(reader.readAsciiDouble(5), is(2.1));
+        reader.seekToAbsoluteOffset(4);
+        assertThat(reader.readAsciiInt(2), is(2));
+        reader.seekToEndOfFile();
+        assertThat(reader.getCurrentOffset(), is(9L));
+        assertThat(source.position(), is(2));
+    }
+
+    @Test
+    public void testReadSliceIsView() throws NitfFormatException {
+        byte[] content = "0123456789".getBytes();
+        ByteBufferNitfReader reader = new ByteBufferNitfReader(ByteBuffer.wrap(content));
+        reader.skip(3);
+        ByteBuffer slice = reader.readSlice(4);
+        assertTrue(slice.isReadOnly());
+        assertThat(slice.remaining(), is(4));
+        assertThat(slice.get(0), is((byte) '3'));
+        content[3] = 'x';
+        assertThat(slice.get(0), is((byte) 'x'));
+        assertEquals(7L, reader.getCurrentOffset());
+    }
+
+    @Test
+    public void testSegmentDataSourceAfterReading() throws NitfFormatException {
+        byte[] content = "0123456789".getBytes();
+        ByteBufferNitfReader reader = new ByteBufferNitfReader(ByteBuffer.wrap(content));
+        reader.readBytesRaw(6);
+        ByteBuffer destination = ByteBuffer.allocate(4);
+        assertEquals(4, reader.getSegmentDataSource().read(destination, 0));
+        assertThat(destination.array(), is("0123".getBytes()));
+        assertEquals(10L, reader.getSegmentDataSource().getLength());
+    }
+
+    @Test
+    public void testReadBeyondEnd() throws NitfFormatException {
+        ByteBufferNitfReader reader = new ByteBufferNitfReader(ByteBuffer.wrap(new byte[4]));
+        reader.skip(2);
+        exception.expect(NitfFormatException.class);
+        exception.expectMessage("Error reading from NITF buffer: attempt to read 3 bytes with only 2 remaining");
+        reader.readBytesRaw(3);
+    }
+
+    @Test
+    public void testStreamingModeFromDirectBuffer() throws NitfFormatException, URISyntaxException, IOException {
+        ByteBuffer buffer = loadDirect(getTestFile("/JitcNitf21Samples/ns3321a.nsf"));
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        ByteBufferNitfReader reader = new ByteBufferNitfReader(buffer);
+        NitfParser.parse(reader, parseStrategy);
+        File outputFile = temporaryFolder.newFile("ns3321a.nsf");
+        new NitfFileWriter(parseStrategy.getDataSource(), outputFile.getPath()).write();
+        assertTrue(FileUtils.contentEquals(getTestFile("/ns3321a.nsf.reference"), outputFile));
+    }
+
+    @Test
+    public void testDirectSliceIsDirect() throws NitfFormatException, URISyntaxException, IOException {
+        ByteBufferNitfReader reader = new ByteBufferNitfReader(loadDirect(getTestFile("/WithBE.ntf")));
+        ByteBuffer slice = reader.readSlice(9);
+        assertTrue(slice.isDirect());
+        byte[] header = new byte[9];
+        slice.get(header);
+        assertThat(new String(header), is("NITF02.10"));
+    }
+}
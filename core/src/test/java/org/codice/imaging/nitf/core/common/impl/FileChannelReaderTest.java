@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import org.apache.commons.io.FileUtils;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.impl.NitfFileWriter;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for FileChannelReader class
+ */
+public class FileChannelReaderTest {
+
+    private static final String TEST_FILE = "/WithBE.ntf";
+
+    private static final int SMALL_BLOCK = 7;
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File getTestFile(final String testfile) throws URISyntaxException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        return new File(getClass().getResource(testfile).toURI());
+    }
+
+    @Test
+    public void testBadFileConstructorArgument() throws NitfFormatException {
+        exception.expect(NitfFormatException.class);
+        exception.expectMessage("no such file not found: no such file");
+        new FileChannelReader(new File("no such file"));
+    }
+
+    @Test
+    public void testSameContentAsFileReader() throws NitfFormatException, URISyntaxException {
+        File file = getTestFile(TEST_FILE);
+        FileReader fileReader = new FileReader(file);
+        FileChannelReader channelReader = new FileChannelReader(file, SMALL_BLOCK);
+        assertTrue(channelReader.canSeek());
+        assertThat(channelReader.readBytesRaw(100), is(fileReader.readBytesRaw(100)));
+        assertThat(channelReader.readBytes(9), is(fileReader.readBytes(9)));
+        assertEquals(109L, channelReader.getCurrentOffset());
+        channelReader.seekBackwards(50);
+        fileReader.seekBackwards(50);
+        assertThat(channelReader.readBytesRaw(3), is(fileReader.readBytesRaw(3)));
+        channelReader.skip(200);
+        fileReader.skip(200);
+        assertThat(channelReader.readBytesRaw(2), is(fileReader.readBytesRaw(2)));
+        channelReader.seekToEndOfFile();
+        fileReader.seekToEndOfFile();
+        assertThat(channelReader.getCurrentOffset(), is(fileReader.getCurrentOffset()));
+        channelReader.close();
+        fileReader.close();
+    }
+
+    @Test
+    public void testSeekWithinBuffer() throws NitfFormatException, URISyntaxException {
+        File file = getTestFile(TEST_FILE);
+        FileReader fileReader = new FileReader(file);
+        FileChannelReader channelReader = new FileChannelReader(file, 64);
+        assertThat(channelReader.getBlockSize(), is(64));
+        fileReader.seekToAbsoluteOffset(30);
+        channelReader.seekToAbsoluteOffset(30);
+        assertThat(channelReader.readBytesRaw(20), is(fileReader.readBytesRaw(20)));
+        channelReader.seekBackwards(15);
+        fileReader.seekBackwards(15);
+        assertThat(channelReader.readBytesRaw(10), is(fileReader.readBytesRaw(10)));
+        channelReader.seekToAbsoluteOffset(10);
+        fileReader.seekToAbsoluteOffset(10);
+        assertThat(channelReader.readBytesRaw(200), is(fileReader.readBytesRaw(200)));
+        assertThat(channelReader.readBytesRaw(60), is(fileReader.readBytesRaw(60)));
+        assertEquals(270L, channelReader.getCurrentOffset());
+        channelReader.close();
+        fileReader.close();
+    }
+
+    @Test
+    public void testSharedChannel() throws NitfFormatException, URISyntaxException, IOException {
+        File file = getTestFile(TEST_FILE);
+        FileChannelSegmentDataSource source = new FileChannelSegmentDataSource(file);
+        FileChannelReader first = new FileChannelReader(source.getChannel(), SMALL_BLOCK);
+        FileChannelReader second = new FileChannelReader(source.getChannel(), SMALL_BLOCK);
+        first.skip(20);
+        assertThat(second.readBytes(9), is("NITF02.10"));
+        first.close();
+        second.seekToAbsoluteOffset(0);
+        assertThat(second.readBytes(4), is("NITF"));
+        assertThat(first.getCurrentOffset(), is(20L));
+        second.close();
+        source.close();
+    }
+
+    @Test
+    public void testReadBeyondEndOfFile() throws NitfFormatException, URISyntaxException {
+        File file = getTestFile(TEST_FILE);
+        FileChannelReader reader = new FileChannelReader(file);
+        reader.seekToEndOfFile();
+        reader.seekBackwards(2);
+        exception.expect(NitfFormatException.class);
+        exception.expectMessage("Error reading from NITF file: unexpected end of file");
+        reader.readBytesRaw(3);
+    }
+
+    @Test
+    public void testNegativeSeek() throws NitfFormatException, URISyntaxException {
+        FileChannelReader reader = new FileChannelReader(getTestFile(TEST_FILE));
+        reader.readBytesRaw(10);
+        exception.expect(NitfFormatException.class);
+        exception.expectMessage("Unable to seek backwards: Negative seek offset");
+        reader.seekBackwards(11);
+    }
+
+    @Test
+    public void testRoundTripAcrossBlocks() throws NitfFormatException, URISyntaxException, IOException {
+        File resourceFile = getTestFile("/JitcNitf21Samples/ns3321a.nsf");
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        FileChannelReader reader = new FileChannelReader(resourceFile, 4096);
+        NitfParser.parse(reader, parseStrategy);
+        File outputFile = temporaryFolder.newFile("ns3321a.nsf");
+        new NitfFileWriter(parseStrategy.getDataSource(), outputFile.getPath()).write();
+        reader.close();
+        assertTrue(FileUtils.contentEquals(getTestFile("/ns3321a.nsf.reference"), outputFile));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.io.FileUtils;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.impl.NitfFileWriter;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for MappedFileReader class
+ */
+public class MappedFileReaderTest {
+
+    private static final String TEST_FILE = "/WithBE.ntf";
+
+    private static final int SMALL_WINDOW = 7;
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File getTestFile(final String testfile) throws URISyntaxException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        return new File(getClass().getResource(testfile).toURI());
+    }
+
+    @Test
+    public void testBadFileConstructorArgument() throws NitfFormatException {
+        exception.expect(NitfFormatException.class);
+        exception.expectMessage("no such file not found: no such file");
+        new MappedFileReader(new File("no such file"));
+    }
+
+    @Test
+    public void testSameContentAsFileReader() throws NitfFormatException, URISyntaxException {
+        File file = getTestFile(TEST_FILE);
+        FileReader fileReader = new FileReader(file);
+        MappedFileReader mappedReader = new MappedFileReader(file, SMALL_WINDOW);
+        assertTrue(mappedReader.canSeek());
+        assertThat(mappedReader.getFileLength(), is(file.length()));
+        assertThat(mappedReader.readBytesRaw(100), is(fileReader.readBytesRaw(100)));
+        assertThat(mappedReader.readBytes(9), is(fileReader.readBytes(9)));
+        assertEquals(109L, mappedReader.getCurrentOffset());
+        mappedReader.seekBackwards(50);
+        fileReader.seekBackwards(50);
+        assertThat(mappedReader.readBytesRaw(3), is(fileReader.readBytesRaw(3)));
+        mappedReader.skip(200);
+        fileReader.skip(200);
+        assertThat(mappedReader.readBytesRaw(2), is(fileReader.readBytesRaw(2)));
+        mappedReader.seekToEndOfFile();
+        fileReader.seekToEndOfFile();
+        assertThat(mappedReader.getCurrentOffset(), is(fileReader.getCurrentOffset()));
+        mappedReader.close();
+        fileReader.close();
+    }
+
+    @Test
+    public void testReadSlice() throws NitfFormatException, URISyntaxException {
+        File file = getTestFile(TEST_FILE);
+        MappedFileReader reader = new MappedFileReader(file, SMALL_WINDOW);
+        reader.seekToAbsoluteOffset(2);
+        ByteBuffer withinWindow = reader.readSlice(4);
+        assertTrue(withinWindow.isDirect());
+        assertTrue(withinWindow.isReadOnly());
+        assertThat(withinWindow.remaining(), is(4));
+        ByteBuffer acrossWindows = reader.readSlice(10);
+        assertFalse(acrossWindows.isDirect());
+        assertThat(acrossWindows.remaining(), is(10));
+        assertEquals(16L, reader.getCurrentOffset());
+
+        reader.seekToAbsoluteOffset(2);
+        byte[] expected = reader.readBytesRaw(14);
+        byte[] actual = new byte[14];
+        withinWindow.get(actual, 0, 4);
+        acrossWindows.get(actual, 4, 10);
+        assertThat(actual, is(expected));
+        reader.close();
+    }
+
+    @Test
+    public void testReadBeyondEndOfFile() throws NitfFormatException, URISyntaxException {
+        File file = getTestFile(TEST_FILE);
+        MappedFileReader reader = new MappedFileReader(file);
+        reader.seekToEndOfFile();
+        reader.seekBackwards(2);
+        exception.expect(NitfFormatException.class);
+        exception.expectMessage("Error reading from NITF file: attempt to read 3 bytes with only 2 remaining");
+        reader.readBytesRaw(3);
+    }
+
+    @Test
+    public void testNegativeSeek() throws NitfFormatException, URISyntaxException {
+        MappedFileReader reader = new MappedFileReader(getTestFile(TEST_FILE));
+        reader.readBytesRaw(10);
+        exception.expect(NitfFormatException.class);
+        exception.expectMessage("Unable to seek to absolute offset: Negative seek offset");
+        reader.seekBackwards(11);
+    }
+
+    @Test
+    public void testRoundTripAcrossWindows() throws NitfFormatException, URISyntaxException, IOException {
+        File resourceFile = getTestFile("/JitcNitf21Samples/ns3321a.nsf");
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        MappedFileReader reader = new MappedFileReader(resourceFile, 4096);
+        NitfParser.parse(reader, parseStrategy);
+        File outputFile = temporaryFolder.newFile("ns3321a.nsf");
+        new NitfFileWriter(parseStrategy.getDataSource(), outputFile.getPath()).write();
+        reader.close();
+        assertTrue(FileUtils.contentEquals(getTestFile("/ns3321a.nsf.reference"), outputFile));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the buffered NITF output.
+ */
+public class NitfOutputTest {
+
+    private static final int SMALL_BUFFER_SIZE = 32;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void checkFixedLengthNumbers() throws IOException {
+        long[] numbers = {0, 5, 42, -7, 999, 1000, -100, 123456789012L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long number : numbers) {
+            for (int length = 0; length < 22; ++length) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                NitfOutput output = new NitfOutput(Channels.newChannel(bytes), SMALL_BUFFER_SIZE);
+                boolean fits = String.format("%d", number).length() <= length;
+                assertThat(output.writeFixedLengthNumber(number, length), is(fits));
+                output.flush();
+                String expected = "";
+                if (fits) {
+                    expected = String.format("%0" + length + "d", number);
+                }
+                assertThat(new String(bytes.toByteArray(), StandardCharsets.US_ASCII), is(expected));
+            }
+        }
+    }
+
+    @Test
+    public void checkFixedLengthStrings() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        NitfOutput output = new NitfOutput(Channels.newChannel(bytes), SMALL_BUFFER_SIZE);
+        output.writeFixedLengthString("NITF", 4);
+        output.writeFixedLengthString("02.10", 7);
+        output.writeFixedLengthString("", 40);
+        output.writeFixedLengthString("X", 1);
+        assertThat(output.getPosition(), is(52L));
+        output.flush();
+        assertThat(new String(bytes.toByteArray(), StandardCharsets.US_ASCII),
+                is(String.format("%-4s%-7s%-40s%-1s", "NITF", "02.10", "", "X")));
+    }
+
+    @Test
+    public void checkMatchesDataOutputStream() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        writeEverything(new DataOutputStream(expected));
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        NitfOutput output = new NitfOutput(Channels.newChannel(actual), SMALL_BUFFER_SIZE);
+        writeEverything(output);
+        assertThat(output.getPosition(), is((long) expected.size()));
+        output.flush();
+        assertThat(actual.toByteArray(), is(expected.toByteArray()));
+    }
+
+    private void writeEverything(final DataOutput output) throws IOException {
+        byte[] large = new byte[100];
+        for (int i = 0; i < large.length; ++i) {
+            large[i] = (byte) i;
+        }
+        output.writeBytes("Header");
+        output.writeByte(0xFF);
+        output.writeBoolean(true);
+        output.writeShort(-2);
+        output.writeChar('Z');
+        output.writeInt(0x01020304);
+        output.writeLong(-5L);
+        output.writeFloat(1.5f);
+        output.writeDouble(-0.25);
+        output.write(large);
+        output.write(large, 10, 20);
+        output.writeChars("AB");
+        output.writeUTF("text");
+        output.writeBytes("A string that is longer than the buffer");
+    }
+
+    @Test
+    public void checkTransferFrom() throws IOException {
+        File sourceFile = temporaryFolder.newFile("source.bin");
+        byte[] sourceData = new byte[1000];
+        for (int i = 0; i < sourceData.length; ++i) {
+            sourceData[i] = (byte) (i * 7);
+        }
+        Files.write(sourceFile.toPath(), sourceData);
+        File outputFile = temporaryFolder.newFile("output.bin");
+        try (FileChannel source = FileChannel.open(sourceFile.toPath(), StandardOpenOption.READ);
+                FileChannel target = FileChannel.open(outputFile.toPath(), StandardOpenOption.WRITE)) {
+            NitfOutput output = new NitfOutput(target, SMALL_BUFFER_SIZE);
+            output.writeFixedLengthString("AB", 2);
+            output.transferFrom(source, 100, 800);
+            output.writeFixedLengthNumber(7, 3);
+            assertThat(output.getPosition(), is(805L));
+            output.flush();
+            assertThat(source.position(), is(0L));
+            try {
+                output.transferFrom(source, 900, 200);
+                fail("Expected the transfer to fail at the end of the source");
+            } catch (EOFException ex) {
+                assertThat(ex.getMessage(), is("Source ended after 100 of 200 bytes at offset 900"));
+            }
+        }
+        byte[] written = Files.readAllBytes(outputFile.toPath());
+        assertThat(Arrays.copyOfRange(written, 0, 2), is("AB".getBytes(StandardCharsets.US_ASCII)));
+        assertThat(Arrays.copyOfRange(written, 2, 802), is(Arrays.copyOfRange(sourceData, 100, 900)));
+        assertThat(Arrays.copyOfRange(written, 802, 805), is("007".getBytes(StandardCharsets.US_ASCII)));
+    }
+}
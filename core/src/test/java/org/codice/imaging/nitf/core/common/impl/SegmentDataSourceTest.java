@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.common.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.stream.ImageInputStream;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.SegmentDataSource;
+import org.junit.Test;
+
+/**
+ * Tests for the SegmentDataSource implementations.
+ */
+public class SegmentDataSourceTest {
+
+    private static final String TEST_FILE = "/JitcNitf21Samples/i_3128b.ntf";
+
+    private static final int THREADS = 8;
+
+    private static final int READS_PER_THREAD = 500;
+
+    private File getTestFile() throws URISyntaxException {
+        assertNotNull("Test file missing", getClass().getResource(TEST_FILE));
+        return new File(getClass().getResource(TEST_FILE).toURI());
+    }
+
+    @Test
+    public void testConcurrentFileChannelReads() throws Exception {
+        File file = getTestFile();
+        byte[] expected = Files.readAllBytes(file.toPath());
+        FileChannelSegmentDataSource source = new FileChannelSegmentDataSource(file);
+        assertThat(source.getLength(), is((long) expected.length));
+        checkConcurrentReads(source, expected);
+        source.close();
+    }
+
+    @Test
+    public void testConcurrentByteBufferReads() throws Exception {
+        byte[] expected = Files.readAllBytes(getTestFile().toPath());
+        ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+        direct.put(expected);
+        direct.flip();
+        checkConcurrentReads(new ByteBufferSegmentDataSource(direct), expected);
+    }
+
+    @Test
+    public void testReaderSourceDoesNotMoveReader() throws NitfFormatException, URISyntaxException, IOException {
+        File file = getTestFile();
+        byte[] expected = Files.readAllBytes(file.toPath());
+        FileReader reader = new FileReader(file);
+        reader.skip(100);
+        SegmentDataSource source = reader.getSegmentDataSource();
+        ByteBuffer destination = ByteBuffer.allocate(10);
+        assertThat(source.read(destination, 0), is(10));
+        assertThat(destination.array(), is(Arrays.copyOfRange(expected, 0, 10)));
+        assertThat(reader.getCurrentOffset(), is(100L));
+        assertThat(reader.readBytesRaw(5), is(Arrays.copyOfRange(expected, 100, 105)));
+        reader.close();
+    }
+
+    @Test
+    public void testStreamReaderHasNoSource() {
+        NitfInputStreamReader reader = new NitfInputStreamReader(new ByteArrayInputStream(new byte[10]));
+        assertThat(reader.getSegmentDataSource(), nullValue());
+    }
+
+    @Test
+    public void testImageInputStreamView() throws NitfFormatException, URISyntaxException, IOException {
+        File file = getTestFile();
+        byte[] expected = Files.readAllBytes(file.toPath());
+        FileChannelSegmentDataSource source = new FileChannelSegmentDataSource(file);
+        ImageInputStream view = source.getImageInputStream(9, 20000);
+        assertThat(view.length(), is(20000L));
+        assertThat(view.read(), is((int) expected[9]));
+        view.seek(19990);
+        byte[] tail = new byte[20];
+        assertThat(view.read(tail), is(10));
+        assertThat(Arrays.copyOfRange(tail, 0, 10), is(Arrays.copyOfRange(expected, 19999, 20009)));
+        assertThat(view.read(), is(-1));
+        view.seek(0);
+        byte[] large = new byte[15000];
+        view.readFully(large);
+        assertThat(large, is(Arrays.copyOfRange(expected, 9, 15009)));
+        view.close();
+        source.close();
+    }
+
+    @Test(expected = NitfFormatException.class)
+    public void testRangeBeyondEnd() throws NitfFormatException, URISyntaxException {
+        FileChannelSegmentDataSource source = new FileChannelSegmentDataSource(getTestFile());
+        try {
+            source.getImageInputStream(source.getLength() - 10, 11);
+        } finally {
+            source.close();
+        }
+    }
+
+    private void checkConcurrentReads(final SegmentDataSource source, final byte[] expected) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; ++t) {
+            final long seed = t;
+            results.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < READS_PER_THREAD; ++i) {
+                        int offset = random.nextInt(expected.length - 1);
+                        int length = 1 + random.nextInt(Math.min(expected.length - offset, 30000));
+                        byte[] actual = new byte[length];
+                        if (random.nextBoolean()) {
+                            ByteBuffer destination = ByteBuffer.wrap(actual);
+                            while (destination.hasRemaining()) {
+                                source.read(destination, offset + destination.position());
+                            }
+                        } else {
+                            ImageInputStream view = source.getImageInputStream(offset, length);
+                            view.readFully(actual);
+                            view.close();
+                        }
+                        if (!Arrays.equals(actual, Arrays.copyOfRange(expected, offset, offset + length))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }));
+        }
+        for (Future<Boolean> result : results) {
+            assertThat(result.get(), is(true));
+        }
+        executor.shutdown();
+    }
+}
@@ -118,7 +118,7 @@ public class GraphicSegmentParserTest {
         intValues.push(SLOC_COL);
         intValues.push(SALVL);
         intValues.push(SDLVL);
-        when(nitfReader.readBytesAsInteger(any(Integer.class))).thenAnswer(a -> intValues.pop());
+        when(nitfReader.readAsciiInt(any(Integer.class))).thenAnswer(a -> intValues.pop());
 
         strategy = mock(ParseStrategy.class);
         when(strategy.parseTREs(any(NitfReader.class), any(Integer.class), eq(TreSource.GraphicExtendedSubheaderData))).thenReturn(new TreCollectionImpl());
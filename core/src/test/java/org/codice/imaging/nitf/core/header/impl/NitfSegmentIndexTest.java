@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.header.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.List;
+
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex.SegmentLocation;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex.SegmentType;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.junit.Test;
+
+/**
+ * Tests for NitfSegmentIndex, and random access parsing with NitfParser.
+ */
+public class NitfSegmentIndexTest {
+
+    private File getTestFile(final String testfile) throws URISyntaxException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        return new File(getClass().getResource(testfile).toURI());
+    }
+
+    @Test
+    public void testIndexOfNitf20File() throws NitfFormatException, URISyntaxException {
+        File file = getTestFile("/JitcNitf20Samples/U_1130F.NTF");
+        FileReader reader = new FileReader(file);
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy();
+        NitfSegmentIndex index = NitfParser.parseSegmentIndex(reader, parseStrategy);
+        assertThat(index.getFileType(), is(FileType.NITF_TWO_ZERO));
+        assertNotNull(parseStrategy.getNitfHeader());
+        assertEquals(index.getHeaderLength(), reader.getCurrentOffset());
+        assertThat(index.getSegments(SegmentType.IMAGE).size(), is(1));
+        assertThat(index.getSegments(SegmentType.GRAPHIC).size(), is(0));
+        assertThat(index.getSegments(SegmentType.SYMBOL).size(), is(1));
+        assertThat(index.getSegments(SegmentType.LABEL).size(), is(1));
+        assertThat(index.getSegments(SegmentType.TEXT).size(), is(1));
+        assertThat(index.getSegments(SegmentType.DATA_EXTENSION).size(), is(7));
+        assertThat(index.getSegments().size(), is(11));
+        assertEquals(file.length(), index.getEndOffset());
+
+        long expectedOffset = index.getHeaderLength();
+        for (SegmentLocation segment : index.getSegments()) {
+            assertEquals(expectedOffset, segment.getSubheaderOffset());
+            assertEquals(segment.getSubheaderOffset() + segment.getSubheaderLength(), segment.getDataOffset());
+            expectedOffset = segment.getEndOffset();
+        }
+        reader.close();
+    }
+
+    @Test
+    public void testRandomAccessToLastDataExtensionSegment() throws NitfFormatException, URISyntaxException {
+        File file = getTestFile("/JitcNitf20Samples/U_1130F.NTF");
+        SlottedParseStrategy sequentialStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+        FileReader sequentialReader = new FileReader(file);
+        NitfParser.parse(sequentialReader, sequentialStrategy);
+        sequentialReader.close();
+        List<DataExtensionSegment> allDes = sequentialStrategy.getDataSource().getDataExtensionSegments();
+
+        FileReader reader = new FileReader(file);
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+        NitfSegmentIndex index = NitfParser.parseSegmentIndex(reader, parseStrategy);
+        SegmentLocation lastDes = index.getSegment(SegmentType.DATA_EXTENSION, 6);
+        NitfParser.parseSegment(reader, parseStrategy, lastDes);
+        assertEquals(lastDes.getEndOffset(), reader.getCurrentOffset());
+        assertThat(parseStrategy.getDataSource().getImageSegments().size(), is(0));
+        assertThat(parseStrategy.getDataSource().getDataExtensionSegments().size(), is(1));
+        assertThat(parseStrategy.getDataSource().getDataExtensionSegments().get(0).getIdentifier(),
+                is(allDes.get(6).getIdentifier()));
+        reader.close();
+    }
+
+    @Test
+    public void testRandomAccessToImageSegment() throws NitfFormatException, URISyntaxException {
+        File file = getTestFile("/JitcNitf21Samples/ns3361c.nsf");
+        FileReader reader = new FileReader(file);
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfSegmentIndex index = NitfParser.parseSegmentIndex(reader, parseStrategy);
+        assertThat(index.getSegments(SegmentType.IMAGE).size(), is(4));
+        assertEquals(file.length(), index.getEndOffset());
+
+        // Parse backwards, to show the order does not matter
+        for (int i = 3; i >= 0; --i) {
+            NitfParser.parseSegment(reader, parseStrategy, index.getSegment(SegmentType.IMAGE, i));
+        }
+        List<ImageSegment> images = parseStrategy.getDataSource().getImageSegments();
+        assertThat(images.size(), is(4));
+        for (int i = 0; i < 4; ++i) {
+            ImageSegment image = images.get(3 - i);
+            assertEquals(index.getSegment(SegmentType.IMAGE, i).getDataLength(), image.getDataLength());
+            assertNotNull(image.getData());
+        }
+        reader.close();
+    }
+
+    @Test
+    public void testStreamingModeIndex() throws NitfFormatException, URISyntaxException {
+        File file = getTestFile("/JitcNitf21Samples/ns3321a.nsf");
+        FileReader reader = new FileReader(file);
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+        NitfSegmentIndex index = NitfParser.parseSegmentIndex(reader, parseStrategy);
+        assertEquals(index.getHeaderLength(), reader.getCurrentOffset());
+        assertThat(index.getSegments(SegmentType.IMAGE).size(), is(1));
+        assertThat(index.getSegments(SegmentType.DATA_EXTENSION).size(), is(1));
+        assertEquals(file.length(), index.getEndOffset());
+        reader.close();
+    }
+}
@@ -177,8 +177,8 @@ public class ImageSegmentParserTest {
 
         when(nitfReader.readBytes(any(Integer.class))).thenAnswer(a -> stringValues.pop());
         when(nitfReader.readTrimmedBytes(any(Integer.class))).thenAnswer(a -> stringValues.pop());
-        when(nitfReader.readBytesAsInteger(any(Integer.class))).thenAnswer(a -> intValues.pop());
-        when(nitfReader.readBytesAsLong(any(Integer.class))).thenAnswer(a -> new Long(intValues.pop()));
+        when(nitfReader.readAsciiInt(any(Integer.class))).thenAnswer(a -> intValues.pop());
+        when(nitfReader.readAsciiLong(any(Integer.class))).thenAnswer(a -> new Long(intValues.pop()));
         strategy = mock(ParseStrategy.class);
     }
 
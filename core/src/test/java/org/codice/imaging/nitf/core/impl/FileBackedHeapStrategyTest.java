@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.impl.ByteBufferNitfReader;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for FileBackedHeapStrategy class
+ */
+public class FileBackedHeapStrategyTest {
+
+    private static final String MULTIPLE_IMAGES_FILE = "/JitcNitf21Samples/ns3361c.nsf";
+
+    private static final int NUMBER_OF_IMAGES = 4;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File getTestFile(final String testfile) throws URISyntaxException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        return new File(getClass().getResource(testfile).toURI());
+    }
+
+    private void roundTrip(final NitfReader reader, final FileBackedHeapStrategy<ImageInputStream> heapStrategy,
+            final File expected) throws NitfFormatException, IOException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        parseStrategy.setImageHeapStrategy(heapStrategy);
+        NitfParser.parse(reader, parseStrategy);
+        File outputFile = new File(temporaryFolder.getRoot(), expected.getName());
+        new NitfFileWriter(parseStrategy.getDataSource(), outputFile.getPath()).write();
+        assertTrue(FileUtils.contentEquals(expected, outputFile));
+        assertTrue(outputFile.delete());
+    }
+
+    @Test
+    public void testOneSpillFilePerSegment() throws NitfFormatException, URISyntaxException, IOException {
+        File spillDirectory = temporaryFolder.newFolder("spill");
+        FileBackedHeapStrategy<ImageInputStream> heapStrategy
+                = new FileBackedHeapStrategy<>(raf -> new FileImageInputStream(raf), spillDirectory);
+        File sourceFile = getTestFile(MULTIPLE_IMAGES_FILE);
+        FileReader reader = new FileReader(sourceFile);
+        roundTrip(reader, heapStrategy, sourceFile);
+        reader.close();
+        assertThat(heapStrategy.getSpillDirectory(), is(spillDirectory));
+        assertThat(heapStrategy.getSpillFileCount(), is(NUMBER_OF_IMAGES));
+        assertThat(spillDirectory.list().length, is(NUMBER_OF_IMAGES));
+
+        heapStrategy.cleanUp();
+        assertThat(heapStrategy.getSpillFileCount(), is(0));
+        assertThat(spillDirectory.list().length, is(0));
+    }
+
+    @Test
+    public void testSpillFilesAreReused() throws NitfFormatException, URISyntaxException, IOException {
+        File spillDirectory = temporaryFolder.newFolder("spill");
+        FileBackedHeapStrategy<ImageInputStream> heapStrategy
+                = new FileBackedHeapStrategy<>(raf -> new FileImageInputStream(raf), spillDirectory);
+        File sourceFile = getTestFile(MULTIPLE_IMAGES_FILE);
+        for (int i = 0; i < 3; ++i) {
+            heapStrategy.reset();
+            FileReader reader = new FileReader(sourceFile);
+            roundTrip(reader, heapStrategy, sourceFile);
+            reader.close();
+            assertThat(spillDirectory.list().length, is(NUMBER_OF_IMAGES));
+        }
+
+        // A smaller file reuses (and truncates) the first spill file
+        heapStrategy.reset();
+        File smallerFile = getTestFile("/JitcNitf21Samples/i_3201c.ntf");
+        FileReader reader = new FileReader(smallerFile);
+        roundTrip(reader, heapStrategy, smallerFile);
+        reader.close();
+        assertThat(heapStrategy.getSpillFileCount(), is(NUMBER_OF_IMAGES));
+        heapStrategy.cleanUp();
+    }
+
+    @Test
+    public void testStreamAndBufferReaders() throws NitfFormatException, URISyntaxException, IOException {
+        FileBackedHeapStrategy<ImageInputStream> heapStrategy
+                = new FileBackedHeapStrategy<>(raf -> new FileImageInputStream(raf));
+        File sourceFile = getTestFile(MULTIPLE_IMAGES_FILE);
+        NitfReader streamReader = new NitfInputStreamReader(
+                new BufferedInputStream(getClass().getResourceAsStream(MULTIPLE_IMAGES_FILE)));
+        roundTrip(streamReader, heapStrategy, sourceFile);
+
+        heapStrategy.reset();
+        NitfReader bufferReader = new ByteBufferNitfReader(
+                ByteBuffer.wrap(FileUtils.readFileToByteArray(sourceFile)));
+        roundTrip(bufferReader, heapStrategy, sourceFile);
+        assertThat(heapStrategy.getSpillFileCount(), is(NUMBER_OF_IMAGES));
+        heapStrategy.cleanUp();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.common.impl.SegmentDataImageInputStream;
+import org.codice.imaging.nitf.core.graphic.GraphicSegment;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for FileRangeHeapStrategy class
+ */
+public class FileRangeHeapStrategyTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File getTestFile(final String testfile) throws URISyntaxException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        return new File(getClass().getResource(testfile).toURI());
+    }
+
+    private SlottedParseStrategy createParseStrategy() {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        parseStrategy.setSegmentDataHeapStrategy(new FileRangeHeapStrategy<>(iis -> iis));
+        return parseStrategy;
+    }
+
+    @Test
+    public void testImageDataIsNotCopied() throws NitfFormatException, URISyntaxException, IOException {
+        File resourceFile = getTestFile("/JitcNitf21Samples/ns3321a.nsf");
+        SlottedParseStrategy parseStrategy = createParseStrategy();
+        FileReader reader = new FileReader(resourceFile);
+        NitfParser.parse(reader, parseStrategy);
+        ImageSegment imageSegment = parseStrategy.getDataSource().getImageSegments().get(0);
+        ImageInputStream imageData = imageSegment.getData();
+        assertThat(imageData, instanceOf(SegmentDataImageInputStream.class));
+        SegmentDataImageInputStream rangeStream = (SegmentDataImageInputStream) imageData;
+        assertEquals(imageSegment.getDataLength(), rangeStream.length());
+
+        reader.seekToAbsoluteOffset(rangeStream.getRangeOffset());
+        byte[] expected = reader.readBytesRaw(100);
+        byte[] actual = new byte[100];
+        imageData.readFully(actual);
+        assertThat(actual, is(expected));
+
+        File outputFile = temporaryFolder.newFile("ns3321a.nsf");
+        imageData.seek(0);
+        new NitfFileWriter(parseStrategy.getDataSource(), outputFile.getPath()).write();
+        reader.close();
+        assertTrue(FileUtils.contentEquals(getTestFile("/ns3321a.nsf.reference"), outputFile));
+    }
+
+    @Test
+    public void testGraphicDataIsNotCopied() throws NitfFormatException, URISyntaxException {
+        SlottedParseStrategy parseStrategy = createParseStrategy();
+        FileReader reader = new FileReader(getTestFile("/JitcNitf21Samples/ns3051v.nsf"));
+        NitfParser.parse(reader, parseStrategy);
+        GraphicSegment graphicSegment = parseStrategy.getDataSource().getGraphicSegments().get(0);
+        assertThat(graphicSegment.getData(), instanceOf(SegmentDataImageInputStream.class));
+        reader.close();
+    }
+
+    @Test
+    public void testStreamReaderFallback() throws NitfFormatException, URISyntaxException, IOException {
+        File resourceFile = getTestFile("/JitcNitf21Samples/i_3201c.ntf");
+        SlottedParseStrategy parseStrategy = createParseStrategy();
+        NitfInputStreamReader reader = new NitfInputStreamReader(
+                new BufferedInputStream(getClass().getResourceAsStream("/JitcNitf21Samples/i_3201c.ntf")));
+        NitfParser.parse(reader, parseStrategy);
+        ImageInputStream imageData = parseStrategy.getDataSource().getImageSegments().get(0).getData();
+        assertThat(imageData, not(instanceOf(SegmentDataImageInputStream.class)));
+        File outputFile = temporaryFolder.newFile("i_3201c.ntf");
+        new NitfFileWriter(parseStrategy.getDataSource(), outputFile.getPath()).write();
+        assertTrue(FileUtils.contentEquals(resourceFile, outputFile));
+    }
+
+    @Test
+    public void testRoundTripWithGraphicsAndDes() throws NitfFormatException, URISyntaxException, IOException {
+        for (String sample : new String[] {"/JitcNitf21Samples/ns3051v.nsf", "/JitcNitf21Samples/i_3201c.ntf",
+                "/JitcNitf20Samples/U_1034A.NTF"}) {
+            File resourceFile = getTestFile(sample);
+            SlottedParseStrategy parseStrategy = createParseStrategy();
+            FileReader reader = new FileReader(resourceFile);
+            NitfParser.parse(reader, parseStrategy);
+            File outputFile = new File(temporaryFolder.getRoot(), resourceFile.getName());
+            new NitfFileWriter(parseStrategy.getDataSource(), outputFile.getPath()).write();
+            reader.close();
+            assertTrue(sample, FileUtils.contentEquals(resourceFile, outputFile));
+        }
+    }
+
+    @Test
+    public void testStreamWriterCopiesFileRange() throws NitfFormatException, URISyntaxException, IOException {
+        File resourceFile = getTestFile("/JitcNitf21Samples/ns3321a.nsf");
+        SlottedParseStrategy parseStrategy = createParseStrategy();
+        FileReader reader = new FileReader(resourceFile);
+        NitfParser.parse(reader, parseStrategy);
+        // The range is copied from the file, whatever the position of the stream is.
+        parseStrategy.getDataSource().getImageSegments().get(0).getData().seek(10);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new NitfOutputStreamWriter(parseStrategy.getDataSource(), outputStream).write();
+        reader.close();
+        assertThat(outputStream.toByteArray(), is(FileUtils.readFileToByteArray(getTestFile("/ns3321a.nsf.reference"))));
+    }
+}
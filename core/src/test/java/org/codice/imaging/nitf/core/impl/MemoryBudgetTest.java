@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Tests for MemoryBudget class, and its use by the heap strategies.
+ */
+public class MemoryBudgetTest {
+
+    private static final String MULTIPLE_IMAGES_FILE = "/JitcNitf21Samples/ns3361c.nsf";
+
+    private static final long IMAGE_DATA_LENGTH = 65536;
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private File getTestFile(final String testfile) throws URISyntaxException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        return new File(getClass().getResource(testfile).toURI());
+    }
+
+    @Test
+    public void testReserveAndRelease() {
+        MemoryBudget budget = new MemoryBudget(100);
+        assertTrue(budget.tryReserve(60));
+        assertFalse(budget.tryReserve(41));
+        assertTrue(budget.tryReserve(40));
+        assertThat(budget.getReserved(), is(100L));
+        assertThat(budget.getAvailable(), is(0L));
+        budget.release(100);
+        assertThat(budget.getAvailable(), is(100L));
+        assertFalse(budget.canEverReserve(101));
+    }
+
+    @Test
+    public void testBadCapacity() {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("MemoryBudget(): capacity must be positive, got 0");
+        new MemoryBudget(0);
+    }
+
+    @Test
+    public void testReleaseMoreThanReserved() {
+        MemoryBudget budget = new MemoryBudget(100);
+        budget.tryReserve(10);
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("release(): 11 bytes released, but only 10 reserved");
+        budget.release(11);
+    }
+
+    @Test
+    public void testReserveMoreThanCapacity() throws InterruptedException {
+        MemoryBudget budget = new MemoryBudget(100);
+        assertFalse(budget.reserve(101, MemoryBudget.ExhaustedPolicy.BLOCK));
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("reserve(): 101 bytes requested, but capacity is only 100");
+        budget.reserve(101);
+    }
+
+    @Test
+    public void testBlockingReserve() throws InterruptedException {
+        MemoryBudget budget = new MemoryBudget(100);
+        budget.reserve(80);
+        assertFalse(budget.reserve(30, 10, TimeUnit.MILLISECONDS));
+        assertFalse(budget.reserve(30, MemoryBudget.ExhaustedPolicy.REJECT));
+
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean reserved = new AtomicBoolean(false);
+        Thread waiter = new Thread(() -> {
+            try {
+                started.countDown();
+                budget.reserve(30);
+                reserved.set(true);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        started.await();
+        assertFalse(reserved.get());
+        budget.release(80);
+        waiter.join(TimeUnit.SECONDS.toMillis(10));
+        assertTrue(reserved.get());
+        assertThat(budget.getReserved(), is(30L));
+    }
+
+    @Test
+    public void testInMemoryHeapStrategyReleasesOnCleanUp() throws NitfFormatException, URISyntaxException {
+        MemoryBudget budget = new MemoryBudget(IMAGE_DATA_LENGTH * 10);
+        InMemoryHeapStrategy<ImageInputStream> heapStrategy
+                = new InMemoryHeapStrategy<>(is -> new MemoryCacheImageInputStream(is), budget);
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        parseStrategy.setImageHeapStrategy(heapStrategy);
+        FileReader reader = new FileReader(getTestFile(MULTIPLE_IMAGES_FILE));
+        NitfParser.parse(reader, parseStrategy);
+        reader.close();
+        assertThat(budget.getReserved(), is(IMAGE_DATA_LENGTH * 4));
+        heapStrategy.cleanUp();
+        assertThat(budget.getReserved(), is(0L));
+    }
+
+    private SlottedParseStrategy parseWith(final ConfigurableHeapStrategy<ImageInputStream> heapStrategy)
+            throws NitfFormatException, URISyntaxException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        parseStrategy.setImageHeapStrategy(heapStrategy);
+        FileReader reader = new FileReader(getTestFile(MULTIPLE_IMAGES_FILE));
+        NitfParser.parse(reader, parseStrategy);
+        reader.close();
+        return parseStrategy;
+    }
+
+    private ConfigurableHeapStrategy<ImageInputStream> createHeapStrategy(final MemoryBudget budget,
+            final MemoryBudget.ExhaustedPolicy policy) {
+        HeapStrategyConfiguration configuration = new HeapStrategyConfiguration(length -> false);
+        configuration.setMemoryBudget(budget, policy);
+        return new ConfigurableHeapStrategy<>(configuration,
+                raf -> new FileImageInputStream(raf), is -> new MemoryCacheImageInputStream(is));
+    }
+
+    @Test
+    public void testConfigurableHeapStrategyReject() throws NitfFormatException, URISyntaxException {
+        MemoryBudget budget = new MemoryBudget(IMAGE_DATA_LENGTH * 3);
+        ConfigurableHeapStrategy<ImageInputStream> heapStrategy = createHeapStrategy(budget, MemoryBudget.ExhaustedPolicy.REJECT);
+        SlottedParseStrategy parseStrategy = parseWith(heapStrategy);
+        ImageSegment lastImage = parseStrategy.getDataSource().getImageSegments().get(3);
+        assertNotNull(parseStrategy.getDataSource().getImageSegments().get(2).getData());
+        assertNull(lastImage.getData());
+        assertThat(budget.getReserved(), is(IMAGE_DATA_LENGTH * 3));
+        heapStrategy.cleanUp();
+        assertThat(budget.getReserved(), is(0L));
+    }
+
+    @Test
+    public void testConfigurableHeapStrategySpill() throws NitfFormatException, URISyntaxException {
+        MemoryBudget budget = new MemoryBudget(IMAGE_DATA_LENGTH * 3);
+        ConfigurableHeapStrategy<ImageInputStream> heapStrategy = createHeapStrategy(budget, MemoryBudget.ExhaustedPolicy.SPILL);
+        SlottedParseStrategy parseStrategy = parseWith(heapStrategy);
+        assertTrue(parseStrategy.getDataSource().getImageSegments().get(2).getData() instanceof MemoryCacheImageInputStream);
+        assertTrue(parseStrategy.getDataSource().getImageSegments().get(3).getData() instanceof FileImageInputStream);
+        assertThat(budget.getReserved(), is(IMAGE_DATA_LENGTH * 3));
+        heapStrategy.cleanUp();
+        assertThat(budget.getReserved(), is(0L));
+    }
+}
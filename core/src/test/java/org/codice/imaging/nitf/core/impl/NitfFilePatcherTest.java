@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileChannelReader;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex.SegmentLocation;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.impl.NitfFilePatcher.PatchResult;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for NitfFilePatcher class
+ */
+public class NitfFilePatcherTest {
+
+    private static final String TEST_FILE = "/JitcNitf21Samples/i_3113g.ntf";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private int expectedFiles = 0;
+
+    private File copyTestFile(final String testfile) throws URISyntaxException, IOException {
+        return copyTestFile(testfile, "patched.ntf");
+    }
+
+    private File copyTestFile(final String testfile, final String name) throws URISyntaxException, IOException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        File file = temporaryFolder.newFile(name);
+        FileUtils.copyFile(new File(getClass().getResource(testfile).toURI()), file);
+        return file;
+    }
+
+    private DataSource parse(final File file, final int segmentData) throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(segmentData);
+        parseStrategy.setSegmentDataHeapStrategy(new FileRangeHeapStrategy<>(iis -> iis));
+        NitfParser.parse(new FileReader(file), parseStrategy);
+        return parseStrategy.getDataSource();
+    }
+
+    private File writeInFull(final DataSource dataSource) throws IOException {
+        File file = temporaryFolder.newFile("expected" + ++expectedFiles + ".ntf");
+        new NitfFileWriter(dataSource, file.getPath()).write();
+        return file;
+    }
+
+    @Test
+    public void testUnchangedFileIsNotWritten() throws NitfFormatException, URISyntaxException, IOException {
+        File file = copyTestFile(TEST_FILE);
+        long lastModified = file.lastModified();
+        DataSource dataSource = parse(file, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        File expected = writeInFull(dataSource);
+
+        assertThat(new NitfFilePatcher(dataSource, file.getPath()).patch(), is(PatchResult.UNCHANGED));
+        assertTrue(FileUtils.contentEquals(expected, file));
+        assertThat(file.lastModified(), is(lastModified));
+    }
+
+    @Test
+    public void testSameLengthChangeIsPatched() throws NitfFormatException, URISyntaxException, IOException {
+        File file = copyTestFile(TEST_FILE);
+        DataSource dataSource = parse(file, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        String title = dataSource.getNitfHeader().getFileTitle();
+        dataSource.getNitfHeader().setFileTitle(title.replace('e', 'E'));
+        File expected = writeInFull(dataSource);
+
+        assertThat(new NitfFilePatcher(dataSource, file.getPath()).patch(), is(PatchResult.PATCHED));
+        assertTrue(FileUtils.contentEquals(expected, file));
+    }
+
+    @Test
+    public void testGrowingSubheaderShiftsData() throws NitfFormatException, URISyntaxException, IOException {
+        File file = copyTestFile(TEST_FILE);
+        DataSource dataSource = parse(file, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        dataSource.getImageSegments().get(0).addImageComment("Patched in place");
+        File expected = writeInFull(dataSource);
+
+        assertThat(new NitfFilePatcher(dataSource, file.getPath()).patch(), is(PatchResult.SHIFTED));
+        assertTrue(FileUtils.contentEquals(expected, file));
+        ImageSegment imageSegment = parse(file, SlottedParseStrategy.HEADERS_ONLY).getImageSegments().get(0);
+        assertThat(imageSegment.getImageComments().get(imageSegment.getImageComments().size() - 1), is("Patched in place"));
+    }
+
+    @Test
+    public void testHeadersOnlyDataSourceKeepsData() throws NitfFormatException, URISyntaxException, IOException {
+        File file = copyTestFile(TEST_FILE);
+        DataSource expectedDataSource = parse(file, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        expectedDataSource.getImageSegments().get(0).addImageComment("Patched in place");
+        File expected = writeInFull(expectedDataSource);
+        DataSource dataSource = parse(file, SlottedParseStrategy.HEADERS_ONLY);
+        dataSource.getImageSegments().get(0).addImageComment("Patched in place");
+
+        assertThat(new NitfFilePatcher(dataSource, file.getPath()).patch(), is(PatchResult.SHIFTED));
+        assertTrue(FileUtils.contentEquals(expected, file));
+    }
+
+    @Test
+    public void testChangedTextIsPatched() throws NitfFormatException, URISyntaxException, IOException {
+        File file = copyTestFile("/JitcNitf21Samples/ns3201a.nsf");
+        DataSource dataSource = parse(file, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        TextSegment textSegment = dataSource.getTextSegments().get(0);
+        textSegment.setData(textSegment.getData().toUpperCase());
+        File expected = writeInFull(dataSource);
+
+        assertThat(new NitfFilePatcher(dataSource, file.getPath()).patch(), is(PatchResult.PATCHED));
+        assertTrue(FileUtils.contentEquals(expected, file));
+    }
+
+    @Test
+    public void testShrinkingSubheaderShiftsData() throws NitfFormatException, URISyntaxException, IOException {
+        File file = copyTestFile(TEST_FILE);
+        DataSource dataSource = parse(file, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        File expected = writeInFull(dataSource);
+        dataSource.getImageSegments().get(0).addImageComment("Patched in place");
+        assertThat(new NitfFilePatcher(dataSource, file.getPath()).patch(), is(PatchResult.SHIFTED));
+
+        dataSource = parse(file, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        List<String> comments = dataSource.getImageSegments().get(0).getImageComments();
+        comments.remove(comments.size() - 1);
+        assertThat(new NitfFilePatcher(dataSource, file.getPath()).patch(), is(PatchResult.SHIFTED));
+        assertTrue(FileUtils.contentEquals(expected, file));
+    }
+
+    @Test
+    public void testStreamingFileIsRewritten() throws NitfFormatException, URISyntaxException, IOException {
+        File file = copyTestFile("/JitcNitf21Samples/ns3321a.nsf");
+        DataSource dataSource = parse(file, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        File expected = writeInFull(dataSource);
+
+        assertThat(new NitfFilePatcher(dataSource, file.getPath()).patch(), is(PatchResult.REWRITTEN));
+        assertTrue(FileUtils.contentEquals(expected, file));
+    }
+
+    @Test
+    public void testSameRangeOfOtherFileIsWritten() throws NitfFormatException, URISyntaxException, IOException {
+        File file = copyTestFile(TEST_FILE);
+        File otherFile = copyTestFile(TEST_FILE, "other.ntf");
+        SegmentLocation imageLocation = NitfParser.parseSegmentIndex(new FileReader(otherFile),
+                new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY)).getSegments().get(0);
+        try (RandomAccessFile other = new RandomAccessFile(otherFile, "rw")) {
+            byte[] imageData = new byte[(int) imageLocation.getDataLength()];
+            other.seek(imageLocation.getDataOffset());
+            other.readFully(imageData);
+            for (int i = 0; i < imageData.length; ++i) {
+                imageData[i] = (byte) ~imageData[i];
+            }
+            other.seek(imageLocation.getDataOffset());
+            other.write(imageData);
+        }
+        DataSource dataSource = parse(otherFile, SlottedParseStrategy.ALL_SEGMENT_DATA);
+
+        assertThat(new NitfFilePatcher(dataSource, file.getPath()).patch(), is(PatchResult.PATCHED));
+        assertTrue(FileUtils.contentEquals(otherFile, file));
+    }
+
+    @Test
+    public void testDataFromUnknownFileIsRewritten() throws NitfFormatException, URISyntaxException, IOException {
+        File file = copyTestFile(TEST_FILE);
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+            parseStrategy.setSegmentDataHeapStrategy(new FileRangeHeapStrategy<>(iis -> iis));
+            NitfParser.parse(new FileChannelReader(input.getChannel(), FileChannelReader.DEFAULT_BLOCK_SIZE), parseStrategy);
+            DataSource dataSource = parseStrategy.getDataSource();
+            File expected = writeInFull(dataSource);
+
+            assertThat(new NitfFilePatcher(dataSource, file.getPath()).patch(), is(PatchResult.REWRITTEN));
+            assertTrue(FileUtils.contentEquals(expected, file));
+        }
+    }
+
+    @Test
+    public void testRemovedSegmentIsRewritten() throws NitfFormatException, URISyntaxException, IOException {
+        File file = copyTestFile(TEST_FILE);
+        DataSource dataSource = parse(file, SlottedParseStrategy.ALL_SEGMENT_DATA);
+        dataSource.getImageSegments().remove(0);
+        File expected = writeInFull(dataSource);
+
+        assertThat(new NitfFilePatcher(dataSource, file.getPath()).patch(), is(PatchResult.REWRITTEN));
+        assertTrue(FileUtils.contentEquals(expected, file));
+    }
+}
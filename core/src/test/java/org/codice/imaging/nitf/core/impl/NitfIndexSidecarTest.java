@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.impl.TreCollectionParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for NitfIndexSidecar class
+ */
+public class NitfIndexSidecarTest {
+
+    private static final String NITF20_FILE = "/JitcNitf20Samples/U_1130F.NTF";
+
+    private static final String TRE_OVERFLOW_FILE = "/JitcNitf20Samples/U_3058B.NTF";
+
+    private static final String STREAMING_FILE = "/JitcNitf21Samples/ns3321a.nsf";
+
+    private static final String TRE_FILE = "/JitcNitf21Samples/i_3128b.ntf";
+
+    // Magic, format version, file length and modification time come before the file header length.
+    private static final int HEADER_LENGTH_OFFSET = 28;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File copyTestFile(final String testfile) throws URISyntaxException, IOException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        File source = new File(getClass().getResource(testfile).toURI());
+        File copy = new File(temporaryFolder.getRoot(), source.getName());
+        FileUtils.copyFile(source, copy);
+        return copy;
+    }
+
+    @Test
+    public void testSecondOpenUsesSidecar() throws NitfFormatException, URISyntaxException, IOException {
+        File nitfFile = copyTestFile(NITF20_FILE);
+        File sidecarFile = NitfIndexSidecar.getSidecarFile(nitfFile);
+        assertFalse(NitfIndexSidecar.isValid(nitfFile, sidecarFile));
+
+        NitfIndexSidecar parsed = NitfIndexSidecar.open(nitfFile);
+        assertFalse(parsed.isLoadedFromSidecar());
+        assertTrue(NitfIndexSidecar.isValid(nitfFile, sidecarFile));
+
+        NitfIndexSidecar loaded = NitfIndexSidecar.open(nitfFile);
+        assertTrue(loaded.isLoadedFromSidecar());
+        assertSameMetadata(parsed, loaded);
+        assertThat(loaded.getDataSource().getSymbolSegments().size(), is(1));
+        assertThat(loaded.getDataSource().getLabelSegments().size(), is(1));
+        assertThat(loaded.getDataSource().getDataExtensionSegments().size(), is(7));
+    }
+
+    @Test
+    public void testTreOverflow() throws NitfFormatException, URISyntaxException, IOException {
+        File nitfFile = copyTestFile(TRE_OVERFLOW_FILE);
+        NitfIndexSidecar parsed = NitfIndexSidecar.open(nitfFile);
+        NitfIndexSidecar loaded = NitfIndexSidecar.open(nitfFile);
+        assertFalse(parsed.isLoadedFromSidecar());
+        assertTrue(loaded.isLoadedFromSidecar());
+        assertSameMetadata(parsed, loaded);
+    }
+
+    @Test
+    public void testLoadDoesNotDecodeTres() throws NitfFormatException, URISyntaxException, IOException {
+        File nitfFile = copyTestFile(TRE_FILE);
+        NitfIndexSidecar parsed = NitfIndexSidecar.open(nitfFile);
+        NitfIndexSidecar loaded = NitfIndexSidecar.open(nitfFile);
+        assertTrue(loaded.isLoadedFromSidecar());
+
+        List<Tre> loadedTres = getAllTres(loaded.getDataSource());
+        assertFalse(loadedTres.isEmpty());
+        for (Tre tre : loadedTres) {
+            assertFalse(tre.getName() + " was decoded", TreCollectionParser.isDecoded(tre));
+        }
+        List<Tre> parsedTres = getAllTres(parsed.getDataSource());
+        assertThat(loadedTres.size(), is(parsedTres.size()));
+        for (int i = 0; i < parsedTres.size(); i++) {
+            assertThat(loadedTres.get(i).getName(), is(parsedTres.get(i).getName()));
+            assertThat(loadedTres.get(i).getEntries().size(), is(parsedTres.get(i).getEntries().size()));
+            assertThat(TreCollectionParser.isDecoded(loadedTres.get(i)), is(TreCollectionParser.isDecoded(parsedTres.get(i))));
+        }
+    }
+
+    @Test
+    public void testStaleSidecarIsReplaced() throws NitfFormatException, URISyntaxException, IOException {
+        File nitfFile = copyTestFile(NITF20_FILE);
+        File sidecarFile = NitfIndexSidecar.getSidecarFile(nitfFile);
+        NitfIndexSidecar.open(nitfFile);
+        assertTrue(nitfFile.setLastModified(nitfFile.lastModified() - 60000));
+        assertFalse(NitfIndexSidecar.isValid(nitfFile, sidecarFile));
+
+        NitfIndexSidecar reparsed = NitfIndexSidecar.open(nitfFile);
+        assertFalse(reparsed.isLoadedFromSidecar());
+        assertTrue(NitfIndexSidecar.isValid(nitfFile, sidecarFile));
+        assertTrue(NitfIndexSidecar.open(nitfFile).isLoadedFromSidecar());
+    }
+
+    @Test
+    public void testCorruptSidecarFallsBackToParsing() throws NitfFormatException, URISyntaxException, IOException {
+        File nitfFile = copyTestFile(NITF20_FILE);
+        File sidecarFile = NitfIndexSidecar.getSidecarFile(nitfFile);
+        NitfIndexSidecar parsed = NitfIndexSidecar.open(nitfFile);
+        byte[] sidecar = FileUtils.readFileToByteArray(sidecarFile);
+        byte[] truncated = new byte[sidecar.length / 2];
+        System.arraycopy(sidecar, 0, truncated, 0, truncated.length);
+        FileUtils.writeByteArrayToFile(sidecarFile, truncated);
+
+        NitfIndexSidecar reparsed = NitfIndexSidecar.open(nitfFile);
+        assertFalse(reparsed.isLoadedFromSidecar());
+        assertSameMetadata(parsed, reparsed);
+        assertThat(sidecarFile.length(), is((long) sidecar.length));
+    }
+
+    @Test
+    public void testCorruptLengthFallsBackToParsing() throws NitfFormatException, URISyntaxException, IOException {
+        File nitfFile = copyTestFile(NITF20_FILE);
+        File sidecarFile = NitfIndexSidecar.getSidecarFile(nitfFile);
+        NitfIndexSidecar parsed = NitfIndexSidecar.open(nitfFile);
+        byte[] sidecar = FileUtils.readFileToByteArray(sidecarFile);
+        for (int length : new int[] {-1, Integer.MAX_VALUE}) {
+            ByteBuffer corrupted = ByteBuffer.wrap(sidecar.clone());
+            corrupted.putInt(HEADER_LENGTH_OFFSET, length);
+            FileUtils.writeByteArrayToFile(sidecarFile, corrupted.array());
+
+            NitfIndexSidecar reparsed = NitfIndexSidecar.open(nitfFile);
+            assertFalse(reparsed.isLoadedFromSidecar());
+            assertSameMetadata(parsed, reparsed);
+        }
+    }
+
+    @Test
+    public void testNoSidecarForStreamingFile() throws NitfFormatException, URISyntaxException, IOException {
+        File nitfFile = copyTestFile(STREAMING_FILE);
+        NitfIndexSidecar parsed = NitfIndexSidecar.open(nitfFile);
+        assertFalse(parsed.isLoadedFromSidecar());
+        assertThat(parsed.getDataSource().getImageSegments().size(), is(1));
+        assertFalse(NitfIndexSidecar.getSidecarFile(nitfFile).exists());
+    }
+
+    private List<Tre> getAllTres(final DataSource source) {
+        List<Tre> tres = new ArrayList<>(source.getNitfHeader().getTREsRawStructure().getTREs());
+        for (ImageSegment imageSegment : source.getImageSegments()) {
+            tres.addAll(imageSegment.getTREsRawStructure().getTREs());
+        }
+        for (DataExtensionSegment dataExtensionSegment : source.getDataExtensionSegments()) {
+            tres.addAll(dataExtensionSegment.getTREsRawStructure().getTREs());
+        }
+        return tres;
+    }
+
+    private void assertSameMetadata(final NitfIndexSidecar expected, final NitfIndexSidecar actual) {
+        assertThat(actual.getSegmentIndex().getSegments().toString(), is(expected.getSegmentIndex().getSegments().toString()));
+        assertThat(actual.getSegmentIndex().getHeaderLength(), is(expected.getSegmentIndex().getHeaderLength()));
+        DataSource expectedSource = expected.getDataSource();
+        DataSource actualSource = actual.getDataSource();
+        assertThat(actualSource.getNitfHeader().getFileTitle(), is(expectedSource.getNitfHeader().getFileTitle()));
+        assertThat(actualSource.getNitfHeader().getTREsRawStructure().getTREs().size(),
+                is(expectedSource.getNitfHeader().getTREsRawStructure().getTREs().size()));
+        assertThat(actualSource.getImageSegments().size(), is(expectedSource.getImageSegments().size()));
+        for (int i = 0; i < expectedSource.getImageSegments().size(); i++) {
+            ImageSegment expectedImage = expectedSource.getImageSegments().get(i);
+            ImageSegment actualImage = actualSource.getImageSegments().get(i);
+            assertThat(actualImage.getIdentifier(), is(expectedImage.getIdentifier()));
+            assertThat(actualImage.getNumberOfRows(), is(expectedImage.getNumberOfRows()));
+            assertThat(actualImage.getTREsRawStructure().getTREs().size(),
+                    is(expectedImage.getTREsRawStructure().getTREs().size()));
+        }
+        assertThat(actualSource.getDataExtensionSegments().size(), is(expectedSource.getDataExtensionSegments().size()));
+        for (int i = 0; i < expectedSource.getDataExtensionSegments().size(); i++) {
+            DataExtensionSegment expectedDes = expectedSource.getDataExtensionSegments().get(i);
+            DataExtensionSegment actualDes = actualSource.getDataExtensionSegments().get(i);
+            assertThat(actualDes.getIdentifier(), is(expectedDes.getIdentifier()));
+            assertThat(actualDes.isTreOverflow(), is(expectedDes.isTreOverflow()));
+        }
+        assertThat(actual.getSegmentIndex().getSegments(NitfSegmentIndex.SegmentType.TEXT).size(),
+                is(actualSource.getTextSegments().size()));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for NitfStreamingWriter class
+ */
+public class NitfStreamingWriterTest {
+
+    private static final String TEST_FILE = "/JitcNitf21Samples/i_3113g.ntf";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File getTestFile(final String testfile) throws URISyntaxException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        return new File(getClass().getResource(testfile).toURI());
+    }
+
+    private DataSource parse(final File file) throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        parseStrategy.setSegmentDataHeapStrategy(new FileRangeHeapStrategy<>(iis -> iis));
+        NitfParser.parse(new FileReader(file), parseStrategy);
+        return parseStrategy.getDataSource();
+    }
+
+    private File writeInFull(final DataSource dataSource, final String fileName) throws IOException {
+        File file = temporaryFolder.newFile(fileName);
+        new NitfFileWriter(dataSource, file.getPath()).write();
+        return file;
+    }
+
+    // Replace the image data with a stream that does not know its length, as a producer would supply.
+    private void makeDataLengthsUnknown(final DataSource dataSource) throws IOException {
+        for (ImageSegment imageSegment : dataSource.getImageSegments()) {
+            ImageInputStream data = imageSegment.getData();
+            byte[] bytes = new byte[(int) imageSegment.getDataLength()];
+            data.seek(0);
+            data.readFully(bytes);
+            imageSegment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes)));
+            imageSegment.setDataLength(0);
+        }
+        dataSource.getGraphicSegments().forEach(graphicSegment -> graphicSegment.setDataLength(0));
+    }
+
+    @Test
+    public void testFileChannelHeaderIsBackPatched() throws NitfFormatException, URISyntaxException, IOException {
+        DataSource dataSource = parse(getTestFile(TEST_FILE));
+        File expected = writeInFull(dataSource, "expected.ntf");
+        makeDataLengthsUnknown(dataSource);
+
+        File outputFile = temporaryFolder.newFile("streamed.ntf");
+        try (RandomAccessFile output = new RandomAccessFile(outputFile, NitfFileWriter.WRITE_MODE)) {
+            new NitfStreamingWriter(dataSource, output.getChannel()).writeStream();
+        }
+        assertTrue(FileUtils.contentEquals(expected, outputFile));
+        assertThat(dataSource.getImageSegments().get(1).getDataLength(), is(28152L));
+    }
+
+    @Test
+    public void testOutputStreamUsesStreamingMode() throws NitfFormatException, URISyntaxException, IOException {
+        DataSource dataSource = parse(getTestFile(TEST_FILE));
+        File expected = writeInFull(dataSource, "expected.ntf");
+        makeDataLengthsUnknown(dataSource);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new NitfStreamingWriter(dataSource, outputStream).writeStream();
+        String fileHeader = new String(outputStream.toByteArray(), 0, 440, StandardCharsets.ISO_8859_1);
+        assertTrue(fileHeader.contains("999999999999"));
+        File outputFile = temporaryFolder.newFile("streamed.ntf");
+        FileUtils.writeByteArrayToFile(outputFile, outputStream.toByteArray());
+
+        DataSource streamed = parse(outputFile);
+        assertThat(streamed.getDataExtensionSegments().size(), is(1));
+        assertTrue(streamed.getDataExtensionSegments().get(0).isStreamingMode());
+        assertTrue(FileUtils.contentEquals(expected, writeInFull(streamed, "rewritten.ntf")));
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailingSegmentDataIsReported() throws NitfFormatException, URISyntaxException, IOException {
+        DataSource dataSource = parse(getTestFile(TEST_FILE));
+        makeDataLengthsUnknown(dataSource);
+        ImageSegment imageSegment = dataSource.getImageSegments().get(1);
+        imageSegment.setData(new MemoryCacheImageInputStream(new FailingInputStream(1000)));
+
+        File outputFile = temporaryFolder.newFile("failed.ntf");
+        try (RandomAccessFile output = new RandomAccessFile(outputFile, NitfFileWriter.WRITE_MODE)) {
+            new NitfStreamingWriter(dataSource, output.getChannel()).writeStream();
+        }
+    }
+
+    // Supplies some data, then fails as a producer that loses its source would.
+    private static class FailingInputStream extends InputStream {
+
+        private int remaining;
+
+        FailingInputStream(final int length) {
+            remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                throw new IOException("Segment data source failed");
+            }
+            remaining--;
+            return 'x';
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.io.FileUtils;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for ParallelNitfParser class
+ */
+public class ParallelNitfParserTest {
+
+    private static final String MULTIPLE_IMAGES_FILE = "/JitcNitf21Samples/ns3361c.nsf";
+
+    private static final String[] TEST_FILES = {
+        MULTIPLE_IMAGES_FILE,
+        "/JitcNitf21Samples/ns3051v.nsf",
+        "/JitcNitf21Samples/ns3321a.nsf",
+        "/JitcNitf20Samples/U_1130F.NTF",
+        "/JitcNitf20Samples/U_1122A.NTF",
+        "/JitcNitf20Samples/U_3058B.NTF"
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File getTestFile(final String testfile) throws URISyntaxException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        return new File(getClass().getResource(testfile).toURI());
+    }
+
+    private File write(final SlottedParseStrategy parseStrategy, final String name) throws NitfFormatException {
+        File outputFile = new File(temporaryFolder.getRoot(), name);
+        new NitfFileWriter(parseStrategy.getDataSource(), outputFile.getPath()).write();
+        return outputFile;
+    }
+
+    @Test
+    public void testSameResultAsSequentialParse() throws NitfFormatException, URISyntaxException, IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String testFile : TEST_FILES) {
+                File sourceFile = getTestFile(testFile);
+
+                SlottedParseStrategy sequentialStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+                FileReader sequentialReader = new FileReader(sourceFile);
+                NitfParser.parse(sequentialReader, sequentialStrategy);
+                sequentialReader.close();
+
+                SlottedParseStrategy parallelStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+                FileReader parallelReader = new FileReader(sourceFile);
+                ParallelNitfParser.parse(parallelReader, parallelStrategy, pool);
+                parallelReader.close();
+
+                assertThat(testFile, parallelStrategy.getDataSource().getImageSegments().size(),
+                        is(sequentialStrategy.getDataSource().getImageSegments().size()));
+                assertThat(testFile, parallelStrategy.getDataSource().getDataExtensionSegments().size(),
+                        is(sequentialStrategy.getDataSource().getDataExtensionSegments().size()));
+                File sequentialOutput = write(sequentialStrategy, "sequential.ntf");
+                File parallelOutput = write(parallelStrategy, "parallel.ntf");
+                assertTrue(testFile, FileUtils.contentEquals(sequentialOutput, parallelOutput));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws NitfFormatException, URISyntaxException, IOException {
+        File sourceFile = getTestFile(MULTIPLE_IMAGES_FILE);
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        FileReader reader = new FileReader(sourceFile);
+        ParallelNitfParser.parse(reader, parseStrategy);
+        reader.close();
+        assertThat(parseStrategy.getDataSource().getImageSegments().size(), is(4));
+        assertTrue(FileUtils.contentEquals(sourceFile, write(parseStrategy, sourceFile.getName())));
+    }
+
+    @Test
+    public void testStreamReaderIsParsedSequentially() throws NitfFormatException, URISyntaxException, IOException {
+        File sourceFile = getTestFile(MULTIPLE_IMAGES_FILE);
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        NitfInputStreamReader reader = new NitfInputStreamReader(
+                new BufferedInputStream(getClass().getResourceAsStream(MULTIPLE_IMAGES_FILE)));
+        ParallelNitfParser.parse(reader, parseStrategy);
+        assertThat(parseStrategy.getDataSource().getImageSegments().size(), is(4));
+        assertTrue(FileUtils.contentEquals(sourceFile, write(parseStrategy, sourceFile.getName())));
+    }
+}
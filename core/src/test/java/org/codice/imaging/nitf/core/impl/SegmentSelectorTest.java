@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.net.URISyntaxException;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfReader;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.header.NitfSegmentIndex.SegmentType;
+import org.codice.imaging.nitf.core.image.ImageCategory;
+import org.junit.Test;
+
+/**
+ * Tests for SegmentSelector, as used by SlottedParseStrategy.
+ */
+public class SegmentSelectorTest {
+
+    private static final String TEST_FILE = "/JitcNitf20Samples/U_1123A.NTF";
+
+    private File getTestFile(final String testfile) throws URISyntaxException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        return new File(getClass().getResource(testfile).toURI());
+    }
+
+    private DataSource parse(final NitfReader reader, final SegmentSelector selector) throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        parseStrategy.setSegmentSelector(selector);
+        NitfParser.parse(reader, parseStrategy);
+        return parseStrategy.getDataSource();
+    }
+
+    private DataSource parseFile(final SegmentSelector selector) throws NitfFormatException, URISyntaxException {
+        FileReader reader = new FileReader(getTestFile(TEST_FILE));
+        try {
+            return parse(reader, selector);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private DataSource parseStream(final SegmentSelector selector) throws NitfFormatException {
+        return parse(new NitfInputStreamReader(new BufferedInputStream(getClass().getResourceAsStream(TEST_FILE))), selector);
+    }
+
+    @Test
+    public void testSelectByIndex() throws NitfFormatException, URISyntaxException {
+        SegmentSelector selector = SegmentSelector.segments(SegmentType.IMAGE, 2);
+        for (DataSource dataSource : new DataSource[] {parseFile(selector), parseStream(selector)}) {
+            assertThat(dataSource.getImageSegments().size(), is(1));
+            assertThat(dataSource.getImageSegments().get(0).getIdentifier(), is("0000000003"));
+            assertNotNull(dataSource.getImageSegments().get(0).getData());
+            assertThat(dataSource.getSymbolSegments().size(), is(0));
+            assertThat(dataSource.getTextSegments().size(), is(0));
+        }
+    }
+
+    @Test
+    public void testSelectByIdentifier() throws NitfFormatException, URISyntaxException {
+        SegmentSelector selector = SegmentSelector.identifier(SegmentType.IMAGE, "0000000001"::equals);
+        for (DataSource dataSource : new DataSource[] {parseFile(selector), parseStream(selector)}) {
+            assertThat(dataSource.getImageSegments().size(), is(2));
+            assertThat(dataSource.getImageSegments().get(0).getIdentifier(), is("0000000001"));
+            assertThat(dataSource.getImageSegments().get(1).getIdentifier(), is("0000000001"));
+        }
+    }
+
+    @Test
+    public void testCombinedSelectors() throws NitfFormatException, URISyntaxException {
+        SegmentSelector selector = SegmentSelector.imageCategory(ImageCategory.VISUAL)
+                .and(SegmentSelector.segments(SegmentType.IMAGE, 0, 4))
+                .or(SegmentSelector.ofType(SegmentType.TEXT));
+        for (DataSource dataSource : new DataSource[] {parseFile(selector), parseStream(selector)}) {
+            assertThat(dataSource.getImageSegments().size(), is(2));
+            assertThat(dataSource.getImageSegments().get(0).getIdentifier(), is("Missing ID"));
+            assertThat(dataSource.getImageSegments().get(1).getIdentifier(), is("0000000001"));
+            assertThat(dataSource.getTextSegments().size(), is(1));
+            assertThat(dataSource.getLabelSegments().size(), is(0));
+        }
+        assertThat(parseFile(SegmentSelector.imageCategory(ImageCategory.INFRARED)).getImageSegments().size(), is(0));
+    }
+
+    @Test
+    public void testParallelParserUsesSelector() throws NitfFormatException, URISyntaxException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        parseStrategy.setSegmentSelector(SegmentSelector.segments(SegmentType.IMAGE, 2, 3));
+        FileReader reader = new FileReader(getTestFile(TEST_FILE));
+        ParallelNitfParser.parse(reader, parseStrategy);
+        reader.close();
+        assertThat(parseStrategy.getDataSource().getImageSegments().size(), is(2));
+        assertThat(parseStrategy.getDataSource().getImageSegments().get(0).getIdentifier(), is("0000000003"));
+        assertThat(parseStrategy.getDataSource().getTextSegments().size(), is(0));
+    }
+}
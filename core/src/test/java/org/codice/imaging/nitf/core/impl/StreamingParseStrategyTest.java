@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.SegmentVisitor;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.dataextension.DataExtensionSegment;
+import org.codice.imaging.nitf.core.header.NitfHeader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.label.LabelSegment;
+import org.codice.imaging.nitf.core.symbol.SymbolSegment;
+import org.codice.imaging.nitf.core.text.TextSegment;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for StreamingParseStrategy class
+ */
+public class StreamingParseStrategyTest {
+
+    private static final String NITF20_FILE = "/JitcNitf20Samples/U_1130F.NTF";
+
+    private static final String MULTIPLE_IMAGES_FILE = "/JitcNitf21Samples/ns3361c.nsf";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private NitfInputStreamReader getReader(final String testfile) throws NitfFormatException {
+        assertNotNull("Test file missing", getClass().getResource(testfile));
+        return new NitfInputStreamReader(new BufferedInputStream(getClass().getResourceAsStream(testfile)));
+    }
+
+    private SlottedParseStrategy parseSlotted(final String testfile) throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.ALL_SEGMENT_DATA);
+        NitfParser.parse(getReader(testfile), parseStrategy);
+        return parseStrategy;
+    }
+
+    @Test
+    public void testAllSegmentsVisitedInOrder() throws NitfFormatException, IOException {
+        List<String> visits = new ArrayList<>();
+        SegmentVisitor visitor = new SegmentVisitor() {
+            @Override
+            public void visitFileHeader(final NitfHeader header) {
+                visits.add("header " + header.getFileTitle());
+            }
+
+            @Override
+            public void visitImageSegment(final ImageSegment segment, final InputStream data) throws IOException {
+                visits.add("image " + segment.getIdentifier() + " " + IOUtils.toByteArray(data).length);
+            }
+
+            @Override
+            public void visitSymbolSegment(final SymbolSegment segment, final InputStream data) throws IOException {
+                visits.add("symbol " + segment.getIdentifier() + " " + IOUtils.toByteArray(data).length);
+            }
+
+            @Override
+            public void visitLabelSegment(final LabelSegment segment, final InputStream data) throws IOException {
+                visits.add("label " + segment.getIdentifier() + " " + IOUtils.toByteArray(data).length);
+            }
+
+            @Override
+            public void visitTextSegment(final TextSegment segment, final InputStream data) throws IOException {
+                visits.add("text " + segment.getIdentifier() + " " + IOUtils.toString(data, "ISO-8859-1"));
+            }
+
+            @Override
+            public void visitDataExtensionSegment(final DataExtensionSegment segment, final InputStream data)
+                    throws IOException {
+                visits.add("des " + segment.getIdentifier().trim() + " " + IOUtils.toByteArray(data).length);
+            }
+        };
+        StreamingParseStrategy parseStrategy = new StreamingParseStrategy(visitor);
+        NitfParser.parse(getReader(NITF20_FILE), parseStrategy);
+
+        SlottedParseStrategy expected = parseSlotted(NITF20_FILE);
+        assertThat(visits.size(), is(1 + 1 + 1 + 1 + 1 + 7));
+        assertThat(visits.get(0), is("header " + expected.getNitfHeader().getFileTitle()));
+        ImageSegment image = expected.getDataSource().getImageSegments().get(0);
+        assertThat(visits.get(1), is("image " + image.getIdentifier() + " " + image.getDataLength()));
+        assertTrue(visits.get(2).startsWith("symbol "));
+        assertTrue(visits.get(3).startsWith("label "));
+        TextSegment text = expected.getDataSource().getTextSegments().get(0);
+        assertThat(visits.get(4), is("text " + text.getIdentifier() + " " + text.getData()));
+        for (int i = 0; i < 7; ++i) {
+            assertTrue(visits.get(5 + i).startsWith("des "));
+        }
+        assertThat(parseStrategy.getDataSource().getImageSegments().size(), is(0));
+        assertThat(parseStrategy.getNitfHeader().getFileTitle(), is(expected.getNitfHeader().getFileTitle()));
+    }
+
+    @Test
+    public void testUnreadDataIsSkipped() throws NitfFormatException, IOException {
+        List<byte[]> firstBytes = new ArrayList<>();
+        List<InputStream> streams = new ArrayList<>();
+        SegmentVisitor visitor = new SegmentVisitor() {
+            @Override
+            public void visitImageSegment(final ImageSegment segment, final InputStream data) throws IOException {
+                byte[] bytes = new byte[16];
+                IOUtils.readFully(data, bytes);
+                firstBytes.add(bytes);
+                streams.add(data);
+            }
+        };
+        NitfParser.parse(getReader(MULTIPLE_IMAGES_FILE), new StreamingParseStrategy(visitor));
+
+        SlottedParseStrategy expected = parseSlotted(MULTIPLE_IMAGES_FILE);
+        assertThat(firstBytes.size(), is(4));
+        for (int i = 0; i < 4; ++i) {
+            byte[] expectedBytes = new byte[16];
+            expected.getDataSource().getImageSegments().get(i).getData().readFully(expectedBytes);
+            assertThat(firstBytes.get(i), is(expectedBytes));
+        }
+        try {
+            streams.get(0).read();
+            fail("Expected segment data to be unavailable after the visit");
+        } catch (IOException ex) {
+            assertThat(ex.getMessage(), is("Segment data can only be read while the segment is being visited."));
+        }
+    }
+
+    @Test
+    public void testVisitorFailureStopsParsing() throws NitfFormatException {
+        List<String> visits = new ArrayList<>();
+        SegmentVisitor visitor = new SegmentVisitor() {
+            @Override
+            public void visitImageSegment(final ImageSegment segment, final InputStream data) throws IOException {
+                visits.add(segment.getIdentifier());
+                throw new IOException("Stop");
+            }
+        };
+        StreamingParseStrategy parseStrategy = new StreamingParseStrategy(visitor);
+        NitfParser.parse(getReader(MULTIPLE_IMAGES_FILE), parseStrategy);
+        assertThat(visits.size(), is(1));
+        assertTrue(parseStrategy.isFailed());
+        assertThat(parseStrategy.getFailure().getCause().getMessage(), is("Stop"));
+    }
+
+    @Test
+    public void testSuccessfulParseIsNotFailed() throws NitfFormatException {
+        StreamingParseStrategy parseStrategy = new StreamingParseStrategy(new SegmentVisitor() { });
+        NitfParser.parse(getReader(MULTIPLE_IMAGES_FILE), parseStrategy);
+        assertFalse(parseStrategy.isFailed());
+        assertNull(parseStrategy.getFailure());
+    }
+
+    @Test
+    public void testFileHeaderVisitedWithoutSegments() throws NitfFormatException, IOException {
+        DataSource dataSource = parseSlotted(MULTIPLE_IMAGES_FILE).getDataSource();
+        dataSource.getImageSegments().clear();
+        dataSource.getGraphicSegments().clear();
+        dataSource.getTextSegments().clear();
+        dataSource.getDataExtensionSegments().clear();
+        File headerOnlyFile = temporaryFolder.newFile("header-only.ntf");
+        new NitfFileWriter(dataSource, headerOnlyFile.getPath()).write();
+
+        List<NitfHeader> headers = new ArrayList<>();
+        SegmentVisitor visitor = new SegmentVisitor() {
+            @Override
+            public void visitFileHeader(final NitfHeader header) {
+                headers.add(header);
+            }
+        };
+        StreamingParseStrategy parseStrategy = new StreamingParseStrategy(visitor);
+        NitfParser.parse(new FileReader(headerOnlyFile), parseStrategy);
+        assertThat(headers.size(), is(1));
+        assertThat(headers.get(0).getFileTitle(), is(dataSource.getNitfHeader().getFileTitle()));
+        assertFalse(parseStrategy.isFailed());
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItems;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.TaggedRecordExtensionHandler;
+import org.codice.imaging.nitf.core.common.impl.FileReader;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.impl.NitfParser;
+import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreEntry;
+import org.codice.imaging.nitf.core.tre.TreGroup;
+import org.junit.Test;
+
+/**
+ * Checks that the generated TRE parsers give the same results as the TRE descriptor interpreter.
+ */
+public class CompiledTreTest {
+
+    private static final String[] SAMPLE_DIRECTORIES = {"/Codice", "/ECRG", "/Green2007", "/JitcJpeg2000",
+        "/JitcNitf20Samples", "/JitcNitf21Samples", "/SENSRB", "/WPAFB-21Oct2009", "/fromGDAL", "/fromNitro", "/fromOSGEO",
+        "/fromVTS"};
+
+    @Test
+    public void checkBuiltInTresAreCompiled() throws NitfFormatException {
+        TreDescriptorRegistry registry = TreDescriptorRegistry.getGlobal();
+        for (String tag : Arrays.asList("ACFTB", "ENGRDA", "RPC00B", "CSEPHA", "MTIMSA")) {
+            assertNotNull(tag, CompiledTres.get(tag));
+            assertTrue(tag, registry.isBuiltIn(registry.getDescriptor(tag)));
+        }
+        assertNull(CompiledTres.get("NOSUCH"));
+    }
+
+    @Test
+    public void checkCompiledTresMatchInterpreter() throws NitfFormatException, URISyntaxException {
+        TreParser compiledParser = new TreParser();
+        TreParser interpretingParser = new TreParser();
+        interpretingParser.setCompiledTresEnabled(false);
+
+        Set<String> checkedTags = new TreeSet<>();
+        for (File sample : getSamples()) {
+            for (Tre tre : parseTres(sample)) {
+                if (CompiledTres.get(tre.getName()) == null) {
+                    continue;
+                }
+                byte[] treBody = tre.getRawData();
+                if (treBody == null) {
+                    treBody = compiledParser.serializeTRE(tre);
+                    assertArrayEquals(sample + ": " + tre.getName(), interpretingParser.serializeTRE(tre), treBody);
+                }
+                Tre compiledTre = parse(compiledParser, tre, treBody);
+                Tre interpretedTre = parse(interpretingParser, tre, treBody);
+                assertEquals(sample + ": " + tre.getName(), describe(interpretedTre), describe(compiledTre));
+                checkedTags.add(tre.getName());
+            }
+        }
+        assertThat(checkedTags.size(), greaterThan(10));
+        assertThat(checkedTags, hasItems("BLOCKA", "ENGRDA", "J2KLRA"));
+    }
+
+    private List<File> getSamples() throws URISyntaxException {
+        List<File> samples = new ArrayList<>();
+        for (String directory : SAMPLE_DIRECTORIES) {
+            File[] files = new File(getClass().getResource(directory).toURI()).listFiles();
+            Arrays.sort(files);
+            for (File file : files) {
+                if (file.isFile()) {
+                    samples.add(file);
+                }
+            }
+        }
+        return samples;
+    }
+
+    private List<Tre> parseTres(final File sample) {
+        List<Tre> tres = new ArrayList<>();
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+        try {
+            NitfParser.parse(new FileReader(sample), parseStrategy);
+        } catch (NitfFormatException ex) {
+            // Not a NITF file, or not one we can parse. Either way, not relevant here.
+            return tres;
+        }
+        DataSource dataSource = parseStrategy.getDataSource();
+        List<TaggedRecordExtensionHandler> handlers = new ArrayList<>();
+        handlers.add(dataSource.getNitfHeader());
+        handlers.addAll(dataSource.getImageSegments());
+        handlers.addAll(dataSource.getGraphicSegments());
+        handlers.addAll(dataSource.getSymbolSegments());
+        handlers.addAll(dataSource.getLabelSegments());
+        handlers.addAll(dataSource.getTextSegments());
+        handlers.addAll(dataSource.getDataExtensionSegments());
+        for (TaggedRecordExtensionHandler handler : handlers) {
+            if (handler != null) {
+                tres.addAll(handler.getTREsRawStructure().getTREs());
+            }
+        }
+        return tres;
+    }
+
+    private Tre parse(final TreParser parser, final Tre tre, final byte[] treBody) {
+        return parser.parseOneTre(new NitfInputStreamReader(new ByteArrayInputStream(treBody)), tre.getName(),
+                treBody.length, tre.getSource());
+    }
+
+    private String describe(final Tre tre) {
+        StringBuilder description = new StringBuilder();
+        description.append(tre.getPrefix()).append('\n');
+        if (tre.getRawData() != null) {
+            description.append("raw:").append(Arrays.toString(tre.getRawData())).append('\n');
+        }
+        describe(tre.getEntries(), "", description);
+        return description.toString();
+    }
+
+    private void describe(final List<TreEntry> entries, final String indent, final StringBuilder description) {
+        for (TreEntry entry : entries) {
+            description.append(indent).append(entry.getName()).append('=').append(entry.getFieldValue())
+                    .append(" (").append(entry.getDataType()).append(")\n");
+            if (entry.getGroups() != null) {
+                for (TreGroup group : entry.getGroups()) {
+                    description.append(indent).append("  [\n");
+                    describe(group.getEntries(), indent + "    ", description);
+                    description.append(indent).append("  ]\n");
+                }
+            }
+        }
+    }
+}
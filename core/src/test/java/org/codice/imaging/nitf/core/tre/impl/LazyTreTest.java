@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.common.impl.TaggedRecordExtensionHandlerImpl;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreCollection;
+import org.codice.imaging.nitf.core.tre.TreEntry;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.junit.Test;
+
+/**
+ * Tests for lazy TRE decoding.
+ */
+public class LazyTreTest {
+
+    private static final String ENGRDA = "ENGRDA00058LAIR                00112majorVersion00010001A1NA000000011";
+
+    private static final String THREE_TRES = "MSTGTA0010100006ABC123DEF456789XYZ654321POI002The Boss.   2018111623591490231084632Z+01634m+30.482261-086.503262PIAPEB00094Maxwell                     James                       Clerk                       18310613UKMSTGTA0010100000                                                       3                   +42.462679-071.281274";
+
+    private static final int NUM_THREADS = 8;
+
+    private class TestTreHandler extends TaggedRecordExtensionHandlerImpl {
+    }
+
+    private TreCollection parse(final String tres, final boolean lazy) throws NitfFormatException {
+        TreCollectionParser parser = new TreCollectionParser();
+        parser.setLazyDecoding(lazy);
+        byte[] bytes = tres.getBytes(StandardCharsets.ISO_8859_1);
+        return parser.parse(new NitfInputStreamReader(new ByteArrayInputStream(bytes)), bytes.length,
+                TreSource.ImageExtendedSubheaderData);
+    }
+
+    @Test
+    public void checkDefaultIsEager() throws NitfFormatException {
+        TreCollectionParser parser = new TreCollectionParser();
+        assertFalse(parser.isLazyDecoding());
+        assertTrue(parse(ENGRDA, false).getTREs().get(0) instanceof TreImpl);
+    }
+
+    @Test
+    public void checkNotDecodedUntilUsed() throws NitfFormatException {
+        Tre tre = parse(ENGRDA, true).getTREs().get(0);
+        assertTrue(tre instanceof LazyTre);
+        LazyTre lazyTre = (LazyTre) tre;
+        assertEquals("ENGRDA", tre.getName());
+        assertEquals(TreSource.ImageExtendedSubheaderData, tre.getSource());
+        assertFalse(lazyTre.isDecoded());
+
+        assertEquals(3, tre.getEntries().size());
+        assertTrue(lazyTre.isDecoded());
+        assertEquals("LAIR", tre.getFieldValue("RESRC").trim());
+        assertNull(tre.getRawData());
+    }
+
+    @Test
+    public void checkSameAsEagerDecoding() throws NitfFormatException {
+        TreParser treParser = new TreParser();
+        List<Tre> eagerTres = parse(THREE_TRES, false).getTREs();
+        List<Tre> lazyTres = parse(THREE_TRES, true).getTREs();
+        assertEquals(eagerTres.size(), lazyTres.size());
+        for (int i = 0; i < eagerTres.size(); i++) {
+            Tre eagerTre = eagerTres.get(i);
+            Tre lazyTre = lazyTres.get(i);
+            assertEquals(eagerTre.getName(), lazyTre.getName());
+            assertEquals(eagerTre.getPrefix(), lazyTre.getPrefix());
+            assertEquals(eagerTre.getEntries().size(), lazyTre.getEntries().size());
+            assertArrayEquals(treParser.serializeTRE(eagerTre), treParser.serializeTRE(lazyTre));
+        }
+    }
+
+    @Test
+    public void checkUnknownTreIsNotDeferred() throws NitfFormatException {
+        Tre tre = parse("NOSUCH00005ABCDE", true).getTREs().get(0);
+        assertTrue(tre instanceof TreImpl);
+        assertArrayEquals("ABCDE".getBytes(StandardCharsets.ISO_8859_1), tre.getRawData());
+    }
+
+    @Test
+    public void checkUnusedTresAreWrittenFromOriginalBytes() throws NitfFormatException, IOException {
+        TaggedRecordExtensionHandlerImpl handler = new TestTreHandler();
+        handler.mergeTREs(parse(THREE_TRES, true));
+
+        byte[] written = new TreParser().getTREs(handler, TreSource.ImageExtendedSubheaderData);
+        assertArrayEquals(THREE_TRES.getBytes(StandardCharsets.ISO_8859_1), written);
+        for (Tre tre : handler.getTREsRawStructure().getTREs()) {
+            assertFalse(((LazyTre) tre).isDecoded());
+        }
+    }
+
+    @Test
+    public void checkChangedTreIsSerialized() throws NitfFormatException, IOException {
+        TaggedRecordExtensionHandlerImpl handler = new TestTreHandler();
+        handler.mergeTREs(parse(ENGRDA, true));
+        Tre tre = handler.getTREsRawStructure().getTREs().get(0);
+        tre.getEntry("RESRC").setFieldValue("SENSOR");
+
+        byte[] written = new TreParser().getTREs(handler, TreSource.ImageExtendedSubheaderData);
+        assertEquals(ENGRDA.replace("LAIR  ", "SENSOR"), new String(written, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void checkConcurrentFirstUse() throws Exception {
+        Tre tre = parse(THREE_TRES, true).getTREs().get(1);
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            List<Future<List<TreEntry>>> results = new ArrayList<>();
+            for (int i = 0; i < NUM_THREADS; i++) {
+                results.add(executor.submit((Callable<List<TreEntry>>) tre::getEntries));
+            }
+            List<TreEntry> first = results.get(0).get();
+            for (Future<List<TreEntry>> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals("Maxwell", tre.getFieldValue("LASTNME").trim());
+    }
+}
@@ -23,6 +23,8 @@ import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
@@ -102,4 +104,26 @@ public class TreCollectionTest {
         assertEquals(Level.DEBUG, loggingEvents.get(1).getLevel());
         assertEquals(NumberFormatException.class, loggingEvents.get(1).getThrowable().get().getClass());
     }
+
+    @Test
+    public void lookupByName() {
+        TreCollection collection = new TreCollectionImpl();
+        for (int i = 0; i < 30; i++) {
+            collection.add(TreFactory.getDefault("T" + (i % 3), TreSource.TreOverflowDES));
+        }
+        assertEquals(Arrays.asList("T0", "T1", "T2"), collection.getUniqueNamesOfTRE());
+        List<Tre> t1 = collection.getTREsWithName("T1");
+        assertEquals(10, t1.size());
+        assertEquals(collection.getTREs().get(1), t1.get(0));
+        assertEquals(collection.getTREs().get(28), t1.get(9));
+        assertEquals(0, collection.getTREsWithName("T3").size());
+
+        Tre replacement = TreFactory.getDefault("T3", TreSource.TreOverflowDES);
+        collection.getTREs().set(1, replacement);
+        assertEquals(9, collection.getTREsWithName("T1").size());
+        assertEquals(Arrays.asList(replacement), collection.getTREsWithName("T3"));
+        assertTrue(collection.remove(replacement));
+        assertEquals(0, collection.getTREsWithName("T3").size());
+        assertEquals(Arrays.asList("T0", "T2", "T1"), collection.getUniqueNamesOfTRE());
+    }
 }
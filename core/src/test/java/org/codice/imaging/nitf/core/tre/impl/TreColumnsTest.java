@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.xml.transform.stream.StreamSource;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreColumns;
+import org.codice.imaging.nitf.core.tre.TreEntry;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.junit.Test;
+
+/**
+ * Tests for loops held as columns.
+ */
+public class TreColumnsTest {
+
+    private static final String XML_TRES
+            = "<?xml version=\"1.0\"?>"
+            + "<tres>"
+            + "  <tre name=\"TSTCOL\" location=\"image\">"
+            + "    <field name=\"NPTS\" type=\"integer\" length=\"2\"/>"
+            + "    <field name=\"WIDTH\" type=\"integer\" length=\"1\"/>"
+            + "    <loop name=\"POINTS\" counter=\"NPTS\">"
+            + "      <field name=\"ROW\" type=\"integer\" length=\"3\"/>"
+            + "      <field name=\"VALUE\" type=\"real\" length=\"8\"/>"
+            + "      <field name=\"FLAGS\" type=\"UINT\" length=\"2\"/>"
+            + "      <field name=\"TIME\" type=\"integer\" length=\"12\"/>"
+            + "      <field name=\"OFFSET\" type=\"integer\" length_var=\"WIDTH\"/>"
+            + "    </loop>"
+            + "  </tre>"
+            + "</tres>";
+
+    private static final String TSTCOL = "03" + "2"
+            + "001" + "+1.50000" + "\u0001\u0002" + "000000000007" + "-1"
+            + "-02" + "-0.25E+1" + "\u00ff\u0000" + "123456789012" + "+3"
+            + "010" + "  12.125" + "\u0000\u0001" + "-00000000001" + "00";
+
+    private static final String CSEPHA = "PREDICTED   " + "00060" + "20161015" + "000000000.000" + "002"
+            + "+1234567.125" + "-0000001.500" + "+0000000.000"
+            + "+7654321.250" + "+0000002.000" + "-0000003.750";
+
+    private TreParser createParser() throws NitfFormatException {
+        TreParser parser = new TreParser();
+        parser.registerAdditionalTREdescriptor(new StreamSource(new StringReader(XML_TRES)));
+        return parser;
+    }
+
+    private Tre parse(final TreParser parser, final String tag, final String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.ISO_8859_1);
+        return parser.parseOneTre(new NitfInputStreamReader(new ByteArrayInputStream(bytes)), tag, bytes.length,
+                TreSource.ImageExtendedSubheaderData);
+    }
+
+    @Test
+    public void checkColumnValues() throws NitfFormatException {
+        TreEntry points = parse(createParser(), "TSTCOL", TSTCOL).getEntry("POINTS");
+        TreColumns columns = points.getColumns();
+        assertNotNull(columns);
+        assertTrue(points.hasGroups());
+        assertEquals(3, columns.getRowCount());
+        assertEquals(Arrays.asList("ROW", "VALUE", "FLAGS", "TIME", "OFFSET"), columns.getColumnNames());
+
+        assertArrayEquals(new int[] {1, -2, 10}, columns.getIntColumn("ROW"));
+        assertArrayEquals(new double[] {1.5, -2.5, 12.125}, columns.getDoubleColumn("VALUE"), 0.0);
+        assertArrayEquals(new int[] {0x0102, 0xff00, 0x0001}, columns.getIntColumn("FLAGS"));
+        assertArrayEquals(new long[] {7L, 123456789012L, -1L}, columns.getLongColumn("TIME"));
+        assertArrayEquals(new int[] {-1, 3, 0}, columns.getIntColumn("OFFSET"));
+
+        assertEquals(-2, columns.getIntValue("ROW", 1));
+        assertEquals(10L, columns.getLongValue("ROW", 2));
+        assertEquals(10.0, columns.getDoubleValue("ROW", 2), 0.0);
+        assertEquals(-1, columns.getIntValue("TIME", 2));
+        assertEquals(123456789012.0, columns.getDoubleValue("TIME", 1), 0.0);
+    }
+
+    @Test
+    public void checkColumnErrors() throws NitfFormatException {
+        TreColumns columns = parse(createParser(), "TSTCOL", TSTCOL).getEntry("POINTS").getColumns();
+        assertFailure("Failed to look up NOSUCH", () -> columns.getIntColumn("NOSUCH"));
+        assertFailure("Failed to look up row 3 of ROW", () -> columns.getIntValue("ROW", 3));
+        assertFailure("Failed to look up TIME as an integer value", () -> columns.getIntColumn("TIME"));
+        assertFailure("Failed to look up VALUE as an integer value", () -> columns.getLongValue("VALUE", 0));
+    }
+
+    @Test
+    public void checkGroupsMatchColumns() throws NitfFormatException {
+        TreParser parser = createParser();
+        Tre tre = parse(parser, "TSTCOL", TSTCOL);
+        TreEntry points = tre.getEntry("POINTS");
+        assertArrayEquals(TSTCOL.getBytes(StandardCharsets.ISO_8859_1), parser.serializeTRE(tre));
+
+        assertEquals(3, points.getGroups().size());
+        assertEquals("  12.125", tre.getGroup("POINTS", 2).getFieldValue("VALUE"));
+        assertEquals(123456789012L, tre.getGroup("POINTS", 1).getLongValue("TIME"));
+        assertEquals("UINT", tre.getGroup("POINTS", 0).getEntry("FLAGS").getDataType());
+        assertArrayEquals(new long[] {7L, 123456789012L, -1L}, points.getColumns().getLongColumn("TIME"));
+
+        // Once the groups exist, they hold the values.
+        tre.getGroup("POINTS", 0).getEntry("ROW").setFieldValue("099");
+        assertArrayEquals(new int[] {99, -2, 10}, points.getColumns().getIntColumn("ROW"));
+        assertEquals("099", new String(parser.serializeTRE(tre), StandardCharsets.ISO_8859_1).substring(3, 6));
+    }
+
+    @Test
+    public void checkInvalidNumberIsReadAsGroups() throws NitfFormatException {
+        String body = TSTCOL.replace("  12.125", "        ");
+        TreParser parser = createParser();
+        Tre tre = parse(parser, "TSTCOL", body);
+        TreEntry points = tre.getEntry("POINTS");
+        assertNull(points.getColumns());
+        assertEquals(3, points.getGroups().size());
+        assertEquals("        ", tre.getGroup("POINTS", 2).getFieldValue("VALUE"));
+        assertArrayEquals(body.getBytes(StandardCharsets.ISO_8859_1), parser.serializeTRE(tre));
+    }
+
+    @Test
+    public void checkCompiledAndInterpretedColumns() throws NitfFormatException {
+        TreParser interpretingParser = new TreParser();
+        interpretingParser.setCompiledTresEnabled(false);
+        for (TreParser parser : Arrays.asList(new TreParser(), interpretingParser)) {
+            Tre tre = parse(parser, "CSEPHA", CSEPHA);
+            assertNull(tre.getRawData());
+            TreColumns columns = tre.getEntry("EPHEM").getColumns();
+            assertNotNull(columns);
+            assertSame(columns, tre.getEntry("EPHEM").getColumns());
+            assertArrayEquals(new double[] {1234567.125, 7654321.25}, columns.getDoubleColumn("X"), 0.0);
+            assertArrayEquals(new double[] {-1.5, 2.0}, columns.getDoubleColumn("Y"), 0.0);
+            assertArrayEquals(new double[] {0.0, -3.75}, columns.getDoubleColumn("Z"), 0.0);
+        }
+    }
+
+    @Test
+    public void checkRealGroupsRoundTrip() throws NitfFormatException {
+        TreParser interpretingParser = new TreParser();
+        interpretingParser.setCompiledTresEnabled(false);
+        for (TreParser parser : Arrays.asList(new TreParser(), interpretingParser)) {
+            Tre tre = parse(parser, "CSEPHA", CSEPHA);
+            assertEquals(2, tre.getEntry("EPHEM").getGroups().size());
+            assertEquals("+1234567.125", tre.getGroup("EPHEM", 0).getFieldValue("X"));
+            assertArrayEquals(CSEPHA.getBytes(StandardCharsets.ISO_8859_1), parser.serializeTRE(tre));
+
+            // Values that are set with a different length are formatted to the field width.
+            tre.getGroup("EPHEM", 0).getEntry("X").setFieldValue("+1234567.5");
+            tre.getGroup("EPHEM", 1).getEntry("Z").setFieldValue("-3.5");
+            assertEquals(CSEPHA.replace("+1234567.125", "+1234567.500").replace("-0000003.750", "   -3.500000"),
+                    new String(parser.serializeTRE(tre), StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private interface ColumnAccess {
+        void run() throws NitfFormatException;
+    }
+
+    private void assertFailure(final String message, final ColumnAccess access) {
+        try {
+            access.run();
+            fail("Expected " + message);
+        } catch (NitfFormatException ex) {
+            assertEquals(message, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.transform.stream.StreamSource;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.schema.TreType;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Tests for the shared TRE descriptor registry.
+ */
+public class TreDescriptorRegistryTest {
+
+    private static final String TST_REG_A = "<?xml version=\"1.0\"?><tres><tre name=\"TSTRGA\">"
+            + "<field name=\"INFO\" type=\"string\" length=\"4\"/></tre></tres>";
+
+    private static final String TST_REG_A_LONGER = "<?xml version=\"1.0\"?><tres><tre name=\"TSTRGA\">"
+            + "<field name=\"INFO\" type=\"string\" length=\"8\"/></tre></tres>";
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void checkGlobalIsShared() throws NitfFormatException {
+        TreDescriptorRegistry registry = TreDescriptorRegistry.getGlobal();
+        assertSame(registry, TreDescriptorRegistry.getGlobal());
+        TreType acftb = registry.getDescriptor("ACFTB");
+        assertNotNull(acftb);
+        assertSame(acftb, registry.getDescriptor("ACFTB "));
+        assertNull(registry.getDescriptor("NOSUCH"));
+    }
+
+    @Test
+    public void checkLayeredDescriptors() throws NitfFormatException {
+        TreDescriptorRegistry global = TreDescriptorRegistry.getGlobal();
+        TreDescriptorRegistry layered = global.withAdditionalDescriptors(new StreamSource(new StringReader(TST_REG_A)));
+        assertNotNull(layered.getDescriptor("TSTRGA"));
+        assertSame(global.getDescriptor("ACFTB"), layered.getDescriptor("ACFTB"));
+        assertNull(global.getDescriptor("TSTRGA"));
+        assertSame(global, TreDescriptorRegistry.getGlobal());
+
+        TreDescriptorRegistry relayered = layered.withAdditionalDescriptors(new StreamSource(new StringReader(TST_REG_A_LONGER)));
+        assertSame(layered.getDescriptor("TSTRGA"), relayered.getDescriptor("TSTRGA"));
+    }
+
+    @Test
+    public void checkParserDescriptorsAreIndependent() throws NitfFormatException {
+        Tre tre = TreFactory.getDefault("TSTRGA", TreSource.UserDefinedHeaderData);
+        tre.add(new TreEntryImpl("INFO", "ab", "string"));
+
+        TreParser shortParser = new TreParser();
+        shortParser.registerAdditionalTREdescriptor(new StreamSource(new StringReader(TST_REG_A)));
+        TreParser longParser = new TreParser();
+        longParser.registerAdditionalTREdescriptor(new StreamSource(new StringReader(TST_REG_A_LONGER)));
+
+        assertArrayEquals("ab  ".getBytes(), shortParser.serializeTRE(tre));
+        assertArrayEquals("ab      ".getBytes(), longParser.serializeTRE(tre));
+    }
+
+    @Test
+    public void checkBadXml() throws NitfFormatException {
+        exception.expect(NitfFormatException.class);
+        exception.expectMessage("Exception while loading TRE XML");
+        TreDescriptorRegistry.getGlobal().withAdditionalDescriptors(new StreamSource(new StringReader("<?xml version=\"1.0\"?>junk")));
+    }
+
+    @Test
+    public void checkConcurrentParsers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<byte[]>> tasks = new ArrayList<>();
+            for (int i = 0; i < 16; ++i) {
+                final String info = String.format("%04d", i);
+                tasks.add(() -> {
+                    Tre tre = TreFactory.getDefault("TSTRGA", TreSource.UserDefinedHeaderData);
+                    tre.add(new TreEntryImpl("INFO", info, "string"));
+                    TreParser parser = new TreParser();
+                    parser.registerAdditionalTREdescriptor(new StreamSource(new StringReader(TST_REG_A)));
+                    return parser.serializeTRE(tre);
+                });
+            }
+            List<Future<byte[]>> results = executor.invokeAll(tasks);
+            for (int i = 0; i < results.size(); ++i) {
+                assertEquals(String.format("%04d", i), new String(results.get(i).get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertNull(TreDescriptorRegistry.getGlobal().getDescriptor("TSTRGA"));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.transform.stream.StreamSource;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.impl.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.schema.TreType;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreExpression;
+import org.codice.imaging.nitf.core.tre.TreSource;
+import org.junit.Test;
+
+/**
+ * Tests for TRE descriptor expressions.
+ */
+public class TreExpressionTest {
+
+    private static final String XML_TRES
+            = "<?xml version=\"1.0\"?>"
+            + "<tres>"
+            + "  <tre name=\"TSTGRD\" location=\"image\">"
+            + "    <field name=\"NROWS\" type=\"integer\" length=\"2\"/>"
+            + "    <field name=\"NCOLS\" type=\"integer\" length=\"2\"/>"
+            + "    <field name=\"MODE\" type=\"string\" length=\"2\"/>"
+            + "    <loop name=\"CELLS\" formula=\"NROWS * NCOLS - 1\">"
+            + "      <field name=\"CELL\" type=\"integer\" length=\"1\"/>"
+            + "    </loop>"
+            + "    <if cond=\"MODE='AB' OR NROWS &gt;= 5\">"
+            + "      <field name=\"EXTRA\" type=\"string\" length=\"3\"/>"
+            + "    </if>"
+            + "    <if cond=\"NOT MODE=CD AND (NCOLS + 1) % 2 = (1)\">"
+            + "      <field name=\"EVEN_COLS\" type=\"string\" length=\"1\"/>"
+            + "    </if>"
+            + "  </tre>"
+            + "  <tre name=\"TSTBAD\" location=\"image\">"
+            + "    <field name=\"N\" type=\"integer\" length=\"1\"/>"
+            + "    <loop name=\"VALUES\" formula=\"N *\">"
+            + "      <field name=\"VALUE\" type=\"integer\" length=\"1\"/>"
+            + "    </loop>"
+            + "  </tre>"
+            + "</tres>";
+
+    private TreParser createParser() throws NitfFormatException {
+        TreParser parser = new TreParser();
+        parser.registerAdditionalTREdescriptor(new StreamSource(new StringReader(XML_TRES)));
+        return parser;
+    }
+
+    private Tre parse(final TreParser parser, final String tag, final String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.ISO_8859_1);
+        return parser.parseOneTre(new NitfInputStreamReader(new ByteArrayInputStream(bytes)), tag, bytes.length,
+                TreSource.ImageExtendedSubheaderData);
+    }
+
+    private int evaluate(final String expression) throws NitfFormatException {
+        TreExpression compiled = TreExpression.parse(expression, name -> TreLayout.NO_SLOT);
+        return compiled.intValue(new TreParams(new TreLayout(new TreType())));
+    }
+
+    @Test
+    public void checkArithmetic() throws NitfFormatException {
+        assertEquals(7, evaluate("1 + 2 * 3"));
+        assertEquals(9, evaluate("(1 + 2) * 3"));
+        assertEquals(10, evaluate("(4+1)*(4)/2"));
+        assertEquals(-2, evaluate("3 - 5"));
+        assertEquals(1, evaluate("-(2 - 3)"));
+        assertEquals(2, evaluate("17 % 5"));
+        assertEquals(3, evaluate("10 - 4 - 3"));
+    }
+
+    @Test
+    public void checkComparisonsAndBooleans() throws NitfFormatException {
+        assertEquals(1, evaluate("2 < 3"));
+        assertEquals(0, evaluate("2 >= 3"));
+        assertEquals(1, evaluate("3 <= 3 AND 4 > 3"));
+        assertEquals(1, evaluate("1 > 2 OR 2 > 1"));
+        assertEquals(0, evaluate("NOT 1 = (1)"));
+        assertEquals(1, evaluate("1 + 1 = 2"));
+        assertEquals(0, evaluate("1 + 1 != 2"));
+    }
+
+    @Test
+    public void checkInvalidExpressions() {
+        assertInvalid("N *");
+        assertInvalid("(N + 1");
+        assertInvalid("N + 1)");
+        assertInvalid("N # 2");
+        assertInvalid("MODE='AB");
+        assertInvalid("10c + 1");
+        assertInvalid("AND N");
+    }
+
+    @Test
+    public void checkDivisionByZero() {
+        try {
+            evaluate("1 / (2 - 2)");
+            fail("Expected division by zero to fail");
+        } catch (NitfFormatException ex) {
+            assertEquals("Division by zero in TRE expression", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void checkFormulaAndConditions() throws NitfFormatException {
+        TreParser parser = createParser();
+
+        Tre tre = parse(parser, "TSTGRD", "0203AB12345XYZ");
+        assertNull(tre.getRawData());
+        assertEquals(5, tre.getEntry("CELLS").getGroups().size());
+        assertEquals(5, tre.getGroup("CELLS", 4).getIntValue("CELL"));
+        assertEquals("XYZ", tre.getFieldValue("EXTRA"));
+        assertFalse(hasEntry(tre, "EVEN_COLS"));
+        assertArrayEquals("0203AB12345XYZ".getBytes(StandardCharsets.ISO_8859_1), parser.serializeTRE(tre));
+
+        tre = parse(parser, "TSTGRD", "0202CD123");
+        assertNull(tre.getRawData());
+        assertEquals(3, tre.getEntry("CELLS").getGroups().size());
+        assertEquals(4, tre.getEntries().size());
+        assertArrayEquals("0202CD123".getBytes(StandardCharsets.ISO_8859_1), parser.serializeTRE(tre));
+
+        tre = parse(parser, "TSTGRD", "0502EF123456789QRS1");
+        assertNull(tre.getRawData());
+        assertEquals(9, tre.getEntry("CELLS").getGroups().size());
+        assertEquals("QRS", tre.getFieldValue("EXTRA"));
+        assertEquals("1", tre.getFieldValue("EVEN_COLS"));
+        assertArrayEquals("0502EF123456789QRS1".getBytes(StandardCharsets.ISO_8859_1), parser.serializeTRE(tre));
+    }
+
+    @Test
+    public void checkInvalidFormulaLeavesRawData() throws NitfFormatException {
+        Tre tre = parse(createParser(), "TSTBAD", "2ab");
+        assertNotNull(tre.getRawData());
+        assertTrue(tre.getEntries().isEmpty());
+    }
+
+    private void assertInvalid(final String expression) {
+        try {
+            TreExpression.parse(expression, name -> 0);
+            fail("Expected " + expression + " to be rejected");
+        } catch (NitfFormatException ex) {
+            assertTrue(ex.getMessage().startsWith("Unsupported TRE expression \"" + expression + "\""));
+        }
+    }
+
+    private boolean hasEntry(final Tre tre, final String tagName) {
+        try {
+            tre.getEntry(tagName);
+            return true;
+        } catch (NitfFormatException ex) {
+            return false;
+        }
+    }
+}
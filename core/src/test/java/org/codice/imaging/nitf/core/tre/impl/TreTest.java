@@ -18,11 +18,13 @@ import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.codice.imaging.nitf.core.tre.Tre;
 import org.codice.imaging.nitf.core.tre.TreGroup;
@@ -97,4 +99,98 @@ public class TreTest extends SharedTreTest {
         assertNull(tre.getRawData());
         assertEquals("NITF_USE00A_", tre.getPrefix());
     }
+
+    @Test
+    public void testGroupLookupAfterChanges() throws NitfFormatException {
+        TreGroupImpl group = new TreGroupImpl();
+        for (int i = 0; i < 20; i++) {
+            group.add(new TreEntryImpl("F" + i, "value" + i, "string"));
+        }
+        assertEquals("value7", group.getFieldValue("F7"));
+
+        group.getEntries().add(new TreEntryImpl("ADDED", "added", "string"));
+        assertEquals("added", group.getFieldValue("ADDED"));
+
+        group.getEntries().set(3, new TreEntryImpl("REPLACED", "replaced", "string"));
+        assertEquals("replaced", group.getFieldValue("REPLACED"));
+        assertLookupFails(group, "F3");
+
+        ((TreEntryImpl) group.getEntry("F12")).setName("RENAMED");
+        assertEquals("value12", group.getFieldValue("RENAMED"));
+        assertLookupFails(group, "F12");
+
+        group.getEntries().remove(0);
+        assertLookupFails(group, "F0");
+        assertEquals("value1", group.getFieldValue("F1"));
+    }
+
+    @Test
+    public void testGroupLookupFindsFirstEntry() throws NitfFormatException {
+        TreGroupImpl group = new TreGroupImpl();
+        for (int i = 0; i < 20; i++) {
+            group.add(new TreEntryImpl("DUP", "value" + i, "string"));
+        }
+        assertEquals("value0", group.getFieldValue("DUP"));
+    }
+
+    @Test
+    public void testGetGroup() throws NitfFormatException {
+        TreGroupImpl group = new TreGroupImpl();
+        TreEntryImpl loop = new TreEntryImpl("LOOP");
+        for (int i = 0; i < 3; i++) {
+            TreGroupImpl subGroup = new TreGroupImpl();
+            subGroup.add(new TreEntryImpl("DELTA", "" + i, "integer"));
+            loop.addGroup(subGroup);
+        }
+        group.add(loop);
+        group.add(new TreEntryImpl("SIMPLE", "1", "integer"));
+
+        assertEquals(2, group.getGroup("LOOP", 2).getIntValue("DELTA"));
+        assertGetGroupFails(group, "LOOP", 3);
+        assertGetGroupFails(group, "LOOP", -1);
+        assertGetGroupFails(group, "SIMPLE", 0);
+        assertGetGroupFails(group, "MISSING", 0);
+    }
+
+    private void assertLookupFails(final TreGroup group, final String tagName) {
+        try {
+            group.getEntry(tagName);
+            fail("Expected lookup of " + tagName + " to fail");
+        } catch (NitfFormatException ex) {
+            assertEquals("Failed to look up " + tagName, ex.getMessage());
+        }
+    }
+
+    private void assertGetGroupFails(final TreGroup group, final String tagName, final int index) {
+        try {
+            group.getGroup(tagName, index);
+            fail("Expected lookup of group " + index + " of " + tagName + " to fail");
+        } catch (NitfFormatException ex) {
+            assertNotNull(ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testTreEntryFromTreBody() throws NitfFormatException {
+        byte[] treBody = "ABC12 XYZ".getBytes(StandardCharsets.ISO_8859_1);
+        TreBodyReader reader = new TreBodyReader(treBody);
+        TreEntryImpl first = reader.readEntry("FIRST", 3, "string");
+        assertEquals("12 ", reader.readString(3));
+        reader.skip(1);
+        TreEntryImpl last = reader.readEntry("LAST", 2, "string");
+
+        assertTrue(first.isSimpleField());
+        assertEquals("ABC", first.getFieldValue());
+        assertEquals("LAST: YZ", last.toString());
+        last.setFieldValue("QQ");
+        assertEquals("QQ", last.getFieldValue());
+        assertEquals("ABC", first.getFieldValue());
+
+        try {
+            reader.readEntry("BEYOND", 1, "string");
+            fail("Expected read beyond the end of the TRE body to fail");
+        } catch (NitfFormatException ex) {
+            assertEquals("Cannot read 1 bytes at offset 9 of 9 byte TRE body", ex.getMessage());
+        }
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests for the TRE serialization buffer.
+ */
+public class TreWriteBufferTest {
+
+    private static String contents(final TreWriteBuffer buffer) {
+        return new String(buffer.toByteArray(0), StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void checkZeroPaddingMatchesFormat() {
+        long[] values = {0, 7, 42, -3, 99999, 123456, -12345, Long.MAX_VALUE, Long.MIN_VALUE};
+        TreWriteBuffer buffer = new TreWriteBuffer();
+        for (long value : values) {
+            for (int length = 1; length < 8; ++length) {
+                buffer.reset();
+                buffer.writeZeroPadded(value, length);
+                assertEquals(String.format("%0" + length + "d", value), contents(buffer));
+            }
+        }
+    }
+
+    @Test
+    public void checkPatchLength() {
+        TreWriteBuffer buffer = new TreWriteBuffer();
+        buffer.writePadded("TAG", 6);
+        buffer.writeSpaces(5);
+        buffer.write("body\u20ac");
+        assertTrue(buffer.writeZeroPaddedAt(6, 5, 5));
+        assertEquals("TAG   00005body?", contents(buffer));
+        assertFalse(buffer.writeZeroPaddedAt(6, 100000, 5));
+    }
+
+    @Test
+    public void checkGrowAndReset() {
+        TreWriteBuffer buffer = new TreWriteBuffer();
+        byte[] data = new byte[5000];
+        data[4999] = 1;
+        buffer.writeZeroBytes(3);
+        buffer.write(data);
+        assertEquals(5003, buffer.size());
+        assertArrayEquals(new byte[] {0, 1}, buffer.toByteArray(5001));
+        buffer.reset();
+        assertEquals(0, buffer.size());
+        assertEquals("", contents(buffer));
+    }
+}
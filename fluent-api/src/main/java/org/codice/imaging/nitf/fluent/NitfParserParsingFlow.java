@@ -15,6 +15,7 @@
 package org.codice.imaging.nitf.fluent;
 
 import java.net.URI;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
 
 import javax.imageio.stream.ImageInputStream;
@@ -62,6 +63,27 @@ public interface NitfParserParsingFlow {
      */
     NitfParserParsingFlow treDescriptor(URI xmlDescriptor);
 
+    /**
+     * Parse the segment subheaders concurrently.
+     * <p>
+     * This only applies when the reader can seek, and the parse strategy is a SlottedParseStrategy. The segments are
+     * still stored in file order.
+     *
+     * @param pool the fork-join pool to parse the subheaders on.
+     * @return this NitfParserParsingFlow
+     */
+    NitfParserParsingFlow parallel(ForkJoinPool pool);
+
+    /**
+     * Decode each TRE when it is first used, instead of when it is parsed.
+     * <p>
+     * This only applies when the parse strategy is a SlottedParseStrategy. TREs that are never used are written out
+     * unchanged.
+     *
+     * @return this NitfParserParsingFlow
+     */
+    NitfParserParsingFlow lazyTreDecoding();
+
     /**
      * Parses the NITF file, extracting all data.
      *
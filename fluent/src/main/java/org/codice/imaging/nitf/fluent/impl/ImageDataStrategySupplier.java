@@ -8,6 +8,7 @@ import javax.imageio.stream.MemoryCacheImageInputStream;
 import org.codice.imaging.nitf.core.HeapStrategy;
 import org.codice.imaging.nitf.core.impl.ConfigurableHeapStrategy;
 import org.codice.imaging.nitf.core.impl.FileBackedHeapStrategy;
+import org.codice.imaging.nitf.core.impl.FileRangeHeapStrategy;
 import org.codice.imaging.nitf.core.impl.HeapStrategyConfiguration;
 import org.codice.imaging.nitf.core.impl.InMemoryHeapStrategy;
 
@@ -55,6 +56,19 @@ public class ImageDataStrategySupplier implements Supplier<HeapStrategy<ImageInp
         return this;
     }
 
+    /**
+     * Creates an instance of FileRangeHeapStrategy.
+     *
+     * Segment data is read from the source file when required, without being copied. This uses the least heap
+     * space, but the source must remain open while the image data is in use.
+     *
+     * @return this ImageDataStrategySupplier.
+     */
+    public final ImageDataStrategySupplier fileRange() {
+        this.imageDataStrategy = new FileRangeHeapStrategy<>(iis -> iis);
+        return this;
+    }
+
     /**
      * Creates an instance of InMemoryImageDataStrategy.  All images are stored in memory.  This
      * strategy generally uses more heap space, but renders in shorter time than file().
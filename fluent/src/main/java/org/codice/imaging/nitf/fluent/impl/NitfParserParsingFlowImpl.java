@@ -19,6 +19,7 @@ import java.io.StringReader;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
 
 import javax.imageio.stream.ImageInputStream;
@@ -29,6 +30,7 @@ import javax.xml.transform.stream.StreamSource;
 import org.codice.imaging.nitf.core.HeapStrategy;
 import org.codice.imaging.nitf.core.common.ParseStrategy;
 import org.codice.imaging.nitf.core.impl.InMemoryHeapStrategy;
+import org.codice.imaging.nitf.core.impl.ParallelNitfParser;
 import org.codice.imaging.nitf.core.impl.SlottedParseStrategy;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.common.NitfReader;
@@ -47,6 +49,10 @@ public class NitfParserParsingFlowImpl implements NitfParserParsingFlow {
 
     private final List<Source> treDescriptors = new ArrayList<>();
 
+    private ForkJoinPool parsingPool = null;
+
+    private boolean lazyTreDecoding = false;
+
     NitfParserParsingFlowImpl(final NitfReader nitfReader) {
         reader = nitfReader;
     }
@@ -92,6 +98,26 @@ public class NitfParserParsingFlowImpl implements NitfParserParsingFlow {
         return this;
     }
 
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public final NitfParserParsingFlow parallel(final ForkJoinPool pool) {
+        this.parsingPool = pool;
+        return this;
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public final NitfParserParsingFlow lazyTreDecoding() {
+        this.lazyTreDecoding = true;
+        return this;
+    }
+
     /**
      *
      * {@inheritDoc}
@@ -125,7 +151,14 @@ public class NitfParserParsingFlowImpl implements NitfParserParsingFlow {
         for (Source treDescriptor : treDescriptors) {
             parseStrategy.registerAdditionalTREdescriptor(treDescriptor);
         }
-        NitfParser.parse(reader, parseStrategy);
+        if (lazyTreDecoding && (parseStrategy instanceof SlottedParseStrategy)) {
+            ((SlottedParseStrategy) parseStrategy).setLazyTreDecoding(true);
+        }
+        if ((parsingPool != null) && (parseStrategy instanceof SlottedParseStrategy)) {
+            ParallelNitfParser.parse(reader, (SlottedParseStrategy) parseStrategy, parsingPool);
+        } else {
+            NitfParser.parse(reader, parseStrategy);
+        }
         return new NitfSegmentsFlowImpl(parseStrategy.getDataSource(), imageDataStrategy::cleanUp);
     }
 }
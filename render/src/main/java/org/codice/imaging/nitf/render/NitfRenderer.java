@@ -30,6 +30,7 @@ import javax.imageio.stream.ImageInputStream;
 import org.codice.imaging.nitf.core.image.ImageBand;
 import org.codice.imaging.nitf.core.image.ImageRepresentation;
 import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.MemoryBudget;
 import org.codice.imaging.nitf.render.imagemode.ImageModeHandler;
 import org.codice.imaging.nitf.render.imagemode.ImageModeHandlerFactory;
 import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
@@ -37,15 +38,45 @@ import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandlerFactory
 
 /**
  * Renderer for NITF files.
+ * <p>
+ * If a MemoryBudget is supplied, the methods that allocate a target BufferedImage reserve the size of that image
+ * from the budget first, and release it when rendering is complete. This limits the memory used by concurrent
+ * renders. The returned image is not counted against the budget after it has been returned.
  */
 public class NitfRenderer {
 
     private static final int BYTE_MASK = 0xFF;
 
+    /**
+     * The largest number of bytes per pixel used by any of the target image types.
+     */
+    private static final int MAXIMUM_BYTES_PER_PIXEL = 4;
+
+    private final MemoryBudget memoryBudget;
+
+    private final MemoryBudget.ExhaustedPolicy exhaustedPolicy;
+
     /**
      * Constructor.
      */
     public NitfRenderer() {
+        this(null, null);
+    }
+
+    /**
+     * Constructor with a memory budget.
+     *
+     * @param budget the budget to reserve target images from, or null for no accounting.
+     * @param policy the action to take when the budget is exhausted. With REJECT, rendering fails with an
+     * IOException. With BLOCK or SPILL, rendering waits for the budget to become available. If null, BLOCK is used.
+     */
+    public NitfRenderer(final MemoryBudget budget, final MemoryBudget.ExhaustedPolicy policy) {
+        memoryBudget = budget;
+        if (policy != null) {
+            exhaustedPolicy = policy;
+        } else {
+            exhaustedPolicy = MemoryBudget.ExhaustedPolicy.BLOCK;
+        }
     }
 
     /**
@@ -103,15 +134,20 @@ public class NitfRenderer {
      * @throws IOException if the source data could not be read from
      */
     public final BufferedImage render(final ImageSegment imageSegment) throws IOException {
-        BufferedImage img = new BufferedImage(imageSegment.getImageLocationColumn()
-                + (int) imageSegment.getNumberOfColumns(),
-                imageSegment.getImageLocationRow()
-                        + (int) imageSegment.getNumberOfRows(),
-                BufferedImage.TYPE_INT_ARGB);
-        Graphics2D targetGraphic = img.createGraphics();
-
-        render(imageSegment, targetGraphic);
-        return img;
+        long reservation = reserveTargetImage(imageSegment);
+        try {
+            BufferedImage img = new BufferedImage(imageSegment.getImageLocationColumn()
+                    + (int) imageSegment.getNumberOfColumns(),
+                    imageSegment.getImageLocationRow()
+                            + (int) imageSegment.getNumberOfRows(),
+                    BufferedImage.TYPE_INT_ARGB);
+            Graphics2D targetGraphic = img.createGraphics();
+
+            render(imageSegment, targetGraphic);
+            return img;
+        } finally {
+            releaseTargetImage(reservation);
+        }
     }
 
     /**
@@ -125,15 +161,45 @@ public class NitfRenderer {
         ImageRepresentationHandler handler =
                 ImageRepresentationHandlerFactory.forImageSegment(imageSegment);
 
-        BufferedImage img = handler.createBufferedImage(imageSegment.getImageLocationColumn()
-                        + (int) imageSegment.getNumberOfColumns(),
-                imageSegment.getImageLocationRow()
-                        + (int) imageSegment.getNumberOfRows());
+        long reservation = reserveTargetImage(imageSegment);
+        try {
+            BufferedImage img = handler.createBufferedImage(imageSegment.getImageLocationColumn()
+                            + (int) imageSegment.getNumberOfColumns(),
+                    imageSegment.getImageLocationRow()
+                            + (int) imageSegment.getNumberOfRows());
+
+            Graphics2D targetGraphic = img.createGraphics();
 
-        Graphics2D targetGraphic = img.createGraphics();
+            render(imageSegment, targetGraphic);
+            return img;
+        } finally {
+            releaseTargetImage(reservation);
+        }
+    }
 
-        render(imageSegment, targetGraphic);
-        return img;
+    private long reserveTargetImage(final ImageSegment imageSegment) throws IOException {
+        if (memoryBudget == null) {
+            return 0;
+        }
+        long bytes = (imageSegment.getImageLocationColumn() + imageSegment.getNumberOfColumns())
+                * (imageSegment.getImageLocationRow() + imageSegment.getNumberOfRows())
+                * MAXIMUM_BYTES_PER_PIXEL;
+        try {
+            if (!memoryBudget.reserve(bytes, exhaustedPolicy)) {
+                throw new IOException(String.format("NitfRenderer.render(): insufficient memory budget for %d byte image, "
+                        + "%d of %d bytes available.", bytes, memoryBudget.getAvailable(), memoryBudget.getCapacity()));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("NitfRenderer.render(): interrupted while waiting for memory budget.", ex);
+        }
+        return bytes;
+    }
+
+    private void releaseTargetImage(final long reservation) {
+        if (reservation > 0) {
+            memoryBudget.release(reservation);
+        }
     }
 
     private void render(final BlockRenderer renderer, final ImageSegment imageSegment, final Graphics2D target) throws IOException {
@@ -18,9 +18,12 @@
  */
 package org.codice.imaging.nitf.render;
 
+import static org.junit.Assert.assertEquals;
+
 import java.io.IOException;
 import org.codice.imaging.nitf.core.image.ImageCompression;
 import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.impl.MemoryBudget;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -51,4 +54,35 @@ public class NitfRendererTest {
         renderer.render(mockImageSegmentHeader, null);
     }
 
+    @Test
+    public void checkMemoryBudgetRejection() throws IOException {
+        MemoryBudget budget = new MemoryBudget(100);
+        NitfRenderer renderer = new NitfRenderer(budget, MemoryBudget.ExhaustedPolicy.REJECT);
+
+        ImageSegment mockImageSegmentHeader = Mockito.mock(ImageSegment.class);
+        Mockito.when(mockImageSegmentHeader.getNumberOfColumns()).thenReturn(10L);
+        Mockito.when(mockImageSegmentHeader.getNumberOfRows()).thenReturn(10L);
+
+        exception.expect(IOException.class);
+        exception.expectMessage("NitfRenderer.render(): insufficient memory budget for 400 byte image, 100 of 100 bytes available.");
+        renderer.render(mockImageSegmentHeader);
+    }
+
+    @Test
+    public void checkMemoryBudgetReleasedAfterFailure() throws IOException {
+        MemoryBudget budget = new MemoryBudget(1000);
+        NitfRenderer renderer = new NitfRenderer(budget, MemoryBudget.ExhaustedPolicy.BLOCK);
+
+        ImageSegment mockImageSegmentHeader = Mockito.mock(ImageSegment.class);
+        Mockito.when(mockImageSegmentHeader.getNumberOfColumns()).thenReturn(10L);
+        Mockito.when(mockImageSegmentHeader.getNumberOfRows()).thenReturn(10L);
+        Mockito.when(mockImageSegmentHeader.getImageCompression()).thenReturn(ImageCompression.UNKNOWN);
+
+        try {
+            renderer.render(mockImageSegmentHeader);
+        } catch (UnsupportedOperationException ex) {
+            assertEquals("Unhandled image compression format: UNKNOWN", ex.getMessage());
+        }
+        assertEquals(0L, budget.getReserved());
+    }
 }
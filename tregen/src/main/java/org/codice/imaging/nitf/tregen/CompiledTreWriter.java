@@ -0,0 +1,478 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.tregen;
+
+import static org.codice.imaging.nitf.tregen.JavaSourceBuilder.literal;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.tre.TreExpression;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Writes the compiled parser class for one TRE descriptor.
+ * <p>
+ * The generated code has to behave exactly like the interpreter in TreParser, including the order in which parameters
+ * are looked up, so that the two can be used interchangeably. Conditions and loop formulas are parsed with
+ * TreExpression.parse(), the same parser that TreLayout uses for the interpreter, and written out by ExpressionWriter.
+ */
+final class CompiledTreWriter {
+
+    private static final String FIELD = "field";
+    private static final String LOOP = "loop";
+    private static final String IF = "if";
+
+    private final Element tre;
+
+    private final String className;
+
+    private final Map<String, Integer> parameterIndexes = new LinkedHashMap<>();
+
+    private final Map<String, String> parameterTypes = new HashMap<>();
+
+    private final Map<Element, Integer> fieldIndexes = new LinkedHashMap<>();
+
+    private final Map<Element, Integer> columnLoops = new LinkedHashMap<>();
+
+    private final Map<Element, TreExpression> expressions = new HashMap<>();
+
+    private final ExpressionWriter parseExpressions = new ExpressionWriter(this::getIntValueExpression, this::parsedValue);
+
+    private final ExpressionWriter serializeExpressions = new ExpressionWriter(this::serializedIntValue, this::serializedValue);
+
+    private int nextGroup = 0;
+
+    private int nextLoop = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param treDescriptor the tre element from the descriptor file.
+     * @param generatedClassName the name of the class to generate.
+     */
+    CompiledTreWriter(final Element treDescriptor, final String generatedClassName) {
+        tre = treDescriptor;
+        className = generatedClassName;
+    }
+
+    /**
+     * Generate the source of the compiled parser.
+     *
+     * @return the Java source.
+     * @throws UnsupportedDescriptorException if the descriptor cannot be compiled.
+     */
+    String write() throws UnsupportedDescriptorException {
+        collectParameters(tre);
+        collectParameterTypes(tre);
+        collectColumnLoops(tre);
+
+        JavaSourceBuilder source = new JavaSourceBuilder();
+        source.line("package " + TreParserGenerator.TARGET_PACKAGE + ";");
+        source.line("");
+        source.line("import java.math.BigInteger;");
+        source.line("");
+        source.line("import org.codice.imaging.nitf.core.common.NitfFormatException;");
+        source.line("import org.codice.imaging.nitf.core.schema.FieldType;");
+        source.line("import org.codice.imaging.nitf.core.tre.TreGroup;");
+        source.line("");
+        source.line("/**");
+        source.line(" * Compiled parser and serializer for the " + tre.getAttribute("name") + " TRE.");
+        source.line(" * <p>");
+        source.line(" * Generated by TreParserGenerator from nitf_spec.xml - do not edit.");
+        source.line(" */");
+        source.open("final class " + className + " extends CompiledTre");
+        writeFieldDescriptors(source);
+        writeParser(source);
+        writeSerializer(source);
+        source.close();
+        return source.toString();
+    }
+
+    private void collectParameters(final Element parent) throws UnsupportedDescriptorException {
+        for (Element item : children(parent)) {
+            switch (item.getNodeName()) {
+                case FIELD:
+                    fieldIndexes.put(item, fieldIndexes.size());
+                    if (item.hasAttribute("length_var")) {
+                        addParameter(item.getAttribute("length_var"));
+                    }
+                    break;
+                case LOOP:
+                    if (item.hasAttribute("counter")) {
+                        addParameter(item.getAttribute("counter"));
+                    } else if (item.hasAttribute("formula")) {
+                        expressions.put(item, parseExpression(item.getAttribute("formula")));
+                    }
+                    collectParameters(item);
+                    break;
+                case IF:
+                    expressions.put(item, parseExpression(item.getAttribute("cond")));
+                    collectParameters(item);
+                    break;
+                default:
+                    throw new UnsupportedDescriptorException("unexpected element " + item.getNodeName());
+            }
+        }
+    }
+
+    private int addParameter(final String name) {
+        if (!parameterIndexes.containsKey(name)) {
+            parameterIndexes.put(name, parameterIndexes.size());
+        }
+        return parameterIndexes.get(name);
+    }
+
+    /**
+     * Parse a condition or formula, adding the parameters it uses.
+     *
+     * @param expression the expression from the descriptor.
+     * @return the parsed expression.
+     * @throws UnsupportedDescriptorException if the expression cannot be parsed, so the interpreter would report an
+     * error for it.
+     */
+    private TreExpression parseExpression(final String expression) throws UnsupportedDescriptorException {
+        try {
+            return TreExpression.parse(expression, this::addParameter);
+        } catch (NitfFormatException ex) {
+            throw new UnsupportedDescriptorException(ex.getMessage());
+        }
+    }
+
+    private void collectParameterTypes(final Element parent) throws UnsupportedDescriptorException {
+        for (Element item : children(parent)) {
+            if (FIELD.equals(item.getNodeName())) {
+                String key = getFieldKey(item);
+                if ((key != null) && parameterIndexes.containsKey(key)) {
+                    String type = attribute(item, "type");
+                    if (parameterTypes.containsKey(key) && !equal(parameterTypes.get(key), type)) {
+                        throw new UnsupportedDescriptorException("parameter " + key + " has more than one type");
+                    }
+                    parameterTypes.put(key, type);
+                }
+            } else {
+                collectParameterTypes(item);
+            }
+        }
+    }
+
+    private void collectColumnLoops(final Element parent) throws UnsupportedDescriptorException {
+        for (Element item : children(parent)) {
+            if (LOOP.equals(item.getNodeName())) {
+                if (isColumnLoop(item)) {
+                    columnLoops.put(item, columnLoops.size());
+                }
+                collectColumnLoops(item);
+            } else if (IF.equals(item.getNodeName())) {
+                collectColumnLoops(item);
+            }
+        }
+    }
+
+    /**
+     * Check whether a loop could be held as columns, using the same rules as TreLayout.
+     * <p>
+     * The field types and lengths are checked when the column layout is created.
+     *
+     * @param loop the loop element from the descriptor.
+     * @return true if every item in the loop is a field that is not used as a parameter.
+     * @throws UnsupportedDescriptorException if a field has an empty name and no longname.
+     */
+    private boolean isColumnLoop(final Element loop) throws UnsupportedDescriptorException {
+        for (Element item : children(loop)) {
+            if (!FIELD.equals(item.getNodeName())) {
+                return false;
+            }
+            String key = getFieldKey(item);
+            if ((key == null) || parameterIndexes.containsKey(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeFieldDescriptors(final JavaSourceBuilder source) {
+        source.line("");
+        for (int index : fieldIndexes.values()) {
+            source.line("private static final FieldType FIELD_" + index + " = new FieldType();");
+        }
+        source.line("");
+        source.open("static");
+        for (Map.Entry<Element, Integer> field : fieldIndexes.entrySet()) {
+            String descriptor = "FIELD_" + field.getValue();
+            Element item = field.getKey();
+            setFieldProperty(source, descriptor, "Name", item, "name");
+            setFieldProperty(source, descriptor, "Longname", item, "longname");
+            if (item.hasAttribute("length")) {
+                source.line(descriptor + ".setLength(new BigInteger(" + literal(item.getAttribute("length").trim()) + "));");
+            }
+            setFieldProperty(source, descriptor, "LengthVar", item, "length_var");
+            setFieldProperty(source, descriptor, "Type", item, "type");
+            setFieldProperty(source, descriptor, "Unit", item, "unit");
+            setFieldProperty(source, descriptor, "Minval", item, "minval");
+            setFieldProperty(source, descriptor, "Maxval", item, "maxval");
+            setFieldProperty(source, descriptor, "FixedValue", item, "fixed_value");
+            setFieldProperty(source, descriptor, "Format", item, "format");
+        }
+        source.close();
+        source.line("");
+        for (int index : fieldIndexes.values()) {
+            source.line("private static final TreFieldWriter WRITER_" + index + " = new TreFieldWriter(FIELD_" + index + ");");
+        }
+        if (!columnLoops.isEmpty()) {
+            source.line("");
+        }
+        for (Map.Entry<Element, Integer> loop : columnLoops.entrySet()) {
+            List<String> fields = new ArrayList<>();
+            for (Element item : children(loop.getKey())) {
+                fields.add("FIELD_" + fieldIndexes.get(item));
+            }
+            source.line("private static final TreColumnLayout COLUMNS_" + loop.getValue() + " = TreColumnLayout.create("
+                    + String.join(", ", fields) + ");");
+        }
+    }
+
+    private void setFieldProperty(final JavaSourceBuilder source, final String descriptor, final String property,
+            final Element item, final String attributeName) {
+        if (item.hasAttribute(attributeName)) {
+            source.line(descriptor + ".set" + property + "(" + literal(item.getAttribute(attributeName)) + ");");
+        }
+    }
+
+    private void writeParser(final JavaSourceBuilder source) throws UnsupportedDescriptorException {
+        source.line("");
+        source.line("@Override");
+        source.open("TreGroupImpl parse(final TreBodyReader reader) throws NitfFormatException");
+        for (Map.Entry<String, Integer> parameter : parameterIndexes.entrySet()) {
+            source.line("String param" + parameter.getValue() + " = null; // " + parameter.getKey());
+        }
+        String group = newGroup(source);
+        writeParseItems(source, tre, group);
+        source.line("return " + group + ";");
+        source.close();
+    }
+
+    private String newGroup(final JavaSourceBuilder source) {
+        String group = "group" + nextGroup++;
+        source.line("TreGroupImpl " + group + " = new TreGroupImpl();");
+        return group;
+    }
+
+    private void writeParseItems(final JavaSourceBuilder source, final Element parent, final String group)
+            throws UnsupportedDescriptorException {
+        for (Element item : children(parent)) {
+            switch (item.getNodeName()) {
+                case FIELD:
+                    writeParseField(source, item, group);
+                    break;
+                case LOOP:
+                    writeParseLoop(source, item, group);
+                    break;
+                default:
+                    source.open("if (" + parseExpressions.writeCondition(expressions.get(item)) + ")");
+                    writeParseItems(source, item, group);
+                    source.close();
+                    break;
+            }
+        }
+    }
+
+    private void writeParseField(final JavaSourceBuilder source, final Element field, final String group)
+            throws UnsupportedDescriptorException {
+        String length = getLengthExpression(field);
+        String key = getFieldKey(field);
+        if (key == null) {
+            source.line("reader.skip(" + length + ");");
+        } else if (key.isEmpty()) {
+            source.line(group + ".add(reader.readEntry(\"no name\", " + length + ", " + literal(attribute(field, "type")) + "));");
+        } else if (parameterIndexes.containsKey(key)) {
+            String parameter = "param" + parameterIndexes.get(key);
+            source.line(parameter + " = reader.readString(" + length + ");");
+            source.line(group + ".add(new TreEntryImpl(" + literal(key) + ", " + parameter + ", "
+                    + literal(attribute(field, "type")) + "));");
+        } else {
+            source.line(group + ".add(reader.readEntry(" + literal(key) + ", " + length + ", " + literal(attribute(field, "type")) + "));");
+        }
+    }
+
+    private void writeParseLoop(final JavaSourceBuilder source, final Element loop, final String group)
+            throws UnsupportedDescriptorException {
+        int loopIndex = nextLoop++;
+        String count = "count" + loopIndex;
+        String entry = "loop" + loopIndex;
+        String counter = "i" + loopIndex;
+        String name = literal(attribute(loop, "name"));
+        source.line("int " + count + " = " + getIterationsExpression(loop) + ";");
+        boolean columns = columnLoops.containsKey(loop);
+        if (columns) {
+            writeReadColumns(source, loop, name, count, entry);
+            source.open("if (" + entry + " == null)");
+            source.line(entry + " = new TreEntryImpl(" + name + ");");
+        } else {
+            source.line("TreEntryImpl " + entry + " = new TreEntryImpl(" + name + ");");
+        }
+        source.open("for (int " + counter + " = 0; " + counter + " < " + count + "; ++" + counter + ")");
+        String subGroup = newGroup(source);
+        writeParseItems(source, loop, subGroup);
+        source.line(entry + ".addGroup(" + subGroup + ");");
+        source.close();
+        if (columns) {
+            source.close();
+        }
+        source.line(group + ".add(" + entry + ");");
+    }
+
+    private void writeReadColumns(final JavaSourceBuilder source, final Element loop, final String name, final String count,
+            final String entry) throws UnsupportedDescriptorException {
+        String columns = "COLUMNS_" + columnLoops.get(loop);
+        List<String> lengths = new ArrayList<>();
+        boolean fixedLengths = true;
+        for (Element field : children(loop)) {
+            lengths.add(getLengthExpression(field));
+            fixedLengths &= field.hasAttribute("length");
+        }
+        if (fixedLengths) {
+            source.line("TreEntryImpl " + entry + " = reader.readColumns(" + name + ", " + count + ", " + columns + ");");
+            return;
+        }
+        source.line("TreEntryImpl " + entry + " = null;");
+        source.open("if ((" + count + " > 0) && (" + columns + " != null))");
+        source.line(entry + " = reader.readColumns(" + name + ", " + count + ", " + columns + ".withLengths("
+                + String.join(", ", lengths) + "));");
+        source.close();
+    }
+
+    private void writeSerializer(final JavaSourceBuilder source) throws UnsupportedDescriptorException {
+        source.line("");
+        source.line("@Override");
+        source.open("void serialize(final TreGroup group, final TreWriteBuffer output, final TreParams params)"
+                + " throws NitfFormatException");
+        nextGroup = 0;
+        writeSerializeItems(source, tre, "group");
+        source.close();
+    }
+
+    private void writeSerializeItems(final JavaSourceBuilder source, final Element parent, final String group)
+            throws UnsupportedDescriptorException {
+        for (Element item : children(parent)) {
+            switch (item.getNodeName()) {
+                case FIELD:
+                    source.line("WRITER_" + fieldIndexes.get(item) + ".write(" + group + ", params, output);");
+                    break;
+                case LOOP:
+                    String subGroup = "subGroup" + nextGroup++;
+                    String loopEntry = group + ".getEntry(" + literal(attribute(item, "name")) + ")";
+                    if (columnLoops.containsKey(item)) {
+                        source.open("if (!TreParser.writeEncodedColumns(" + loopEntry + ", output))");
+                    }
+                    source.open("for (TreGroup " + subGroup + " : " + loopEntry + ".getGroups())");
+                    writeSerializeItems(source, item, subGroup);
+                    source.close();
+                    if (columnLoops.containsKey(item)) {
+                        source.close();
+                    }
+                    break;
+                default:
+                    source.open("if (" + serializeExpressions.writeCondition(expressions.get(item)) + ")");
+                    writeSerializeItems(source, item, group);
+                    source.close();
+                    break;
+            }
+        }
+    }
+
+    private String getLengthExpression(final Element field) throws UnsupportedDescriptorException {
+        if (field.hasAttribute("length")) {
+            return Integer.toString(new BigInteger(field.getAttribute("length").trim()).intValue());
+        } else if (field.hasAttribute("length_var")) {
+            return getIntValueExpression(field.getAttribute("length_var"));
+        }
+        throw new UnsupportedDescriptorException("field without length or length_var");
+    }
+
+    private String getIterationsExpression(final Element loop) throws UnsupportedDescriptorException {
+        if (loop.hasAttribute("iterations")) {
+            return Integer.toString(new BigInteger(loop.getAttribute("iterations").trim()).intValue());
+        } else if (loop.hasAttribute("counter")) {
+            return getIntValueExpression(loop.getAttribute("counter"));
+        } else if (loop.hasAttribute("formula")) {
+            return parseExpressions.writeInt(expressions.get(loop));
+        }
+        throw new UnsupportedDescriptorException("loop without iterations, counter or formula");
+    }
+
+    private String getIntValueExpression(final String name) {
+        String function = "intValue";
+        if ("UINT".equals(parameterTypes.get(name))) {
+            function = "uintValue";
+        }
+        return function + "(param" + parameterIndexes.get(name) + ", " + literal(name) + ")";
+    }
+
+    private String parsedValue(final String name) {
+        return "param" + parameterIndexes.get(name);
+    }
+
+    private String serializedIntValue(final String name) {
+        return "params.getIntValue(" + literal(name) + ")";
+    }
+
+    private String serializedValue(final String name) {
+        return "params.getFieldValue(" + literal(name) + ")";
+    }
+
+    private static String getFieldKey(final Element field) throws UnsupportedDescriptorException {
+        String key = attribute(field, "name");
+        if ((key != null) && key.isEmpty()) {
+            key = attribute(field, "longname");
+            if (key == null) {
+                throw new UnsupportedDescriptorException("field with an empty name and no longname");
+            }
+        }
+        return key;
+    }
+
+    private static String attribute(final Element element, final String name) {
+        if (element.hasAttribute(name)) {
+            return element.getAttribute(name);
+        }
+        return null;
+    }
+
+    private static boolean equal(final String a, final String b) {
+        if (a == null) {
+            return b == null;
+        }
+        return a.equals(b);
+    }
+
+    private static List<Element> children(final Element parent) {
+        List<Element> children = new ArrayList<>();
+        NodeList nodes = parent.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); ++i) {
+            if (nodes.item(i).getNodeType() == Node.ELEMENT_NODE) {
+                children.add((Element) nodes.item(i));
+            }
+        }
+        return children;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.tregen;
+
+import static org.codice.imaging.nitf.tregen.JavaSourceBuilder.literal;
+
+import java.util.function.Function;
+
+import org.codice.imaging.nitf.core.tre.TreExpression;
+import org.codice.imaging.nitf.core.tre.TreExpression.Operator;
+
+/**
+ * Writes the Java code for a parsed TRE descriptor expression.
+ * <p>
+ * The expressions come from the same parser that the interpreter uses (TreExpression.parse()), and the generated code
+ * evaluates them the same way as TreExpression does: operands from left to right, AND and OR short-circuit, division by
+ * zero and missing parameter values are errors, and booleans are 1 or 0 when used as numbers.
+ */
+final class ExpressionWriter implements TreExpression.Visitor<ExpressionWriter.Code> {
+
+    private final Function<String, String> intValue;
+
+    private final Function<String, String> textValue;
+
+    /**
+     * Constructor.
+     *
+     * @param intValueCode function that returns the code for the value of a named parameter as a number.
+     * @param textValueCode function that returns the code for the value of a named parameter as text.
+     */
+    ExpressionWriter(final Function<String, String> intValueCode, final Function<String, String> textValueCode) {
+        intValue = intValueCode;
+        textValue = textValueCode;
+    }
+
+    /**
+     * Write an expression that is used as a number.
+     *
+     * @param expression the parsed expression.
+     * @return the Java expression, of type int.
+     */
+    String writeInt(final TreExpression expression) {
+        return expression.accept(this).asInt();
+    }
+
+    /**
+     * Write an expression that is used as a condition.
+     *
+     * @param expression the parsed expression.
+     * @return the Java expression, of type boolean.
+     */
+    String writeCondition(final TreExpression expression) {
+        return expression.accept(this).asCondition();
+    }
+
+    @Override
+    public Code visitConstant(final int value) {
+        return Code.number(Integer.toString(value), value != 0);
+    }
+
+    @Override
+    public Code visitParameter(final String name, final int slot) {
+        return new Code(intValue.apply(name), null, textValue.apply(name), name);
+    }
+
+    @Override
+    public Code visitNegate(final TreExpression operand) {
+        return Code.number("(-" + operand.accept(this).asInt() + ")", false);
+    }
+
+    @Override
+    public Code visitArithmetic(final Operator operator, final TreExpression lhs, final TreExpression rhs) {
+        Code left = lhs.accept(this);
+        Code right = rhs.accept(this);
+        switch (operator) {
+            case ADD:
+                return Code.number("(" + left.asInt() + " + " + right.asInt() + ")", false);
+            case SUBTRACT:
+                return Code.number("(" + left.asInt() + " - " + right.asInt() + ")", false);
+            case MULTIPLY:
+                return Code.number("(" + left.asInt() + " * " + right.asInt() + ")", false);
+            case DIVIDE:
+                if (right.nonZeroConstant) {
+                    return Code.number("(" + left.asInt() + " / " + right.asInt() + ")", false);
+                }
+                return Code.number("divide(" + left.asInt() + ", " + right.asInt() + ")", false);
+            case REMAINDER:
+                if (right.nonZeroConstant) {
+                    return Code.number("(" + left.asInt() + " % " + right.asInt() + ")", false);
+                }
+                return Code.number("remainder(" + left.asInt() + ", " + right.asInt() + ")", false);
+            default:
+                throw new IllegalArgumentException("Unsupported arithmetic operator " + operator);
+        }
+    }
+
+    @Override
+    public Code visitNumericComparison(final Operator operator, final TreExpression lhs, final TreExpression rhs) {
+        String left = lhs.accept(this).asInt();
+        String right = rhs.accept(this).asInt();
+        switch (operator) {
+            case EQUAL:
+                return Code.condition("(" + left + " == " + right + ")");
+            case NOT_EQUAL:
+                return Code.condition("(" + left + " != " + right + ")");
+            case LESS:
+                return Code.condition("(" + left + " < " + right + ")");
+            case LESS_OR_EQUAL:
+                return Code.condition("(" + left + " <= " + right + ")");
+            case GREATER:
+                return Code.condition("(" + left + " > " + right + ")");
+            case GREATER_OR_EQUAL:
+                return Code.condition("(" + left + " >= " + right + ")");
+            default:
+                throw new IllegalArgumentException("Unsupported comparison operator " + operator);
+        }
+    }
+
+    @Override
+    public Code visitTextComparison(final boolean equal, final TreExpression lhs, final String text) {
+        String comparison = literal(text) + ".equals(" + lhs.accept(this).asText() + ")";
+        if (equal) {
+            return Code.condition(comparison);
+        }
+        return Code.condition("!" + comparison);
+    }
+
+    @Override
+    public Code visitEmptyTest(final boolean empty, final TreExpression operand) {
+        Code value = operand.accept(this);
+        String test = value.asText() + ".trim().isEmpty()";
+        if (value.parameterName != null) {
+            test = "isEmpty(" + value.asText() + ", " + literal(value.parameterName) + ")";
+        }
+        if (empty) {
+            return Code.condition(test);
+        }
+        return Code.condition("!" + test);
+    }
+
+    @Override
+    public Code visitAnd(final TreExpression lhs, final TreExpression rhs) {
+        return Code.condition("(" + lhs.accept(this).asCondition() + " && " + rhs.accept(this).asCondition() + ")");
+    }
+
+    @Override
+    public Code visitOr(final TreExpression lhs, final TreExpression rhs) {
+        return Code.condition("(" + lhs.accept(this).asCondition() + " || " + rhs.accept(this).asCondition() + ")");
+    }
+
+    @Override
+    public Code visitNot(final TreExpression operand) {
+        return Code.condition("!" + operand.accept(this).asCondition());
+    }
+
+    @Override
+    public Code visitInvalid(final String message) {
+        // TreExpression.parse() reports errors instead of returning invalid expressions.
+        throw new IllegalArgumentException(message);
+    }
+
+    /**
+     * The code for part of an expression, as a number, a condition, or a parameter (which can be used as either, or as
+     * text).
+     */
+    static final class Code {
+        private final String number;
+        private final String condition;
+        private final String text;
+        private final String parameterName;
+        private final boolean nonZeroConstant;
+
+        private Code(final String numberCode, final String conditionCode, final String textCode, final String name) {
+            this(numberCode, conditionCode, textCode, name, false);
+        }
+
+        private Code(final String numberCode, final String conditionCode, final String textCode, final String name,
+                final boolean isNonZeroConstant) {
+            number = numberCode;
+            condition = conditionCode;
+            text = textCode;
+            parameterName = name;
+            nonZeroConstant = isNonZeroConstant;
+        }
+
+        private static Code number(final String numberCode, final boolean isNonZeroConstant) {
+            return new Code(numberCode, null, null, null, isNonZeroConstant);
+        }
+
+        private static Code condition(final String conditionCode) {
+            return new Code(null, conditionCode, null, null);
+        }
+
+        private String asInt() {
+            if (number == null) {
+                return "toInt(" + condition + ")";
+            }
+            return number;
+        }
+
+        private String asCondition() {
+            if (condition == null) {
+                return "(" + number + " != 0)";
+            }
+            return condition;
+        }
+
+        private String asText() {
+            if (text == null) {
+                return "Integer.toString(" + asInt() + ")";
+            }
+            return text;
+        }
+    }
+}
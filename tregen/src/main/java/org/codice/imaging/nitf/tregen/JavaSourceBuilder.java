@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.tregen;
+
+/**
+ * Minimal helper for writing indented Java source.
+ */
+final class JavaSourceBuilder {
+
+    private static final String INDENT = "    ";
+
+    private static final int FIRST_PRINTABLE = 0x20;
+
+    private static final int LAST_PRINTABLE = 0x7E;
+
+    private final StringBuilder source = new StringBuilder();
+
+    private int depth = 0;
+
+    /**
+     * Add a line at the current indentation level.
+     *
+     * @param text the line, without the line ending.
+     */
+    void line(final String text) {
+        if (!text.isEmpty()) {
+            for (int i = 0; i < depth; ++i) {
+                source.append(INDENT);
+            }
+            source.append(text);
+        }
+        source.append('\n');
+    }
+
+    /**
+     * Start a block.
+     *
+     * @param header the statement or declaration before the opening brace.
+     */
+    void open(final String header) {
+        line(header + " {");
+        depth++;
+    }
+
+    /**
+     * End the innermost block.
+     */
+    void close() {
+        depth--;
+        line("}");
+    }
+
+    @Override
+    public String toString() {
+        return source.toString();
+    }
+
+    /**
+     * Convert a string to a Java string literal.
+     *
+     * @param value the string, which may be null.
+     * @return the literal, including the quotes, or "null".
+     */
+    static String literal(final String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if ((c == '"') || (c == '\\')) {
+                literal.append('\\').append(c);
+            } else if ((c < FIRST_PRINTABLE) || (c > LAST_PRINTABLE)) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.tregen;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Build-time generator for compiled TRE parsers.
+ * <p>
+ * This reads the TRE descriptors (nitf_spec.xml) and writes one Java class per TRE, with the field reads, loops and
+ * conditions of the descriptor turned into straight-line code. It also writes a CompiledTres class that maps TRE tags
+ * to the generated classes. The generated classes are placed in the core TRE implementation package, and are used by
+ * TreParser in place of the descriptor interpreter.
+ * <p>
+ * Descriptors that use constructs the generator does not handle are left to the interpreter.
+ */
+public final class TreParserGenerator {
+
+    static final String TARGET_PACKAGE = "org.codice.imaging.nitf.core.tre.impl";
+
+    private static final String REGISTRY_CLASS_NAME = "CompiledTres";
+
+    private static final int NUM_ARGUMENTS = 2;
+
+    private TreParserGenerator() {
+    }
+
+    /**
+     * Generate the compiled TRE parsers.
+     *
+     * @param args the TRE descriptor file, and the directory to write the generated sources to.
+     * @throws IOException if the descriptors could not be read, or the sources could not be written.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != NUM_ARGUMENTS) {
+            throw new IllegalArgumentException("Usage: TreParserGenerator <nitf_spec.xml> <output directory>");
+        }
+        Document descriptors = readDescriptors(new File(args[0]));
+        Path packageDirectory = new File(args[1]).toPath().resolve(TARGET_PACKAGE.replace('.', File.separatorChar));
+        Files.createDirectories(packageDirectory);
+
+        Map<String, String> compiledTres = new LinkedHashMap<>();
+        NodeList tres = descriptors.getDocumentElement().getChildNodes();
+        for (int i = 0; i < tres.getLength(); ++i) {
+            Node node = tres.item(i);
+            if ((node.getNodeType() != Node.ELEMENT_NODE) || (!"tre".equals(node.getNodeName()))) {
+                continue;
+            }
+            Element tre = (Element) node;
+            String tag = tre.getAttribute("name");
+            if (compiledTres.containsKey(tag)) {
+                // Only the first descriptor for a tag is used at runtime.
+                continue;
+            }
+            String className = "CompiledTre" + tag.replaceAll("[^A-Za-z0-9]", "_");
+            try {
+                String source = new CompiledTreWriter(tre, className).write();
+                writeSource(packageDirectory.resolve(className + ".java"), source);
+                compiledTres.put(tag, className);
+            } catch (UnsupportedDescriptorException ex) {
+                System.out.println("Not compiling TRE " + tag + ", using interpreter: " + ex.getMessage());
+            }
+        }
+        writeSource(packageDirectory.resolve(REGISTRY_CLASS_NAME + ".java"), writeRegistry(compiledTres));
+        System.out.println("Generated " + compiledTres.size() + " compiled TRE parsers in " + packageDirectory);
+    }
+
+    private static Document readDescriptors(final File descriptorFile) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setIgnoringComments(true);
+            return factory.newDocumentBuilder().parse(descriptorFile);
+        } catch (ParserConfigurationException | SAXException ex) {
+            throw new IOException("Could not read TRE descriptors from " + descriptorFile, ex);
+        }
+    }
+
+    private static void writeSource(final Path file, final String source) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(source);
+        }
+    }
+
+    private static String writeRegistry(final Map<String, String> compiledTres) {
+        JavaSourceBuilder source = new JavaSourceBuilder();
+        source.line("package " + TARGET_PACKAGE + ";");
+        source.line("");
+        source.line("import java.util.HashMap;");
+        source.line("import java.util.Map;");
+        source.line("");
+        source.line("/**");
+        source.line(" * Compiled TRE parsers, by TRE tag.");
+        source.line(" * <p>");
+        source.line(" * Generated by TreParserGenerator from nitf_spec.xml - do not edit.");
+        source.line(" */");
+        source.open("final class " + REGISTRY_CLASS_NAME);
+        source.line("");
+        source.line("private static final Map<String, CompiledTre> COMPILED_TRES = new HashMap<>();");
+        source.line("");
+        source.open("static");
+        for (Map.Entry<String, String> compiledTre : compiledTres.entrySet()) {
+            source.line("COMPILED_TRES.put(" + JavaSourceBuilder.literal(compiledTre.getKey()) + ", new "
+                    + compiledTre.getValue() + "());");
+        }
+        source.close();
+        source.line("");
+        source.open("private " + REGISTRY_CLASS_NAME + "()");
+        source.close();
+        source.line("");
+        source.open("static CompiledTre get(final String tag)");
+        source.line("return COMPILED_TRES.get(tag);");
+        source.close();
+        source.close();
+        return source.toString();
+    }
+}
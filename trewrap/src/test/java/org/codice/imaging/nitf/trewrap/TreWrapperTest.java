@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.trewrap;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import javax.xml.transform.stream.StreamSource;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.impl.TreDescriptorRegistry;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+/**
+ * Tests for the shared TreWrapper behaviour.
+ */
+public class TreWrapperTest extends SharedTreTestSupport {
+
+    private static final String TAG = "TSTWRP";
+
+    private static final String TST_WRP = "<?xml version=\"1.0\"?><tres><tre name=\"TSTWRP\" location=\"image\">"
+            + "<field name=\"VALUE\" length=\"5\"/></tre></tres>";
+
+    private static final String ACFTB_DATA = "ACFTB 00207FOOLS_MATE          0000000001201411030748HHFRACESHY00000002014110300000000000005+33.36200000+044.35100000000.00+22555f+33.36500000+044.35100000+23555045.0000000000u0000000u999.990000010001.00201411030000000";
+
+    public TreWrapperTest() {
+    }
+
+    @Test
+    public void testSerializeUsesGlobalDescriptorsAddedLater() throws NitfFormatException {
+        ACFTB acftb = new ACFTB(parseTRE(ACFTB_DATA, "ACFTB "));
+        assertThat(new String(acftb.serialize(), StandardCharsets.US_ASCII), is(ACFTB_DATA.substring(11)));
+
+        TreDescriptorRegistry.addGlobalDescriptors(new StreamSource(new StringReader(TST_WRP)));
+        TestWrapper wrapper = new TestWrapper(parseTRE(TAG + "00005HELLO", TAG));
+        assertThat(new String(wrapper.serialize(), StandardCharsets.US_ASCII), is("HELLO"));
+    }
+
+    private static class TestWrapper extends TreWrapper {
+
+        TestWrapper(final Tre tre) throws NitfFormatException {
+            super(tre, TAG);
+        }
+
+        @Override
+        public ValidityResult getValidity() throws NitfFormatException {
+            return new ValidityResult();
+        }
+    }
+}